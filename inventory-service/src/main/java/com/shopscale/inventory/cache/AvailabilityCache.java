@@ -0,0 +1,75 @@
+package com.shopscale.inventory.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Short-lived, per-instance cache of available quantities for availability checks.
+ *
+ * <p>Writes made through this instance refresh their entry once the transaction commits;
+ * writes made by other instances show up when the entry expires, so a check may be up to
+ * {@code inventory.availability-cache.ttl} stale. Reservations always re-check under the
+ * row lock, so a stale answer can never oversell. Disabled by default.
+ */
+@Component
+public class AvailabilityCache {
+
+    private final Cache<String, Integer> cache;
+
+    public AvailabilityCache(@Value("${inventory.availability-cache.enabled:false}") boolean enabled,
+                             @Value("${inventory.availability-cache.ttl:1s}") Duration ttl,
+                             @Value("${inventory.availability-cache.maximum-size:100000}") long maximumSize,
+                             MeterRegistry meterRegistry) {
+        if (enabled) {
+            this.cache = Caffeine.newBuilder()
+                    .maximumSize(maximumSize)
+                    .expireAfterWrite(ttl)
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, "inventory-availability");
+        } else {
+            this.cache = null;
+        }
+    }
+
+    /**
+     * The product's available quantity, loaded on a miss; empty when the product has no
+     * inventory, which is not cached. Concurrent misses for one product share one load.
+     */
+    public Optional<Integer> getAvailableQuantity(String productId, Function<String, Optional<Integer>> loader) {
+        if (cache == null) {
+            return loader.apply(productId);
+        }
+        return Optional.ofNullable(cache.get(productId, id -> loader.apply(id).orElse(null)));
+    }
+
+    /**
+     * Record the quantity written by the current transaction once it commits, or now when
+     * there is no transaction. A rolled-back write leaves the cache untouched.
+     */
+    public void update(String productId, int availableQuantity) {
+        if (cache == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache.put(productId, availableQuantity);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.put(productId, availableQuantity);
+            }
+        });
+    }
+}
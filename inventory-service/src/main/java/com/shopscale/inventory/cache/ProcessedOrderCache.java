@@ -0,0 +1,62 @@
+package com.shopscale.inventory.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Bounded, per-instance set of order IDs this instance recently processed, in front of
+ * {@code processed_order_events}.
+ *
+ * <p>A hit answers a redelivery without touching the database. A miss proves nothing: the
+ * order may have been processed by another instance before a rebalance, or evicted here. So
+ * a miss falls through to the conditional insert that records the order, which the
+ * reservation writes anyway.
+ */
+@Component
+public class ProcessedOrderCache {
+
+    private final Cache<String, Boolean> cache;
+
+    public ProcessedOrderCache(@Value("${inventory.processed-orders.maximum-size:100000}") long maximumSize,
+                               MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "inventory-processed-orders");
+    }
+
+    /**
+     * Whether this instance recently committed the order as processed
+     */
+    public boolean contains(String orderId) {
+        return cache.getIfPresent(orderId) != null;
+    }
+
+    /**
+     * Remember orders the current transaction records as processed once it commits, or now
+     * when there is no transaction
+     */
+    public void addAll(Collection<String> orderIds) {
+        List<String> ids = List.copyOf(orderIds);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            ids.forEach(orderId -> cache.put(orderId, Boolean.TRUE));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                ids.forEach(orderId -> cache.put(orderId, Boolean.TRUE));
+            }
+        });
+    }
+}
@@ -2,33 +2,73 @@ package com.shopscale.inventory.config;
 
 import com.shopscale.inventory.event.InventoryUpdatedEvent;
 import com.shopscale.inventory.event.OrderPlacedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.DelegatingByTypeSerializer;
 import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
 import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.support.ExponentialBackOffWithMaxRetries;
 
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @Configuration
 @EnableKafka
 public class KafkaConfig {
 
+    static final String DEAD_LETTER_TOPIC = "order-placed.DLT";
+
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
     @Value("${spring.kafka.consumer.group-id}")
     private String groupId;
 
+    @Value("${inventory.order-events.batch.max-poll-records:500}")
+    private int batchMaxPollRecords;
+
+    @Value("${inventory.order-events.batch.linger:100ms}")
+    private Duration batchLinger;
+
+    @Value("${inventory.order-events.batch.fetch-min-bytes:65536}")
+    private int batchFetchMinBytes;
+
+    @Value("${inventory.order-events.batch.concurrency:3}")
+    private int batchConcurrency;
+
+    @Value("${inventory.order-events.batch.retry.initial-interval:1s}")
+    private Duration batchRetryInitialInterval;
+
+    @Value("${inventory.order-events.batch.retry.max-interval:30s}")
+    private Duration batchRetryMaxInterval;
+
+    @Value("${inventory.order-events.batch.retry.max-retries:8}")
+    private int batchRetryMaxRetries;
+
+    @Value("${inventory.order-events.dead-letter.partitions:1}")
+    private int deadLetterPartitions;
+
     // Consumer Configuration
     @Bean
     public ConsumerFactory<String, OrderPlacedEvent> consumerFactory() {
@@ -57,6 +97,88 @@ public class KafkaConfig {
         return factory;
     }
 
+    /**
+     * Consumer for the batch listener: up to {@code max-poll-records} orders per poll, the
+     * broker holding a fetch for up to {@code linger} until {@code fetch-min-bytes} are ready
+     */
+    @Bean
+    public ConsumerFactory<String, OrderPlacedEvent> batchConsumerFactory(MeterRegistry meterRegistry) {
+        Map<String, Object> config = new HashMap<>(consumerFactory().getConfigurationProperties());
+        config.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, batchMaxPollRecords);
+        config.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, (int) batchLinger.toMillis());
+        config.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, batchFetchMinBytes);
+
+        DefaultKafkaConsumerFactory<String, OrderPlacedEvent> factory = new DefaultKafkaConsumerFactory<>(config);
+        // Publishes the client metrics, including kafka.consumer.fetch.manager.records.lag.max
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return factory;
+    }
+
+    /**
+     * Delivers each poll as one list, acknowledged once the whole batch is committed
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, OrderPlacedEvent> batchKafkaListenerContainerFactory(
+            MeterRegistry meterRegistry) {
+        ConcurrentKafkaListenerContainerFactory<String, OrderPlacedEvent> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(batchConsumerFactory(meterRegistry));
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        factory.getContainerProperties().setMicrometerEnabled(true);
+        factory.setCommonErrorHandler(batchErrorHandler());
+        factory.setConcurrency(batchConcurrency);
+        return factory;
+    }
+
+    /**
+     * Retries a failed record with exponential backoff, then publishes it to {@code order-placed.DLT}.
+     * The batch listener names the failing record, so the records before it are committed
+     * and only that one is retried; already reserved orders are skipped on redelivery.
+     */
+    private DefaultErrorHandler batchErrorHandler() {
+        ExponentialBackOffWithMaxRetries backOff = new ExponentialBackOffWithMaxRetries(batchRetryMaxRetries);
+        backOff.setInitialInterval(batchRetryInitialInterval.toMillis());
+        backOff.setMultiplier(2.0);
+        backOff.setMaxInterval(batchRetryMaxInterval.toMillis());
+        DeadLetterPublishingRecoverer recoverer =
+                new DeadLetterPublishingRecoverer(deadLetterKafkaTemplate(), KafkaConfig::deadLetterDestination);
+        return new DefaultErrorHandler(recoverer, backOff);
+    }
+
+    /**
+     * Dead letters keep the failed record's key, so a negative partition lets the producer
+     * partition them by key whatever the dead-letter topic's partition count
+     */
+    static TopicPartition deadLetterDestination(ConsumerRecord<?, ?> record, Exception exception) {
+        return new TopicPartition(DEAD_LETTER_TOPIC, -1);
+    }
+
+    /**
+     * Created at startup if missing; keep {@code partitions} equal to {@code order-placed}'s
+     * so dead letters spread the same way
+     */
+    @Bean
+    public NewTopic orderPlacedDeadLetterTopic() {
+        return TopicBuilder.name(DEAD_LETTER_TOPIC).partitions(deadLetterPartitions).build();
+    }
+
+    /**
+     * Republishes failed order-placed records: events as JSON, and records that could not
+     * be deserialized as their original bytes
+     */
+    @Bean
+    public KafkaTemplate<String, Object> deadLetterKafkaTemplate() {
+        Map<Class<?>, Serializer<?>> serializers = new LinkedHashMap<>();
+        serializers.put(byte[].class, new ByteArraySerializer());
+        serializers.put(Object.class, new JsonSerializer<>());
+
+        Map<String, Object> config = new HashMap<>(producerFactory().getConfigurationProperties());
+        DefaultKafkaProducerFactory<String, Object> factory = new DefaultKafkaProducerFactory<>(config,
+                new StringSerializer(), new DelegatingByTypeSerializer(serializers, true));
+        return new KafkaTemplate<>(factory);
+    }
+
     // Producer Configuration
     @Bean
     public ProducerFactory<String, InventoryUpdatedEvent> producerFactory() {
@@ -83,6 +83,16 @@ public class InventoryController {
         return ResponseEntity.ok().build();
     }
 
+    /**
+     * Release everything reserved for an order (e.g., when it is cancelled)
+     */
+    @PostMapping("/orders/{orderId}/release")
+    public ResponseEntity<Void> releaseOrder(@PathVariable String orderId) {
+        log.info("Releasing inventory for order: {}", orderId);
+        boolean released = inventoryService.releaseOrder(orderId);
+        return released ? ResponseEntity.ok().build() : ResponseEntity.notFound().build();
+    }
+
     private InventoryResponse toResponse(InventoryItem item) {
         return new InventoryResponse(
                 item.getProductId(),
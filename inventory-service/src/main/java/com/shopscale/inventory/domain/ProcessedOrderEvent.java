@@ -0,0 +1,45 @@
+package com.shopscale.inventory.domain;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * An order event whose reservation was committed; redeliveries of it are skipped
+ */
+@Entity
+@Table(name = "processed_order_events")
+public class ProcessedOrderEvent {
+
+    @Id
+    @Column(name = "order_id", length = 36)
+    private String orderId;
+
+    @Column(name = "processed_at", nullable = false, updatable = false)
+    private LocalDateTime processedAt;
+
+    // Constructors
+    public ProcessedOrderEvent() {
+    }
+
+    public ProcessedOrderEvent(String orderId, LocalDateTime processedAt) {
+        this.orderId = orderId;
+        this.processedAt = processedAt;
+    }
+
+    // Getters and Setters
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(String orderId) {
+        this.orderId = orderId;
+    }
+
+    public LocalDateTime getProcessedAt() {
+        return processedAt;
+    }
+
+    public void setProcessedAt(LocalDateTime processedAt) {
+        this.processedAt = processedAt;
+    }
+}
@@ -0,0 +1,162 @@
+package com.shopscale.inventory.listener;
+
+import com.shopscale.inventory.event.OrderItemEvent;
+import com.shopscale.inventory.event.OrderPlacedEvent;
+import com.shopscale.inventory.service.BatchReservation;
+import com.shopscale.inventory.service.InventoryService;
+import com.shopscale.inventory.service.OrderLines;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Kafka listener for OrderPlacedEvent in batch mode, enabled by
+ * {@code inventory.order-events.batch.enabled}. Each poll is reserved in one transaction and
+ * its offsets are committed once the whole batch is. If that transaction fails the orders are
+ * reserved one at a time, and the first one that still fails is reported to the error handler,
+ * which commits the orders before it and retries, then dead-letters, only that one.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.order-events.batch.enabled", havingValue = "true")
+public class OrderEventBatchListener {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderEventBatchListener.class);
+
+    private final InventoryService inventoryService;
+
+    private final Timer batchDuration;
+    private final DistributionSummary batchSize;
+    private final Timer eventAge;
+    private final Map<BatchReservation.Outcome, Counter> outcomeCounters =
+            new EnumMap<>(BatchReservation.Outcome.class);
+    private final Counter invalidCounter;
+
+    public OrderEventBatchListener(InventoryService inventoryService, MeterRegistry meterRegistry) {
+        this.inventoryService = inventoryService;
+        this.batchDuration = Timer.builder("inventory.order.batch.duration")
+                .description("Time to reserve one polled batch of order events")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("inventory.order.batch.size")
+                .description("Order events per polled batch")
+                .register(meterRegistry);
+        this.eventAge = Timer.builder("inventory.order.event.age")
+                .description("Time from an order event being produced to its batch being consumed")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        for (BatchReservation.Outcome outcome : BatchReservation.Outcome.values()) {
+            outcomeCounters.put(outcome, outcomeCounter(meterRegistry, outcome.name().toLowerCase()));
+        }
+        this.invalidCounter = outcomeCounter(meterRegistry, "invalid");
+    }
+
+    /**
+     * Reserve inventory for every order of a poll at once
+     */
+    @KafkaListener(
+            topics = "order-placed",
+            groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = "batchKafkaListenerContainerFactory"
+    )
+    public void handleOrderPlacedBatch(List<ConsumerRecord<String, OrderPlacedEvent>> records) {
+        log.info("Received batch of {} OrderPlacedEvents", records.size());
+
+        batchSize.record(records.size());
+        long now = System.currentTimeMillis();
+        List<OrderLines> orders = new ArrayList<>(records.size());
+        List<ConsumerRecord<String, OrderPlacedEvent>> sources = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, OrderPlacedEvent> record : records) {
+            eventAge.record(Duration.ofMillis(Math.max(0, now - record.timestamp())));
+            OrderLines order = toOrderLines(record);
+            if (order != null) {
+                orders.add(order);
+                sources.add(record);
+            }
+        }
+
+        BatchReservation batch;
+        try {
+            batch = batchDuration.record(() -> inventoryService.reserveOrders(orders));
+        } catch (RuntimeException e) {
+            log.warn("Batch reservation failed, reserving {} orders one at a time: {}", orders.size(), e.getMessage());
+            reserveEach(orders, sources);
+            return;
+        }
+        for (int i = 0; i < orders.size(); i++) {
+            recordOutcome(orders.get(i), batch.outcomes().get(i));
+        }
+        log.info("Successfully processed batch: events={}, reserved={}", records.size(), batch.reserved().size());
+    }
+
+    /**
+     * Reserve each order in its own transaction, in offset order
+     *
+     * @throws BatchListenerFailedException naming the record of the first order that fails
+     */
+    private void reserveEach(List<OrderLines> orders, List<ConsumerRecord<String, OrderPlacedEvent>> sources) {
+        for (int i = 0; i < orders.size(); i++) {
+            OrderLines order = orders.get(i);
+            try {
+                recordOutcome(order, inventoryService.reserveOrders(List.of(order)).outcomes().get(0));
+            } catch (RuntimeException e) {
+                throw new BatchListenerFailedException("Could not reserve order " + order.orderId(), e, sources.get(i));
+            }
+        }
+    }
+
+    private void recordOutcome(OrderLines order, BatchReservation.Outcome outcome) {
+        outcomeCounters.get(outcome).increment();
+        if (outcome != BatchReservation.Outcome.RESERVED) {
+            log.info("Order not reserved: orderId={}, outcome={}", order.orderId(), outcome);
+        }
+    }
+
+    /**
+     * The order's quantities per product, the same product possibly appearing on several
+     * lines; null, after logging, when the event cannot be reserved however often it is retried
+     */
+    private OrderLines toOrderLines(ConsumerRecord<String, OrderPlacedEvent> record) {
+        OrderPlacedEvent event = record.value();
+        if (event == null || event.getItems() == null
+                || event.getItems().stream().anyMatch(item -> item == null || item.getProductId() == null
+                        || item.getQuantity() == null)) {
+            log.error("Invalid order event: partition={}, offset={}", record.partition(), record.offset());
+            invalidCounter.increment();
+            return null;
+        }
+        try {
+            SortedMap<String, Integer> quantities = event.getItems().stream()
+                    .collect(Collectors.toMap(OrderItemEvent::getProductId, OrderItemEvent::getQuantity,
+                            Integer::sum, TreeMap::new));
+            return new OrderLines(event.getOrderId(), quantities);
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid order event: orderId={}, error={}", event.getOrderId(), e.getMessage());
+            invalidCounter.increment();
+            return null;
+        }
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("inventory.order.events")
+                .tag("result", result)
+                .description("Order events consumed, by outcome")
+                .register(meterRegistry);
+    }
+}
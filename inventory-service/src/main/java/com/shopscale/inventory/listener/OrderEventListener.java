@@ -5,8 +5,11 @@ import com.shopscale.inventory.event.OrderPlacedEvent;
 import com.shopscale.inventory.exception.InsufficientInventoryException;
 import com.shopscale.inventory.exception.InventoryNotFoundException;
 import com.shopscale.inventory.service.InventoryService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.kafka.support.KafkaHeaders;
@@ -14,19 +17,29 @@ import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Component;
 
+import java.util.Map;
+import java.util.stream.Collectors;
+
 /**
  * Kafka listener for OrderPlacedEvent
- * Consumes events from order-placed topic and updates inventory
+ * Consumes events from order-placed topic and updates inventory, one at a time unless
+ * {@link OrderEventBatchListener} is enabled
  */
 @Component
+@ConditionalOnProperty(name = "inventory.order-events.batch.enabled", havingValue = "false", matchIfMissing = true)
 public class OrderEventListener {
 
     private static final Logger log = LoggerFactory.getLogger(OrderEventListener.class);
 
     private final InventoryService inventoryService;
 
-    public OrderEventListener(InventoryService inventoryService) {
+    private final Counter reservedCounter;
+    private final Counter duplicateCounter;
+
+    public OrderEventListener(InventoryService inventoryService, MeterRegistry meterRegistry) {
         this.inventoryService = inventoryService;
+        this.reservedCounter = outcomeCounter(meterRegistry, "reserved");
+        this.duplicateCounter = outcomeCounter(meterRegistry, "duplicate");
     }
 
     /**
@@ -66,6 +79,11 @@ public class OrderEventListener {
             // Acknowledge to skip this message (not enough inventory)
             acknowledgment.acknowledge();
             
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid order event: orderId={}, error={}", event.getOrderId(), e.getMessage());
+            // Acknowledge to skip this message (retrying cannot fix it)
+            acknowledgment.acknowledge();
+            
         } catch (Exception e) {
             log.error("Error processing OrderPlacedEvent: orderId={}, error={}", 
                     event.getOrderId(), e.getMessage(), e);
@@ -75,7 +93,8 @@ public class OrderEventListener {
     }
 
     /**
-     * Process the order event by reserving inventory for each item
+     * Process the order event by reserving inventory for all items at once: either every
+     * item is reserved or, when one is missing or short, none is
      */
     private void processOrderEvent(OrderPlacedEvent event) {
         log.debug("Processing order items for orderId={}", event.getOrderId());
@@ -85,30 +104,24 @@ public class OrderEventListener {
             return;
         }
         
-        // Reserve inventory for each item in the order
-        for (OrderItemEvent item : event.getItems()) {
-            try {
-                log.debug("Reserving inventory: productId={}, quantity={}", 
-                        item.getProductId(), item.getQuantity());
-                
-                inventoryService.reserveInventory(item.getProductId(), item.getQuantity());
-                
-                log.info("Reserved inventory: orderId={}, productId={}, quantity={}", 
-                        event.getOrderId(), item.getProductId(), item.getQuantity());
-                
-            } catch (InventoryNotFoundException e) {
-                log.error("Product not found in inventory: orderId={}, productId={}", 
-                        event.getOrderId(), item.getProductId());
-                throw e;
-                
-            } catch (InsufficientInventoryException e) {
-                log.error("Insufficient inventory: orderId={}, productId={}, requested={}", 
-                        event.getOrderId(), item.getProductId(), item.getQuantity());
-                throw e;
-            }
-        }
+        // The same product may appear on several lines
+        Map<String, Integer> quantities = event.getItems().stream()
+                .collect(Collectors.toMap(OrderItemEvent::getProductId, OrderItemEvent::getQuantity, Integer::sum));
         
-        log.info("Completed inventory reservation for order: orderId={}, itemCount={}", 
-                event.getOrderId(), event.getItems().size());
+        if (inventoryService.reserveOrder(event.getOrderId(), quantities)) {
+            reservedCounter.increment();
+            log.info("Completed inventory reservation for order: orderId={}, itemCount={}", 
+                    event.getOrderId(), event.getItems().size());
+        } else {
+            duplicateCounter.increment();
+            log.info("Inventory already reserved for redelivered order: orderId={}", event.getOrderId());
+        }
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("inventory.order.events")
+                .tag("result", result)
+                .description("Order events consumed, by outcome")
+                .register(meterRegistry);
     }
 }
@@ -3,20 +3,41 @@ package com.shopscale.inventory.repository;
 import com.shopscale.inventory.domain.InventoryItem;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import jakarta.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface InventoryRepository extends JpaRepository<InventoryItem, Long> {
+public interface InventoryRepository extends JpaRepository<InventoryItem, Long>, InventoryRepositoryCustom {
+
+    /**
+     * Find inventory item by product ID without locking, for reads
+     */
+    Optional<InventoryItem> findByProductId(String productId);
 
     /**
      * Find inventory item by product ID with pessimistic write lock
-     * to prevent concurrent modification issues
+     * to prevent concurrent modification issues. Only for mutations that
+     * {@link InventoryRepositoryCustom} cannot express, inside a transaction.
      */
     @Lock(LockModeType.PESSIMISTIC_WRITE)
-    Optional<InventoryItem> findByProductId(String productId);
+    Optional<InventoryItem> findForUpdateByProductId(String productId);
+
+    /**
+     * Available quantity of a product, read without locking or loading the entity
+     */
+    @Query("select i.availableQuantity from InventoryItem i where i.productId = :productId")
+    Optional<Integer> findAvailableQuantityByProductId(@Param("productId") String productId);
+
+    /**
+     * Find inventory items of several products, without locking
+     */
+    List<InventoryItem> findByProductIdIn(Collection<String> productIds);
 
     /**
      * Check if inventory exists for a product
@@ -0,0 +1,54 @@
+package com.shopscale.inventory.repository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.SortedMap;
+import java.util.SortedSet;
+
+/**
+ * Quantity changes made by one conditional UPDATE each, so the row is locked only for
+ * that statement instead of across a locking read, a check and a flush.
+ * Each returns the new available quantity, or empty when no row matched: the product has
+ * no inventory or too little of the quantity being moved.
+ */
+public interface InventoryRepositoryCustom {
+
+    /**
+     * Move quantity from available to reserved if enough is available
+     */
+    OptionalInt reserve(String productId, int quantity);
+
+    /**
+     * Move quantity from reserved back to available if enough is reserved
+     */
+    OptionalInt release(String productId, int quantity);
+
+    /**
+     * Remove quantity from available if enough is available
+     */
+    OptionalInt decrease(String productId, int quantity);
+
+    /**
+     * {@link #reserve} every product in one JDBC batch, in ascending product ID order so
+     * that concurrent batches lock shared rows in the same order
+     *
+     * @return product IDs whose update matched no row; the caller must roll back if any
+     */
+    List<String> reserveAll(SortedMap<String, Integer> quantities);
+
+    /**
+     * {@link #release} every product in one JDBC batch, in ascending product ID order
+     *
+     * @return product IDs whose update matched no row; the caller must roll back if any
+     */
+    List<String> releaseAll(SortedMap<String, Integer> quantities);
+
+    /**
+     * Lock the rows of several products, in ascending product ID order, with one
+     * {@code SELECT ... FOR UPDATE}; inside a transaction
+     *
+     * @return available quantity per product ID; products without inventory are absent
+     */
+    Map<String, Integer> lockAvailableQuantities(SortedSet<String> productIds);
+}
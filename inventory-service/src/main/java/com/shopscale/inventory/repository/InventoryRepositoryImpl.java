@@ -0,0 +1,134 @@
+package com.shopscale.inventory.repository;
+
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.SortedMap;
+import java.util.SortedSet;
+
+/**
+ * JDBC implementation of {@link InventoryRepositoryCustom}. The new quantity comes back as
+ * a generated key, which the PostgreSQL driver turns into {@code RETURNING available_quantity}.
+ */
+class InventoryRepositoryImpl implements InventoryRepositoryCustom {
+
+    private static final String[] RETURNED_COLUMNS = {"available_quantity"};
+
+    private static final String RESERVE = """
+            UPDATE inventory_items
+            SET available_quantity = available_quantity - ?, reserved_quantity = reserved_quantity + ?, last_updated = ?
+            WHERE product_id = ? AND available_quantity >= ?
+            """;
+
+    private static final String RELEASE = """
+            UPDATE inventory_items
+            SET reserved_quantity = reserved_quantity - ?, available_quantity = available_quantity + ?, last_updated = ?
+            WHERE product_id = ? AND reserved_quantity >= ?
+            """;
+
+    private static final String DECREASE = """
+            UPDATE inventory_items
+            SET available_quantity = available_quantity - ?, last_updated = ?
+            WHERE product_id = ? AND available_quantity >= ?
+            """;
+
+    private static final String LOCK_AVAILABLE = """
+            SELECT product_id, available_quantity
+            FROM inventory_items
+            WHERE product_id IN (:productIds)
+            ORDER BY product_id
+            FOR UPDATE
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    InventoryRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    @Override
+    public OptionalInt reserve(String productId, int quantity) {
+        return update(RESERVE, quantity, quantity, LocalDateTime.now(), productId, quantity);
+    }
+
+    @Override
+    public OptionalInt release(String productId, int quantity) {
+        return update(RELEASE, quantity, quantity, LocalDateTime.now(), productId, quantity);
+    }
+
+    @Override
+    public OptionalInt decrease(String productId, int quantity) {
+        return update(DECREASE, quantity, LocalDateTime.now(), productId, quantity);
+    }
+
+    @Override
+    public List<String> reserveAll(SortedMap<String, Integer> quantities) {
+        return batchUpdate(RESERVE, quantities);
+    }
+
+    @Override
+    public List<String> releaseAll(SortedMap<String, Integer> quantities) {
+        return batchUpdate(RELEASE, quantities);
+    }
+
+    @Override
+    public Map<String, Integer> lockAvailableQuantities(SortedSet<String> productIds) {
+        Map<String, Integer> available = new HashMap<>();
+        if (productIds.isEmpty()) {
+            return available;
+        }
+        namedParameterJdbcTemplate.query(LOCK_AVAILABLE, Map.of("productIds", productIds),
+                rs -> {
+                    available.put(rs.getString("product_id"), rs.getInt("available_quantity"));
+                });
+        return available;
+    }
+
+    /**
+     * Run a statement taking (quantity, quantity, now, productId, quantity) once per product,
+     * in the map's order, as one batch
+     */
+    private List<String> batchUpdate(String sql, SortedMap<String, Integer> quantities) {
+        LocalDateTime now = LocalDateTime.now();
+        List<String> productIds = new ArrayList<>(quantities.size());
+        List<Object[]> batchArgs = new ArrayList<>(quantities.size());
+        for (Map.Entry<String, Integer> line : quantities.entrySet()) {
+            productIds.add(line.getKey());
+            batchArgs.add(new Object[]{line.getValue(), line.getValue(), now, line.getKey(), line.getValue()});
+        }
+
+        int[] rows = jdbcTemplate.batchUpdate(sql, batchArgs);
+        List<String> unmatched = new ArrayList<>();
+        for (int i = 0; i < rows.length; i++) {
+            if (rows[i] == 0) {
+                unmatched.add(productIds.get(i));
+            }
+        }
+        return unmatched;
+    }
+
+    private OptionalInt update(String sql, Object... args) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        int rows = jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql, RETURNED_COLUMNS);
+            new ArgumentPreparedStatementSetter(args).setValues(statement);
+            return statement;
+        }, keyHolder);
+        if (rows == 0) {
+            return OptionalInt.empty();
+        }
+        return OptionalInt.of(((Number) keyHolder.getKeys().get(RETURNED_COLUMNS[0])).intValue());
+    }
+}
@@ -0,0 +1,31 @@
+package com.shopscale.inventory.repository;
+
+import com.shopscale.inventory.domain.OrderReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.stereotype.Repository;
+
+import jakarta.persistence.LockModeType;
+import java.util.List;
+
+@Repository
+public interface OrderReservationRepository extends JpaRepository<OrderReservation, Long>, OrderReservationRepositoryCustom {
+
+    /**
+     * Check if any reservation was recorded for an order
+     */
+    boolean existsByOrderId(String orderId);
+
+    /**
+     * All reservation lines of an order, ordered by product ID
+     */
+    List<OrderReservation> findByOrderIdOrderByProductId(String orderId);
+
+    /**
+     * Reservation lines of an order in a given status, with pessimistic write lock so that
+     * only one transaction releases them
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<OrderReservation> findForUpdateByOrderIdAndStatusOrderByProductId(String orderId,
+                                                                          OrderReservation.Status status);
+}
@@ -0,0 +1,20 @@
+package com.shopscale.inventory.repository;
+
+import java.util.Map;
+import java.util.SortedMap;
+
+public interface OrderReservationRepositoryCustom {
+
+    /**
+     * Record reserved lines of an order in one JDBC batch. Fails on a line already recorded
+     * for the order.
+     */
+    void insertReserved(String orderId, SortedMap<String, Integer> quantities);
+
+    /**
+     * Record reserved lines of several orders in one JDBC batch
+     *
+     * @param linesByOrder quantity per product ID, per order ID
+     */
+    void insertAllReserved(Map<String, SortedMap<String, Integer>> linesByOrder);
+}
@@ -0,0 +1,45 @@
+package com.shopscale.inventory.repository;
+
+import com.shopscale.inventory.domain.OrderReservation;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * JDBC implementation of {@link OrderReservationRepositoryCustom}
+ */
+class OrderReservationRepositoryImpl implements OrderReservationRepositoryCustom {
+
+    private static final String INSERT = """
+            INSERT INTO order_reservations (order_id, product_id, quantity, status, created_at)
+            VALUES (?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    OrderReservationRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertReserved(String orderId, SortedMap<String, Integer> quantities) {
+        insertAllReserved(Map.of(orderId, quantities));
+    }
+
+    @Override
+    public void insertAllReserved(Map<String, SortedMap<String, Integer>> linesByOrder) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> batchArgs = new ArrayList<>();
+        linesByOrder.forEach((orderId, quantities) -> {
+            for (Map.Entry<String, Integer> line : quantities.entrySet()) {
+                batchArgs.add(new Object[]{orderId, line.getKey(), line.getValue(),
+                        OrderReservation.Status.RESERVED.name(), now});
+            }
+        });
+        jdbcTemplate.batchUpdate(INSERT, batchArgs);
+    }
+}
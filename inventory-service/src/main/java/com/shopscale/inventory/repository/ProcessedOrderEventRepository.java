@@ -0,0 +1,21 @@
+package com.shopscale.inventory.repository;
+
+import com.shopscale.inventory.domain.ProcessedOrderEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Set;
+
+@Repository
+public interface ProcessedOrderEventRepository extends JpaRepository<ProcessedOrderEvent, String>,
+        ProcessedOrderEventRepositoryCustom {
+
+    /**
+     * Which of the given orders were already processed
+     */
+    @Query("select e.orderId from ProcessedOrderEvent e where e.orderId in :orderIds")
+    Set<String> findOrderIdsIn(@Param("orderIds") Collection<String> orderIds);
+}
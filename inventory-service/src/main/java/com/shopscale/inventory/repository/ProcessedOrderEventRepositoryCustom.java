@@ -0,0 +1,20 @@
+package com.shopscale.inventory.repository;
+
+import java.util.Collection;
+
+public interface ProcessedOrderEventRepositoryCustom {
+
+    /**
+     * Record an order as processed unless it already is, with one conditional INSERT, so
+     * checking and claiming the order cost a single statement
+     *
+     * @return false when the order was already processed
+     */
+    boolean markProcessed(String orderId);
+
+    /**
+     * Record several orders as processed in one JDBC batch. Fails on an order already
+     * recorded.
+     */
+    void markAllProcessed(Collection<String> orderIds);
+}
@@ -0,0 +1,46 @@
+package com.shopscale.inventory.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * JDBC implementation of {@link ProcessedOrderEventRepositoryCustom}
+ */
+class ProcessedOrderEventRepositoryImpl implements ProcessedOrderEventRepositoryCustom {
+
+    private static final String INSERT = """
+            INSERT INTO processed_order_events (order_id, processed_at)
+            VALUES (?, ?)
+            """;
+
+    // A concurrent insert of the same order blocks on the primary key until the first
+    // commits, then fails with a duplicate key instead of inserting a second row
+    private static final String INSERT_IF_ABSENT = """
+            INSERT INTO processed_order_events (order_id, processed_at)
+            SELECT ?, ?
+            WHERE NOT EXISTS (SELECT 1 FROM processed_order_events WHERE order_id = ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    ProcessedOrderEventRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public boolean markProcessed(String orderId) {
+        return jdbcTemplate.update(INSERT_IF_ABSENT, orderId, LocalDateTime.now(), orderId) == 1;
+    }
+
+    @Override
+    public void markAllProcessed(Collection<String> orderIds) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> batchArgs = orderIds.stream()
+                .map(orderId -> new Object[]{orderId, now})
+                .toList();
+        jdbcTemplate.batchUpdate(INSERT, batchArgs);
+    }
+}
@@ -0,0 +1,99 @@
+package com.shopscale.inventory.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * The outcome of reserving a batch of orders together. Each order keeps its all-or-nothing
+ * rule: orders are taken in the given (offset) order and one is reserved only when every
+ * one of its lines still fits in what the orders before it left available.
+ */
+public final class BatchReservation {
+
+    public enum Outcome {
+        /** Every line reserved */
+        RESERVED,
+        /** Already processed, by an earlier delivery or earlier in the batch; nothing changed */
+        DUPLICATE,
+        /** A product has no inventory; nothing reserved */
+        NOT_FOUND,
+        /** A product has too little available; nothing reserved */
+        INSUFFICIENT
+    }
+
+    private final List<Outcome> outcomes = new ArrayList<>();
+    private final Map<String, SortedMap<String, Integer>> reserved = new LinkedHashMap<>();
+    private final SortedMap<String, Integer> totals = new TreeMap<>();
+
+    private BatchReservation() {
+    }
+
+    /**
+     * Decide, in memory, which orders of a batch can be reserved
+     *
+     * @param orders           orders in the order they were received
+     * @param alreadyProcessed IDs of orders already processed
+     * @param available        available quantity per product ID, read under the row locks
+     */
+    static BatchReservation allocate(List<OrderLines> orders, Set<String> alreadyProcessed,
+                                     Map<String, Integer> available) {
+        BatchReservation batch = new BatchReservation();
+        Map<String, Integer> remaining = new HashMap<>(available);
+        Set<String> seen = new HashSet<>();
+        for (OrderLines order : orders) {
+            if (alreadyProcessed.contains(order.orderId()) || !seen.add(order.orderId())) {
+                batch.outcomes.add(Outcome.DUPLICATE);
+                continue;
+            }
+            Outcome outcome = Outcome.RESERVED;
+            for (Map.Entry<String, Integer> line : order.quantities().entrySet()) {
+                Integer left = remaining.get(line.getKey());
+                if (left == null) {
+                    outcome = Outcome.NOT_FOUND;
+                    break;
+                }
+                if (left < line.getValue()) {
+                    outcome = Outcome.INSUFFICIENT;
+                }
+            }
+            batch.outcomes.add(outcome);
+            if (outcome == Outcome.RESERVED) {
+                batch.reserved.put(order.orderId(), order.quantities());
+                order.quantities().forEach((productId, quantity) -> {
+                    remaining.merge(productId, -quantity, Integer::sum);
+                    batch.totals.merge(productId, quantity, Integer::sum);
+                });
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Outcome of each order, at the same position as in the allocated list
+     */
+    public List<Outcome> outcomes() {
+        return Collections.unmodifiableList(outcomes);
+    }
+
+    /**
+     * Reserved lines per reserved order ID
+     */
+    public Map<String, SortedMap<String, Integer>> reserved() {
+        return Collections.unmodifiableMap(reserved);
+    }
+
+    /**
+     * Total reserved quantity per product ID, in ascending product ID order
+     */
+    public SortedMap<String, Integer> totals() {
+        return Collections.unmodifiableSortedMap(totals);
+    }
+}
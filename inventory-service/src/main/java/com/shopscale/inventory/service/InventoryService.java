@@ -1,10 +1,15 @@
 package com.shopscale.inventory.service;
 
+import com.shopscale.inventory.cache.AvailabilityCache;
+import com.shopscale.inventory.cache.ProcessedOrderCache;
 import com.shopscale.inventory.domain.InventoryItem;
+import com.shopscale.inventory.domain.OrderReservation;
 import com.shopscale.inventory.event.InventoryUpdatedEvent;
 import com.shopscale.inventory.exception.InsufficientInventoryException;
 import com.shopscale.inventory.exception.InventoryNotFoundException;
 import com.shopscale.inventory.repository.InventoryRepository;
+import com.shopscale.inventory.repository.OrderReservationRepository;
+import com.shopscale.inventory.repository.ProcessedOrderEventRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
@@ -12,6 +17,16 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
 
 @Service
 public class InventoryService {
@@ -20,12 +35,24 @@ public class InventoryService {
     private static final String INVENTORY_UPDATED_TOPIC = "inventory-updated";
 
     private final InventoryRepository inventoryRepository;
+    private final OrderReservationRepository orderReservationRepository;
+    private final ProcessedOrderEventRepository processedOrderEventRepository;
     private final KafkaTemplate<String, InventoryUpdatedEvent> kafkaTemplate;
+    private final AvailabilityCache availabilityCache;
+    private final ProcessedOrderCache processedOrderCache;
 
     public InventoryService(InventoryRepository inventoryRepository,
-                           KafkaTemplate<String, InventoryUpdatedEvent> kafkaTemplate) {
+                           OrderReservationRepository orderReservationRepository,
+                           ProcessedOrderEventRepository processedOrderEventRepository,
+                           KafkaTemplate<String, InventoryUpdatedEvent> kafkaTemplate,
+                           AvailabilityCache availabilityCache,
+                           ProcessedOrderCache processedOrderCache) {
         this.inventoryRepository = inventoryRepository;
+        this.orderReservationRepository = orderReservationRepository;
+        this.processedOrderEventRepository = processedOrderEventRepository;
         this.kafkaTemplate = kafkaTemplate;
+        this.availabilityCache = availabilityCache;
+        this.processedOrderCache = processedOrderCache;
     }
 
     /**
@@ -35,7 +62,7 @@ public class InventoryService {
     public InventoryItem createOrUpdateInventory(String productId, Integer quantity) {
         log.info("Creating/updating inventory for product: {}, quantity: {}", productId, quantity);
         
-        InventoryItem item = inventoryRepository.findByProductId(productId)
+        InventoryItem item = inventoryRepository.findForUpdateByProductId(productId)
                 .orElse(new InventoryItem(productId, quantity));
         
         if (item.getId() == null) {
@@ -50,81 +77,206 @@ public class InventoryService {
             log.info("Updated inventory for product: {} from {} to {}", 
                     productId, previousQuantity, quantity);
         }
+        availabilityCache.update(productId, item.getAvailableQuantity());
         
         return item;
     }
 
     /**
-     * Reserve inventory for an order
+     * Reserve inventory for an order, with one conditional UPDATE
      */
     @Transactional
     public void reserveInventory(String productId, Integer quantity) {
         log.info("Reserving inventory for product: {}, quantity: {}", productId, quantity);
         
-        InventoryItem item = inventoryRepository.findByProductId(productId)
-                .orElseThrow(() -> new InventoryNotFoundException("Inventory not found for product: " + productId));
-        
-        if (item.getAvailableQuantity() < quantity) {
-            throw new InsufficientInventoryException(
-                    String.format("Insufficient inventory for product %s. Available: %d, Requested: %d",
-                            productId, item.getAvailableQuantity(), quantity));
-        }
-        
-        Integer previousQuantity = item.getAvailableQuantity();
-        item.reserveQuantity(quantity);
-        inventoryRepository.save(item);
+        int newQuantity = inventoryRepository.reserve(productId, quantity)
+                .orElseThrow(() -> noMatch(productId, available -> new InsufficientInventoryException(
+                        String.format("Insufficient inventory for product %s. Available: %d, Requested: %d",
+                                productId, available, quantity))));
+        int previousQuantity = newQuantity + quantity;
         
         log.info("Reserved {} units for product: {}. Available: {} -> {}", 
-                quantity, productId, previousQuantity, item.getAvailableQuantity());
+                quantity, productId, previousQuantity, newQuantity);
+        
+        availabilityCache.update(productId, newQuantity);
         
         // Publish inventory updated event
-        publishInventoryUpdatedEvent(productId, previousQuantity, item.getAvailableQuantity());
+        publishInventoryUpdatedEvent(productId, previousQuantity, newQuantity);
     }
 
     /**
-     * Release reserved inventory (e.g., when order is cancelled)
+     * Reserve every line of an order in one transaction: either all lines are reserved and
+     * recorded against the order, or none are. The lines are updated in one JDBC batch in
+     * ascending product ID order, so orders sharing products lock their rows in the same
+     * order and cannot deadlock each other. The order is recorded as processed in the same
+     * transaction; a redelivery this instance recently processed is answered from memory.
+     *
+     * @param quantities quantity to reserve per product ID
+     * @return false, changing nothing, when the order was already processed
+     */
+    @Transactional
+    public boolean reserveOrder(String orderId, Map<String, Integer> quantities) {
+        log.info("Reserving inventory for order: {}, lines: {}", orderId, quantities.size());
+
+        if (quantities.isEmpty() || quantities.values().stream().anyMatch(quantity -> quantity == null || quantity < 1)) {
+            throw new IllegalArgumentException("Order " + orderId + " must have positive quantities");
+        }
+        if (processedOrderCache.contains(orderId) || !processedOrderEventRepository.markProcessed(orderId)) {
+            log.info("Inventory already reserved for order: {}", orderId);
+            processedOrderCache.addAll(List.of(orderId));
+            return false;
+        }
+
+        SortedMap<String, Integer> lines = new TreeMap<>(quantities);
+        List<String> unmatched = inventoryRepository.reserveAll(lines);
+        if (!unmatched.isEmpty()) {
+            // Throwing rolls back the lines the batch did reserve
+            String productId = unmatched.get(0);
+            throw noMatch(productId, available -> new InsufficientInventoryException(
+                    String.format("Insufficient inventory for product %s. Available: %d, Requested: %d",
+                            productId, available, lines.get(productId))));
+        }
+        orderReservationRepository.insertReserved(orderId, lines);
+        processedOrderCache.addAll(List.of(orderId));
+
+        log.info("Reserved {} lines for order: {}", lines.size(), orderId);
+
+        publishOrderUpdates(lines, -1);
+        return true;
+    }
+
+    /**
+     * Reserve a batch of orders in one transaction. The rows of every product involved are
+     * locked with one {@code SELECT ... FOR UPDATE} in ascending product ID order, each order's
+     * all-or-nothing rule is evaluated in memory against them, and the reserved quantities are
+     * applied with one conditional UPDATE per product in a single JDBC batch. Orders that
+     * cannot be reserved, or were already processed, change nothing; only orders this
+     * instance has not recently processed are looked up.
+     */
+    @Transactional
+    public BatchReservation reserveOrders(List<OrderLines> orders) {
+        log.info("Reserving inventory for a batch of {} orders", orders.size());
+
+        if (orders.isEmpty()) {
+            return BatchReservation.allocate(orders, Set.of(), Map.of());
+        }
+        Map<Boolean, Set<String>> cached = orders.stream().map(OrderLines::orderId)
+                .collect(Collectors.partitioningBy(processedOrderCache::contains, Collectors.toSet()));
+        Set<String> alreadyProcessed = new HashSet<>(cached.get(true));
+        if (!cached.get(false).isEmpty()) {
+            alreadyProcessed.addAll(processedOrderEventRepository.findOrderIdsIn(cached.get(false)));
+        }
+        SortedSet<String> productIds = new TreeSet<>();
+        orders.stream()
+                .filter(order -> !alreadyProcessed.contains(order.orderId()))
+                .forEach(order -> productIds.addAll(order.quantities().keySet()));
+        Map<String, Integer> available = productIds.isEmpty()
+                ? Map.of()
+                : inventoryRepository.lockAvailableQuantities(productIds);
+
+        BatchReservation batch = BatchReservation.allocate(orders, alreadyProcessed, available);
+        if (batch.totals().isEmpty()) {
+            return batch;
+        }
+        // Fails on an order another consumer processed meanwhile; the batch is then retried
+        processedOrderEventRepository.markAllProcessed(batch.reserved().keySet());
+        List<String> unmatched = inventoryRepository.reserveAll(batch.totals());
+        if (!unmatched.isEmpty()) {
+            // Cannot happen while the rows are locked; roll back rather than record a partial batch
+            throw new IllegalStateException("Insufficient available quantity for product " + unmatched.get(0));
+        }
+        orderReservationRepository.insertAllReserved(batch.reserved());
+        processedOrderCache.addAll(batch.reserved().keySet());
+
+        log.info("Reserved {} of {} orders across {} products", batch.reserved().size(), orders.size(),
+                batch.totals().size());
+
+        batch.totals().forEach((productId, total) -> {
+            int previousQuantity = available.get(productId);
+            int newQuantity = previousQuantity - total;
+            availabilityCache.update(productId, newQuantity);
+            publishInventoryUpdatedEvent(productId, previousQuantity, newQuantity);
+        });
+        return batch;
+    }
+
+    /**
+     * Release everything still reserved for an order (e.g., when it is cancelled), in one
+     * transaction and one JDBC batch
+     *
+     * @return false when the order has nothing reserved
+     */
+    @Transactional
+    public boolean releaseOrder(String orderId) {
+        log.info("Releasing inventory for order: {}", orderId);
+
+        List<OrderReservation> reservations = orderReservationRepository
+                .findForUpdateByOrderIdAndStatusOrderByProductId(orderId, OrderReservation.Status.RESERVED);
+        if (reservations.isEmpty()) {
+            log.info("No inventory reserved for order: {}", orderId);
+            return false;
+        }
+
+        SortedMap<String, Integer> lines = new TreeMap<>();
+        for (OrderReservation reservation : reservations) {
+            lines.put(reservation.getProductId(), reservation.getQuantity());
+            reservation.release();
+        }
+        List<String> unmatched = inventoryRepository.releaseAll(lines);
+        if (!unmatched.isEmpty()) {
+            throw new IllegalStateException("Insufficient reserved quantity for product " + unmatched.get(0));
+        }
+
+        log.info("Released {} lines for order: {}", lines.size(), orderId);
+
+        publishOrderUpdates(lines, 1);
+        return true;
+    }
+
+    /**
+     * Release reserved inventory (e.g., when order is cancelled), with one conditional UPDATE
      */
     @Transactional
     public void releaseInventory(String productId, Integer quantity) {
         log.info("Releasing inventory for product: {}, quantity: {}", productId, quantity);
         
-        InventoryItem item = inventoryRepository.findByProductId(productId)
-                .orElseThrow(() -> new InventoryNotFoundException("Inventory not found for product: " + productId));
-        
-        Integer previousQuantity = item.getAvailableQuantity();
-        item.releaseQuantity(quantity);
-        inventoryRepository.save(item);
+        int newQuantity = inventoryRepository.release(productId, quantity)
+                .orElseThrow(() -> noMatch(productId,
+                        available -> new IllegalStateException("Insufficient reserved quantity")));
+        int previousQuantity = newQuantity - quantity;
         
         log.info("Released {} units for product: {}. Available: {} -> {}", 
-                quantity, productId, previousQuantity, item.getAvailableQuantity());
+                quantity, productId, previousQuantity, newQuantity);
+        
+        availabilityCache.update(productId, newQuantity);
         
         // Publish inventory updated event
-        publishInventoryUpdatedEvent(productId, previousQuantity, item.getAvailableQuantity());
+        publishInventoryUpdatedEvent(productId, previousQuantity, newQuantity);
     }
 
     /**
-     * Decrease inventory (e.g., when order is fulfilled)
+     * Decrease inventory (e.g., when order is fulfilled), with one conditional UPDATE
      */
     @Transactional
     public void decreaseInventory(String productId, Integer quantity) {
         log.info("Decreasing inventory for product: {}, quantity: {}", productId, quantity);
         
-        InventoryItem item = inventoryRepository.findByProductId(productId)
-                .orElseThrow(() -> new InventoryNotFoundException("Inventory not found for product: " + productId));
-        
-        Integer previousQuantity = item.getAvailableQuantity();
-        item.decreaseQuantity(quantity);
-        inventoryRepository.save(item);
+        int newQuantity = inventoryRepository.decrease(productId, quantity)
+                .orElseThrow(() -> noMatch(productId,
+                        available -> new IllegalStateException("Insufficient available quantity")));
+        int previousQuantity = newQuantity + quantity;
         
         log.info("Decreased {} units for product: {}. Available: {} -> {}", 
-                quantity, productId, previousQuantity, item.getAvailableQuantity());
+                quantity, productId, previousQuantity, newQuantity);
+        
+        availabilityCache.update(productId, newQuantity);
         
         // Publish inventory updated event
-        publishInventoryUpdatedEvent(productId, previousQuantity, item.getAvailableQuantity());
+        publishInventoryUpdatedEvent(productId, previousQuantity, newQuantity);
     }
 
     /**
-     * Get inventory for a product
+     * Get inventory for a product. Reads the committed row without locking it.
      */
     @Transactional(readOnly = true)
     public InventoryItem getInventory(String productId) {
@@ -133,15 +285,40 @@ public class InventoryService {
     }
 
     /**
-     * Check if sufficient inventory is available
+     * Check if sufficient inventory is available. Advisory only: reads the committed
+     * quantity without locking, possibly from the availability cache, so the answer can be
+     * overtaken by a concurrent reservation. Reservations re-check under the row lock.
      */
-    @Transactional(readOnly = true)
     public boolean isAvailable(String productId, Integer quantity) {
-        return inventoryRepository.findByProductId(productId)
-                .map(item -> item.getAvailableQuantity() >= quantity)
+        return availabilityCache.getAvailableQuantity(productId, inventoryRepository::findAvailableQuantityByProductId)
+                .map(availableQuantity -> availableQuantity >= quantity)
                 .orElse(false);
     }
 
+    /**
+     * Why a conditional update matched no row: the product has no inventory, or too little
+     * of the quantity being moved
+     */
+    private RuntimeException noMatch(String productId, IntFunction<RuntimeException> shortage) {
+        return inventoryRepository.findAvailableQuantityByProductId(productId)
+                .<RuntimeException>map(shortage::apply)
+                .orElseGet(() -> new InventoryNotFoundException("Inventory not found for product: " + productId));
+    }
+
+    /**
+     * Refresh availability and publish an inventory updated event for each line of an order
+     *
+     * @param sign -1 when the lines were reserved, 1 when they were released
+     */
+    private void publishOrderUpdates(SortedMap<String, Integer> lines, int sign) {
+        for (InventoryItem item : inventoryRepository.findByProductIdIn(lines.keySet())) {
+            int newQuantity = item.getAvailableQuantity();
+            int previousQuantity = newQuantity - sign * lines.get(item.getProductId());
+            availabilityCache.update(item.getProductId(), newQuantity);
+            publishInventoryUpdatedEvent(item.getProductId(), previousQuantity, newQuantity);
+        }
+    }
+
     /**
      * Publish inventory updated event to Kafka
      */
@@ -0,0 +1,19 @@
+package com.shopscale.inventory.service;
+
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * The quantities an order reserves, per product ID in ascending order
+ */
+public record OrderLines(String orderId, SortedMap<String, Integer> quantities) {
+
+    public OrderLines {
+        if (orderId == null || quantities == null || quantities.isEmpty()
+                || quantities.values().stream().anyMatch(quantity -> quantity == null || quantity < 1)) {
+            throw new IllegalArgumentException("Order " + orderId + " must have positive quantities");
+        }
+        quantities = Collections.unmodifiableSortedMap(new TreeMap<>(quantities));
+    }
+}
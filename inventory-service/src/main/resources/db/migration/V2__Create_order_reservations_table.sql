@@ -0,0 +1,13 @@
+-- Create order_reservations table: the inventory reserved for each order line,
+-- so a whole order can be released later
+CREATE TABLE order_reservations (
+    id BIGSERIAL PRIMARY KEY,
+    order_id VARCHAR(36) NOT NULL,
+    product_id VARCHAR(36) NOT NULL,
+    quantity INTEGER NOT NULL,
+    status VARCHAR(16) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    released_at TIMESTAMP,
+    CONSTRAINT uk_order_reservations_order_product UNIQUE (order_id, product_id),
+    CONSTRAINT check_reservation_quantity CHECK (quantity > 0)
+);
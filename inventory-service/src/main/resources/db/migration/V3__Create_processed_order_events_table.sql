@@ -0,0 +1,9 @@
+-- Create processed_order_events table: one row per order event whose reservation was
+-- committed, written in the same transaction, so a redelivered event is a no-op
+CREATE TABLE processed_order_events (
+    order_id VARCHAR(36) PRIMARY KEY,
+    processed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Create index on processed_at for pruning old rows
+CREATE INDEX idx_processed_order_events_processed_at ON processed_order_events(processed_at);
@@ -0,0 +1,181 @@
+package com.shopscale.inventory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Availability-check throughput while reservations run on the same SKU, once with
+ * checks that take the row lock ({@code SELECT ... FOR UPDATE}, as {@code isAvailable} used
+ * to) and once with the plain read it uses now. Runs against PostgreSQL with the V1 schema.
+ * Not run by surefire; start it with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.shopscale.inventory.InventoryContentionBenchmark}.
+ *
+ * <p>Tune with {@code -Dbench.url}, {@code -Dbench.user}, {@code -Dbench.password},
+ * {@code -Dbench.readers}, {@code -Dbench.writers}, {@code -Dbench.duration} (seconds) and
+ * {@code -Dbench.hold-millis}, the time a reservation keeps its row lock before committing.
+ */
+public class InventoryContentionBenchmark {
+
+    private static final String URL = System.getProperty("bench.url", "jdbc:postgresql://localhost:5432/inventorydb");
+    private static final String USER = System.getProperty("bench.user", "shopscale");
+    private static final String PASSWORD = System.getProperty("bench.password", "shopscale123");
+    private static final int READERS = Integer.getInteger("bench.readers", 32);
+    private static final int WRITERS = Integer.getInteger("bench.writers", 4);
+    private static final Duration DURATION = Duration.ofSeconds(Integer.getInteger("bench.duration", 20));
+    private static final long HOLD_MILLIS = Long.getLong("bench.hold-millis", 1);
+
+    private static final String SKU = "bench_hot_sku";
+
+    private static final String LOCKING_CHECK =
+            "SELECT available_quantity FROM inventory_items WHERE product_id = ? FOR UPDATE";
+    private static final String LOCK_FREE_CHECK =
+            "SELECT available_quantity FROM inventory_items WHERE product_id = ?";
+
+    public static void main(String[] args) throws Exception {
+        try (Connection connection = connect()) {
+            execute(connection, """
+                    INSERT INTO inventory_items (product_id, available_quantity, reserved_quantity, last_updated)
+                    VALUES (?, 1000000000, 0, now())
+                    ON CONFLICT (product_id) DO UPDATE SET available_quantity = 1000000000, reserved_quantity = 0
+                    """);
+        }
+        try {
+            report("locking check", run(LOCKING_CHECK, true));
+            report("lock-free check", run(LOCK_FREE_CHECK, false));
+        } finally {
+            try (Connection connection = connect()) {
+                execute(connection, "DELETE FROM inventory_items WHERE product_id = ?");
+            }
+        }
+    }
+
+    private static Result run(String checkSql, boolean checkInTransaction) throws Exception {
+        long deadline = System.nanoTime() + DURATION.toNanos();
+        AtomicLong reservations = new AtomicLong();
+        List<Future<long[]>> readers = new ArrayList<>(READERS);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(READERS + WRITERS)) {
+            for (int i = 0; i < WRITERS; i++) {
+                executor.submit(() -> {
+                    try (Connection connection = connect()) {
+                        connection.setAutoCommit(false);
+                        while (System.nanoTime() < deadline) {
+                            reserveOne(connection);
+                            reservations.incrementAndGet();
+                        }
+                    }
+                    return null;
+                });
+            }
+            for (int i = 0; i < READERS; i++) {
+                readers.add(executor.submit(() -> {
+                    LatencyRecorder latencies = new LatencyRecorder();
+                    try (Connection connection = connect();
+                         PreparedStatement check = connection.prepareStatement(checkSql)) {
+                        connection.setAutoCommit(!checkInTransaction);
+                        check.setString(1, SKU);
+                        while (System.nanoTime() < deadline) {
+                            long start = System.nanoTime();
+                            try (ResultSet rs = check.executeQuery()) {
+                                rs.next();
+                            }
+                            if (checkInTransaction) {
+                                connection.commit();
+                            }
+                            latencies.add(System.nanoTime() - start);
+                        }
+                    }
+                    return latencies.toArray();
+                }));
+            }
+        }
+
+        LatencyRecorder all = new LatencyRecorder();
+        for (Future<long[]> reader : readers) {
+            for (long latency : reader.get()) {
+                all.add(latency);
+            }
+        }
+        long[] sorted = all.toArray();
+        Arrays.sort(sorted);
+        return new Result(sorted, reservations.get());
+    }
+
+    /**
+     * One reservation as {@code InventoryService.reserveInventory} makes it: a single
+     * conditional UPDATE, then commit
+     */
+    private static void reserveOne(Connection connection) throws Exception {
+        try (PreparedStatement reserve = connection.prepareStatement("""
+                UPDATE inventory_items
+                SET available_quantity = available_quantity - 1, reserved_quantity = reserved_quantity + 1,
+                    last_updated = now()
+                WHERE product_id = ? AND available_quantity >= 1
+                """)) {
+            reserve.setString(1, SKU);
+            reserve.executeUpdate();
+            if (HOLD_MILLIS > 0) {
+                Thread.sleep(HOLD_MILLIS);
+            }
+            connection.commit();
+        }
+    }
+
+    private static void report(String name, Result result) {
+        double seconds = DURATION.toMillis() / 1000.0;
+        System.out.printf("%-16s %,10.0f checks/s  p50 %6.2f ms  p99 %7.2f ms  %,8.0f reservations/s%n",
+                name, result.checkNanos().length / seconds, result.percentile(0.50), result.percentile(0.99),
+                result.reservations() / seconds);
+    }
+
+    private static Connection connect() throws SQLException {
+        return DriverManager.getConnection(URL, USER, PASSWORD);
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, SKU);
+            statement.executeUpdate();
+        }
+    }
+
+    private record Result(long[] checkNanos, long reservations) {
+
+        double percentile(double p) {
+            if (checkNanos.length == 0) {
+                return Double.NaN;
+            }
+            int index = (int) Math.min(checkNanos.length - 1, Math.ceil(p * checkNanos.length) - 1);
+            return checkNanos[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+
+    private static final class LatencyRecorder {
+
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
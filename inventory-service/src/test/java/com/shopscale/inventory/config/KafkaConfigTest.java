@@ -0,0 +1,51 @@
+package com.shopscale.inventory.config;
+
+import com.shopscale.inventory.event.OrderPlacedEvent;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.Serializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KafkaConfigTest {
+
+    @Test
+    void deadLetterDestination_ShouldLeaveThePartitionToTheProducer() {
+        // Given - a record from a partition the dead-letter topic may not have
+        ConsumerRecord<String, Object> record = new ConsumerRecord<>("order-placed", 5, 42L, "ORD-1", null);
+
+        // When
+        TopicPartition destination = KafkaConfig.deadLetterDestination(record, new IllegalStateException("boom"));
+
+        // Then
+        assertThat(destination.topic()).isEqualTo("order-placed.DLT");
+        assertThat(destination.partition()).isNegative();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void deadLetterKafkaTemplate_ShouldWriteRawBytesAsIsAndEventsAsJson() {
+        // Given
+        KafkaConfig config = new KafkaConfig();
+        ReflectionTestUtils.setField(config, "bootstrapServers", "localhost:9092");
+        Serializer<Object> serializer = ((DefaultKafkaProducerFactory<String, Object>)
+                config.deadLetterKafkaTemplate().getProducerFactory()).getValueSerializer();
+        byte[] undeserializable = "{not json".getBytes(StandardCharsets.UTF_8);
+        OrderPlacedEvent event = new OrderPlacedEvent("ORD-1", "customer_123", List.of(), new BigDecimal("99.99"));
+
+        // When
+        byte[] raw = serializer.serialize(KafkaConfig.DEAD_LETTER_TOPIC, undeserializable);
+        byte[] json = serializer.serialize(KafkaConfig.DEAD_LETTER_TOPIC, event);
+
+        // Then
+        assertThat(raw).isEqualTo(undeserializable);
+        assertThat(new String(json, StandardCharsets.UTF_8)).contains("\"orderId\":\"ORD-1\"");
+    }
+}
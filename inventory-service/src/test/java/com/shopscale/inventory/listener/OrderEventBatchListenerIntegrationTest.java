@@ -0,0 +1,122 @@
+package com.shopscale.inventory.listener;
+
+import com.shopscale.inventory.config.TestKafkaConfig;
+import com.shopscale.inventory.domain.InventoryItem;
+import com.shopscale.inventory.event.OrderItemEvent;
+import com.shopscale.inventory.event.OrderPlacedEvent;
+import com.shopscale.inventory.repository.InventoryRepository;
+import com.shopscale.inventory.repository.OrderReservationRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@SpringBootTest(properties = {
+        "inventory.order-events.batch.enabled=true",
+        "inventory.order-events.batch.linger=10ms"
+})
+@ActiveProfiles("test")
+@Import(TestKafkaConfig.class)
+@EmbeddedKafka(
+        partitions = 1,
+        topics = {"order-placed", "inventory-updated"},
+        brokerProperties = {
+                "listeners=PLAINTEXT://localhost:9093",
+                "port=9093"
+        }
+)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class OrderEventBatchListenerIntegrationTest {
+
+    @Autowired
+    private KafkaTemplate<String, OrderPlacedEvent> kafkaTemplate;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private OrderReservationRepository orderReservationRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired(required = false)
+    private OrderEventListener orderEventListener;
+
+    @BeforeEach
+    void setUp() {
+        inventoryRepository.deleteAll();
+        inventoryRepository.save(new InventoryItem("prod_001", 100));
+        inventoryRepository.save(new InventoryItem("prod_002", 50));
+    }
+
+    @Test
+    void handleOrderPlacedBatch_ShouldReserveEachOrderAllOrNothing() {
+        // Given - order_b2 does not fit once order_b1 is reserved; order_b1 is delivered twice
+        kafkaTemplate.send("order-placed", "order_b1", createOrderEvent("order_b1",
+                new OrderItemEvent("prod_001", 10, new BigDecimal("99.99")),
+                new OrderItemEvent("prod_002", 40, new BigDecimal("49.99"))));
+        kafkaTemplate.send("order-placed", "order_b2", createOrderEvent("order_b2",
+                new OrderItemEvent("prod_001", 5, new BigDecimal("99.99")),
+                new OrderItemEvent("prod_002", 20, new BigDecimal("49.99"))));
+        kafkaTemplate.send("order-placed", "order_b3", createOrderEvent("order_b3",
+                new OrderItemEvent("prod_001", 15, new BigDecimal("99.99"))));
+        kafkaTemplate.send("order-placed", "order_b1", createOrderEvent("order_b1",
+                new OrderItemEvent("prod_001", 10, new BigDecimal("99.99")),
+                new OrderItemEvent("prod_002", 40, new BigDecimal("49.99"))));
+
+        // Then
+        await().atMost(10, TimeUnit.SECONDS).untilAsserted(() -> {
+            assertThat(meterRegistry.get("inventory.order.events").tag("result", "duplicate").counter().count())
+                    .isEqualTo(1.0);
+            InventoryItem inventory1 = inventoryRepository.findByProductId("prod_001").orElseThrow();
+            assertThat(inventory1.getAvailableQuantity()).isEqualTo(75); // 100 - 10 - 15
+            assertThat(inventory1.getReservedQuantity()).isEqualTo(25);
+            InventoryItem inventory2 = inventoryRepository.findByProductId("prod_002").orElseThrow();
+            assertThat(inventory2.getAvailableQuantity()).isEqualTo(10);
+        });
+        assertThat(orderReservationRepository.existsByOrderId("order_b2")).isFalse();
+        assertThat(orderReservationRepository.existsByOrderId("order_b3")).isTrue();
+        assertThat(meterRegistry.get("inventory.order.events").tag("result", "insufficient").counter().count())
+                .isEqualTo(1.0);
+        assertThat(meterRegistry.get("inventory.order.batch.duration").timer().count()).isPositive();
+        assertThat(orderEventListener).isNull();
+    }
+
+    @Test
+    void handleOrderPlacedBatch_ShouldSkipInvalidEventsAndKeepConsuming() {
+        // Given
+        kafkaTemplate.send("order-placed", "order_b4", createOrderEvent("order_b4",
+                new OrderItemEvent("prod_001", 0, new BigDecimal("99.99"))));
+        kafkaTemplate.send("order-placed", "order_b5", createOrderEvent("order_b5",
+                new OrderItemEvent("prod_001", 20, new BigDecimal("99.99"))));
+
+        // Then
+        await().atMost(10, TimeUnit.SECONDS).untilAsserted(() ->
+                assertThat(orderReservationRepository.existsByOrderId("order_b5")).isTrue());
+        assertThat(inventoryRepository.findByProductId("prod_001").orElseThrow().getAvailableQuantity())
+                .isEqualTo(80);
+        assertThat(meterRegistry.get("inventory.order.events").tag("result", "invalid").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    private OrderPlacedEvent createOrderEvent(String orderId, OrderItemEvent... items) {
+        OrderPlacedEvent event = new OrderPlacedEvent(orderId, "customer_123", List.of(items), new BigDecimal("99.99"));
+        event.setTimestamp(LocalDateTime.now());
+        return event;
+    }
+}
@@ -0,0 +1,79 @@
+package com.shopscale.inventory.listener;
+
+import com.shopscale.inventory.event.OrderItemEvent;
+import com.shopscale.inventory.event.OrderPlacedEvent;
+import com.shopscale.inventory.service.BatchReservation;
+import com.shopscale.inventory.service.InventoryService;
+import com.shopscale.inventory.service.OrderLines;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OrderEventBatchListenerTest {
+
+    @Mock
+    private InventoryService inventoryService;
+
+    private MeterRegistry meterRegistry;
+    private OrderEventBatchListener listener;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        listener = new OrderEventBatchListener(inventoryService, meterRegistry);
+    }
+
+    @Test
+    void handleOrderPlacedBatch_ShouldReportOnlyTheOrderThatKeepsFailing() {
+        // Given - the batch transaction fails; order_2 still fails on its own
+        ConsumerRecord<String, OrderPlacedEvent> first = record(0, "order_1");
+        ConsumerRecord<String, OrderPlacedEvent> second = record(1, "order_2");
+        ConsumerRecord<String, OrderPlacedEvent> third = record(2, "order_3");
+        DataIntegrityViolationException failure = new DataIntegrityViolationException("duplicate key");
+        when(inventoryService.reserveOrders(argThat(orders -> orders != null && orders.size() == 3)))
+                .thenThrow(failure);
+        BatchReservation reserved = mock(BatchReservation.class);
+        when(reserved.outcomes()).thenReturn(List.of(BatchReservation.Outcome.RESERVED));
+        when(inventoryService.reserveOrders(List.of(order("order_1")))).thenReturn(reserved);
+        when(inventoryService.reserveOrders(List.of(order("order_2")))).thenThrow(failure);
+
+        // When
+        BatchListenerFailedException thrown = catchThrowableOfType(
+                () -> listener.handleOrderPlacedBatch(List.of(first, second, third)), BatchListenerFailedException.class);
+
+        // Then - the error handler commits order_1 and retries from order_2
+        assertThat(thrown.getRecord()).isSameAs(second);
+        assertThat(thrown.getCause()).isSameAs(failure);
+        assertThat(meterRegistry.get("inventory.order.events").tag("result", "reserved").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    private static ConsumerRecord<String, OrderPlacedEvent> record(long offset, String orderId) {
+        OrderPlacedEvent event = new OrderPlacedEvent(orderId, "customer_123",
+                List.of(new OrderItemEvent("prod_001", 1, new BigDecimal("99.99"))), new BigDecimal("99.99"));
+        return new ConsumerRecord<>("order-placed", 0, offset, orderId, event);
+    }
+
+    private static OrderLines order(String orderId) {
+        return new OrderLines(orderId, new TreeMap<>(Map.of("prod_001", 1)));
+    }
+}
@@ -5,6 +5,9 @@ import com.shopscale.inventory.domain.InventoryItem;
 import com.shopscale.inventory.event.OrderItemEvent;
 import com.shopscale.inventory.event.OrderPlacedEvent;
 import com.shopscale.inventory.repository.InventoryRepository;
+import com.shopscale.inventory.repository.OrderReservationRepository;
+import com.shopscale.inventory.service.InventoryService;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -44,6 +47,15 @@ class OrderEventListenerIntegrationTest {
     @Autowired
     private InventoryRepository inventoryRepository;
 
+    @Autowired
+    private OrderReservationRepository orderReservationRepository;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @BeforeEach
     void setUp() {
         inventoryRepository.deleteAll();
@@ -154,6 +166,67 @@ class OrderEventListenerIntegrationTest {
         });
     }
 
+    @Test
+    void handleOrderPlaced_ShouldReserveNothingWhenAnyItemIsShort() {
+        // Given - prod_001 could be reserved, prod_002 cannot
+        OrderItemEvent item1 = new OrderItemEvent("prod_001", 10, new BigDecimal("99.99"));
+        OrderItemEvent item2 = new OrderItemEvent("prod_002", 60, new BigDecimal("49.99"));
+        OrderPlacedEvent event = new OrderPlacedEvent(
+                "order_008",
+                "customer_456",
+                Arrays.asList(item1, item2),
+                new BigDecimal("3999.30")
+        );
+        event.setTimestamp(LocalDateTime.now());
+
+        // When
+        kafkaTemplate.send("order-placed", "order_008", event);
+
+        // Then - prod_001's reservation was rolled back with the order
+        await().pollDelay(2, TimeUnit.SECONDS).atMost(5, TimeUnit.SECONDS).untilAsserted(() -> {
+            InventoryItem inventory1 = inventoryRepository.findByProductId("prod_001").orElseThrow();
+            assertThat(inventory1.getAvailableQuantity()).isEqualTo(100);
+            assertThat(inventory1.getReservedQuantity()).isEqualTo(0);
+            assertThat(orderReservationRepository.existsByOrderId("order_008")).isFalse();
+        });
+    }
+
+    @Test
+    void handleOrderPlaced_ShouldRecordReservationSoOrderCanBeReleased() {
+        // Given
+        kafkaTemplate.send("order-placed", "order_009", createOrderEvent("order_009", "prod_001", 30));
+        await().atMost(10, TimeUnit.SECONDS).untilAsserted(() ->
+                assertThat(orderReservationRepository.existsByOrderId("order_009")).isTrue());
+
+        // When
+        boolean released = inventoryService.releaseOrder("order_009");
+
+        // Then
+        assertThat(released).isTrue();
+        InventoryItem inventory = inventoryRepository.findByProductId("prod_001").orElseThrow();
+        assertThat(inventory.getAvailableQuantity()).isEqualTo(100);
+        assertThat(inventory.getReservedQuantity()).isEqualTo(0);
+        assertThat(inventoryService.releaseOrder("order_009")).isFalse();
+    }
+
+    @Test
+    void handleOrderPlaced_ShouldTreatRedeliveredOrderAsNoOp() {
+        // Given
+        OrderPlacedEvent event = createOrderEvent("order_010", "prod_001", 25);
+
+        // When - delivered twice, as after a rebalance
+        kafkaTemplate.send("order-placed", "order_010", event);
+        kafkaTemplate.send("order-placed", "order_010", event);
+
+        // Then
+        await().atMost(10, TimeUnit.SECONDS).untilAsserted(() ->
+                assertThat(meterRegistry.get("inventory.order.events").tag("result", "duplicate").counter().count())
+                        .isEqualTo(1.0));
+        InventoryItem inventory = inventoryRepository.findByProductId("prod_001").orElseThrow();
+        assertThat(inventory.getAvailableQuantity()).isEqualTo(75);
+        assertThat(inventory.getReservedQuantity()).isEqualTo(25);
+    }
+
     private OrderPlacedEvent createOrderEvent(String orderId, String productId, Integer quantity) {
         OrderItemEvent item = new OrderItemEvent(productId, quantity, new BigDecimal("99.99"));
         OrderPlacedEvent event = new OrderPlacedEvent(
@@ -6,7 +6,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -42,6 +48,92 @@ class InventoryRepositoryTest {
         assertThat(found).isEmpty();
     }
 
+    @Test
+    void findForUpdateByProductId_ShouldReturnInventoryItem() {
+        // Given
+        inventoryRepository.save(new InventoryItem("prod_006", 40));
+
+        // When
+        Optional<InventoryItem> found = inventoryRepository.findForUpdateByProductId("prod_006");
+
+        // Then
+        assertThat(found).isPresent();
+        assertThat(found.get().getAvailableQuantity()).isEqualTo(40);
+    }
+
+    @Test
+    void findAvailableQuantityByProductId_ShouldReturnQuantityOrEmpty() {
+        // Given
+        InventoryItem item = new InventoryItem("prod_007", 60);
+        item.reserveQuantity(15);
+        inventoryRepository.save(item);
+
+        // When & Then
+        assertThat(inventoryRepository.findAvailableQuantityByProductId("prod_007")).contains(45);
+        assertThat(inventoryRepository.findAvailableQuantityByProductId("nonexistent")).isEmpty();
+    }
+
+    @Test
+    void reserve_ShouldMoveQuantityOnlyWhenEnoughIsAvailable() {
+        // Given
+        inventoryRepository.save(new InventoryItem("prod_008", 10));
+
+        // When
+        OptionalInt reserved = inventoryRepository.reserve("prod_008", 4);
+        OptionalInt tooMuch = inventoryRepository.reserve("prod_008", 7);
+
+        // Then
+        assertThat(reserved).hasValue(6);
+        assertThat(tooMuch).isEmpty();
+        assertThat(inventoryRepository.findAvailableQuantityByProductId("prod_008")).contains(6);
+        assertThat(inventoryRepository.reserve("nonexistent", 1)).isEmpty();
+    }
+
+    @Test
+    void releaseAndDecrease_ShouldRespectReservedAndAvailableQuantities() {
+        // Given
+        inventoryRepository.save(new InventoryItem("prod_009", 10));
+        inventoryRepository.reserve("prod_009", 5);
+
+        // When & Then
+        assertThat(inventoryRepository.release("prod_009", 6)).isEmpty();
+        assertThat(inventoryRepository.release("prod_009", 2)).hasValue(7);
+        assertThat(inventoryRepository.decrease("prod_009", 8)).isEmpty();
+        assertThat(inventoryRepository.decrease("prod_009", 7)).hasValue(0);
+    }
+
+    @Test
+    void reserveAll_ShouldReportLinesThatMatchedNoRow() {
+        // Given
+        inventoryRepository.save(new InventoryItem("prod_010", 10));
+        inventoryRepository.save(new InventoryItem("prod_011", 2));
+
+        // When
+        List<String> unmatched = inventoryRepository.reserveAll(
+                new TreeMap<>(Map.of("prod_010", 4, "prod_011", 3, "nonexistent", 1)));
+
+        // Then - the caller rolls back; here the matched line shows the batch ran in full
+        assertThat(unmatched).containsExactly("nonexistent", "prod_011");
+        assertThat(inventoryRepository.findAvailableQuantityByProductId("prod_010")).contains(6);
+        assertThat(inventoryRepository.releaseAll(new TreeMap<>(Map.of("prod_010", 4)))).isEmpty();
+        assertThat(inventoryRepository.findAvailableQuantityByProductId("prod_010")).contains(10);
+    }
+
+    @Test
+    void lockAvailableQuantities_ShouldReturnQuantitiesOfExistingProducts() {
+        // Given
+        inventoryRepository.save(new InventoryItem("prod_012", 12));
+        inventoryRepository.save(new InventoryItem("prod_013", 0));
+
+        // When
+        Map<String, Integer> available = inventoryRepository.lockAvailableQuantities(
+                new TreeSet<>(Set.of("prod_013", "prod_012", "nonexistent")));
+
+        // Then
+        assertThat(available).containsExactlyInAnyOrderEntriesOf(Map.of("prod_012", 12, "prod_013", 0));
+        assertThat(inventoryRepository.lockAvailableQuantities(new TreeSet<>())).isEmpty();
+    }
+
     @Test
     void existsByProductId_ShouldReturnTrueWhenExists() {
         // Given
@@ -0,0 +1,76 @@
+package com.shopscale.inventory.repository;
+
+import com.shopscale.inventory.domain.OrderReservation;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class OrderReservationRepositoryTest {
+
+    @Autowired
+    private OrderReservationRepository orderReservationRepository;
+
+    @Test
+    void insertReserved_ShouldRecordEveryLineAsReserved() {
+        // When
+        orderReservationRepository.insertReserved("order_001", new TreeMap<>(Map.of("prod_002", 5, "prod_001", 10)));
+
+        // Then
+        List<OrderReservation> lines = orderReservationRepository.findForUpdateByOrderIdAndStatusOrderByProductId(
+                "order_001", OrderReservation.Status.RESERVED);
+        assertThat(lines).extracting(OrderReservation::getProductId).containsExactly("prod_001", "prod_002");
+        assertThat(lines).extracting(OrderReservation::getQuantity).containsExactly(10, 5);
+        assertThat(lines).allSatisfy(line -> assertThat(line.getCreatedAt()).isNotNull());
+        assertThat(orderReservationRepository.existsByOrderId("order_001")).isTrue();
+        assertThat(orderReservationRepository.existsByOrderId("order_002")).isFalse();
+    }
+
+    @Test
+    void insertReserved_ShouldRejectLineAlreadyRecordedForOrder() {
+        // Given
+        orderReservationRepository.insertReserved("order_003", new TreeMap<>(Map.of("prod_001", 1)));
+
+        // When & Then
+        assertThatThrownBy(() -> orderReservationRepository.insertReserved(
+                "order_003", new TreeMap<>(Map.of("prod_001", 2))))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void insertAllReserved_ShouldRecordSeveralOrdersInOneBatch() {
+        // When
+        orderReservationRepository.insertAllReserved(Map.of(
+                "order_005", new TreeMap<>(Map.of("prod_001", 1, "prod_002", 2)),
+                "order_006", new TreeMap<>(Map.of("prod_001", 3))));
+
+        // Then
+        assertThat(orderReservationRepository.existsByOrderId("order_006")).isTrue();
+        assertThat(orderReservationRepository.findByOrderIdOrderByProductId("order_005"))
+                .extracting(OrderReservation::getQuantity).containsExactly(1, 2);
+    }
+
+    @Test
+    void findForUpdateByOrderIdAndStatus_ShouldSkipReleasedLines() {
+        // Given
+        orderReservationRepository.insertReserved("order_004", new TreeMap<>(Map.of("prod_001", 1)));
+        orderReservationRepository.findByOrderIdOrderByProductId("order_004").forEach(OrderReservation::release);
+        orderReservationRepository.flush();
+
+        // When & Then
+        assertThat(orderReservationRepository.findForUpdateByOrderIdAndStatusOrderByProductId(
+                "order_004", OrderReservation.Status.RESERVED)).isEmpty();
+        assertThat(orderReservationRepository.findByOrderIdOrderByProductId("order_004"))
+                .extracting(OrderReservation::getStatus).containsExactly(OrderReservation.Status.RELEASED);
+    }
+}
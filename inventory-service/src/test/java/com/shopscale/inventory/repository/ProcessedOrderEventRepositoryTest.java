@@ -0,0 +1,49 @@
+package com.shopscale.inventory.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class ProcessedOrderEventRepositoryTest {
+
+    @Autowired
+    private ProcessedOrderEventRepository processedOrderEventRepository;
+
+    @Test
+    void markProcessed_ShouldRecordOrderOnlyOnce() {
+        // When & Then
+        assertThat(processedOrderEventRepository.markProcessed("order_001")).isTrue();
+        assertThat(processedOrderEventRepository.markProcessed("order_001")).isFalse();
+        assertThat(processedOrderEventRepository.findById("order_001")).isPresent()
+                .get().satisfies(event -> assertThat(event.getProcessedAt()).isNotNull());
+    }
+
+    @Test
+    void markAllProcessed_ShouldRecordOrdersFoundByFindOrderIdsIn() {
+        // When
+        processedOrderEventRepository.markAllProcessed(List.of("order_002", "order_003"));
+
+        // Then
+        assertThat(processedOrderEventRepository.findOrderIdsIn(List.of("order_002", "order_003", "order_004")))
+                .containsExactlyInAnyOrder("order_002", "order_003");
+    }
+
+    @Test
+    void markAllProcessed_ShouldRejectOrderAlreadyRecorded() {
+        // Given
+        processedOrderEventRepository.markProcessed("order_005");
+
+        // When & Then
+        assertThatThrownBy(() -> processedOrderEventRepository.markAllProcessed(List.of("order_006", "order_005")))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+}
@@ -1,23 +1,39 @@
 package com.shopscale.inventory.service;
 
+import com.shopscale.inventory.cache.AvailabilityCache;
+import com.shopscale.inventory.cache.ProcessedOrderCache;
 import com.shopscale.inventory.domain.InventoryItem;
+import com.shopscale.inventory.domain.OrderReservation;
 import com.shopscale.inventory.event.InventoryUpdatedEvent;
 import com.shopscale.inventory.exception.InsufficientInventoryException;
 import com.shopscale.inventory.exception.InventoryNotFoundException;
 import com.shopscale.inventory.repository.InventoryRepository;
+import com.shopscale.inventory.repository.OrderReservationRepository;
+import com.shopscale.inventory.repository.ProcessedOrderEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.kafka.core.KafkaTemplate;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -28,9 +44,22 @@ class InventoryServiceTest {
     @Mock
     private InventoryRepository inventoryRepository;
 
+    @Mock
+    private OrderReservationRepository orderReservationRepository;
+
+    @Mock
+    private ProcessedOrderEventRepository processedOrderEventRepository;
+
     @Mock
     private KafkaTemplate<String, InventoryUpdatedEvent> kafkaTemplate;
 
+    @Spy
+    private AvailabilityCache availabilityCache =
+            new AvailabilityCache(true, Duration.ofMinutes(1), 100, new SimpleMeterRegistry());
+
+    @Spy
+    private ProcessedOrderCache processedOrderCache = new ProcessedOrderCache(100, new SimpleMeterRegistry());
+
     @InjectMocks
     private InventoryService inventoryService;
 
@@ -45,7 +74,7 @@ class InventoryServiceTest {
     @Test
     void createOrUpdateInventory_ShouldCreateNewItem() {
         // Given
-        when(inventoryRepository.findByProductId("prod_001")).thenReturn(Optional.empty());
+        when(inventoryRepository.findForUpdateByProductId("prod_001")).thenReturn(Optional.empty());
         when(inventoryRepository.save(any(InventoryItem.class))).thenAnswer(i -> i.getArgument(0));
 
         // When
@@ -60,7 +89,7 @@ class InventoryServiceTest {
     @Test
     void createOrUpdateInventory_ShouldUpdateExistingItem() {
         // Given
-        when(inventoryRepository.findByProductId("prod_001")).thenReturn(Optional.of(testItem));
+        when(inventoryRepository.findForUpdateByProductId("prod_001")).thenReturn(Optional.of(testItem));
         when(inventoryRepository.save(any(InventoryItem.class))).thenAnswer(i -> i.getArgument(0));
 
         // When
@@ -74,37 +103,38 @@ class InventoryServiceTest {
     @Test
     void reserveInventory_ShouldReserveSuccessfully() {
         // Given
-        when(inventoryRepository.findByProductId("prod_001")).thenReturn(Optional.of(testItem));
-        when(inventoryRepository.save(any(InventoryItem.class))).thenAnswer(i -> i.getArgument(0));
+        when(inventoryRepository.reserve("prod_001", 30)).thenReturn(OptionalInt.of(70));
 
         // When
         inventoryService.reserveInventory("prod_001", 30);
 
-        // Then
-        assertThat(testItem.getAvailableQuantity()).isEqualTo(70);
-        assertThat(testItem.getReservedQuantity()).isEqualTo(30);
-        verify(inventoryRepository).save(testItem);
+        // Then - one conditional update, no locking read and no entity flush
+        verify(inventoryRepository, never()).findForUpdateByProductId(anyString());
+        verify(inventoryRepository, never()).save(any());
         verify(kafkaTemplate).send(eq("inventory-updated"), eq("prod_001"), any(InventoryUpdatedEvent.class));
     }
 
     @Test
     void reserveInventory_ShouldThrowExceptionWhenInsufficientInventory() {
         // Given
-        when(inventoryRepository.findByProductId("prod_001")).thenReturn(Optional.of(testItem));
+        when(inventoryRepository.reserve("prod_001", 150)).thenReturn(OptionalInt.empty());
+        when(inventoryRepository.findAvailableQuantityByProductId("prod_001")).thenReturn(Optional.of(100));
 
         // When & Then
         assertThatThrownBy(() -> inventoryService.reserveInventory("prod_001", 150))
                 .isInstanceOf(InsufficientInventoryException.class)
-                .hasMessageContaining("Insufficient inventory");
+                .hasMessageContaining("Insufficient inventory")
+                .hasMessageContaining("Available: 100");
         
-        verify(inventoryRepository, never()).save(any());
+
         verify(kafkaTemplate, never()).send(anyString(), anyString(), any());
     }
 
     @Test
     void reserveInventory_ShouldThrowExceptionWhenInventoryNotFound() {
         // Given
-        when(inventoryRepository.findByProductId("prod_999")).thenReturn(Optional.empty());
+        when(inventoryRepository.reserve("prod_999", 10)).thenReturn(OptionalInt.empty());
+        when(inventoryRepository.findAvailableQuantityByProductId("prod_999")).thenReturn(Optional.empty());
 
         // When & Then
         assertThatThrownBy(() -> inventoryService.reserveInventory("prod_999", 10))
@@ -115,32 +145,41 @@ class InventoryServiceTest {
     @Test
     void releaseInventory_ShouldReleaseSuccessfully() {
         // Given
-        testItem.reserveQuantity(30); // Reserve 30 first
-        when(inventoryRepository.findByProductId("prod_001")).thenReturn(Optional.of(testItem));
-        when(inventoryRepository.save(any(InventoryItem.class))).thenAnswer(i -> i.getArgument(0));
+        when(inventoryRepository.release("prod_001", 30)).thenReturn(OptionalInt.of(100));
 
         // When
         inventoryService.releaseInventory("prod_001", 30);
 
         // Then
-        assertThat(testItem.getAvailableQuantity()).isEqualTo(100);
-        assertThat(testItem.getReservedQuantity()).isEqualTo(0);
-        verify(inventoryRepository).save(testItem);
-        verify(kafkaTemplate).send(eq("inventory-updated"), eq("prod_001"), any(InventoryUpdatedEvent.class));
+        ArgumentCaptor<InventoryUpdatedEvent> eventCaptor = ArgumentCaptor.forClass(InventoryUpdatedEvent.class);
+        verify(kafkaTemplate).send(eq("inventory-updated"), eq("prod_001"), eventCaptor.capture());
+        assertThat(eventCaptor.getValue().getPreviousQuantity()).isEqualTo(70);
+        assertThat(eventCaptor.getValue().getNewQuantity()).isEqualTo(100);
+    }
+
+    @Test
+    void releaseInventory_ShouldThrowExceptionWhenTooLittleReserved() {
+        // Given
+        when(inventoryRepository.release("prod_001", 30)).thenReturn(OptionalInt.empty());
+        when(inventoryRepository.findAvailableQuantityByProductId("prod_001")).thenReturn(Optional.of(100));
+
+        // When & Then
+        assertThatThrownBy(() -> inventoryService.releaseInventory("prod_001", 30))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Insufficient reserved quantity");
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), any());
     }
 
     @Test
     void decreaseInventory_ShouldDecreaseSuccessfully() {
         // Given
-        when(inventoryRepository.findByProductId("prod_001")).thenReturn(Optional.of(testItem));
-        when(inventoryRepository.save(any(InventoryItem.class))).thenAnswer(i -> i.getArgument(0));
+        when(inventoryRepository.decrease("prod_001", 25)).thenReturn(OptionalInt.of(75));
 
         // When
         inventoryService.decreaseInventory("prod_001", 25);
 
         // Then
-        assertThat(testItem.getAvailableQuantity()).isEqualTo(75);
-        verify(inventoryRepository).save(testItem);
+        verify(inventoryRepository).decrease("prod_001", 25);
         verify(kafkaTemplate).send(eq("inventory-updated"), eq("prod_001"), any(InventoryUpdatedEvent.class));
     }
 
@@ -169,7 +208,7 @@ class InventoryServiceTest {
     @Test
     void isAvailable_ShouldReturnTrueWhenSufficientInventory() {
         // Given
-        when(inventoryRepository.findByProductId("prod_001")).thenReturn(Optional.of(testItem));
+        when(inventoryRepository.findAvailableQuantityByProductId("prod_001")).thenReturn(Optional.of(100));
 
         // When
         boolean available = inventoryService.isAvailable("prod_001", 50);
@@ -181,7 +220,7 @@ class InventoryServiceTest {
     @Test
     void isAvailable_ShouldReturnFalseWhenInsufficientInventory() {
         // Given
-        when(inventoryRepository.findByProductId("prod_001")).thenReturn(Optional.of(testItem));
+        when(inventoryRepository.findAvailableQuantityByProductId("prod_001")).thenReturn(Optional.of(100));
 
         // When
         boolean available = inventoryService.isAvailable("prod_001", 150);
@@ -193,7 +232,7 @@ class InventoryServiceTest {
     @Test
     void isAvailable_ShouldReturnFalseWhenInventoryNotFound() {
         // Given
-        when(inventoryRepository.findByProductId("prod_999")).thenReturn(Optional.empty());
+        when(inventoryRepository.findAvailableQuantityByProductId("prod_999")).thenReturn(Optional.empty());
 
         // When
         boolean available = inventoryService.isAvailable("prod_999", 10);
@@ -205,8 +244,7 @@ class InventoryServiceTest {
     @Test
     void reserveInventory_ShouldPublishCorrectEvent() {
         // Given
-        when(inventoryRepository.findByProductId("prod_001")).thenReturn(Optional.of(testItem));
-        when(inventoryRepository.save(any(InventoryItem.class))).thenAnswer(i -> i.getArgument(0));
+        when(inventoryRepository.reserve("prod_001", 20)).thenReturn(OptionalInt.of(80));
 
         // When
         inventoryService.reserveInventory("prod_001", 20);
@@ -221,4 +259,236 @@ class InventoryServiceTest {
         assertThat(event.getNewQuantity()).isEqualTo(80);
         assertThat(event.getTimestamp()).isNotNull();
     }
+
+    @Test
+    void isAvailable_ShouldReadWithoutLockingAndServeRepeatChecksFromCache() {
+        // Given
+        when(inventoryRepository.findAvailableQuantityByProductId("prod_001")).thenReturn(Optional.of(100));
+
+        // When
+        inventoryService.isAvailable("prod_001", 10);
+        boolean available = inventoryService.isAvailable("prod_001", 10);
+
+        // Then
+        assertThat(available).isTrue();
+        verify(inventoryRepository).findAvailableQuantityByProductId("prod_001");
+        verify(inventoryRepository, never()).findForUpdateByProductId(anyString());
+    }
+
+    @Test
+    void reserveInventory_ShouldRefreshCachedAvailability() {
+        // Given
+        when(inventoryRepository.findAvailableQuantityByProductId("prod_001")).thenReturn(Optional.of(100));
+        when(inventoryRepository.reserve("prod_001", 30)).thenReturn(OptionalInt.of(70));
+        assertThat(inventoryService.isAvailable("prod_001", 80)).isTrue();
+
+        // When
+        inventoryService.reserveInventory("prod_001", 30);
+
+        // Then - the check sees the reservation without going back to the database
+        assertThat(inventoryService.isAvailable("prod_001", 80)).isFalse();
+        verify(inventoryRepository).findAvailableQuantityByProductId("prod_001");
+    }
+
+    @Test
+    void reserveOrder_ShouldReserveAllLinesInOneBatchInProductIdOrder() {
+        // Given
+        InventoryItem other = new InventoryItem("prod_002", 45);
+        when(processedOrderEventRepository.markProcessed("order_123")).thenReturn(true);
+        when(inventoryRepository.reserveAll(any())).thenReturn(List.of());
+        when(inventoryRepository.findByProductIdIn(any())).thenReturn(List.of(other, withAvailable(testItem, 90)));
+
+        // When
+        boolean reserved = inventoryService.reserveOrder("order_123", Map.of("prod_002", 5, "prod_001", 10));
+
+        // Then
+        ArgumentCaptor<SortedMap<String, Integer>> lines = linesCaptor();
+        verify(inventoryRepository).reserveAll(lines.capture());
+        assertThat(reserved).isTrue();
+        assertThat(lines.getValue().keySet()).containsExactly("prod_001", "prod_002");
+        verify(orderReservationRepository).insertReserved("order_123", lines.getValue());
+        verify(inventoryRepository, never()).reserve(anyString(), anyInt());
+
+        ArgumentCaptor<InventoryUpdatedEvent> eventCaptor = ArgumentCaptor.forClass(InventoryUpdatedEvent.class);
+        verify(kafkaTemplate, times(2)).send(eq("inventory-updated"), anyString(), eventCaptor.capture());
+        assertThat(eventCaptor.getAllValues())
+                .extracting(InventoryUpdatedEvent::getProductId, InventoryUpdatedEvent::getPreviousQuantity,
+                        InventoryUpdatedEvent::getNewQuantity)
+                .containsExactlyInAnyOrder(tuple("prod_001", 100, 90), tuple("prod_002", 50, 45));
+    }
+
+    @Test
+    void reserveOrder_ShouldRecordNothingWhenAnyLineIsShort() {
+        // Given
+        when(processedOrderEventRepository.markProcessed("order_123")).thenReturn(true);
+        when(inventoryRepository.reserveAll(any())).thenReturn(List.of("prod_002"));
+        when(inventoryRepository.findAvailableQuantityByProductId("prod_002")).thenReturn(Optional.of(3));
+
+        // When & Then
+        assertThatThrownBy(() -> inventoryService.reserveOrder("order_123", Map.of("prod_001", 10, "prod_002", 5)))
+                .isInstanceOf(InsufficientInventoryException.class)
+                .hasMessageContaining("prod_002")
+                .hasMessageContaining("Available: 3, Requested: 5");
+        verify(orderReservationRepository, never()).insertReserved(anyString(), any());
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), any());
+        assertThat(processedOrderCache.contains("order_123")).isFalse();
+    }
+
+    @Test
+    void reserveOrder_ShouldIgnoreRedeliveredOrder() {
+        // Given - processed by another instance before a rebalance
+        when(processedOrderEventRepository.markProcessed("order_123")).thenReturn(false);
+
+        // When
+        boolean reserved = inventoryService.reserveOrder("order_123", Map.of("prod_001", 10));
+
+        // Then
+        assertThat(reserved).isFalse();
+        verify(inventoryRepository, never()).reserveAll(any());
+        assertThat(processedOrderCache.contains("order_123")).isTrue();
+    }
+
+    @Test
+    void reserveOrder_ShouldAnswerRecentlyProcessedOrderFromMemory() {
+        // Given
+        when(processedOrderEventRepository.markProcessed("order_123")).thenReturn(true);
+        when(inventoryRepository.reserveAll(any())).thenReturn(List.of());
+        when(inventoryRepository.findByProductIdIn(any())).thenReturn(List.of(withAvailable(testItem, 90)));
+        inventoryService.reserveOrder("order_123", Map.of("prod_001", 10));
+
+        // When
+        boolean reserved = inventoryService.reserveOrder("order_123", Map.of("prod_001", 10));
+
+        // Then - the redelivery made no database call
+        assertThat(reserved).isFalse();
+        verify(processedOrderEventRepository).markProcessed("order_123");
+        verify(inventoryRepository).reserveAll(any());
+    }
+
+    @Test
+    void reserveOrders_ShouldApplyReservableOrdersWithOneUpdatePerProduct() {
+        // Given - order_2 was processed by an earlier delivery, order_4 no longer fits, order_1 is redelivered
+        when(processedOrderEventRepository.findOrderIdsIn(any())).thenReturn(Set.of("order_2"));
+        when(inventoryRepository.lockAvailableQuantities(new TreeSet<>(Set.of("prod_001", "prod_002"))))
+                .thenReturn(Map.of("prod_001", 100, "prod_002", 10));
+        when(inventoryRepository.reserveAll(any())).thenReturn(List.of());
+        List<OrderLines> orders = List.of(
+                order("order_1", Map.of("prod_001", 30, "prod_002", 4)),
+                order("order_2", Map.of("prod_001", 50)),
+                order("order_3", Map.of("prod_002", 6)),
+                order("order_4", Map.of("prod_001", 1, "prod_002", 1)),
+                order("order_1", Map.of("prod_001", 30, "prod_002", 4)));
+
+        // When
+        BatchReservation batch = inventoryService.reserveOrders(orders);
+
+        // Then
+        assertThat(batch.outcomes()).containsExactly(
+                BatchReservation.Outcome.RESERVED,
+                BatchReservation.Outcome.DUPLICATE,
+                BatchReservation.Outcome.RESERVED,
+                BatchReservation.Outcome.INSUFFICIENT,
+                BatchReservation.Outcome.DUPLICATE);
+        verify(inventoryRepository).reserveAll(new TreeMap<>(Map.of("prod_001", 30, "prod_002", 10)));
+        verify(orderReservationRepository).insertAllReserved(batch.reserved());
+        verify(processedOrderEventRepository).markAllProcessed(batch.reserved().keySet());
+        assertThat(batch.reserved()).containsOnlyKeys("order_1", "order_3");
+        assertThat(processedOrderCache.contains("order_3")).isTrue();
+
+        ArgumentCaptor<InventoryUpdatedEvent> eventCaptor = ArgumentCaptor.forClass(InventoryUpdatedEvent.class);
+        verify(kafkaTemplate, times(2)).send(eq("inventory-updated"), anyString(), eventCaptor.capture());
+        assertThat(eventCaptor.getAllValues())
+                .extracting(InventoryUpdatedEvent::getProductId, InventoryUpdatedEvent::getPreviousQuantity,
+                        InventoryUpdatedEvent::getNewQuantity)
+                .containsExactly(tuple("prod_001", 100, 70), tuple("prod_002", 10, 0));
+    }
+
+    @Test
+    void reserveOrders_ShouldChangeNothingWhenNoOrderFits() {
+        // Given
+        when(inventoryRepository.lockAvailableQuantities(any())).thenReturn(Map.of("prod_001", 5));
+
+        // When
+        BatchReservation batch = inventoryService.reserveOrders(List.of(
+                order("order_1", Map.of("prod_001", 6)),
+                order("order_2", Map.of("prod_001", 1, "nonexistent", 1))));
+
+        // Then
+        assertThat(batch.outcomes()).containsExactly(
+                BatchReservation.Outcome.INSUFFICIENT,
+                BatchReservation.Outcome.NOT_FOUND);
+        verify(inventoryRepository, never()).reserveAll(any());
+        verify(orderReservationRepository, never()).insertAllReserved(any());
+        verify(processedOrderEventRepository, never()).markAllProcessed(any());
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), any());
+    }
+
+    @Test
+    void reserveOrders_ShouldSkipDatabaseForBatchOfRecentlyProcessedOrders() {
+        // Given
+        processedOrderCache.addAll(List.of("order_1", "order_2"));
+
+        // When
+        BatchReservation batch = inventoryService.reserveOrders(List.of(
+                order("order_1", Map.of("prod_001", 1)),
+                order("order_2", Map.of("prod_002", 1))));
+
+        // Then
+        assertThat(batch.outcomes()).containsOnly(BatchReservation.Outcome.DUPLICATE);
+        verifyNoInteractions(processedOrderEventRepository, inventoryRepository, orderReservationRepository);
+    }
+
+    @Test
+    void orderLines_ShouldRejectNonPositiveQuantities() {
+        // When & Then
+        assertThatThrownBy(() -> order("order_1", Map.of("prod_001", 0)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> order("order_1", Map.of()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void releaseOrder_ShouldReleaseAllReservedLinesAndMarkThemReleased() {
+        // Given
+        OrderReservation line1 = new OrderReservation("order_123", "prod_001", 10);
+        OrderReservation line2 = new OrderReservation("order_123", "prod_002", 5);
+        when(orderReservationRepository.findForUpdateByOrderIdAndStatusOrderByProductId(
+                "order_123", OrderReservation.Status.RESERVED)).thenReturn(List.of(line1, line2));
+        when(inventoryRepository.releaseAll(any())).thenReturn(List.of());
+        when(inventoryRepository.findByProductIdIn(any())).thenReturn(List.of(withAvailable(testItem, 110)));
+
+        // When
+        boolean released = inventoryService.releaseOrder("order_123");
+
+        // Then
+        assertThat(released).isTrue();
+        verify(inventoryRepository).releaseAll(new TreeMap<>(Map.of("prod_001", 10, "prod_002", 5)));
+        assertThat(line1.getStatus()).isEqualTo(OrderReservation.Status.RELEASED);
+        assertThat(line2.getReleasedAt()).isNotNull();
+    }
+
+    @Test
+    void releaseOrder_ShouldReturnFalseWhenNothingIsReserved() {
+        // Given
+        when(orderReservationRepository.findForUpdateByOrderIdAndStatusOrderByProductId(
+                "order_999", OrderReservation.Status.RESERVED)).thenReturn(List.of());
+
+        // When & Then
+        assertThat(inventoryService.releaseOrder("order_999")).isFalse();
+        verify(inventoryRepository, never()).releaseAll(any());
+    }
+
+    private static OrderLines order(String orderId, Map<String, Integer> quantities) {
+        return new OrderLines(orderId, new TreeMap<>(quantities));
+    }
+
+    private static InventoryItem withAvailable(InventoryItem item, int availableQuantity) {
+        item.setAvailableQuantity(availableQuantity);
+        return item;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<SortedMap<String, Integer>> linesCaptor() {
+        return ArgumentCaptor.forClass(SortedMap.class);
+    }
 }
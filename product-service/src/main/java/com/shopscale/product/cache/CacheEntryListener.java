@@ -0,0 +1,24 @@
+package com.shopscale.product.cache;
+
+/**
+ * Callback for components that need to observe values written to a {@link TwoTierCache}
+ */
+public interface CacheEntryListener {
+
+    /**
+     * Invoked after a value has been stored in both cache tiers
+     */
+    void onPut(String cacheName, Object key, Object value);
+
+    /**
+     * Invoked when a lookup is answered from either tier
+     */
+    default void onHit(String cacheName, Object key) {
+    }
+
+    /**
+     * Invoked after a key has been explicitly evicted from both tiers
+     */
+    default void onEvict(String cacheName, Object key) {
+    }
+}
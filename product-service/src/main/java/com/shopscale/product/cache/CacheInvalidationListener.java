@@ -0,0 +1,53 @@
+package com.shopscale.product.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Applies L1 invalidations published by other product-service instances
+ */
+public class CacheInvalidationListener implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationListener.class);
+
+    private final TwoTierCacheManager cacheManager;
+    private final String instanceId;
+
+    public CacheInvalidationListener(TwoTierCacheManager cacheManager, String instanceId) {
+        this.cacheManager = cacheManager;
+        this.instanceId = instanceId;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String payload = new String(message.getBody(), StandardCharsets.UTF_8);
+        String[] parts = payload.split("\\" + CacheInvalidationPublisher.SEPARATOR, 4);
+        if (parts.length != 4) {
+            logger.warn("Ignoring malformed cache invalidation message: {}", payload);
+            return;
+        }
+
+        String sender = parts[0];
+        if (instanceId.equals(sender)) {
+            // Already applied locally before publishing
+            return;
+        }
+
+        TwoTierCache cache = cacheManager.getTwoTierCache(parts[2]);
+        if (cache == null) {
+            return;
+        }
+
+        if (CacheInvalidationPublisher.CLEAR.equals(parts[1])) {
+            logger.debug("Clearing L1 cache '{}' on request from instance {}", parts[2], sender);
+            cache.invalidateLocalAll();
+        } else {
+            logger.debug("Evicting L1 key '{}' from cache '{}' on request from instance {}", parts[3], parts[2], sender);
+            cache.invalidateLocal(parts[3]);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.shopscale.product.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * Broadcasts L1 invalidations to every product-service instance over Redis pub/sub.
+ * Message format: {@code <instanceId>|<E|C>|<cacheName>|<key>}
+ */
+public class CacheInvalidationPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationPublisher.class);
+
+    static final String SEPARATOR = "|";
+    static final String EVICT = "E";
+    static final String CLEAR = "C";
+
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+    private final String instanceId;
+
+    public CacheInvalidationPublisher(StringRedisTemplate redisTemplate, String channel, String instanceId) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+        this.instanceId = instanceId;
+    }
+
+    public void publishEvict(String cacheName, Object key) {
+        publish(EVICT, cacheName, String.valueOf(key));
+    }
+
+    public void publishClear(String cacheName) {
+        publish(CLEAR, cacheName, "");
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    private void publish(String operation, String cacheName, String key) {
+        String message = String.join(SEPARATOR, instanceId, operation, cacheName, key);
+        try {
+            redisTemplate.convertAndSend(channel, message);
+        } catch (Exception e) {
+            // Remote L1 copies will still expire via their TTL
+            logger.warn("Failed to publish cache invalidation for {}:{}: {}", cacheName, key, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.shopscale.product.cache;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * {@code /actuator/cachekeys}: top keys by hits, size and eviction churn for every cache
+ * tracked by {@link HotKeyTracker}, or for one with {@code /actuator/cachekeys/{cache}}
+ */
+@Component
+@Endpoint(id = "cachekeys")
+public class CacheKeysEndpoint {
+
+    private final HotKeyTracker hotKeyTracker;
+
+    public CacheKeysEndpoint(HotKeyTracker hotKeyTracker) {
+        this.hotKeyTracker = hotKeyTracker;
+    }
+
+    @ReadOperation
+    public Map<String, HotKeyTracker.Report> caches() {
+        Map<String, HotKeyTracker.Report> reports = new TreeMap<>();
+        for (String cacheName : hotKeyTracker.cacheNames()) {
+            reports.put(cacheName, hotKeyTracker.report(cacheName));
+        }
+        return reports;
+    }
+
+    /**
+     * Top keys of one cache; answers 404 when the cache is not tracked
+     */
+    @ReadOperation
+    public HotKeyTracker.Report cache(@Selector String cache) {
+        return hotKeyTracker.report(cache);
+    }
+}
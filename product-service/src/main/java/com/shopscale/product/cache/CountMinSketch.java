@@ -0,0 +1,73 @@
+package com.shopscale.product.cache;
+
+/**
+ * Count-min sketch: approximate per-item counts in fixed memory. Estimates never undercount;
+ * they overcount by at most {@code total / width} with probability {@code 1 - 2^-depth}.
+ *
+ * <p>Not thread-safe; callers synchronize.
+ */
+final class CountMinSketch {
+
+    private final long[][] counts;
+    private final int mask;
+
+    CountMinSketch(int width, int depth) {
+        if (width < 1 || depth < 1) {
+            throw new IllegalArgumentException("width and depth must be positive");
+        }
+        // Round up to a power of two so a row index is a mask, not a modulo
+        int rowWidth = Integer.highestOneBit(width - 1) << 1;
+        this.counts = new long[depth][Math.max(rowWidth, 1)];
+        this.mask = counts[0].length - 1;
+    }
+
+    /**
+     * Add to the item's count
+     *
+     * @return the item's estimated count after the addition
+     */
+    long add(Object item, long amount) {
+        int hash = item.hashCode();
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < counts.length; row++) {
+            int index = index(hash, row);
+            counts[row][index] += amount;
+            estimate = Math.min(estimate, counts[row][index]);
+        }
+        return estimate;
+    }
+
+    /**
+     * Estimated count of the item
+     */
+    long estimate(Object item) {
+        int hash = item.hashCode();
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < counts.length; row++) {
+            estimate = Math.min(estimate, counts[row][index(hash, row)]);
+        }
+        return estimate;
+    }
+
+    /**
+     * Halve every count, so old activity fades out
+     */
+    void halve() {
+        for (long[] row : counts) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] >>>= 1;
+            }
+        }
+    }
+
+    private int index(int hash, int row) {
+        // A different murmur3 finalization per row gives independent-enough positions
+        int h = hash + row * 0x9E3779B9;
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h & mask;
+    }
+}
@@ -0,0 +1,45 @@
+package com.shopscale.product.cache;
+
+import java.time.Clock;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Probabilistic early expiration (XFetch). An entry that took {@code delta} ms to compute
+ * is refreshed before it expires with a probability that rises as expiry approaches,
+ * so a hot key is typically recomputed by a single request instead of a stampede.
+ *
+ * <pre>refresh if now - delta * beta * ln(random) &gt;= expiry</pre>
+ */
+public class EarlyRefreshPolicy {
+
+    private final double beta;
+    private final Clock clock;
+    private final DoubleSupplier random;
+
+    public EarlyRefreshPolicy(double beta) {
+        this(beta, Clock.systemUTC(), () -> 1.0 - ThreadLocalRandom.current().nextDouble());
+    }
+
+    EarlyRefreshPolicy(double beta, Clock clock, DoubleSupplier random) {
+        this.beta = beta;
+        this.clock = clock;
+        this.random = random;
+    }
+
+    /**
+     * @param expiresAtMillis epoch millis at which the entry expires
+     * @param deltaMillis     time it took to compute the entry
+     */
+    public boolean shouldRefresh(long expiresAtMillis, long deltaMillis) {
+        if (beta <= 0 || deltaMillis <= 0) {
+            return false;
+        }
+        double gap = -deltaMillis * beta * Math.log(random.getAsDouble());
+        return clock.millis() + gap >= expiresAtMillis;
+    }
+
+    public long now() {
+        return clock.millis();
+    }
+}
@@ -0,0 +1,267 @@
+package com.shopscale.product.cache;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Per-instance analytics of the keys of selected caches: which keys are read most, which
+ * are largest, and which are evicted most often. Used to size TTLs and L1 capacity.
+ *
+ * <p>Hits and evictions are sampled and counted in a {@link CountMinSketch}; the keys with
+ * the highest estimates are kept in a small top-K heap. Sizes are measured by serializing a
+ * sample of written values the way L2 stores them. Counts halve on every decay, so the
+ * rankings follow current traffic. Reported counts are scaled back up by the sample rate.
+ *
+ * <p>Top keys are served by the {@code cachekeys} actuator endpoint. Gauges are tagged by
+ * rank rather than by key, which keeps their number bounded.
+ */
+public class HotKeyTracker implements CacheEntryListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(HotKeyTracker.class);
+
+    private final double sampleRate;
+    private final RedisSerializer<Object> sizeSerializer;
+    private final Map<String, CacheKeyStats> stats = new HashMap<>();
+
+    public HotKeyTracker(Collection<String> cacheNames, double sampleRate, int topK, int sketchWidth,
+                         int sketchDepth, int gaugeRanks, RedisSerializer<Object> sizeSerializer,
+                         MeterRegistry meterRegistry) {
+        this.sampleRate = sampleRate;
+        this.sizeSerializer = sizeSerializer;
+        for (String cacheName : cacheNames) {
+            CacheKeyStats cacheStats = new CacheKeyStats(
+                    new KeyRanking(new CountMinSketch(sketchWidth, sketchDepth), topK),
+                    new KeyRanking(null, topK),
+                    new KeyRanking(new CountMinSketch(sketchWidth, sketchDepth), topK));
+            stats.put(cacheName, cacheStats);
+            registerGauges(cacheName, cacheStats, gaugeRanks, meterRegistry);
+        }
+    }
+
+    @Override
+    public void onHit(String cacheName, Object key) {
+        CacheKeyStats cacheStats = stats.get(cacheName);
+        if (cacheStats != null && sampled()) {
+            cacheStats.hits().add(String.valueOf(key), 1);
+        }
+    }
+
+    @Override
+    public void onPut(String cacheName, Object key, Object value) {
+        CacheKeyStats cacheStats = stats.get(cacheName);
+        if (cacheStats == null || !sampled()) {
+            return;
+        }
+        byte[] bytes = sizeSerializer.serialize(value);
+        cacheStats.bytes().set(String.valueOf(key), bytes != null ? bytes.length : 0);
+    }
+
+    @Override
+    public void onEvict(String cacheName, Object key) {
+        CacheKeyStats cacheStats = stats.get(cacheName);
+        if (cacheStats == null) {
+            return;
+        }
+        // Not sampled: an evicted key must stop counting towards the largest entries
+        cacheStats.bytes().remove(String.valueOf(key));
+        if (sampled()) {
+            cacheStats.churn().add(String.valueOf(key), 1);
+        }
+    }
+
+    /**
+     * Names of the caches being tracked
+     */
+    public Set<String> cacheNames() {
+        return stats.keySet();
+    }
+
+    /**
+     * Current top keys of a tracked cache, or {@code null} if it is not tracked
+     */
+    public Report report(String cacheName) {
+        CacheKeyStats cacheStats = stats.get(cacheName);
+        if (cacheStats == null) {
+            return null;
+        }
+        return new Report(cacheName, sampleRate, cacheStats.hits().topShare(),
+                scaled(cacheStats.hits().top()), cacheStats.bytes().top(), scaled(cacheStats.churn().top()));
+    }
+
+    /**
+     * Halve every count so the rankings follow current traffic
+     */
+    @Scheduled(fixedDelayString = "${product.cache.hot-keys.decay-interval:5m}")
+    public void decay() {
+        stats.values().forEach(cacheStats -> {
+            cacheStats.hits().halve();
+            cacheStats.churn().halve();
+        });
+        logger.debug("Decayed hot key counts of {} caches", stats.size());
+    }
+
+    private boolean sampled() {
+        return ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    private List<KeyCount> scaled(List<KeyCount> sampledCounts) {
+        return sampledCounts.stream()
+                .map(count -> new KeyCount(count.key(), Math.round(count.value() / sampleRate)))
+                .toList();
+    }
+
+    private void registerGauges(String cacheName, CacheKeyStats cacheStats, int ranks, MeterRegistry meterRegistry) {
+        for (int rank = 1; rank <= ranks; rank++) {
+            rankGauge("cache.keys.top.hits", "Estimated hits of the key at this rank", cacheName, rank,
+                    () -> cacheStats.hits().top(), 1 / sampleRate, meterRegistry);
+            rankGauge("cache.keys.top.bytes", "Serialized size of the entry at this rank", cacheName, rank,
+                    () -> cacheStats.bytes().top(), 1, meterRegistry);
+            rankGauge("cache.keys.top.churn", "Estimated evictions of the key at this rank", cacheName, rank,
+                    () -> cacheStats.churn().top(), 1 / sampleRate, meterRegistry);
+        }
+        Gauge.builder("cache.keys.top.hit.share", cacheStats.hits(), KeyRanking::topShare)
+                .tag("cache", cacheName)
+                .description("Share of hits that go to the top keys")
+                .register(meterRegistry);
+    }
+
+    private static void rankGauge(String name, String description, String cacheName, int rank,
+                                  Supplier<List<KeyCount>> top, double scale,
+                                  MeterRegistry meterRegistry) {
+        int index = rank - 1;
+        Gauge.builder(name, () -> {
+                    List<KeyCount> counts = top.get();
+                    return index < counts.size() ? counts.get(index).value() * scale : 0;
+                })
+                .tag("cache", cacheName)
+                .tag("rank", String.valueOf(rank))
+                .description(description)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Top keys of one cache; hits and churn are estimates for this instance
+     *
+     * @param topHitShare share of hits that went to the listed keys, between 0 and 1
+     */
+    public record Report(String cache, double sampleRate, double topHitShare, List<KeyCount> hits,
+                         List<KeyCount> bytes, List<KeyCount> churn) {
+    }
+
+    public record KeyCount(String key, long value) {
+    }
+
+    private record CacheKeyStats(KeyRanking hits, KeyRanking bytes, KeyRanking churn) {
+    }
+
+    /**
+     * The {@code capacity} keys with the highest values. With a sketch, values are
+     * accumulated counts; without one, each value replaces the previous one.
+     */
+    static final class KeyRanking {
+
+        private final CountMinSketch sketch;
+        private final int capacity;
+        // Smallest value on top, so it is the one displaced by a bigger newcomer
+        private final PriorityQueue<Entry> heap = new PriorityQueue<>(Comparator.comparingLong(Entry::value));
+        private final Map<String, Entry> entries = new HashMap<>();
+        private long total;
+
+        KeyRanking(CountMinSketch sketch, int capacity) {
+            this.sketch = sketch;
+            this.capacity = capacity;
+        }
+
+        synchronized void add(String key, long amount) {
+            total += amount;
+            offer(key, sketch.add(key, amount));
+        }
+
+        synchronized void set(String key, long value) {
+            offer(key, value);
+        }
+
+        synchronized void remove(String key) {
+            Entry entry = entries.remove(key);
+            if (entry != null) {
+                heap.remove(entry);
+            }
+        }
+
+        synchronized void halve() {
+            if (sketch != null) {
+                sketch.halve();
+            }
+            total >>>= 1;
+            List<Entry> halved = new ArrayList<>(entries.size());
+            for (Entry entry : entries.values()) {
+                halved.add(new Entry(entry.key(), entry.value() >>> 1));
+            }
+            heap.clear();
+            entries.clear();
+            for (Entry entry : halved) {
+                heap.add(entry);
+                entries.put(entry.key(), entry);
+            }
+        }
+
+        /**
+         * Ranked keys, highest value first
+         */
+        synchronized List<KeyCount> top() {
+            return entries.values().stream()
+                    .sorted(Comparator.comparingLong(Entry::value).reversed().thenComparing(Entry::key))
+                    .map(entry -> new KeyCount(entry.key(), entry.value()))
+                    .toList();
+        }
+
+        /**
+         * Share of all counted amounts that went to the ranked keys
+         */
+        synchronized double topShare() {
+            if (total == 0) {
+                return 0;
+            }
+            long ranked = 0;
+            for (Entry entry : entries.values()) {
+                ranked += entry.value();
+            }
+            return Math.min(1.0, (double) ranked / total);
+        }
+
+        private void offer(String key, long value) {
+            Entry existing = entries.get(key);
+            if (existing != null) {
+                heap.remove(existing);
+            } else if (entries.size() >= capacity) {
+                Entry smallest = heap.peek();
+                if (smallest == null || smallest.value() >= value) {
+                    return;
+                }
+                heap.poll();
+                entries.remove(smallest.key());
+            }
+            Entry entry = new Entry(key, value);
+            heap.add(entry);
+            entries.put(key, entry);
+        }
+
+        private record Entry(String key, long value) {
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.shopscale.product.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.zset.Aggregate;
+import org.springframework.data.redis.connection.zset.Weights;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tracks which products are read most, across all instances, so a starting instance can
+ * warm its cache with them.
+ *
+ * <p>Reads are sampled and counted locally, then added to one Redis sorted set
+ * ({@code product-cache:hot-ids}) on every flush. Scores decay by half every decay
+ * interval, so the ranking follows current traffic, and the set is trimmed to the
+ * {@code max-tracked} highest scores.
+ */
+public class HotProductTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(HotProductTracker.class);
+
+    static final String HOT_IDS_KEY = "product-cache:hot-ids";
+    private static final String DECAY_LOCK_KEY = "product-cache:hot-ids:decay";
+
+    private final StringRedisTemplate redisTemplate;
+    private final double sampleRate;
+    private final int maxTracked;
+    private final Duration decayInterval;
+
+    private volatile Map<String, LongAdder> pending = new ConcurrentHashMap<>();
+
+    public HotProductTracker(StringRedisTemplate redisTemplate, double sampleRate, int maxTracked,
+                             Duration decayInterval) {
+        this.redisTemplate = redisTemplate;
+        this.sampleRate = sampleRate;
+        this.maxTracked = maxTracked;
+        this.decayInterval = decayInterval;
+    }
+
+    /**
+     * Count a read of the product, if it is sampled
+     */
+    public void recordRead(String productId) {
+        if (productId != null && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            pending.computeIfAbsent(productId, key -> new LongAdder()).increment();
+        }
+    }
+
+    /**
+     * The most read products, hottest first
+     */
+    public List<String> topIds(int count) {
+        Set<String> ids = redisTemplate.opsForZSet().reverseRange(HOT_IDS_KEY, 0, count - 1L);
+        return ids != null ? List.copyOf(ids) : List.of();
+    }
+
+    /**
+     * Add the sampled counts to the shared ranking in one pipeline
+     */
+    @Scheduled(fixedDelayString = "${product.warmup.hot-ids.flush-interval:30s}")
+    public void flush() {
+        Map<String, LongAdder> counts = pending;
+        if (counts.isEmpty()) {
+            return;
+        }
+        pending = new ConcurrentHashMap<>();
+        byte[] key = HOT_IDS_KEY.getBytes(StandardCharsets.UTF_8);
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                counts.forEach((productId, count) -> connection.zSetCommands()
+                        .zIncrBy(key, count.sum(), productId.getBytes(StandardCharsets.UTF_8)));
+                // Keep only the highest scores; rank 0 is the lowest
+                connection.zSetCommands().zRemRange(key, 0, -maxTracked - 1L);
+                return null;
+            });
+            logger.debug("Flushed reads of {} products to the hot product ranking", counts.size());
+        } catch (RuntimeException e) {
+            // Samples are approximate anyway, so losing one interval is harmless
+            logger.warn("Could not flush hot product counts: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Halve every score, once per interval across all instances
+     */
+    @Scheduled(fixedDelayString = "${product.warmup.hot-ids.decay-interval:10m}")
+    public void decay() {
+        try {
+            Boolean owner = redisTemplate.opsForValue().setIfAbsent(DECAY_LOCK_KEY, "1", decayInterval);
+            if (Boolean.TRUE.equals(owner)) {
+                redisTemplate.opsForZSet().unionAndStore(HOT_IDS_KEY, List.of(), HOT_IDS_KEY,
+                        Aggregate.SUM, Weights.of(0.5));
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not decay hot product counts: {}", e.getMessage());
+        }
+    }
+}
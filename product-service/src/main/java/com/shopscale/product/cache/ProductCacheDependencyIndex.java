@@ -0,0 +1,202 @@
+package com.shopscale.product.cache;
+
+import com.shopscale.product.domain.Product;
+import com.shopscale.product.domain.ProductList;
+import com.shopscale.product.domain.ProductPage;
+import com.shopscale.product.domain.ProductQuery;
+import com.shopscale.product.domain.ProductSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reverse index kept in Redis that maps each productId to the list cache keys
+ * whose cached value contains that product.
+ *
+ * <ul>
+ *   <li>{@code product-cache:dependents:<productId>} - list keys containing the product</li>
+ *   <li>{@code product-cache:registry:<prefix>} - registry of cached list keys whose membership
+ *       cannot be derived from the key alone (price ranges, filter queries and searches, the last keyset page)</li>
+ * </ul>
+ *
+ * Both are sorted sets scored by the expiry time of the list entry, so members expire
+ * with their entries: reads skip expired members and every write trims them.
+ *
+ * <p>Only the last page of the catalogue listing is registered: new products sort after every
+ * existing one, so earlier pages never gain members. Every page of a filtered listing is
+ * registered, since an existing product can start matching the filters anywhere in the
+ * order. Catalogue-wide query lists are registered without per-member dependencies, see
+ * {@link #spansCatalogue(String)}.
+ */
+public class ProductCacheDependencyIndex implements CacheEntryListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductCacheDependencyIndex.class);
+
+    // Sorted sets; the plain sets of earlier versions lived under other names and expire on their own
+    static final String DEPENDENCY_PREFIX = "product-cache:dependents:";
+    static final String REGISTRY_PREFIX = "product-cache:registry:";
+
+    /**
+     * Key prefixes that are registered so new or changed products can be matched against them
+     */
+    public static final List<String> TRACKED_PREFIXES = List.of("price:", "page:", "query:");
+
+    private final StringRedisTemplate redisTemplate;
+    private final String cacheName;
+    private final long entryTtlMillis;
+    private final long ttlSeconds;
+
+    public ProductCacheDependencyIndex(StringRedisTemplate redisTemplate, String cacheName, Duration ttl) {
+        this.redisTemplate = redisTemplate;
+        this.cacheName = cacheName;
+        this.entryTtlMillis = ttl.toMillis();
+        // Outlive the cache entries slightly so a dependency never disappears before its entry
+        this.ttlSeconds = ttl.plusMinutes(5).toSeconds();
+    }
+
+    @Override
+    public void onPut(String cacheName, Object key, Object value) {
+        if (!this.cacheName.equals(cacheName)) {
+            return;
+        }
+        if (value instanceof ProductList list) {
+            recordListEntry(String.valueOf(key), list.items());
+        } else if (value instanceof Collection<?> entries) {
+            recordListEntry(String.valueOf(key), entries);
+        } else if (value instanceof ProductPage page) {
+            String listKey = String.valueOf(key);
+            recordListEntry(listKey, page.items(), page.isLast() || listKey.startsWith(ProductQuery.CACHE_KEY_PREFIX));
+        }
+    }
+
+    /**
+     * Record that the given list key contains every product in the collection
+     */
+    public void recordListEntry(String listKey, Collection<?> entries) {
+        recordListEntry(listKey, entries, true);
+    }
+
+    /**
+     * @param register whether to add a tracked key to its prefix registry
+     */
+    public void recordListEntry(String listKey, Collection<?> entries, boolean register) {
+        byte[] member = bytes(listKey);
+        String trackedPrefix = register ? trackedPrefixOf(listKey) : null;
+        boolean recordMembers = !spansCatalogue(listKey);
+        long now = System.currentTimeMillis();
+        double expiresAt = now + entryTtlMillis;
+
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            if (recordMembers) {
+                for (Object entry : entries) {
+                    String productId = productIdOf(entry);
+                    if (productId != null) {
+                        addWithTtl(connection, bytes(DEPENDENCY_PREFIX + productId), member, expiresAt, now);
+                    }
+                }
+            }
+            if (trackedPrefix != null) {
+                addWithTtl(connection, bytes(REGISTRY_PREFIX + trackedPrefix), member, expiresAt, now);
+            }
+            return null;
+        });
+        logger.debug("Recorded {} dependencies for cache key '{}'", recordMembers ? entries.size() : 0, listKey);
+    }
+
+    /**
+     * List keys that currently contain the product
+     */
+    public Set<String> getDependentKeys(String productId) {
+        return liveMembers(DEPENDENCY_PREFIX + productId);
+    }
+
+    /**
+     * Registered list keys starting with one of {@link #TRACKED_PREFIXES}
+     */
+    public Set<String> getRegisteredKeys(String prefix) {
+        return liveMembers(REGISTRY_PREFIX + prefix);
+    }
+
+    /**
+     * Forget the product's dependencies once the dependent keys have been evicted
+     */
+    public void removeDependencies(Collection<String> productIds) {
+        Set<String> keys = new LinkedHashSet<>();
+        productIds.forEach(productId -> keys.add(DEPENDENCY_PREFIX + productId));
+        redisTemplate.delete(keys);
+    }
+
+    /**
+     * Drop evicted keys from the registries so they are not matched again
+     */
+    public void unregisterKeys(Collection<String> listKeys) {
+        for (String listKey : listKeys) {
+            String trackedPrefix = trackedPrefixOf(listKey);
+            if (trackedPrefix != null) {
+                redisTemplate.opsForZSet().remove(REGISTRY_PREFIX + trackedPrefix, listKey);
+            }
+        }
+    }
+
+    /**
+     * Whether a list is a query over the whole catalogue, filtered at most by stock. Nearly
+     * every product write changes a member's summary or membership of such a list, so it
+     * is treated as affected by every write instead of recording a dependency per member.
+     */
+    static boolean spansCatalogue(String listKey) {
+        if (!listKey.startsWith(ProductQuery.CACHE_KEY_PREFIX)) {
+            return false;
+        }
+        try {
+            ProductQuery query = ProductQuery.fromCacheKey(listKey);
+            return query.category() == null && query.search() == null
+                    && query.minPrice() == null && query.maxPrice() == null;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    static String trackedPrefixOf(String listKey) {
+        for (String prefix : TRACKED_PREFIXES) {
+            if (listKey.startsWith(prefix)) {
+                return prefix;
+            }
+        }
+        return null;
+    }
+
+    static String productIdOf(Object entry) {
+        if (entry instanceof Product product) {
+            return product.getProductId();
+        }
+        if (entry instanceof ProductSummary summary) {
+            return summary.productId();
+        }
+        return null;
+    }
+
+    private Set<String> liveMembers(String key) {
+        Set<String> members = redisTemplate.opsForZSet()
+                .rangeByScore(key, System.currentTimeMillis(), Double.POSITIVE_INFINITY);
+        return members != null ? members : Set.of();
+    }
+
+    private void addWithTtl(RedisConnection connection, byte[] key, byte[] member, double expiresAt, long now) {
+        connection.zSetCommands().zAdd(key, expiresAt, member);
+        connection.zSetCommands().zRemRangeByScore(key, Double.NEGATIVE_INFINITY, now);
+        connection.keyCommands().expire(key, ttlSeconds);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
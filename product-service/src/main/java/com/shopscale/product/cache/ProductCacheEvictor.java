@@ -0,0 +1,251 @@
+package com.shopscale.product.cache;
+
+import com.shopscale.product.domain.Product;
+import com.shopscale.product.domain.ProductQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Evicts only the cache entries affected by a product write: the product's own key in
+ * {@link #PRODUCT_CACHE}, and in {@link #SUMMARY_CACHE} every list key that currently
+ * contains it (from the reverse index) and every list key it now qualifies for.
+ */
+@Component
+public class ProductCacheEvictor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductCacheEvictor.class);
+
+    public static final String PRODUCT_CACHE = "products";
+
+    /**
+     * Lists and pages of {@link com.shopscale.product.domain.ProductSummary}
+     */
+    public static final String SUMMARY_CACHE = "product-summaries";
+
+    private static final String PRICE_PREFIX = "price:";
+    private static final String PAGE_PREFIX = "page:";
+
+    private final CacheManager cacheManager;
+    private final ProductCacheDependencyIndex dependencyIndex;
+
+    public ProductCacheEvictor(CacheManager cacheManager, ProductCacheDependencyIndex dependencyIndex) {
+        this.cacheManager = cacheManager;
+        this.dependencyIndex = dependencyIndex;
+    }
+
+    /**
+     * Evict entries affected by a write to a single product (state after the write)
+     */
+    public void evict(Product product) {
+        evict(List.of(product));
+    }
+
+    /**
+     * Evict entries affected by writes to the given products (state after the writes)
+     */
+    public void evict(Collection<Product> products) {
+        if (products.isEmpty()) {
+            return;
+        }
+        Cache productCache = cacheManager.getCache(PRODUCT_CACHE);
+        if (productCache != null) {
+            products.forEach(product -> productCache.evict(product.getProductId()));
+        }
+        Cache cache = cacheManager.getCache(SUMMARY_CACHE);
+        if (cache == null) {
+            return;
+        }
+
+        Set<String> keys;
+        try {
+            keys = affectedKeys(products);
+        } catch (Exception e) {
+            // Without the reverse index we cannot know which lists are stale
+            logger.warn("Dependency lookup failed, clearing cache '{}': {}", SUMMARY_CACHE, e.getMessage());
+            cache.clear();
+            return;
+        }
+
+        keys.forEach(cache::evict);
+        logger.debug("Evicted {} keys from cache '{}' for {} product(s)", keys.size(), SUMMARY_CACHE, products.size());
+
+        try {
+            dependencyIndex.removeDependencies(products.stream().map(Product::getProductId).toList());
+            dependencyIndex.unregisterKeys(keys);
+        } catch (Exception e) {
+            // Stale index entries only cause extra evictions later
+            logger.warn("Failed to clean up cache dependencies: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Start collecting the keys affected by a stream of newly inserted products, for imports
+     * too large to keep in memory until {@link #evict(InsertionTracker)}
+     */
+    public InsertionTracker trackInsertions() {
+        try {
+            return new InsertionTracker(dependencyIndex.getRegisteredKeys(PRICE_PREFIX),
+                    dependencyIndex.getRegisteredKeys(ProductQuery.CACHE_KEY_PREFIX));
+        } catch (Exception e) {
+            logger.warn("Dependency lookup failed, cache '{}' will be cleared after the insert: {}",
+                    SUMMARY_CACHE, e.getMessage());
+            return new InsertionTracker(null, null);
+        }
+    }
+
+    /**
+     * Evict, in one pass, every list key that the tracked insertions may belong to
+     */
+    public void evict(InsertionTracker insertions) {
+        Cache cache = cacheManager.getCache(SUMMARY_CACHE);
+        if (cache == null || insertions.count == 0) {
+            return;
+        }
+
+        Set<String> keys;
+        try {
+            if (insertions.priceKeysAtStart == null) {
+                throw new IllegalStateException("registered keys were not available when the insert started");
+            }
+            keys = new LinkedHashSet<>(insertions.keys);
+            keys.addAll(dependencyIndex.getRegisteredKeys(PAGE_PREFIX));
+            // Lists cached while the insert ran may hold part of it, whatever they match
+            registeredSince(PRICE_PREFIX, insertions.priceKeysAtStart).forEach(keys::add);
+            registeredSince(ProductQuery.CACHE_KEY_PREFIX, insertions.queryKeysAtStart).forEach(keys::add);
+        } catch (Exception e) {
+            logger.warn("Dependency lookup failed, clearing cache '{}': {}", SUMMARY_CACHE, e.getMessage());
+            cache.clear();
+            return;
+        }
+
+        keys.forEach(cache::evict);
+        logger.info("Evicted {} keys from cache '{}' for {} inserted product(s)", keys.size(), SUMMARY_CACHE,
+                insertions.count);
+
+        try {
+            dependencyIndex.unregisterKeys(keys);
+        } catch (Exception e) {
+            logger.warn("Failed to clean up cache dependencies: {}", e.getMessage());
+        }
+    }
+
+    private List<String> registeredSince(String prefix, Set<String> registeredAtStart) {
+        return dependencyIndex.getRegisteredKeys(prefix).stream()
+                .filter(key -> !registeredAtStart.contains(key))
+                .toList();
+    }
+
+    /**
+     * List keys in {@link #SUMMARY_CACHE} affected by writes to the given products
+     */
+    Set<String> affectedKeys(Collection<Product> products) {
+        Set<String> keys = new LinkedHashSet<>();
+        Set<String> priceKeys = dependencyIndex.getRegisteredKeys(PRICE_PREFIX);
+        Set<String> lastPageKeys = dependencyIndex.getRegisteredKeys(PAGE_PREFIX);
+        Set<String> queryKeys = dependencyIndex.getRegisteredKeys(ProductQuery.CACHE_KEY_PREFIX);
+
+        // Catalogue-wide lists record no dependencies per member
+        queryKeys.stream()
+                .filter(ProductCacheDependencyIndex::spansCatalogue)
+                .forEach(keys::add);
+        for (Product product : products) {
+            keys.addAll(dependencyIndex.getDependentKeys(product.getProductId()));
+
+            if (!product.isActive()) {
+                // Inactive products only leave lists, which the reverse index and the catalogue-wide keys cover
+                continue;
+            }
+
+            // A new product is appended to the last page of every keyset listing
+            keys.addAll(lastPageKeys);
+            // Lists the product now belongs to, whether or not they contained it before
+            priceKeys.stream()
+                    .filter(key -> priceKeyContains(key, product.getPrice()))
+                    .forEach(keys::add);
+            queryKeys.stream()
+                    .filter(key -> queryKeyMatches(key, product))
+                    .forEach(keys::add);
+        }
+        return keys;
+    }
+
+    /**
+     * Keys affected by newly inserted products, accumulated one product at a time. Price and
+     * query keys registered when tracking started are matched against each product; the
+     * rest are resolved by {@link #evict(InsertionTracker)}.
+     */
+    public static final class InsertionTracker {
+
+        private final Set<String> priceKeysAtStart;
+        private final Set<String> queryKeysAtStart;
+        private final Set<String> keys = new LinkedHashSet<>();
+        private long count;
+
+        private InsertionTracker(Set<String> priceKeysAtStart, Set<String> queryKeysAtStart) {
+            this.priceKeysAtStart = priceKeysAtStart;
+            this.queryKeysAtStart = queryKeysAtStart;
+        }
+
+        public void add(Product product) {
+            count++;
+            if (!product.isActive() || priceKeysAtStart == null) {
+                return;
+            }
+            priceKeysAtStart.stream()
+                    .filter(key -> !keys.contains(key) && priceKeyContains(key, product.getPrice()))
+                    .forEach(keys::add);
+            queryKeysAtStart.stream()
+                    .filter(key -> !keys.contains(key) && queryKeyMatches(key, product))
+                    .forEach(keys::add);
+        }
+
+        public long count() {
+            return count;
+        }
+    }
+
+    /**
+     * Matches keys of the form {@code price:<min>-<max>}. Price ranges are now served from the
+     * price index, but instances running an older version may still cache such lists.
+     */
+    static boolean priceKeyContains(String key, BigDecimal price) {
+        if (price == null) {
+            return false;
+        }
+        String range = key.substring(PRICE_PREFIX.length());
+        // BigDecimal#toString may contain '-' in an exponent, so try every split point
+        for (int i = range.indexOf('-'); i > 0; i = range.indexOf('-', i + 1)) {
+            try {
+                BigDecimal min = new BigDecimal(range.substring(0, i));
+                BigDecimal max = new BigDecimal(range.substring(i + 1));
+                return price.compareTo(min) >= 0 && price.compareTo(max) <= 0;
+            } catch (NumberFormatException e) {
+                // try the next separator
+            }
+        }
+        // Unparseable key: evict it to stay on the safe side
+        return true;
+    }
+
+    /**
+     * Matches keys produced by {@link ProductQuery#cacheKey()} and {@link ProductQuery#pageCacheKey}
+     * (see ProductService#findProducts and #searchProducts)
+     */
+    static boolean queryKeyMatches(String key, Product product) {
+        try {
+            return ProductQuery.fromCacheKey(key).matches(product);
+        } catch (IllegalArgumentException e) {
+            // Unparseable key: evict it to stay on the safe side
+            return true;
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package com.shopscale.product.cache;
+
+import com.shopscale.product.domain.Product;
+import com.shopscale.product.domain.ProductCursor;
+import com.shopscale.product.domain.ProductList;
+import com.shopscale.product.domain.ProductPage;
+import com.shopscale.product.domain.ProductQuery;
+import com.shopscale.product.domain.ProductSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Applies product changes made outside {@code ProductService} (seen on the Mongo change
+ * stream or reported by the inventory service) to the caches. The product's own entry is
+ * evicted. Cached {@code query:} pages without a text search are patched in place, since
+ * their membership follows from the product alone, so hot lists stay warm. Other affected
+ * lists are evicted as in {@link ProductCacheEvictor}, or patched only where the change
+ * cannot move the product in or out of them.
+ */
+@Component
+public class ProductCacheRefresher {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductCacheRefresher.class);
+
+    private final CacheManager cacheManager;
+    private final ProductCacheEvictor cacheEvictor;
+    private final ProductCacheDependencyIndex dependencyIndex;
+
+    public ProductCacheRefresher(CacheManager cacheManager, ProductCacheEvictor cacheEvictor,
+                                 ProductCacheDependencyIndex dependencyIndex) {
+        this.cacheManager = cacheManager;
+        this.cacheEvictor = cacheEvictor;
+        this.dependencyIndex = dependencyIndex;
+    }
+
+    /**
+     * Apply the current state of an inserted or updated product
+     */
+    public void refresh(Product product) {
+        evictProduct(product.getProductId());
+        Cache cache = cacheManager.getCache(ProductCacheEvictor.SUMMARY_CACHE);
+        if (cache == null) {
+            return;
+        }
+        try {
+            Set<String> keys = cacheEvictor.affectedKeys(List.of(product));
+            apply(cache, product.getProductId(), keys, product);
+        } catch (Exception e) {
+            logger.warn("Could not refresh lists for product {}, clearing cache '{}': {}",
+                    product.getProductId(), ProductCacheEvictor.SUMMARY_CACHE, e.getMessage());
+            cache.clear();
+        }
+    }
+
+    /**
+     * Apply stock changes. Stock only moves products in or out of in-stock lists: those are
+     * patched, or evicted where the product's position is unknown, and every other list
+     * containing a product gets its summary replaced in place.
+     */
+    public void refreshStock(Collection<Product> products) {
+        if (products.isEmpty()) {
+            return;
+        }
+        products.forEach(product -> evictProduct(product.getProductId()));
+        Cache cache = cacheManager.getCache(ProductCacheEvictor.SUMMARY_CACHE);
+        if (cache == null) {
+            return;
+        }
+        try {
+            Set<String> queryKeys = dependencyIndex.getRegisteredKeys(ProductQuery.CACHE_KEY_PREFIX);
+            Map<String, List<String>> inStockQueryKeys = inStockQueryKeysByCategory(queryKeys);
+            List<String> catalogueKeys = catalogueKeys(queryKeys);
+            Set<String> evicted = new LinkedHashSet<>();
+            for (Product product : products) {
+                Set<String> dependents = new LinkedHashSet<>(dependencyIndex.getDependentKeys(product.getProductId()));
+                dependents.addAll(catalogueKeys);
+                for (String key : dependents) {
+                    boolean member = isMemberAfterStockChange(key, product);
+                    if (!patch(cache, key, product.getProductId(), member ? product : null, isPatchable(key))) {
+                        cache.evict(key);
+                        evicted.add(key);
+                    }
+                }
+                if (product.isActive() && product.isInStock()) {
+                    // Back in stock: it belongs in in-stock queries that do not list it yet
+                    List<String> candidates = new ArrayList<>(
+                            inStockQueryKeys.getOrDefault(product.getCategory(), List.of()));
+                    candidates.addAll(inStockQueryKeys.getOrDefault(null, List.of()));
+                    for (String key : candidates) {
+                        if (dependents.contains(key) || evicted.contains(key)
+                                || !ProductCacheEvictor.queryKeyMatches(key, product)) {
+                            continue;
+                        }
+                        if (!isPatchable(key) || !patch(cache, key, product.getProductId(), product, true)) {
+                            cache.evict(key);
+                            evicted.add(key);
+                        }
+                    }
+                }
+            }
+            dependencyIndex.unregisterKeys(evicted);
+            logger.debug("Applied stock of {} products, evicting {} keys in cache '{}'",
+                    products.size(), evicted.size(), ProductCacheEvictor.SUMMARY_CACHE);
+        } catch (Exception e) {
+            logger.warn("Could not refresh lists for {} stock changes, clearing cache '{}': {}",
+                    products.size(), ProductCacheEvictor.SUMMARY_CACHE, e.getMessage());
+            cache.clear();
+        }
+    }
+
+    /**
+     * Apply the deletion of a product document
+     */
+    public void removed(String productId) {
+        evictProduct(productId);
+        Cache cache = cacheManager.getCache(ProductCacheEvictor.SUMMARY_CACHE);
+        if (cache == null) {
+            return;
+        }
+        try {
+            Set<String> keys = new LinkedHashSet<>(dependencyIndex.getDependentKeys(productId));
+            keys.addAll(catalogueKeys(dependencyIndex.getRegisteredKeys(ProductQuery.CACHE_KEY_PREFIX)));
+            apply(cache, productId, keys, null);
+        } catch (Exception e) {
+            logger.warn("Could not refresh lists for deleted product {}, clearing cache '{}': {}",
+                    productId, ProductCacheEvictor.SUMMARY_CACHE, e.getMessage());
+            cache.clear();
+        }
+    }
+
+    /**
+     * Drop every product and list entry, for when changes may have been missed
+     */
+    public void clearAll() {
+        for (String name : List.of(ProductCacheEvictor.PRODUCT_CACHE, ProductCacheEvictor.SUMMARY_CACHE)) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+
+    private void evictProduct(String productId) {
+        Cache productCache = cacheManager.getCache(ProductCacheEvictor.PRODUCT_CACHE);
+        if (productCache != null) {
+            productCache.evict(productId);
+        }
+    }
+
+    /**
+     * @param product state after the change, or {@code null} if the product is gone
+     */
+    private void apply(Cache cache, String productId, Set<String> keys, Product product) {
+        // Patched lists re-record their members' dependencies when they are put back
+        dependencyIndex.removeDependencies(List.of(productId));
+
+        List<String> evicted = new ArrayList<>();
+        int patched = 0;
+        for (String key : keys) {
+            if (isPatchable(key) && patch(cache, key, productId, qualifies(key, product) ? product : null, true)) {
+                patched++;
+            } else {
+                cache.evict(key);
+                evicted.add(key);
+            }
+        }
+        dependencyIndex.unregisterKeys(evicted);
+        logger.debug("Applied change to product {}: patched {} and evicted {} keys in cache '{}'",
+                productId, patched, evicted.size(), ProductCacheEvictor.SUMMARY_CACHE);
+    }
+
+    /**
+     * Replace, drop or append the product's summary in a cached list
+     *
+     * @param member             state to keep in the list, or {@code null} to remove the product
+     * @param membershipMayChange whether the list is unordered enough to drop or append members;
+     *                           otherwise only an in-place replacement is allowed
+     * @return {@code false} if the list is not cached or cannot be patched this way
+     */
+    private boolean patch(Cache cache, String key, String productId, Product member, boolean membershipMayChange) {
+        Cache.ValueWrapper wrapper = cache.get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value instanceof ProductPage page) {
+            return patchPage(cache, key, page, productId, member, membershipMayChange);
+        }
+        // Query lists carry their ETag; legacy price lists are plain lists
+        List<?> cached = value instanceof ProductList list ? list.items() : value instanceof List<?> items ? items : null;
+        if (cached == null) {
+            return false;
+        }
+        ProductSummary summary = member != null ? ProductSummary.of(member) : null;
+        List<ProductSummary> patched = new ArrayList<>(cached.size() + 1);
+        boolean found = false;
+        for (Object entry : cached) {
+            if (!(entry instanceof ProductSummary existing)) {
+                return false;
+            }
+            if (!existing.productId().equals(productId)) {
+                patched.add(existing);
+            } else if (!found) {
+                found = true;
+                if (summary != null) {
+                    patched.add(summary);
+                }
+            }
+        }
+        if (!found && summary == null) {
+            // Neither listed nor qualifying: nothing to change
+            return true;
+        }
+        if (found != (summary != null) && !membershipMayChange) {
+            return false;
+        }
+        if (!found) {
+            patched.add(summary);
+        }
+        cache.put(key, value instanceof ProductList ? ProductList.of(patched) : patched);
+        return true;
+    }
+
+    /**
+     * Patch one keyset page of a query. A qualifying product is only added if it sorts
+     * within the page, pushing the page's last item onto the next page. A product that
+     * stops qualifying can only be dropped from the last page; an earlier page would come
+     * up short, so it is evicted and re-read instead.
+     */
+    private boolean patchPage(Cache cache, String key, ProductPage page, String productId, Product member,
+                              boolean membershipMayChange) {
+        ProductSummary summary = member != null ? ProductSummary.of(member) : null;
+        List<ProductSummary> items = new ArrayList<>(page.items());
+        int index = -1;
+        for (int i = 0; i < items.size() && index < 0; i++) {
+            if (items.get(i).productId().equals(productId)) {
+                index = i;
+            }
+        }
+        if (index < 0 && summary == null) {
+            return true;
+        }
+        if (index >= 0 && summary != null
+                && ProductCursor.of(summary).equals(ProductCursor.of(items.get(index)))) {
+            items.set(index, summary);
+            cache.put(key, new ProductPage(items, page.nextCursor()));
+            return true;
+        }
+        if (!membershipMayChange) {
+            return false;
+        }
+        if (index >= 0) {
+            if (!page.isLast()) {
+                return false;
+            }
+            items.remove(index);
+        }
+        String nextCursor = page.nextCursor();
+        ProductCursor position = summary != null ? ProductCursor.of(summary) : null;
+        if (position != null && sortsWithin(key, page, position)) {
+            String limit = pageKeyParam(key, "limit");
+            if (limit == null) {
+                return false;
+            }
+            int at = 0;
+            while (at < items.size() && ProductCursor.of(items.get(at)).compareTo(position) < 0) {
+                at++;
+            }
+            items.add(at, summary);
+            if (items.size() > Integer.parseInt(limit)) {
+                items.remove(items.size() - 1);
+                nextCursor = ProductCursor.of(items.get(items.size() - 1)).encode();
+            }
+        }
+        cache.put(key, new ProductPage(items, nextCursor));
+        return true;
+    }
+
+    /**
+     * Whether a position falls after the page's starting cursor and, unless the page is
+     * the last, before its last item
+     */
+    private static boolean sortsWithin(String key, ProductPage page, ProductCursor position) {
+        String after = pageKeyParam(key, "after");
+        if (after != null && !after.isEmpty() && position.compareTo(ProductCursor.decode(after)) <= 0) {
+            return false;
+        }
+        return page.isLast() || page.items().isEmpty()
+                || position.compareTo(ProductCursor.of(page.items().get(page.items().size() - 1))) < 0;
+    }
+
+    /**
+     * Value of a page parameter in a {@link ProductQuery#pageCacheKey} key, or {@code null}
+     */
+    private static String pageKeyParam(String key, String name) {
+        for (String pair : key.substring(ProductQuery.CACHE_KEY_PREFIX.length()).split("&")) {
+            if (pair.startsWith(name + "=")) {
+                return pair.substring(name.length() + 1);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Whether a product is in a list after a stock-only change
+     */
+    private static boolean isMemberAfterStockChange(String key, Product product) {
+        if (key.startsWith(ProductQuery.CACHE_KEY_PREFIX)) {
+            return ProductCacheEvictor.queryKeyMatches(key, product);
+        }
+        return product.isActive();
+    }
+
+    /**
+     * Registered in-stock query keys by their category filter, {@code null} for queries
+     * across categories. Unparseable keys are listed under {@code null} so they get evicted.
+     */
+    private static Map<String, List<String>> inStockQueryKeysByCategory(Set<String> queryKeys) {
+        Map<String, List<String>> byCategory = new HashMap<>();
+        for (String key : queryKeys) {
+            String category = null;
+            try {
+                ProductQuery query = ProductQuery.fromCacheKey(key);
+                if (!query.inStockOnly()) {
+                    continue;
+                }
+                category = query.category();
+            } catch (IllegalArgumentException e) {
+                // keep it under null
+            }
+            byCategory.computeIfAbsent(category, c -> new ArrayList<>()).add(key);
+        }
+        return byCategory;
+    }
+
+    /**
+     * Lists that record no dependencies per member, so may hold any product
+     */
+    private static List<String> catalogueKeys(Set<String> queryKeys) {
+        return queryKeys.stream()
+                .filter(ProductCacheDependencyIndex::spansCatalogue)
+                .toList();
+    }
+
+    /**
+     * Query pages without a text search: kept in keyset order, and their filters are matched exactly
+     */
+    static boolean isPatchable(String key) {
+        if (!key.startsWith(ProductQuery.CACHE_KEY_PREFIX)) {
+            return false;
+        }
+        try {
+            return ProductQuery.fromCacheKey(key).search() == null;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    static boolean qualifies(String key, Product product) {
+        return product != null && ProductCacheEvictor.queryKeyMatches(key, product);
+    }
+}
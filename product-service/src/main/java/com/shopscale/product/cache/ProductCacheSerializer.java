@@ -0,0 +1,212 @@
+package com.shopscale.product.cache;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.util.ClassUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Compact binary serializer for the product cache.
+ *
+ * <p>Values are written as Smile (binary JSON with back-referenced property names) and
+ * the class name is stored once per entry rather than once per object, so a category
+ * list carries a single type header instead of one per product. Payloads at or above
+ * {@code compressionThreshold} bytes are LZ4-compressed.
+ *
+ * <pre>
+ * [version:1][flags:1][uncompressedLength:4, if compressed][body]
+ * body = [kind:1][classNameLength:2][className][smile]
+ * </pre>
+ *
+ * Entries written by {@link GenericJackson2JsonRedisSerializer} are still readable, so
+ * switching formats does not require flushing Redis.
+ */
+public class ProductCacheSerializer implements RedisSerializer<Object> {
+
+    private static final byte FORMAT_VERSION = 1;
+    private static final byte FLAG_LZ4 = 1;
+
+    private static final byte KIND_VALUE = 0;
+    private static final byte KIND_LIST = 1;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    // JDK value types that are safe to instantiate on read, whatever the allowed package
+    private static final Set<String> ALLOWED_JDK_TYPES = Set.of(
+            String.class.getName(), Boolean.class.getName(), Integer.class.getName(), Long.class.getName(),
+            Double.class.getName(), BigDecimal.class.getName(), Instant.class.getName());
+
+    private final ObjectMapper mapper;
+    private final int compressionThreshold;
+    private final String allowedPackage;
+    private final LZ4Compressor compressor = LZ4Factory.fastestInstance().fastCompressor();
+    private final LZ4FastDecompressor decompressor = LZ4Factory.fastestInstance().fastDecompressor();
+    private final RedisSerializer<Object> legacySerializer = jsonSerializer();
+
+    private final ConcurrentMap<String, Class<?>> resolvedClasses = new ConcurrentHashMap<>();
+
+    /**
+     * @param compressionThreshold payload size in bytes from which LZ4 is applied; negative disables compression
+     * @param allowedPackage       only classes below this package, and a few JDK value types, are
+     *                             written or instantiated on read
+     */
+    public ProductCacheSerializer(int compressionThreshold, String allowedPackage) {
+        this.compressionThreshold = compressionThreshold;
+        this.allowedPackage = allowedPackage;
+        this.mapper = SmileMapper.builder()
+                .addModule(new JavaTimeModule())
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build();
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return EMPTY;
+        }
+        try {
+            byte[] body = encodeBody(value);
+            if (compressionThreshold < 0 || body.length < compressionThreshold) {
+                return ByteBuffer.allocate(2 + body.length)
+                        .put(FORMAT_VERSION)
+                        .put((byte) 0)
+                        .put(body)
+                        .array();
+            }
+
+            byte[] compressed = new byte[compressor.maxCompressedLength(body.length)];
+            int compressedLength = compressor.compress(body, 0, body.length, compressed, 0, compressed.length);
+            return ByteBuffer.allocate(6 + compressedLength)
+                    .put(FORMAT_VERSION)
+                    .put(FLAG_LZ4)
+                    .putInt(body.length)
+                    .put(compressed, 0, compressedLength)
+                    .array();
+        } catch (IOException e) {
+            throw new SerializationException("Could not write cache value: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != FORMAT_VERSION) {
+            // Written by the JSON serializer before the switch
+            return legacySerializer.deserialize(bytes);
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.get();
+        byte flags = buffer.get();
+        byte[] body;
+        if ((flags & FLAG_LZ4) != 0) {
+            int length = buffer.getInt();
+            body = new byte[length];
+            decompressor.decompress(bytes, buffer.position(), body, 0, length);
+        } else {
+            body = new byte[buffer.remaining()];
+            buffer.get(body);
+        }
+
+        try {
+            return decodeBody(body);
+        } catch (IOException e) {
+            throw new SerializationException("Could not read cache value: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * The previous JSON format, with {@code java.time} support so that {@link com.shopscale.product.domain.Product}
+     * timestamps can be written at all
+     */
+    public static GenericJackson2JsonRedisSerializer jsonSerializer() {
+        return new GenericJackson2JsonRedisSerializer()
+                .configure(objectMapper -> objectMapper.registerModule(new JavaTimeModule())
+                        .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES));
+    }
+
+    private byte[] encodeBody(Object value) throws IOException {
+        byte kind;
+        String className;
+        if (value instanceof Collection<?> collection) {
+            kind = KIND_LIST;
+            className = collection.isEmpty() ? "" : collection.iterator().next().getClass().getName();
+        } else {
+            kind = KIND_VALUE;
+            className = value.getClass().getName();
+        }
+
+        if (!className.isEmpty() && !isAllowed(className)) {
+            // Fail on write rather than caching an entry that can never be read back
+            throw new SerializationException("Refusing to cache unexpected type: " + className);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        DataOutputStream header = new DataOutputStream(out);
+        header.writeByte(kind);
+        byte[] name = className.getBytes(StandardCharsets.UTF_8);
+        header.writeShort(name.length);
+        header.write(name);
+        mapper.writeValue(out, value);
+        return out.toByteArray();
+    }
+
+    private Object decodeBody(byte[] body) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(body);
+        byte kind = buffer.get();
+        byte[] name = new byte[buffer.getShort()];
+        buffer.get(name);
+        String className = new String(name, StandardCharsets.UTF_8);
+        int offset = buffer.position();
+
+        if (kind == KIND_LIST) {
+            if (className.isEmpty()) {
+                return new ArrayList<>();
+            }
+            JavaType listType = mapper.getTypeFactory().constructCollectionType(List.class, resolve(className));
+            return mapper.readValue(body, offset, body.length - offset, listType);
+        }
+        return mapper.readValue(body, offset, body.length - offset, resolve(className));
+    }
+
+    private Class<?> resolve(String className) {
+        return resolvedClasses.computeIfAbsent(className, name -> {
+            if (!isAllowed(name)) {
+                throw new SerializationException("Refusing to deserialize unexpected type: " + name);
+            }
+            try {
+                return ClassUtils.forName(name, ProductCacheSerializer.class.getClassLoader());
+            } catch (ClassNotFoundException e) {
+                throw new SerializationException("Unknown cached type: " + name, e);
+            }
+        });
+    }
+
+    private boolean isAllowed(String className) {
+        return className.startsWith(allowedPackage + ".") || ALLOWED_JDK_TYPES.contains(className);
+    }
+}
@@ -0,0 +1,390 @@
+package com.shopscale.product.cache;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoServerException;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.mongodb.client.model.changestream.UpdateDescription;
+import com.mongodb.client.result.UpdateResult;
+import com.shopscale.product.domain.Product;
+import com.shopscale.product.event.ProductChangedEvent;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Tails the Mongo change stream of the {@code products} collection so that writes which
+ * bypass {@code ProductService} (ops scripts, seed loads, bulk fixes) reach the caches
+ * through {@link ProductCacheRefresher} within seconds instead of at TTL expiry.
+ *
+ * <p>Every instance tails the stream and publishes a {@link ProductChangedEvent} per
+ * change, so its in-memory indexes see writes made by other instances. Only the instance
+ * holding the lease on the token document in {@value #TOKEN_COLLECTION} refreshes the
+ * shared caches and saves the resume token, so a restart picks up where the stream left
+ * off; a lease that is not renewed within {@code lease-ttl} is taken over by another
+ * instance. If the token has fallen off the oplog, the caches are cleared and the stream
+ * restarts from now. Change streams need a replica set; on a standalone server the
+ * watcher stays off.
+ */
+@Component
+public class ProductChangeStreamWatcher implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductChangeStreamWatcher.class);
+
+    static final String TOKEN_COLLECTION = "change_stream_tokens";
+    static final String TOKEN_ID = "product-cache";
+
+    private static final String PRODUCT_COLLECTION = "products";
+
+    // Server error returned when a resume token is older than the oplog
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+
+    private static final List<Bson> PIPELINE = List.of(Aggregates.match(Filters.in("operationType",
+            "insert", "update", "replace", "delete", "drop", "rename", "dropDatabase", "invalidate")));
+
+    // Fields written by stock updates, which only move a product in or out of in-stock lists
+    private static final Set<String> STOCK_FIELDS = Set.of("stockQuantity", "inventoryUpdatedAt", "updatedAt", "version");
+
+    private final MongoTemplate mongoTemplate;
+    private final ProductCacheRefresher cacheRefresher;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final Duration tokenSaveInterval;
+    private final Duration retryInterval;
+    private final Duration leaseTtl;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private volatile boolean running;
+    private Thread thread;
+    private boolean leader;
+    private BsonDocument lastToken;
+    private long lastTokenSave;
+    private long lastLeaseAttempt;
+
+    public ProductChangeStreamWatcher(MongoTemplate mongoTemplate, ProductCacheRefresher cacheRefresher,
+                                      ApplicationEventPublisher eventPublisher,
+                                      @Value("${product.change-stream.enabled:true}") boolean enabled,
+                                      @Value("${product.change-stream.token-save-interval:1s}") Duration tokenSaveInterval,
+                                      @Value("${product.change-stream.retry-interval:5s}") Duration retryInterval,
+                                      @Value("${product.change-stream.lease-ttl:15s}") Duration leaseTtl) {
+        this.mongoTemplate = mongoTemplate;
+        this.cacheRefresher = cacheRefresher;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.tokenSaveInterval = tokenSaveInterval;
+        this.retryInterval = retryInterval;
+        this.leaseTtl = leaseTtl;
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::run, "product-change-stream");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            try {
+                // The cursor returns at least once per await period, so the loop notices promptly
+                thread.join(retryInterval.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            thread = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private boolean supportsChangeStreams() {
+        try {
+            Document hello = mongoTemplate.executeCommand(new Document("hello", 1));
+            if (hello.containsKey("setName") || "isdbgrid".equals(hello.getString("msg"))) {
+                return true;
+            }
+            logger.warn("MongoDB is not a replica set; change-stream cache invalidation is disabled");
+            return false;
+        } catch (Exception e) {
+            // Not reachable yet: the watch loop retries until it is
+            logger.warn("Could not check MongoDB topology, starting the change stream anyway: {}", e.getMessage());
+            return true;
+        }
+    }
+
+    private void run() {
+        // Checked on the watcher thread so that an unreachable server never delays startup
+        if (!supportsChangeStreams()) {
+            running = false;
+            return;
+        }
+        logger.info("Watching the products change stream as instance {}", instanceId);
+        while (running) {
+            try {
+                watch();
+            } catch (MongoServerException e) {
+                if (e.getCode() == CHANGE_STREAM_HISTORY_LOST) {
+                    logger.warn("Change stream resume token is no longer in the oplog, clearing product caches");
+                    resetAfterGap();
+                } else {
+                    retryLater(e);
+                }
+            } catch (Exception e) {
+                retryLater(e);
+            }
+        }
+        if (leader) {
+            saveToken(true);
+            releaseLease();
+        }
+    }
+
+    private void watch() {
+        leader = tryAcquireLease();
+        // Followers only feed their own indexes, which are rebuilt at startup, so they start from now
+        BsonDocument resumeToken = leader ? loadToken() : null;
+        logger.info("Tailing the products change stream as {}", leader ? "cache refresher" : "follower");
+        var changeStream = mongoTemplate.getCollection(PRODUCT_COLLECTION)
+                .watch(PIPELINE)
+                .fullDocument(FullDocument.UPDATE_LOOKUP);
+        if (resumeToken != null) {
+            changeStream = changeStream.resumeAfter(resumeToken);
+        }
+
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = changeStream.cursor()) {
+            while (running) {
+                ChangeStreamDocument<Document> event = cursor.tryNext();
+                if (event != null && !handle(event, leader)) {
+                    // The stream is closed after an invalidate; start a new one from now
+                    if (leader) {
+                        resetAfterGap();
+                    }
+                    return;
+                }
+                // Advances even without events, so an idle stream does not age out of the oplog
+                lastToken = cursor.getResumeToken();
+                if (leader ? !saveToken(false) : tryTakeOverLease()) {
+                    // Lost the lease, or took it over: start again in the other role
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Apply one change event to the in-memory indexes and, on the lease holder, the caches
+     *
+     * @return {@code false} if the stream was invalidated
+     */
+    boolean handle(ChangeStreamDocument<Document> event, boolean refreshCaches) {
+        switch (event.getOperationType()) {
+            case INSERT, UPDATE, REPLACE -> {
+                Document fullDocument = event.getFullDocument();
+                if (fullDocument == null) {
+                    // Deleted again before the lookup ran
+                    removed(productIdOf(event), refreshCaches);
+                } else {
+                    Product product = mongoTemplate.getConverter().read(Product.class, fullDocument);
+                    if (refreshCaches && isStockOnlyUpdate(event)) {
+                        cacheRefresher.refreshStock(List.of(product));
+                    } else if (refreshCaches) {
+                        cacheRefresher.refresh(product);
+                    }
+                    eventPublisher.publishEvent(new ProductChangedEvent(product));
+                }
+            }
+            case DELETE -> removed(productIdOf(event), refreshCaches);
+            case DROP, RENAME, DROP_DATABASE -> {
+                if (refreshCaches) {
+                    cacheRefresher.clearAll();
+                }
+            }
+            case INVALIDATE -> {
+                if (refreshCaches) {
+                    cacheRefresher.clearAll();
+                }
+                return false;
+            }
+            default -> logger.debug("Ignoring change stream event {}", event.getOperationType());
+        }
+        return true;
+    }
+
+    private void removed(String productId, boolean refreshCaches) {
+        if (refreshCaches) {
+            cacheRefresher.removed(productId);
+        }
+        // The indexes drop inactive products
+        Product gone = new Product();
+        gone.setProductId(productId);
+        gone.setActive(false);
+        eventPublisher.publishEvent(new ProductChangedEvent(gone));
+    }
+
+    /**
+     * Whether an update touched nothing but stock and its bookkeeping fields
+     */
+    static boolean isStockOnlyUpdate(ChangeStreamDocument<Document> event) {
+        UpdateDescription description = event.getUpdateDescription();
+        if (event.getOperationType() != OperationType.UPDATE || description == null
+                || description.getUpdatedFields() == null
+                || (description.getRemovedFields() != null && !description.getRemovedFields().isEmpty())) {
+            return false;
+        }
+        Set<String> fields = description.getUpdatedFields().keySet();
+        return fields.contains("stockQuantity") && STOCK_FIELDS.containsAll(fields);
+    }
+
+    static String productIdOf(ChangeStreamDocument<Document> event) {
+        BsonValue id = event.getDocumentKey().get("_id");
+        if (id.isString()) {
+            return id.asString().getValue();
+        }
+        return id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.toString();
+    }
+
+    private void resetAfterGap() {
+        cacheRefresher.clearAll();
+        lastToken = null;
+        mongoTemplate.getCollection(TOKEN_COLLECTION)
+                .updateOne(ownLease(), Updates.unset("token"));
+    }
+
+    /**
+     * Take the lease if it is free, expired or already ours
+     */
+    boolean tryAcquireLease() {
+        Date now = new Date();
+        Bson claimable = Filters.and(Filters.eq("_id", TOKEN_ID), Filters.or(
+                Filters.eq("owner", instanceId),
+                Filters.lt("leaseUntil", now),
+                Filters.exists("leaseUntil", false)));
+        try {
+            mongoTemplate.getCollection(TOKEN_COLLECTION).updateOne(claimable, Updates.combine(
+                    Updates.set("owner", instanceId),
+                    Updates.set("leaseUntil", leaseEnd(now))), new UpdateOptions().upsert(true));
+            return true;
+        } catch (MongoWriteException e) {
+            if (e.getError().getCategory() == ErrorCategory.DUPLICATE_KEY) {
+                // The document exists but another instance holds the lease
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Followers try for the lease once per retry interval, so a lapsed holder is replaced
+     *
+     * @return whether the lease was taken over
+     */
+    private boolean tryTakeOverLease() {
+        long now = System.currentTimeMillis();
+        if (now - lastLeaseAttempt < retryInterval.toMillis()) {
+            return false;
+        }
+        lastLeaseAttempt = now;
+        try {
+            return tryAcquireLease();
+        } catch (Exception e) {
+            logger.warn("Could not check the change stream lease: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void releaseLease() {
+        try {
+            mongoTemplate.getCollection(TOKEN_COLLECTION)
+                    .updateOne(ownLease(), Updates.set("leaseUntil", new Date()));
+        } catch (Exception e) {
+            // The lease lapses on its own after leaseTtl
+            logger.warn("Could not release the change stream lease: {}", e.getMessage());
+        }
+    }
+
+    private Bson ownLease() {
+        return Filters.and(Filters.eq("_id", TOKEN_ID), Filters.eq("owner", instanceId));
+    }
+
+    private Date leaseEnd(Date now) {
+        return new Date(now.getTime() + leaseTtl.toMillis());
+    }
+
+    private BsonDocument loadToken() {
+        Document saved = mongoTemplate.getCollection(TOKEN_COLLECTION).find(Filters.eq("_id", TOKEN_ID)).first();
+        Document token = saved != null ? saved.get("token", Document.class) : null;
+        return token != null ? BsonDocument.parse(token.toJson()) : null;
+    }
+
+    /**
+     * Save the resume token and renew the lease in one write
+     *
+     * @return {@code false} if another instance has taken the lease over
+     */
+    private boolean saveToken(boolean force) {
+        long now = System.currentTimeMillis();
+        if (lastToken == null || (!force && now - lastTokenSave < tokenSaveInterval.toMillis())) {
+            return true;
+        }
+        try {
+            Date savedAt = new Date(now);
+            UpdateResult result = mongoTemplate.getCollection(TOKEN_COLLECTION).updateOne(ownLease(),
+                    Updates.combine(
+                            Updates.set("token", Document.parse(lastToken.toJson())),
+                            Updates.set("savedAt", savedAt),
+                            Updates.set("leaseUntil", leaseEnd(savedAt))));
+            lastTokenSave = now;
+            if (result.getMatchedCount() == 0) {
+                logger.warn("Change stream lease was taken over by another instance");
+                return false;
+            }
+        } catch (Exception e) {
+            // Resuming from an older token only replays events, which are idempotent
+            logger.warn("Could not save change stream resume token: {}", e.getMessage());
+        }
+        return true;
+    }
+
+    private void retryLater(Exception e) {
+        if (!running) {
+            return;
+        }
+        logger.warn("Change stream failed, retrying in {}: {}", retryInterval, e.getMessage());
+        try {
+            Thread.sleep(retryInterval.toMillis());
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
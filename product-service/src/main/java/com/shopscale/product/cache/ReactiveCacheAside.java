@@ -0,0 +1,119 @@
+package com.shopscale.product.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking cache-aside over the caches of a {@link TwoTierCacheManager}, for the
+ * reactive read path where {@code @Cacheable} cannot cache a {@code Mono}.
+ *
+ * <p>Reads try the cache's L1, then Redis through a reactive client, and only then
+ * subscribe to the loader; loaded values are written back to both tiers. Keys, values and
+ * TTLs are encoded with the cache's own Redis configuration, so entries are shared with
+ * the blocking path. Concurrent loads of one key are coalesced within this instance;
+ * unlike the blocking path there is no cluster-wide load lock and no early refresh.
+ */
+public class ReactiveCacheAside {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveCacheAside.class);
+
+    private final TwoTierCacheManager cacheManager;
+    private final ReactiveRedisTemplate<ByteBuffer, ByteBuffer> redisTemplate;
+
+    private final ConcurrentMap<String, Mono<Object>> inFlight = new ConcurrentHashMap<>();
+
+    public ReactiveCacheAside(TwoTierCacheManager cacheManager,
+                              ReactiveRedisTemplate<ByteBuffer, ByteBuffer> redisTemplate) {
+        this.cacheManager = cacheManager;
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * The cached value of the key, or the loader's value, which is then cached. An empty
+     * or failed load is not cached.
+     */
+    public <T> Mono<T> get(String cacheName, String key, Class<T> type, Supplier<Mono<T>> loader) {
+        TwoTierCache cache = cacheManager.getTwoTierCache(cacheName);
+        RedisCacheConfiguration configuration = cacheManager.getRemoteConfiguration(cacheName);
+        if (cache == null || configuration == null) {
+            return Mono.defer(loader);
+        }
+
+        Cache.ValueWrapper local = cache.getLocal(key);
+        if (local != null) {
+            return Mono.just(type.cast(local.get()));
+        }
+
+        String flightKey = cacheName + "::" + key;
+        return inFlight.computeIfAbsent(flightKey, ignored -> readThrough(cache, configuration, key, loader)
+                        .doFinally(signal -> inFlight.remove(flightKey))
+                        .cache())
+                .map(type::cast);
+    }
+
+    private Mono<Object> readThrough(TwoTierCache cache, RedisCacheConfiguration configuration, String key,
+                                     Supplier<? extends Mono<?>> loader) {
+        byte[] rawKey = rawKey(cache.getName(), configuration, key);
+        Mono<Object> remote = redisTemplate.opsForValue().get(ByteBuffer.wrap(rawKey))
+                .map(rawValue -> configuration.getValueSerializationPair().read(rawValue))
+                .onErrorResume(e -> {
+                    logger.warn("Read of {}:{} from Redis failed: {}", cache.getName(), key, e.getMessage());
+                    return Mono.empty();
+                });
+
+        return remote
+                .doOnNext(value -> cache.remoteRead(key, value))
+                .switchIfEmpty(Mono.defer(() -> {
+                    cache.remoteRead(key, null);
+                    return load(cache, configuration, key, rawKey, loader);
+                }));
+    }
+
+    private Mono<Object> load(TwoTierCache cache, RedisCacheConfiguration configuration, String key,
+                              byte[] rawKey, Supplier<? extends Mono<?>> loader) {
+        long start = System.nanoTime();
+        return Mono.defer(loader)
+                .<Object>map(value -> value)
+                .flatMap(value -> {
+                    long deltaMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+                    return store(cache, configuration, key, rawKey, value, deltaMillis).thenReturn(value);
+                });
+    }
+
+    private Mono<Void> store(TwoTierCache cache, RedisCacheConfiguration configuration, String key,
+                             byte[] rawKey, Object value, long deltaMillis) {
+        ByteBuffer rawValue = configuration.getValueSerializationPair().write(value);
+        Duration ttl = configuration.getTtlFunction().getTimeToLive(key, value);
+        Mono<Boolean> write = ttl.isZero() || ttl.isNegative()
+                ? redisTemplate.opsForValue().set(ByteBuffer.wrap(rawKey), rawValue)
+                : redisTemplate.opsForValue().set(ByteBuffer.wrap(rawKey), rawValue, ttl);
+
+        return write
+                .onErrorResume(e -> {
+                    logger.warn("Write of {}:{} to Redis failed: {}", cache.getName(), key, e.getMessage());
+                    return Mono.just(false);
+                })
+                // Listeners such as the dependency index call Redis synchronously
+                .then(Mono.<Void>fromRunnable(() -> cache.remoteWritten(key, value, deltaMillis))
+                        .subscribeOn(Schedulers.boundedElastic()));
+    }
+
+    private static byte[] rawKey(String cacheName, RedisCacheConfiguration configuration, String key) {
+        String prefix = configuration.usePrefix() ? configuration.getKeyPrefixFor(cacheName) : "";
+        ByteBuffer buffer = configuration.getKeySerializationPair().write(prefix + key);
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
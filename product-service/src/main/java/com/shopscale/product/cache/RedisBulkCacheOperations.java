@@ -0,0 +1,84 @@
+package com.shopscale.product.cache;
+
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Multi-key reads and writes against the entries of one {@code RedisCache}, which the
+ * Spring cache abstraction only offers one key at a time. Keys, values and TTLs are
+ * encoded with the cache's own configuration, so entries are interchangeable with
+ * those written through {@code @Cacheable}.
+ */
+public class RedisBulkCacheOperations {
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisCacheConfiguration configuration;
+    private final String keyPrefix;
+
+    public RedisBulkCacheOperations(String cacheName, RedisCacheConfiguration configuration,
+                                    StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+        this.configuration = configuration;
+        this.keyPrefix = configuration.usePrefix() ? configuration.getKeyPrefixFor(cacheName) : "";
+    }
+
+    /**
+     * Read all keys with a single {@code MGET}
+     *
+     * @return values in key order, {@code null} where a key is missing
+     */
+    public List<Object> multiGet(List<?> keys) {
+        byte[][] rawKeys = keys.stream().map(this::rawKey).toArray(byte[][]::new);
+        List<byte[]> rawValues = redisTemplate.execute(
+                (RedisCallback<List<byte[]>>) connection -> connection.stringCommands().mGet(rawKeys));
+
+        List<Object> values = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            byte[] rawValue = rawValues != null ? rawValues.get(i) : null;
+            values.add(rawValue == null || rawValue.length == 0
+                    ? null
+                    : configuration.getValueSerializationPair().read(ByteBuffer.wrap(rawValue)));
+        }
+        return values;
+    }
+
+    /**
+     * Write all entries with their configured TTL in one pipelined round trip
+     */
+    public void multiPut(Map<?, ?> entries) {
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            entries.forEach((key, value) -> {
+                Duration ttl = configuration.getTtlFunction().getTimeToLive(key, value);
+                Expiration expiration = ttl.isZero() || ttl.isNegative()
+                        ? Expiration.persistent()
+                        : Expiration.from(ttl);
+                connection.stringCommands().set(rawKey(key), rawValue(value), expiration,
+                        RedisStringCommands.SetOption.upsert());
+            });
+            return null;
+        });
+    }
+
+    private byte[] rawKey(Object key) {
+        return toBytes(configuration.getKeySerializationPair().write(keyPrefix + key));
+    }
+
+    private byte[] rawValue(Object value) {
+        return toBytes(configuration.getValueSerializationPair().write(value));
+    }
+
+    private static byte[] toBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,83 @@
+package com.shopscale.product.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Short-lived Redis lock ({@code SET NX PX}) that lets one instance load a missing
+ * cache entry while the others wait for it to appear in Redis
+ */
+public class RedisLoadLock {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisLoadLock.class);
+
+    private static final String LOCK_PREFIX = "product-cache:lock:";
+
+    // Only delete the lock if we still own it
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class
+    );
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration lockTtl;
+
+    public RedisLoadLock(StringRedisTemplate redisTemplate, Duration lockTtl) {
+        this.redisTemplate = redisTemplate;
+        this.lockTtl = lockTtl;
+    }
+
+    /**
+     * Try to take the lock for a cache key
+     *
+     * @return the owner token, or {@code null} if another instance holds the lock
+     */
+    public String tryAcquire(String cacheName, Object key) {
+        String token = UUID.randomUUID().toString();
+        try {
+            Boolean acquired = redisTemplate.opsForValue().setIfAbsent(lockKey(cacheName, key), token, lockTtl);
+            return Boolean.TRUE.equals(acquired) ? token : null;
+        } catch (Exception e) {
+            // Fail open: a Redis problem must not block loading from Mongo
+            logger.warn("Could not acquire load lock for {}:{}: {}", cacheName, key, e.getMessage());
+            return token;
+        }
+    }
+
+    public void release(String cacheName, Object key, String token) {
+        try {
+            redisTemplate.execute(RELEASE_SCRIPT, List.of(lockKey(cacheName, key)), token);
+        } catch (Exception e) {
+            // The lock expires on its own after lockTtl
+            logger.warn("Could not release load lock for {}:{}: {}", cacheName, key, e.getMessage());
+        }
+    }
+
+    /**
+     * Whether any instance still holds the lock for a cache key
+     */
+    public boolean isHeld(String cacheName, Object key) {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.hasKey(lockKey(cacheName, key)));
+        } catch (Exception e) {
+            // Fail open, as in tryAcquire: stop waiting and load from Mongo
+            logger.warn("Could not check load lock for {}:{}: {}", cacheName, key, e.getMessage());
+            return false;
+        }
+    }
+
+    public Duration getLockTtl() {
+        return lockTtl;
+    }
+
+    private static String lockKey(String cacheName, Object key) {
+        return LOCK_PREFIX + cacheName + ":" + key;
+    }
+}
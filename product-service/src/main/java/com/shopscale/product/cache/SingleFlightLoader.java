@@ -0,0 +1,185 @@
+package com.shopscale.product.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent cache misses for the same key so that only one load runs.
+ * Within an instance, callers share one in-flight future. Across instances, the
+ * leader takes a short Redis lock; instances that lose the race poll Redis for the
+ * winner's value instead of hitting Mongo themselves, and load it themselves once the
+ * lock is released without a value.
+ */
+public class SingleFlightLoader {
+
+    private final String cacheName;
+    private final RedisLoadLock loadLock;
+    private final Duration pollInterval;
+
+    private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    // Kept apart from inFlight: a refresh may skip without a value, and a miss must never wait on it
+    private final Set<Object> refreshing = ConcurrentHashMap.newKeySet();
+
+    private final Counter leaderLoads;
+    private final Counter coalescedLoads;
+    private final Counter remoteWaitHits;
+
+    /**
+     * @param loadLock distributed lock, or {@code null} to coalesce within this instance only
+     */
+    public SingleFlightLoader(String cacheName, RedisLoadLock loadLock, Duration pollInterval,
+                              MeterRegistry meterRegistry) {
+        this.cacheName = cacheName;
+        this.loadLock = loadLock;
+        this.pollInterval = pollInterval;
+        this.leaderLoads = loadCounter(meterRegistry, "leader");
+        this.coalescedLoads = loadCounter(meterRegistry, "coalesced");
+        this.remoteWaitHits = loadCounter(meterRegistry, "remote-wait");
+    }
+
+    /**
+     * Load a value, sharing the result with every concurrent caller for the same key
+     *
+     * @param remoteLookup re-reads the shared tier; used after winning or while waiting on the lock
+     * @param loader       loads from the source of truth and stores the result in the cache
+     */
+    public Object load(Object key, Supplier<Cache.ValueWrapper> remoteLookup, Callable<Object> loader) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            coalescedLoads.increment();
+            return await(existing);
+        }
+
+        try {
+            Object value = loadAcrossInstances(key, remoteLookup, loader);
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * Reload a key that is still cached, unless a load for it is already running here
+     * or on another instance. Never waits: callers keep serving the current value.
+     *
+     * @return whether this call performed the reload
+     */
+    public boolean refresh(Object key, Callable<Object> loader) {
+        if (inFlight.containsKey(key) || !refreshing.add(key)) {
+            return false;
+        }
+
+        String token = null;
+        try {
+            if (loadLock != null) {
+                token = loadLock.tryAcquire(cacheName, key);
+                if (token == null) {
+                    return false;
+                }
+            }
+            call(loader);
+            return true;
+        } finally {
+            if (token != null) {
+                loadLock.release(cacheName, key, token);
+            }
+            refreshing.remove(key);
+        }
+    }
+
+    /**
+     * Whether a load or refresh for this key is currently running in this instance
+     */
+    public boolean isLoading(Object key) {
+        return inFlight.containsKey(key) || refreshing.contains(key);
+    }
+
+    private Object loadAcrossInstances(Object key, Supplier<Cache.ValueWrapper> remoteLookup,
+                                       Callable<Object> loader) {
+        if (loadLock == null) {
+            return call(loader);
+        }
+
+        String token = loadLock.tryAcquire(cacheName, key);
+        if (token != null) {
+            try {
+                // Another instance may have filled the entry between our miss and the lock
+                Cache.ValueWrapper filled = remoteLookup.get();
+                if (filled != null && filled.get() != null) {
+                    remoteWaitHits.increment();
+                    return filled.get();
+                }
+                leaderLoads.increment();
+                return call(loader);
+            } finally {
+                loadLock.release(cacheName, key, token);
+            }
+        }
+
+        // Another instance is loading: wait for its value, but never longer than the lock lives
+        long deadline = System.nanoTime() + loadLock.getLockTtl().toNanos();
+        while (System.nanoTime() < deadline) {
+            LockSupport.parkNanos(pollInterval.toNanos());
+            Cache.ValueWrapper filled = remoteLookup.get();
+            if (filled == null || filled.get() == null) {
+                if (loadLock.isHeld(cacheName, key)) {
+                    continue;
+                }
+                // Released without a value (the load failed or found nothing), unless it was stored just now
+                filled = remoteLookup.get();
+                if (filled == null || filled.get() == null) {
+                    break;
+                }
+            }
+            remoteWaitHits.increment();
+            return filled.get();
+        }
+        leaderLoads.increment();
+        return call(loader);
+    }
+
+    private Object call(Callable<Object> loader) {
+        try {
+            return loader.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw e;
+        }
+    }
+
+    private Counter loadCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("cache.loads")
+                .tag("cache", cacheName)
+                .tag("result", result)
+                .description("Cache miss loads by how they were resolved")
+                .register(meterRegistry);
+    }
+}
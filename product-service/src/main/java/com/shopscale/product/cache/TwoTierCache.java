@@ -0,0 +1,470 @@
+package com.shopscale.product.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Cache with an in-process Caffeine L1 in front of a shared (Redis) L2.
+ * Reads try L1, then L2, and only then fall through to the caller's loader.
+ * Evictions are applied to both tiers and broadcast so that every instance
+ * drops its local copy.
+ *
+ * <p>Loads through {@link #get(Object, Callable)} (i.e. {@code @Cacheable(sync = true)})
+ * are coalesced by a {@link SingleFlightLoader}, and hot L1 entries are refreshed
+ * ahead of expiry according to an {@link EarlyRefreshPolicy}. Because a refresh
+ * rewrites L2 as well, hot keys never reach the Redis TTL and stampede on expiry.
+ *
+ * <p>{@link #getAll(Collection)} and {@link #putAll(Map, long)} reach L2 in a single round trip
+ * when {@link RedisBulkCacheOperations} are available, and key by key otherwise.
+ */
+public class TwoTierCache implements Cache {
+
+    private static final Logger logger = LoggerFactory.getLogger(TwoTierCache.class);
+
+    // Weight of the newest sample in the moving average of load times
+    private static final double LOAD_TIME_SMOOTHING = 0.2;
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<Object, LocalEntry> localCache;
+    private final long localTtlMillis;
+    private final Cache remoteCache;
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final List<CacheEntryListener> entryListeners;
+    private final SingleFlightLoader singleFlightLoader;
+    private final EarlyRefreshPolicy earlyRefreshPolicy;
+    private final RedisBulkCacheOperations bulkOperations;
+
+    // Used as the compute time of entries promoted from L2, whose real cost is unknown
+    private volatile double averageLoadMillis;
+
+    private final Counter l1Hits;
+    private final Counter l1Misses;
+    private final Counter l2Hits;
+    private final Counter l2Misses;
+    private final Counter l2Evictions;
+    private final Counter earlyRefreshes;
+    private final MeterRegistry meterRegistry;
+
+    public TwoTierCache(String name, Cache remoteCache, long maximumSize, Duration expireAfterWrite,
+                        CacheInvalidationPublisher invalidationPublisher, List<CacheEntryListener> entryListeners,
+                        SingleFlightLoader singleFlightLoader, EarlyRefreshPolicy earlyRefreshPolicy,
+                        RedisBulkCacheOperations bulkOperations, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.remoteCache = remoteCache;
+        this.invalidationPublisher = invalidationPublisher;
+        this.entryListeners = entryListeners;
+        this.singleFlightLoader = singleFlightLoader;
+        this.earlyRefreshPolicy = earlyRefreshPolicy;
+        this.bulkOperations = bulkOperations;
+        this.meterRegistry = meterRegistry;
+        this.localTtlMillis = expireAfterWrite.toMillis();
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .removalListener((Object key, LocalEntry value, RemovalCause cause) -> recordEviction(cause))
+                .build();
+
+        this.l1Hits = requestCounter("l1", "hit");
+        this.l1Misses = requestCounter("l1", "miss");
+        this.l2Hits = requestCounter("l2", "hit");
+        this.l2Misses = requestCounter("l2", "miss");
+        this.l2Evictions = Counter.builder("cache.tier.evictions")
+                .tag("cache", name)
+                .tag("tier", "l2")
+                .tag("cause", "explicit")
+                .description("Entries removed from the shared tier")
+                .register(meterRegistry);
+        this.earlyRefreshes = Counter.builder("cache.early.refreshes")
+                .tag("cache", name)
+                .description("Entries recomputed ahead of expiry")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remoteCache.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        LocalEntry localEntry = localCache.getIfPresent(key);
+        if (localEntry != null) {
+            l1Hits.increment();
+            notifyHit(key);
+            return new SimpleValueWrapper(localEntry.value());
+        }
+        l1Misses.increment();
+        return getRemote(key);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException(
+                    "Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        LocalEntry localEntry = localCache.getIfPresent(key);
+        if (localEntry != null) {
+            l1Hits.increment();
+            notifyHit(key);
+            if (earlyRefreshPolicy.shouldRefresh(localEntry.writtenAtMillis() + localTtlMillis,
+                    localEntry.deltaMillis())) {
+                refreshEarly(key, valueLoader);
+            }
+            return (T) localEntry.value();
+        }
+        l1Misses.increment();
+
+        ValueWrapper remoteValue = getRemote(key);
+        if (remoteValue != null) {
+            return (T) remoteValue.get();
+        }
+
+        return (T) singleFlightLoader.load(key, () -> remoteCache.get(key), () -> loadAndStore(key, valueLoader));
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        put(key, value, Math.round(averageLoadMillis));
+    }
+
+    /**
+     * Values for every key present in either tier, in key order. Keys missing from L1 are
+     * read from L2 together; if that fails they are reported as missing.
+     */
+    public Map<Object, Object> getAll(Collection<?> keys) {
+        Map<Object, Object> found = new LinkedHashMap<>();
+        List<Object> localMisses = new ArrayList<>();
+        for (Object key : keys) {
+            LocalEntry localEntry = localCache.getIfPresent(key);
+            if (localEntry != null) {
+                found.put(key, localEntry.value());
+                notifyHit(key);
+            } else {
+                localMisses.add(key);
+            }
+        }
+        l1Hits.increment(found.size());
+        l1Misses.increment(localMisses.size());
+        if (localMisses.isEmpty()) {
+            return found;
+        }
+
+        if (bulkOperations == null) {
+            for (Object key : localMisses) {
+                ValueWrapper remoteValue = getRemote(key);
+                if (remoteValue != null) {
+                    found.put(key, remoteValue.get());
+                }
+            }
+            return found;
+        }
+
+        List<Object> remoteValues;
+        try {
+            remoteValues = bulkOperations.multiGet(localMisses);
+        } catch (RuntimeException e) {
+            logger.warn("Bulk read of {} keys from {} failed: {}", localMisses.size(), name, e.getMessage());
+            l2Misses.increment(localMisses.size());
+            return found;
+        }
+        long averageMillis = Math.round(averageLoadMillis);
+        for (int i = 0; i < localMisses.size(); i++) {
+            Object value = remoteValues.get(i);
+            if (value == null) {
+                l2Misses.increment();
+                continue;
+            }
+            l2Hits.increment();
+            notifyHit(localMisses.get(i));
+            putLocal(localMisses.get(i), value, averageMillis);
+            found.put(localMisses.get(i), value);
+        }
+        return found;
+    }
+
+    /**
+     * Store several loaded values in both tiers. A failed bulk write to L2 is logged and
+     * the values are kept in L1 only.
+     *
+     * @param deltaMillis time it took to load the values, used for early refresh
+     */
+    public void putAll(Map<?, ?> entries, long deltaMillis) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        if (bulkOperations == null) {
+            entries.forEach((key, value) -> put(key, value, deltaMillis));
+            return;
+        }
+
+        try {
+            bulkOperations.multiPut(entries);
+        } catch (RuntimeException e) {
+            logger.warn("Bulk write of {} keys to {} failed: {}", entries.size(), name, e.getMessage());
+        }
+        entries.forEach((key, value) -> {
+            putLocal(key, value, deltaMillis);
+            notifyPut(key, value);
+        });
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        if (value == null) {
+            // Null values are never cached (see RedisConfig); report what is there, if anything
+            return get(key);
+        }
+        ValueWrapper existing = remoteCache.putIfAbsent(key, value);
+        if (existing == null) {
+            putLocal(key, value, Math.round(averageLoadMillis));
+            notifyPut(key, value);
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        remoteCache.evict(key);
+        l2Evictions.increment();
+        invalidateLocal(key);
+        invalidationPublisher.publishEvict(name, key);
+        notifyEvict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean present = remoteCache.evictIfPresent(key);
+        if (present) {
+            l2Evictions.increment();
+            notifyEvict(key);
+        }
+        invalidateLocal(key);
+        invalidationPublisher.publishEvict(name, key);
+        return present;
+    }
+
+    @Override
+    public void clear() {
+        remoteCache.clear();
+        invalidateLocalAll();
+        invalidationPublisher.publishClear(name);
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean notEmpty = remoteCache.invalidate();
+        invalidateLocalAll();
+        invalidationPublisher.publishClear(name);
+        return notEmpty;
+    }
+
+    /**
+     * Look a key up in L1 only, for callers that read L2 themselves (the reactive read path)
+     */
+    public ValueWrapper getLocal(Object key) {
+        LocalEntry localEntry = localCache.getIfPresent(key);
+        if (localEntry == null) {
+            l1Misses.increment();
+            return null;
+        }
+        l1Hits.increment();
+        notifyHit(key);
+        return new SimpleValueWrapper(localEntry.value());
+    }
+
+    /**
+     * Record the result of an L2 read made outside this cache, promoting a hit into L1
+     *
+     * @param value the value read, or {@code null} on a miss
+     */
+    public void remoteRead(Object key, Object value) {
+        if (value == null) {
+            l2Misses.increment();
+            return;
+        }
+        l2Hits.increment();
+        notifyHit(key);
+        putLocal(key, value, Math.round(averageLoadMillis));
+    }
+
+    /**
+     * Record a value loaded and written to L2 outside this cache: keep it in L1 and
+     * notify listeners as {@link #put(Object, Object)} would. Listeners may block.
+     *
+     * @param deltaMillis time it took to load the value, used for early refresh
+     */
+    public void remoteWritten(Object key, Object value, long deltaMillis) {
+        putLocal(key, value, deltaMillis);
+        notifyPut(key, value);
+    }
+
+    /**
+     * Drop a key from this instance's L1 only (used for remote invalidations)
+     */
+    public void invalidateLocal(Object key) {
+        localCache.invalidate(key);
+    }
+
+    /**
+     * Drop every entry from this instance's L1 only (used for remote invalidations)
+     */
+    public void invalidateLocalAll() {
+        localCache.invalidateAll();
+    }
+
+    /**
+     * Approximate number of entries currently held in L1
+     */
+    public long localSize() {
+        return localCache.estimatedSize();
+    }
+
+    private ValueWrapper getRemote(Object key) {
+        ValueWrapper remoteValue = remoteCache.get(key);
+        if (remoteValue == null || remoteValue.get() == null) {
+            l2Misses.increment();
+            return null;
+        }
+        l2Hits.increment();
+        notifyHit(key);
+        putLocal(key, remoteValue.get(), Math.round(averageLoadMillis));
+        return remoteValue;
+    }
+
+    private Object loadAndStore(Object key, Callable<?> valueLoader) {
+        long start = System.nanoTime();
+        Object value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception ex) {
+            throw new ValueRetrievalException(key, valueLoader, ex);
+        }
+        long deltaMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        averageLoadMillis = averageLoadMillis == 0
+                ? deltaMillis
+                : averageLoadMillis + LOAD_TIME_SMOOTHING * (deltaMillis - averageLoadMillis);
+
+        if (value != null) {
+            put(key, value, deltaMillis);
+        }
+        return value;
+    }
+
+    /**
+     * Recompute an entry that is close to expiry. Only one caller refreshes a key at a
+     * time; everyone else keeps serving the current value.
+     */
+    private void refreshEarly(Object key, Callable<?> valueLoader) {
+        try {
+            if (singleFlightLoader.refresh(key, () -> loadAndStore(key, valueLoader))) {
+                earlyRefreshes.increment();
+            }
+        } catch (RuntimeException e) {
+            // Keep serving the current value; it stays valid until its TTL
+            logger.warn("Early refresh failed for {}:{}: {}", name, key, e.getMessage());
+        }
+    }
+
+    private void put(Object key, Object value, long deltaMillis) {
+        if (value == null) {
+            // Null values are never cached (see RedisConfig); treat as eviction
+            evict(key);
+            return;
+        }
+        remoteCache.put(key, value);
+        putLocal(key, value, deltaMillis);
+        notifyPut(key, value);
+    }
+
+    private void putLocal(Object key, Object value, long deltaMillis) {
+        localCache.put(key, new LocalEntry(value, earlyRefreshPolicy.now(), deltaMillis));
+    }
+
+    private void notifyPut(Object key, Object value) {
+        for (CacheEntryListener listener : entryListeners) {
+            try {
+                listener.onPut(name, key, value);
+            } catch (Exception e) {
+                logger.warn("Cache entry listener failed for {}:{}: {}", name, key, e.getMessage());
+            }
+        }
+    }
+
+    private void notifyHit(Object key) {
+        for (CacheEntryListener listener : entryListeners) {
+            try {
+                listener.onHit(name, key);
+            } catch (Exception e) {
+                logger.warn("Cache entry listener failed for {}:{}: {}", name, key, e.getMessage());
+            }
+        }
+    }
+
+    private void notifyEvict(Object key) {
+        for (CacheEntryListener listener : entryListeners) {
+            try {
+                listener.onEvict(name, key);
+            } catch (Exception e) {
+                logger.warn("Cache entry listener failed for {}:{}: {}", name, key, e.getMessage());
+            }
+        }
+    }
+
+    private Counter requestCounter(String tier, String result) {
+        return Counter.builder("cache.tier.requests")
+                .tag("cache", name)
+                .tag("tier", tier)
+                .tag("result", result)
+                .description("Cache lookups per tier")
+                .register(meterRegistry);
+    }
+
+    private void recordEviction(RemovalCause cause) {
+        if (cause == RemovalCause.REPLACED) {
+            return;
+        }
+        logger.debug("L1 eviction in cache '{}': {}", name, cause);
+        Counter.builder("cache.tier.evictions")
+                .tag("cache", name)
+                .tag("tier", "l1")
+                .tag("cause", cause.name().toLowerCase())
+                .description("Entries removed from the local tier")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * L1 value plus the metadata needed for early refresh
+     */
+    private record LocalEntry(Object value, long writtenAtMillis, long deltaMillis) {
+    }
+}
@@ -0,0 +1,116 @@
+package com.shopscale.product.cache;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * CacheManager that decorates every cache of the shared (Redis) manager
+ * with a bounded in-process L1
+ */
+public class TwoTierCacheManager implements CacheManager {
+
+    private final CacheManager remoteCacheManager;
+    private final long localMaximumSize;
+    private final Duration localExpireAfterWrite;
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final List<CacheEntryListener> entryListeners;
+    private final RedisLoadLock loadLock;
+    private final Duration loadPollInterval;
+    private final EarlyRefreshPolicy earlyRefreshPolicy;
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentMap<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+
+    public TwoTierCacheManager(CacheManager remoteCacheManager, long localMaximumSize, Duration localExpireAfterWrite,
+                               CacheInvalidationPublisher invalidationPublisher,
+                               List<CacheEntryListener> entryListeners, RedisLoadLock loadLock,
+                               Duration loadPollInterval, EarlyRefreshPolicy earlyRefreshPolicy,
+                               StringRedisTemplate redisTemplate, MeterRegistry meterRegistry) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.localMaximumSize = localMaximumSize;
+        this.localExpireAfterWrite = localExpireAfterWrite;
+        this.invalidationPublisher = invalidationPublisher;
+        this.entryListeners = List.copyOf(entryListeners);
+        this.loadLock = loadLock;
+        this.loadPollInterval = loadPollInterval;
+        this.earlyRefreshPolicy = earlyRefreshPolicy;
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return getTwoTierCache(name);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remoteCacheManager.getCacheNames();
+    }
+
+    /**
+     * Typed lookup used by components that need direct access to the local tier
+     */
+    public TwoTierCache getTwoTierCache(String name) {
+        TwoTierCache existing = caches.get(name);
+        if (existing != null) {
+            return existing;
+        }
+        Cache remoteCache = remoteCacheManager.getCache(name);
+        if (remoteCache == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    /**
+     * Key, value and TTL configuration of the shared tier of a cache, or {@code null} if
+     * it is not backed by Redis
+     */
+    public RedisCacheConfiguration getRemoteConfiguration(String name) {
+        RedisCache redisCache = redisCache(remoteCacheManager.getCache(name));
+        return redisCache != null ? redisCache.getCacheConfiguration() : null;
+    }
+
+    private TwoTierCache createCache(String name) {
+        Cache remoteCache = remoteCacheManager.getCache(name);
+        SingleFlightLoader loader = new SingleFlightLoader(name, loadLock, loadPollInterval, meterRegistry);
+        TwoTierCache cache = new TwoTierCache(name, remoteCache, localMaximumSize,
+                localExpireAfterWrite, invalidationPublisher, entryListeners, loader, earlyRefreshPolicy,
+                bulkOperations(name, remoteCache), meterRegistry);
+        Gauge.builder("cache.tier.size", cache, TwoTierCache::localSize)
+                .tag("cache", name)
+                .tag("tier", "l1")
+                .description("Approximate number of entries in the local tier")
+                .register(meterRegistry);
+        return cache;
+    }
+
+    private RedisBulkCacheOperations bulkOperations(String name, Cache remoteCache) {
+        RedisCache redisCache = redisCache(remoteCache);
+        if (redisTemplate == null || redisCache == null) {
+            return null;
+        }
+        return new RedisBulkCacheOperations(name, redisCache.getCacheConfiguration(), redisTemplate);
+    }
+
+    private static RedisCache redisCache(Cache remoteCache) {
+        Cache target = remoteCache instanceof TransactionAwareCacheDecorator decorator
+                ? decorator.getTargetCache()
+                : remoteCache;
+        return target instanceof RedisCache redisCache ? redisCache : null;
+    }
+}
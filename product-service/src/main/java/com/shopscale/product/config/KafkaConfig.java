@@ -0,0 +1,82 @@
+package com.shopscale.product.config;
+
+import com.shopscale.product.event.InventoryUpdatedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.MicrometerConsumerListener;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Kafka consumer configuration for inventory events
+ */
+@Configuration
+@EnableKafka
+public class KafkaConfig {
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    @Value("${product.inventory-sync.group-id:product-service-inventory-sync}")
+    private String groupId;
+
+    @Value("${product.inventory-sync.max-poll-records:500}")
+    private int maxPollRecords;
+
+    @Value("${product.inventory-sync.concurrency:1}")
+    private int concurrency;
+
+    @Bean
+    public ConsumerFactory<String, InventoryUpdatedEvent> inventoryConsumerFactory(MeterRegistry meterRegistry) {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        config.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        config.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, JsonDeserializer.class.getName());
+        config.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
+        // The producer's type header names the inventory service's class, so map to ours
+        config.put(JsonDeserializer.USE_TYPE_INFO_HEADERS, false);
+        config.put(JsonDeserializer.VALUE_DEFAULT_TYPE, InventoryUpdatedEvent.class.getName());
+        config.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        config.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        config.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+
+        DefaultKafkaConsumerFactory<String, InventoryUpdatedEvent> factory = new DefaultKafkaConsumerFactory<>(config);
+        // Publishes the client metrics, including kafka.consumer.fetch.manager.records.lag.max
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return factory;
+    }
+
+    /**
+     * Delivers each poll as one list, acknowledged once the whole batch is applied
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, InventoryUpdatedEvent> inventoryBatchListenerContainerFactory(
+            ConsumerFactory<String, InventoryUpdatedEvent> inventoryConsumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<String, InventoryUpdatedEvent> factory =
+            new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(inventoryConsumerFactory);
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        factory.getContainerProperties().setMicrometerEnabled(true);
+        // Applying a batch is idempotent, so a failed one is simply redelivered
+        factory.setCommonErrorHandler(new DefaultErrorHandler(new FixedBackOff(1000L, 5)));
+        factory.setConcurrency(concurrency);
+        return factory;
+    }
+}
@@ -0,0 +1,31 @@
+package com.shopscale.product.config;
+
+import com.shopscale.product.cache.ReactiveCacheAside;
+import com.shopscale.product.cache.TwoTierCacheManager;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+
+/**
+ * Beans of the non-blocking read stack, active with the {@code reactive} profile.
+ * That profile also switches the application to WebFlux and enables reactive Mongo.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveReadConfig {
+
+    /**
+     * Reactive cache-aside over the same two-tier caches as {@code @Cacheable}; raw bytes
+     * are encoded with each cache's own Redis configuration
+     */
+    @Bean
+    public ReactiveCacheAside reactiveCacheAside(CacheManager cacheManager,
+                                                 ReactiveRedisConnectionFactory connectionFactory) {
+        return new ReactiveCacheAside((TwoTierCacheManager) cacheManager,
+                new ReactiveRedisTemplate<>(connectionFactory, RedisSerializationContext.byteBuffer()));
+    }
+}
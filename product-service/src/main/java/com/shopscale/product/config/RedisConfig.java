@@ -1,5 +1,17 @@
 package com.shopscale.product.config;
 
+import com.shopscale.product.cache.CacheInvalidationListener;
+import com.shopscale.product.cache.CacheInvalidationPublisher;
+import com.shopscale.product.cache.EarlyRefreshPolicy;
+import com.shopscale.product.cache.HotKeyTracker;
+import com.shopscale.product.cache.HotProductTracker;
+import com.shopscale.product.cache.ProductCacheDependencyIndex;
+import com.shopscale.product.cache.ProductCacheEvictor;
+import com.shopscale.product.cache.ProductCacheSerializer;
+import com.shopscale.product.cache.RedisLoadLock;
+import com.shopscale.product.cache.TwoTierCacheManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CachingConfigurerSupport;
 import org.springframework.context.annotation.Bean;
@@ -8,11 +20,17 @@ import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
 
 /**
  * Redis configuration for caching
@@ -20,28 +38,151 @@ import java.time.Duration;
 @Configuration
 public class RedisConfig extends CachingConfigurerSupport {
 
+    public static final Duration CACHE_TTL = Duration.ofHours(1); // 1-hour TTL as per requirements
+
+    @Value("${product.cache.l1.maximum-size:10000}")
+    private long localMaximumSize;
+
+    @Value("${product.cache.l1.expire-after-write:5m}")
+    private Duration localExpireAfterWrite;
+
+    @Value("${product.cache.invalidation-channel:product-cache-invalidation}")
+    private String invalidationChannel;
+
+    @Value("${product.cache.single-flight.lock-ttl:3s}")
+    private Duration loadLockTtl;
+
+    @Value("${product.cache.single-flight.poll-interval:25ms}")
+    private Duration loadPollInterval;
+
+    @Value("${product.cache.early-refresh.beta:1.0}")
+    private double earlyRefreshBeta;
+
+    @Value("${product.cache.serializer.format:smile}")
+    private String serializerFormat;
+
+    @Value("${product.cache.serializer.compression-threshold:1024}")
+    private int compressionThreshold;
+
+    @Value("${product.cache.hot-keys.caches:products}")
+    private List<String> hotKeyCaches;
+
+    @Value("${product.cache.hot-keys.sample-rate:0.05}")
+    private double hotKeySampleRate;
+
+    @Value("${product.cache.hot-keys.top-k:20}")
+    private int hotKeyTopK;
+
+    @Value("${product.cache.hot-keys.sketch-width:4096}")
+    private int hotKeySketchWidth;
+
+    @Value("${product.cache.hot-keys.sketch-depth:4}")
+    private int hotKeySketchDepth;
+
+    @Value("${product.cache.hot-keys.gauge-ranks:10}")
+    private int hotKeyGaugeRanks;
+
+    @Value("${product.warmup.hot-ids.sample-rate:0.01}")
+    private double hotIdsSampleRate;
+
+    @Value("${product.warmup.hot-ids.max-tracked:10000}")
+    private int hotIdsMaxTracked;
+
+    @Value("${product.warmup.hot-ids.decay-interval:10m}")
+    private Duration hotIdsDecayInterval;
+
+    // Identifies this instance so it can ignore its own invalidation broadcasts
+    private final String instanceId = UUID.randomUUID().toString();
+
     @Bean
     public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
-        
+
         // Use String serializer for keys
         template.setKeySerializer(new StringRedisSerializer());
         template.setHashKeySerializer(new StringRedisSerializer());
-        
+
         // Use JSON serializer for values
         template.setValueSerializer(new GenericJackson2JsonRedisSerializer());
         template.setHashValueSerializer(new GenericJackson2JsonRedisSerializer());
-        
+
         template.afterPropertiesSet();
         return template;
     }
 
+    /**
+     * Two-tier cache manager: a bounded Caffeine L1 per instance in front of the shared Redis L2.
+     * Misses are loaded once across the cluster and hot entries are refreshed before they expire.
+     */
     @Bean
     @Override
     public CacheManager cacheManager() {
+        return new TwoTierCacheManager(
+                redisCacheManager(),
+                localMaximumSize,
+                localExpireAfterWrite,
+                cacheInvalidationPublisher(),
+                List.of(productCacheDependencyIndex(), hotKeyTracker()),
+                new RedisLoadLock(new StringRedisTemplate(connectionFactory), loadLockTtl),
+                loadPollInterval,
+                new EarlyRefreshPolicy(earlyRefreshBeta),
+                new StringRedisTemplate(connectionFactory),
+                meterRegistry
+        );
+    }
+
+    @Bean
+    public CacheInvalidationPublisher cacheInvalidationPublisher() {
+        StringRedisTemplate template = new StringRedisTemplate(connectionFactory);
+        return new CacheInvalidationPublisher(template, invalidationChannel, instanceId);
+    }
+
+    /**
+     * Reverse index (productId -> cached list keys) used for targeted eviction on writes
+     */
+    @Bean
+    public ProductCacheDependencyIndex productCacheDependencyIndex() {
+        StringRedisTemplate template = new StringRedisTemplate(connectionFactory);
+        return new ProductCacheDependencyIndex(template, ProductCacheEvictor.SUMMARY_CACHE, CACHE_TTL);
+    }
+
+    /**
+     * Sampled per-key hit, size and churn rankings of the product caches, served on
+     * {@code /actuator/cachekeys}
+     */
+    @Bean
+    public HotKeyTracker hotKeyTracker() {
+        return new HotKeyTracker(hotKeyCaches, hotKeySampleRate, hotKeyTopK, hotKeySketchWidth,
+                hotKeySketchDepth, hotKeyGaugeRanks, productCacheSerializer(), meterRegistry);
+    }
+
+    /**
+     * Cluster-wide ranking of the most read products, used to warm the cache at startup
+     */
+    @Bean
+    public HotProductTracker hotProductTracker() {
+        StringRedisTemplate template = new StringRedisTemplate(connectionFactory);
+        return new HotProductTracker(template, hotIdsSampleRate, hotIdsMaxTracked, hotIdsDecayInterval);
+    }
+
+    /**
+     * Subscribes to invalidations broadcast by other instances so their writes drop our L1 copies
+     */
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer() {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                new CacheInvalidationListener((TwoTierCacheManager) cacheManager(), instanceId),
+                new ChannelTopic(invalidationChannel)
+        );
+        return container;
+    }
+
+    private RedisCacheManager redisCacheManager() {
         RedisCacheConfiguration cacheConfig = RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofHours(1)) // 1-hour TTL as per requirements
+                .entryTtl(CACHE_TTL)
                 .serializeKeysWith(
                         RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer())
                 )
@@ -50,15 +191,35 @@ public class RedisConfig extends CachingConfigurerSupport {
                 )
                 .disableCachingNullValues();
 
-        return RedisCacheManager.builder(connectionFactory)
+        RedisCacheConfiguration productCacheConfig = cacheConfig.serializeValuesWith(
+                RedisSerializationContext.SerializationPair.fromSerializer(productCacheSerializer())
+        );
+
+        RedisCacheManager cacheManager = RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(cacheConfig)
+                .withCacheConfiguration(ProductCacheEvictor.PRODUCT_CACHE, productCacheConfig)
+                .withCacheConfiguration(ProductCacheEvictor.SUMMARY_CACHE, productCacheConfig)
                 .transactionAware()
                 .build();
+        cacheManager.afterPropertiesSet();
+        return cacheManager;
+    }
+
+    /**
+     * Value serializer for the product and summary caches: compact Smile + LZ4 by default, JSON when configured
+     */
+    private RedisSerializer<Object> productCacheSerializer() {
+        if ("json".equalsIgnoreCase(serializerFormat)) {
+            return ProductCacheSerializer.jsonSerializer();
+        }
+        return new ProductCacheSerializer(compressionThreshold, "com.shopscale.product");
     }
 
     private RedisConnectionFactory connectionFactory;
+    private MeterRegistry meterRegistry;
 
-    public RedisConfig(RedisConnectionFactory connectionFactory) {
+    public RedisConfig(RedisConnectionFactory connectionFactory, MeterRegistry meterRegistry) {
         this.connectionFactory = connectionFactory;
+        this.meterRegistry = meterRegistry;
     }
 }
@@ -1,36 +1,87 @@
 package com.shopscale.product.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.shopscale.product.cache.HotProductTracker;
 import com.shopscale.product.domain.Product;
+import com.shopscale.product.domain.ProductETags;
+import com.shopscale.product.domain.ProductList;
+import com.shopscale.product.domain.ProductPage;
+import com.shopscale.product.domain.ProductQuery;
 import com.shopscale.product.dto.CreateProductRequest;
+import com.shopscale.product.dto.ProductBatchRequest;
+import com.shopscale.product.dto.ProductFacets;
+import com.shopscale.product.dto.ProductImportStatus;
 import com.shopscale.product.dto.ProductResponse;
+import com.shopscale.product.dto.ProductSuggestion;
+import com.shopscale.product.dto.ProductSummaryResponse;
 import com.shopscale.product.mapper.ProductMapper;
+import com.shopscale.product.search.ProductSuggestIndex;
+import com.shopscale.product.service.ProductFacetService;
+import com.shopscale.product.service.ProductImportService;
 import com.shopscale.product.service.ProductService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.net.URI;
 import java.util.List;
 import java.util.stream.Collectors;
 
 /**
- * REST controller for Product operations
+ * REST controller for Product operations. Replaced by the read-only
+ * {@link ReactiveProductController} under the {@code reactive} profile.
  */
 @RestController
 @RequestMapping("/api/products")
+@Profile("!reactive")
 public class ProductController {
 
     private static final Logger logger = LoggerFactory.getLogger(ProductController.class);
 
     private final ProductService productService;
+    private final ProductImportService productImportService;
+    private final ProductFacetService productFacetService;
     private final ProductMapper productMapper;
+    private final ProductSuggestIndex suggestIndex;
+    private final HotProductTracker hotProductTracker;
+    private final ObjectWriter ndjsonWriter;
 
-    public ProductController(ProductService productService, ProductMapper productMapper) {
+    private final Counter productNotModified;
+    private final Counter productFull;
+    private final Counter listNotModified;
+    private final Counter listFull;
+
+    public ProductController(ProductService productService, ProductImportService productImportService,
+                             ProductFacetService productFacetService, ProductMapper productMapper,
+                             ProductSuggestIndex suggestIndex, HotProductTracker hotProductTracker,
+                             ObjectMapper objectMapper, MeterRegistry meterRegistry) {
         this.productService = productService;
+        this.productImportService = productImportService;
+        this.productFacetService = productFacetService;
         this.productMapper = productMapper;
+        this.suggestIndex = suggestIndex;
+        this.hotProductTracker = hotProductTracker;
+        this.ndjsonWriter = objectMapper.writerFor(ProductResponse.class);
+        this.productNotModified = conditionalCounter(meterRegistry, "product", "not-modified");
+        this.productFull = conditionalCounter(meterRegistry, "product", "full");
+        this.listNotModified = conditionalCounter(meterRegistry, "list", "not-modified");
+        this.listFull = conditionalCounter(meterRegistry, "list", "full");
     }
 
     /**
@@ -47,85 +98,253 @@ public class ProductController {
     }
 
     /**
-     * Get product by ID
+     * Bulk import products from NDJSON or CSV. The import runs in the background; poll the
+     * returned {@code Location} for progress and per-row errors.
+     */
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<ProductImportStatus> importProducts(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body) throws IOException {
+
+        logger.info("Received request to import products as {}", contentType);
+
+        ProductImportStatus status = productImportService.startImport(contentType, body);
+        URI location = UriComponentsBuilder.fromPath("/api/products/import/{importId}")
+                .buildAndExpand(status.importId())
+                .toUri();
+
+        return ResponseEntity.accepted().location(location).body(status);
+    }
+
+    /**
+     * Get the progress of a bulk import
+     */
+    @GetMapping("/import/{importId}")
+    public ResponseEntity<ProductImportStatus> getImportStatus(@PathVariable String importId) {
+        return productImportService.getStatus(importId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Get product by ID. Answers {@code 304 Not Modified} when the client's
+     * {@code If-None-Match} or {@code If-Modified-Since} still matches.
      */
     @GetMapping("/{productId}")
-    public ResponseEntity<ProductResponse> getProduct(@PathVariable String productId) {
+    public ResponseEntity<ProductResponse> getProduct(@PathVariable String productId, WebRequest webRequest) {
         logger.info("Received request to get product: {}", productId);
 
         Product product = productService.getProduct(productId);
+        hotProductTracker.recordRead(productId);
+        if (notModified(webRequest, ProductETags.of(product), ProductETags.epochMillis(product.getUpdatedAt()),
+                productNotModified, productFull)) {
+            return null;
+        }
         ProductResponse response = productMapper.toResponse(product);
 
         return ResponseEntity.ok(response);
     }
 
     /**
-     * Get all products
+     * Get several products by ID in one call. Unknown or inactive IDs are left out of the response.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<ProductResponse>> getProducts(@Valid @RequestBody ProductBatchRequest request) {
+        logger.info("Received request to get {} products", request.getProductIds().size());
+
+        List<ProductResponse> responses = productService.getProducts(request.getProductIds()).stream()
+                .peek(product -> hotProductTracker.recordRead(product.getProductId()))
+                .map(productMapper::toResponse)
+                .collect(Collectors.toList());
+
+        return ResponseEntity.ok(responses);
+    }
+
+    /**
+     * Get products. Filters can be combined freely; searches are ranked by relevance and
+     * price ranges sorted by price, both paged with {@code page}/{@code limit}. Other lists,
+     * including the whole catalogue, are returned one keyset page of {@code limit} at a time,
+     * with the next page linked from the {@code Link} header. Lists carry product summaries; fetch a product by ID for
+     * its description and attributes. Lists are tagged with an ETag only: a product leaving
+     * a list does not advance any member's update time.
      */
     @GetMapping
-    public ResponseEntity<List<ProductResponse>> getAllProducts(
+    public ResponseEntity<List<ProductSummaryResponse>> getAllProducts(
             @RequestParam(required = false) String category,
             @RequestParam(required = false) String search,
             @RequestParam(required = false) BigDecimal minPrice,
             @RequestParam(required = false) BigDecimal maxPrice,
-            @RequestParam(required = false, defaultValue = "false") boolean inStockOnly) {
+            @RequestParam(required = false, defaultValue = "false") boolean inStockOnly,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false, defaultValue = "0") int page,
+            @RequestParam(required = false, defaultValue = "" + ProductService.DEFAULT_PAGE_SIZE) int limit,
+            WebRequest webRequest) {
 
         logger.info("Received request to get products with filters - category: {}, search: {}, minPrice: {}, maxPrice: {}, inStockOnly: {}",
                 category, search, minPrice, maxPrice, inStockOnly);
 
-        List<Product> products;
+        ProductQuery query = new ProductQuery(category, search, minPrice, maxPrice, inStockOnly);
+        if (query.search() == null && !query.isPriceRange()) {
+            ProductPage productPage = query.isEmpty()
+                    ? productService.getProductPage(after, limit)
+                    : productService.findProducts(query, after, limit);
+            return pageResponse(productPage, query, limit, webRequest);
+        }
 
-        if (inStockOnly) {
-            products = productService.getInStockProducts();
-        } else if (search != null && !search.isEmpty()) {
-            products = productService.searchProducts(search);
-        } else if (category != null && !category.isEmpty()) {
-            products = productService.getProductsByCategory(category);
-        } else if (minPrice != null && maxPrice != null) {
-            products = productService.getProductsByPriceRange(minPrice, maxPrice);
+        ProductList products;
+        if (query.search() != null) {
+            products = productService.searchProducts(query, page, limit);
         } else {
-            products = productService.getAllProducts();
+            // Composed from per-product entries on every request, so tagged here
+            products = ProductList.of(productService.getProductsByPriceRange(query, page, limit));
+        }
+        if (notModified(webRequest, products.etag(), -1, listNotModified, listFull)) {
+            return null;
         }
 
-        List<ProductResponse> responses = products.stream()
-                .map(productMapper::toResponse)
+        List<ProductSummaryResponse> responses = products.items().stream()
+                .map(productMapper::toSummaryResponse)
                 .collect(Collectors.toList());
 
         return ResponseEntity.ok(responses);
     }
 
     /**
-     * Update product stock
+     * Counts of active products per category and price range, for navigation
+     */
+    @GetMapping("/facets")
+    public ResponseEntity<ProductFacets> getFacets() {
+        logger.debug("Received request for product facets");
+
+        return ResponseEntity.ok(productFacetService.getFacets());
+    }
+
+    /**
+     * Type-ahead suggestions, answered from memory without touching Mongo or Redis
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<ProductSuggestion>> suggest(
+            @RequestParam("q") String text,
+            @RequestParam(required = false, defaultValue = "10") int limit) {
+
+        logger.debug("Received request for suggestions: {}", text);
+
+        return ResponseEntity.ok(suggestIndex.suggest(text, limit));
+    }
+
+    /**
+     * Stream every active product as newline-delimited JSON straight from the database cursor
+     */
+    @GetMapping(produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamAllProducts() {
+        logger.info("Received request to stream all products");
+
+        StreamingResponseBody body = outputStream -> productService.streamActiveProducts(product -> {
+            try {
+                outputStream.write(ndjsonWriter.writeValueAsBytes(productMapper.toResponse(product)));
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    /**
+     * Update product stock; with {@code expectedVersion} the update only applies if nobody changed the product since
      */
     @PatchMapping("/{productId}/stock")
     public ResponseEntity<ProductResponse> updateStock(
             @PathVariable String productId,
-            @RequestParam Integer quantity) {
+            @RequestParam Integer quantity,
+            @RequestParam(required = false) Long expectedVersion) {
 
         logger.info("Received request to update stock for product: {} to quantity: {}", productId, quantity);
 
-        Product product = productService.updateStock(productId, quantity);
+        Product product = productService.updateStock(productId, quantity, expectedVersion);
+        ProductResponse response = productMapper.toResponse(product);
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Add to or remove from product stock atomically
+     */
+    @PatchMapping("/{productId}/stock/adjust")
+    public ResponseEntity<ProductResponse> adjustStock(
+            @PathVariable String productId,
+            @RequestParam int delta) {
+
+        logger.info("Received request to adjust stock for product: {} by: {}", productId, delta);
+
+        Product product = productService.adjustStock(productId, delta);
         ProductResponse response = productMapper.toResponse(product);
 
         return ResponseEntity.ok(response);
     }
 
     /**
-     * Update product price
+     * Update product price; with {@code expectedVersion} the update only applies if nobody changed the product since
      */
     @PatchMapping("/{productId}/price")
     public ResponseEntity<ProductResponse> updatePrice(
             @PathVariable String productId,
-            @RequestParam BigDecimal price) {
+            @RequestParam BigDecimal price,
+            @RequestParam(required = false) Long expectedVersion) {
 
         logger.info("Received request to update price for product: {} to: {}", productId, price);
 
-        Product product = productService.updatePrice(productId, price);
+        Product product = productService.updatePrice(productId, price, expectedVersion);
         ProductResponse response = productMapper.toResponse(product);
 
         return ResponseEntity.ok(response);
     }
 
+    private ResponseEntity<List<ProductSummaryResponse>> pageResponse(ProductPage page, ProductQuery query, int limit,
+                                                                      WebRequest webRequest) {
+        if (notModified(webRequest, page.etag(), -1, listNotModified, listFull)) {
+            return null;
+        }
+        List<ProductSummaryResponse> responses = page.items().stream()
+                .map(productMapper::toSummaryResponse)
+                .collect(Collectors.toList());
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (!page.isLast()) {
+            String next = nextPageLink(query, page.nextCursor(), limit);
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+            response.header("X-Next-Cursor", page.nextCursor());
+        }
+        return response.body(responses);
+    }
+
+    /**
+     * Link to the page after {@code cursor}, keeping the query's filters
+     */
+    static String nextPageLink(ProductQuery query, String cursor, int limit) {
+        UriComponentsBuilder next = UriComponentsBuilder.fromPath("/api/products");
+        if (query.category() != null) {
+            next.queryParam("category", query.category());
+        }
+        if (query.minPrice() != null) {
+            next.queryParam("minPrice", query.minPrice().toPlainString());
+        }
+        if (query.maxPrice() != null) {
+            next.queryParam("maxPrice", query.maxPrice().toPlainString());
+        }
+        if (query.inStockOnly()) {
+            next.queryParam("inStockOnly", true);
+        }
+        return next.queryParam("after", cursor)
+                .queryParam("limit", limit)
+                .encode()
+                .build()
+                .toUriString();
+    }
+
     /**
      * Deactivate product
      */
@@ -137,4 +356,29 @@ public class ProductController {
 
         return ResponseEntity.noContent().build();
     }
+
+    /**
+     * Evaluate the request's preconditions against the representation's validators. When they
+     * still match, the 304 is already written and the caller returns {@code null} without
+     * building a body; otherwise the validators are set on the full response.
+     *
+     * @param lastModified epoch milliseconds, or -1 to validate by ETag only
+     */
+    private boolean notModified(WebRequest webRequest, String etag, long lastModified,
+                                Counter notModified, Counter full) {
+        if (webRequest.checkNotModified(etag, lastModified)) {
+            notModified.increment();
+            return true;
+        }
+        full.increment();
+        return false;
+    }
+
+    private static Counter conditionalCounter(MeterRegistry meterRegistry, String endpoint, String result) {
+        return Counter.builder("product.http.conditional")
+                .tag("endpoint", endpoint)
+                .tag("result", result)
+                .description("Product GET responses by whether the client's cached copy was still valid")
+                .register(meterRegistry);
+    }
 }
@@ -0,0 +1,219 @@
+package com.shopscale.product.controller;
+
+import com.shopscale.product.cache.HotProductTracker;
+import com.shopscale.product.domain.ProductETags;
+import com.shopscale.product.domain.ProductList;
+import com.shopscale.product.domain.ProductPage;
+import com.shopscale.product.domain.ProductQuery;
+import com.shopscale.product.dto.ProductFacets;
+import com.shopscale.product.dto.ProductResponse;
+import com.shopscale.product.dto.ProductSuggestion;
+import com.shopscale.product.dto.ProductSummaryResponse;
+import com.shopscale.product.mapper.ProductMapper;
+import com.shopscale.product.search.ProductSuggestIndex;
+import com.shopscale.product.service.ProductFacetService;
+import com.shopscale.product.service.ProductService;
+import com.shopscale.product.service.ReactiveProductService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Non-blocking read endpoints of {@link ProductController} for the {@code reactive} profile,
+ * served by WebFlux with reactive Mongo and Redis clients. Paths, parameters, responses
+ * and cache entries are the same as the blocking controller's. Instances on this profile
+ * serve reads only; writes and bulk imports, including their progress, go to instances
+ * on the default stack.
+ */
+@RestController
+@RequestMapping("/api/products")
+@Profile("reactive")
+public class ReactiveProductController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveProductController.class);
+
+    private final ReactiveProductService productService;
+    private final ProductFacetService productFacetService;
+    private final ProductMapper productMapper;
+    private final ProductSuggestIndex suggestIndex;
+    private final HotProductTracker hotProductTracker;
+
+    private final Counter productNotModified;
+    private final Counter productFull;
+    private final Counter listNotModified;
+    private final Counter listFull;
+
+    public ReactiveProductController(ReactiveProductService productService, ProductFacetService productFacetService,
+                                     ProductMapper productMapper, ProductSuggestIndex suggestIndex,
+                                     HotProductTracker hotProductTracker, MeterRegistry meterRegistry) {
+        this.productService = productService;
+        this.productFacetService = productFacetService;
+        this.productMapper = productMapper;
+        this.suggestIndex = suggestIndex;
+        this.hotProductTracker = hotProductTracker;
+        this.productNotModified = conditionalCounter(meterRegistry, "product", "not-modified");
+        this.productFull = conditionalCounter(meterRegistry, "product", "full");
+        this.listNotModified = conditionalCounter(meterRegistry, "list", "not-modified");
+        this.listFull = conditionalCounter(meterRegistry, "list", "full");
+    }
+
+    /**
+     * Get product by ID. Answers {@code 304 Not Modified} when the client's
+     * {@code If-None-Match} or {@code If-Modified-Since} still matches.
+     */
+    @GetMapping("/{productId}")
+    public Mono<ResponseEntity<ProductResponse>> getProduct(@PathVariable String productId,
+                                                            ServerWebExchange exchange) {
+        logger.info("Received request to get product: {}", productId);
+
+        return productService.getProduct(productId).map(product -> {
+            hotProductTracker.recordRead(productId);
+            if (notModified(exchange, ProductETags.of(product), ProductETags.epochMillis(product.getUpdatedAt()),
+                    productNotModified, productFull)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+            }
+            return ResponseEntity.ok(productMapper.toResponse(product));
+        });
+    }
+
+    /**
+     * Get products; see {@link ProductController#getAllProducts}
+     */
+    @GetMapping
+    public Mono<ResponseEntity<List<ProductSummaryResponse>>> getAllProducts(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false, defaultValue = "false") boolean inStockOnly,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false, defaultValue = "0") int page,
+            @RequestParam(required = false, defaultValue = "" + ProductService.DEFAULT_PAGE_SIZE) int limit,
+            ServerWebExchange exchange) {
+
+        logger.info("Received request to get products with filters - category: {}, search: {}, minPrice: {}, maxPrice: {}, inStockOnly: {}",
+                category, search, minPrice, maxPrice, inStockOnly);
+
+        ProductQuery query = new ProductQuery(category, search, minPrice, maxPrice, inStockOnly);
+        if (query.search() == null && !query.isPriceRange()) {
+            Mono<ProductPage> keysetPage = query.isEmpty()
+                    ? productService.getProductPage(after, limit)
+                    : productService.findProducts(query, after, limit);
+            return keysetPage.map(productPage -> pageResponse(productPage, query, limit, exchange));
+        }
+
+        Mono<ProductList> products;
+        if (query.search() != null) {
+            products = productService.searchProducts(query, page, limit);
+        } else {
+            // Composed from per-product entries on every request, so tagged here
+            products = productService.getProductsByPriceRange(query, page, limit).map(ProductList::of);
+        }
+        return products.map(list -> {
+            if (notModified(exchange, list.etag(), -1, listNotModified, listFull)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+            }
+            return ResponseEntity.ok(list.items().stream().map(productMapper::toSummaryResponse).toList());
+        });
+    }
+
+    /**
+     * Counts of active products per category and price range, for navigation. The counts
+     * come from memory unless the price index is still building.
+     */
+    @GetMapping("/facets")
+    public Mono<ResponseEntity<ProductFacets>> getFacets() {
+        logger.debug("Received request for product facets");
+
+        return Mono.fromCallable(productFacetService::getFacets)
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(ResponseEntity::ok);
+    }
+
+    /**
+     * Type-ahead suggestions, answered from memory without touching Mongo or Redis
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<ProductSuggestion>> suggest(
+            @RequestParam("q") String text,
+            @RequestParam(required = false, defaultValue = "10") int limit) {
+
+        logger.debug("Received request for suggestions: {}", text);
+
+        return ResponseEntity.ok(suggestIndex.suggest(text, limit));
+    }
+
+    /**
+     * Stream every active product as newline-delimited JSON, pulled from the database
+     * cursor only as fast as the client reads
+     */
+    @GetMapping(produces = "application/x-ndjson")
+    public Flux<ProductResponse> streamAllProducts() {
+        logger.info("Received request to stream all products");
+
+        return productService.streamActiveProducts().map(productMapper::toResponse);
+    }
+
+    private ResponseEntity<List<ProductSummaryResponse>> pageResponse(ProductPage page, ProductQuery query, int limit,
+                                                                      ServerWebExchange exchange) {
+        if (notModified(exchange, page.etag(), -1, listNotModified, listFull)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+        List<ProductSummaryResponse> responses = page.items().stream()
+                .map(productMapper::toSummaryResponse)
+                .toList();
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (!page.isLast()) {
+            String next = ProductController.nextPageLink(query, page.nextCursor(), limit);
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+            response.header("X-Next-Cursor", page.nextCursor());
+        }
+        return response.body(responses);
+    }
+
+    /**
+     * Evaluate the request's preconditions against the representation's validators. When
+     * they still match, the exchange already carries the 304 and its headers.
+     *
+     * @param lastModified epoch milliseconds, or -1 to validate by ETag only
+     */
+    private boolean notModified(ServerWebExchange exchange, String etag, long lastModified,
+                                Counter notModified, Counter full) {
+        boolean matched = lastModified < 0
+                ? exchange.checkNotModified(etag)
+                : exchange.checkNotModified(etag, Instant.ofEpochMilli(lastModified));
+        if (matched) {
+            notModified.increment();
+            return true;
+        }
+        full.increment();
+        return false;
+    }
+
+    private static Counter conditionalCounter(MeterRegistry meterRegistry, String endpoint, String result) {
+        return Counter.builder("product.http.conditional")
+                .tag("endpoint", endpoint)
+                .tag("result", result)
+                .description("Product GET responses by whether the client's cached copy was still valid")
+                .register(meterRegistry);
+    }
+}
@@ -5,32 +5,58 @@ import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
 import java.io.Serializable;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 /**
  * Product document for MongoDB
  */
 @Document(collection = "products")
+@CompoundIndexes({
+        @CompoundIndex(name = "active_createdAt_id", def = "{'active': 1, 'createdAt': 1, '_id': 1}"),
+        @CompoundIndex(name = "category_active_createdAt_id", def = "{'category': 1, 'active': 1, 'createdAt': 1, '_id': 1}"),
+        @CompoundIndex(name = "category_active_price", def = "{'category': 1, 'active': 1, 'price': 1}"),
+        @CompoundIndex(name = "active_price", def = "{'active': 1, 'price': 1}")
+})
 public class Product implements Serializable {
 
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
     @Id
     private String productId;
 
     @NotBlank
     @Indexed
+    @TextIndexed
     private String name;
 
+    // Lower-cased name words, kept in sync with name, so short searches can use an anchored prefix match
+    @Indexed
+    private List<String> nameTokens;
+
+    @TextIndexed
     private String description;
 
     @NotNull
     @Positive
+    // Stored as a number (not the default string) so range queries and indexes compare by value
+    @Field(targetType = FieldType.DECIMAL128)
     private BigDecimal price;
 
     @NotBlank
@@ -49,6 +75,13 @@ public class Product implements Serializable {
 
     private boolean active = true;
 
+    // Timestamp of the newest inventory event applied to stockQuantity, for last-write-wins
+    private LocalDateTime inventoryUpdatedAt;
+
+    // Incremented by every write; save() and conditional updates fail if it has moved on
+    @Version
+    private Long version;
+
     // Constructors
     public Product() {
         this.createdAt = LocalDateTime.now();
@@ -57,7 +90,7 @@ public class Product implements Serializable {
 
     public Product(String name, String description, BigDecimal price, String category, Integer stockQuantity) {
         this();
-        this.name = name;
+        setName(name);
         this.description = description;
         this.price = price;
         this.category = category;
@@ -104,6 +137,7 @@ public class Product implements Serializable {
 
     public void setName(String name) {
         this.name = name;
+        this.nameTokens = tokenize(name);
     }
 
     public String getDescription() {
@@ -162,6 +196,22 @@ public class Product implements Serializable {
         this.updatedAt = updatedAt;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public LocalDateTime getInventoryUpdatedAt() {
+        return inventoryUpdatedAt;
+    }
+
+    public void setInventoryUpdatedAt(LocalDateTime inventoryUpdatedAt) {
+        this.inventoryUpdatedAt = inventoryUpdatedAt;
+    }
+
     public boolean isActive() {
         return active;
     }
@@ -170,6 +220,18 @@ public class Product implements Serializable {
         this.active = active;
     }
 
+    /**
+     * Split text into lower-cased letter/digit words
+     */
+    public static List<String> tokenize(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        return Arrays.stream(TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT)))
+                .filter(token -> !token.isEmpty())
+                .toList();
+    }
+
     @Override
     public String toString() {
         return "Product{" +
@@ -0,0 +1,54 @@
+package com.shopscale.product.domain;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Comparator;
+
+/**
+ * Keyset position in the (createdAt, productId) ordering of the catalogue.
+ * Encoded as an opaque URL-safe token for the {@code after} query parameter.
+ */
+public record ProductCursor(LocalDateTime createdAt, String productId) implements Comparable<ProductCursor> {
+
+    private static final String SEPARATOR = "|";
+
+    private static final Comparator<ProductCursor> ORDER = Comparator
+            .comparing(ProductCursor::createdAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(ProductCursor::productId);
+
+    public static ProductCursor of(Product product) {
+        return new ProductCursor(product.getCreatedAt(), product.getProductId());
+    }
+
+    public static ProductCursor of(ProductSummary summary) {
+        return new ProductCursor(summary.createdAt(), summary.productId());
+    }
+
+    public String encode() {
+        String raw = createdAt + SEPARATOR + productId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token was not produced by {@link #encode()}
+     */
+    public static ProductCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + token);
+            }
+            return new ProductCursor(LocalDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+
+    @Override
+    public int compareTo(ProductCursor other) {
+        return ORDER.compare(this, other);
+    }
+}
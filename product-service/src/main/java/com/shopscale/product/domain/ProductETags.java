@@ -0,0 +1,58 @@
+package com.shopscale.product.domain;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Strong entity tags for product representations, derived only from fields that every write
+ * changes, so they can be computed from cached values without touching Mongo
+ */
+public final class ProductETags {
+
+    // 128 bits of the digest are plenty to tell list versions apart
+    private static final int LIST_TAG_BYTES = 16;
+
+    private ProductETags() {
+    }
+
+    /**
+     * Tag of a single product: its ID, version and last update
+     */
+    public static String of(Product product) {
+        return product.getProductId() + "-" + product.getVersion() + "-"
+                + Long.toString(epochMillis(product.getUpdatedAt()), 36);
+    }
+
+    /**
+     * Tag of a list: a digest of each member's ID and last update, in list order
+     */
+    public static String of(List<ProductSummary> items) {
+        MessageDigest digest = sha256();
+        for (ProductSummary item : items) {
+            String member = item.productId() + "@" + epochMillis(item.updatedAt()) + "\n";
+            digest.update(member.getBytes(StandardCharsets.UTF_8));
+        }
+        byte[] hash = digest.digest();
+        return HexFormat.of().formatHex(hash, 0, LIST_TAG_BYTES);
+    }
+
+    /**
+     * Epoch milliseconds of a product timestamp, or -1 if unknown
+     */
+    public static long epochMillis(LocalDateTime timestamp) {
+        return timestamp != null ? timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
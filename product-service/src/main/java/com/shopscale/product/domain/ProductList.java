@@ -0,0 +1,21 @@
+package com.shopscale.product.domain;
+
+import java.util.List;
+
+/**
+ * Summaries of a filtered or searched product listing
+ *
+ * @param etag entity tag of the items, computed once and cached with the list
+ */
+public record ProductList(List<ProductSummary> items, String etag) {
+
+    public ProductList {
+        if (etag == null) {
+            etag = ProductETags.of(items);
+        }
+    }
+
+    public static ProductList of(List<ProductSummary> items) {
+        return new ProductList(items, null);
+    }
+}
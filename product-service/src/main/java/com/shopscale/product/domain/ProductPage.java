@@ -0,0 +1,38 @@
+package com.shopscale.product.domain;
+
+import java.util.List;
+
+/**
+ * One keyset page of active product summaries
+ *
+ * @param nextCursor token for the following page, or {@code null} if this is the last page
+ * @param etag       entity tag of the items, computed once and cached with the page
+ */
+public record ProductPage(List<ProductSummary> items, String nextCursor, String etag) {
+
+    public ProductPage {
+        if (etag == null) {
+            etag = ProductETags.of(items);
+        }
+    }
+
+    public ProductPage(List<ProductSummary> items, String nextCursor) {
+        this(items, nextCursor, null);
+    }
+
+    /**
+     * Page of at most {@code limit} items from a read of {@code limit + 1} summaries; the
+     * extra row only tells whether another page follows
+     */
+    public static ProductPage of(List<ProductSummary> fetched, int limit) {
+        if (fetched.size() <= limit) {
+            return new ProductPage(fetched, null);
+        }
+        List<ProductSummary> items = List.copyOf(fetched.subList(0, limit));
+        return new ProductPage(items, ProductCursor.of(items.get(limit - 1)).encode());
+    }
+
+    public boolean isLast() {
+        return nextCursor == null;
+    }
+}
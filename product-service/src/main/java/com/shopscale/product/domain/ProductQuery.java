@@ -0,0 +1,187 @@
+package com.shopscale.product.domain;
+
+import java.math.BigDecimal;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Any combination of the product listing filters. Every filter is optional; unset
+ * filters are {@code null} (or {@code false} for {@code inStockOnly}).
+ *
+ * @param search free-text search: words are matched against the text index on name and
+ *               description, or a single word of up to {@value #PREFIX_SEARCH_MAX_LENGTH}
+ *               characters is matched as a prefix of any name word
+ */
+public record ProductQuery(String category, String search, BigDecimal minPrice, BigDecimal maxPrice,
+                           boolean inStockOnly) {
+
+    public static final String CACHE_KEY_PREFIX = "query:";
+
+    /**
+     * No filters: every active product
+     */
+    public static final ProductQuery ALL = new ProductQuery(null, null, null, null, false);
+
+    /**
+     * Longest single-word search served by a prefix match instead of the text index
+     */
+    public static final int PREFIX_SEARCH_MAX_LENGTH = 3;
+
+    // Stemmed text matches share at least this many leading characters with the search word
+    private static final int STEM_PREFIX_LENGTH = 4;
+
+    public ProductQuery {
+        category = blankToNull(category);
+        search = blankToNull(search);
+        if (search != null) {
+            search = search.toLowerCase(Locale.ROOT);
+        }
+        if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+            throw new IllegalArgumentException("minPrice must not be greater than maxPrice");
+        }
+    }
+
+    /**
+     * The search word to match as a name prefix, or {@code null} if the text index applies
+     */
+    public String prefixSearch() {
+        if (search == null) {
+            return null;
+        }
+        List<String> words = Product.tokenize(search);
+        if (words.size() == 1 && words.get(0).length() <= PREFIX_SEARCH_MAX_LENGTH) {
+            return words.get(0);
+        }
+        return null;
+    }
+
+    public boolean isEmpty() {
+        return category == null && search == null && minPrice == null && maxPrice == null && !inStockOnly;
+    }
+
+    /**
+     * Whether the query filters by price and at most by category as well, which the price
+     * index can answer on its own
+     */
+    public boolean isPriceRange() {
+        return (minPrice != null || maxPrice != null) && search == null && !inStockOnly;
+    }
+
+    /**
+     * Canonical cache key: filters in a fixed order, prices without trailing zeros, search
+     * lower-cased, so equivalent requests share one entry
+     */
+    public String cacheKey() {
+        StringJoiner key = new StringJoiner("&", CACHE_KEY_PREFIX, "");
+        if (category != null) {
+            key.add("category=" + encode(category));
+        }
+        if (search != null) {
+            key.add("search=" + encode(search));
+        }
+        if (minPrice != null) {
+            key.add("minPrice=" + minPrice.stripTrailingZeros().toPlainString());
+        }
+        if (maxPrice != null) {
+            key.add("maxPrice=" + maxPrice.stripTrailingZeros().toPlainString());
+        }
+        if (inStockOnly) {
+            key.add("inStock=true");
+        }
+        return key.toString();
+    }
+
+    /**
+     * Cache key of one keyset page of the query's results: {@link #cacheKey()} followed by
+     * the page position, which {@link #fromCacheKey} ignores
+     *
+     * @param after cursor the page starts after, or {@code null} for the first page
+     */
+    public String pageCacheKey(String after, int limit) {
+        String key = cacheKey();
+        String separator = key.length() > CACHE_KEY_PREFIX.length() ? "&" : "";
+        return key + separator + "after=" + (after != null ? after : "") + "&limit=" + limit;
+    }
+
+    /**
+     * Inverse of {@link #cacheKey()}
+     *
+     * @throws IllegalArgumentException if the key was not produced by {@link #cacheKey()}
+     */
+    public static ProductQuery fromCacheKey(String key) {
+        if (!key.startsWith(CACHE_KEY_PREFIX)) {
+            throw new IllegalArgumentException("Not a query cache key: " + key);
+        }
+        Map<String, String> params = new LinkedHashMap<>();
+        String body = key.substring(CACHE_KEY_PREFIX.length());
+        if (!body.isEmpty()) {
+            for (String pair : body.split("&")) {
+                int separator = pair.indexOf('=');
+                if (separator < 0) {
+                    throw new IllegalArgumentException("Not a query cache key: " + key);
+                }
+                params.put(pair.substring(0, separator), decode(pair.substring(separator + 1)));
+            }
+        }
+        return new ProductQuery(
+                params.get("category"),
+                params.get("search"),
+                params.containsKey("minPrice") ? new BigDecimal(params.get("minPrice")) : null,
+                params.containsKey("maxPrice") ? new BigDecimal(params.get("maxPrice")) : null,
+                Boolean.parseBoolean(params.get("inStock"))
+        );
+    }
+
+    /**
+     * Whether an active product satisfies every filter. Used to pick cache entries to evict,
+     * so text search errs on the side of matching: stemming is approximated by a word prefix.
+     */
+    public boolean matches(Product product) {
+        if (!product.isActive()) {
+            return false;
+        }
+        if (category != null && !category.equals(product.getCategory())) {
+            return false;
+        }
+        if (search != null && !matchesSearch(product)) {
+            return false;
+        }
+        BigDecimal price = product.getPrice();
+        if (minPrice != null && (price == null || price.compareTo(minPrice) < 0)) {
+            return false;
+        }
+        if (maxPrice != null && (price == null || price.compareTo(maxPrice) > 0)) {
+            return false;
+        }
+        return !inStockOnly || product.isInStock();
+    }
+
+    private boolean matchesSearch(Product product) {
+        String prefix = prefixSearch();
+        if (prefix != null) {
+            return Product.tokenize(product.getName()).stream().anyMatch(word -> word.startsWith(prefix));
+        }
+        String text = (product.getName() + " " + product.getDescription()).toLowerCase(Locale.ROOT);
+        return Product.tokenize(search).stream()
+                .map(word -> word.substring(0, Math.min(word.length(), STEM_PREFIX_LENGTH)))
+                .anyMatch(text::contains);
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static String decode(String value) {
+        return URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+}
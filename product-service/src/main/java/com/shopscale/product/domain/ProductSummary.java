@@ -0,0 +1,40 @@
+package com.shopscale.product.domain;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * The part of a product that list pages need. Read with a Mongo field projection, so
+ * descriptions and attribute maps are not loaded, cached or sent for lists.
+ */
+public record ProductSummary(
+        @Id String productId,
+        String name,
+        @Field(targetType = FieldType.DECIMAL128) BigDecimal price,
+        String category,
+        Integer stockQuantity,
+        // Kept for keyset cursors
+        LocalDateTime createdAt,
+        // Kept for list ETags
+        LocalDateTime updatedAt
+) implements Serializable {
+
+    /**
+     * Document fields to include in a summary projection ({@code _id} is always returned)
+     */
+    public static final String[] FIELDS = {"name", "price", "category", "stockQuantity", "createdAt", "updatedAt"};
+
+    public static ProductSummary of(Product product) {
+        return new ProductSummary(product.getProductId(), product.getName(), product.getPrice(),
+                product.getCategory(), product.getStockQuantity(), product.getCreatedAt(), product.getUpdatedAt());
+    }
+
+    public boolean inStock() {
+        return stockQuantity != null && stockQuantity > 0;
+    }
+}
@@ -0,0 +1,9 @@
+package com.shopscale.product.domain;
+
+import java.time.LocalDateTime;
+
+/**
+ * Available quantity of a product as reported by the inventory service at a point in time
+ */
+public record StockLevel(String productId, int quantity, LocalDateTime timestamp) {
+}
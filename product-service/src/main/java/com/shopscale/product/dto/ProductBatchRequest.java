@@ -0,0 +1,35 @@
+package com.shopscale.product.dto;
+
+import com.shopscale.product.service.ProductService;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Request DTO for fetching several products at once
+ */
+public class ProductBatchRequest {
+
+    @NotEmpty(message = "At least one product ID is required")
+    @Size(max = ProductService.MAX_BATCH_SIZE, message = "At most " + ProductService.MAX_BATCH_SIZE + " product IDs are allowed")
+    private List<String> productIds = new ArrayList<>();
+
+    // Constructors
+    public ProductBatchRequest() {
+    }
+
+    public ProductBatchRequest(List<String> productIds) {
+        this.productIds = productIds;
+    }
+
+    // Getters and Setters
+    public List<String> getProductIds() {
+        return productIds;
+    }
+
+    public void setProductIds(List<String> productIds) {
+        this.productIds = productIds;
+    }
+}
@@ -0,0 +1,54 @@
+package com.shopscale.product.dto;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Counts of active products per category and price range, for storefront navigation
+ *
+ * @param priceRanges histogram over every category
+ */
+public record ProductFacets(long total, List<PriceRange> priceRanges, List<CategoryFacet> categories) {
+
+    public record CategoryFacet(String category, long count, List<PriceRange> priceRanges) {
+    }
+
+    /**
+     * @param min inclusive, or {@code null} below the first boundary
+     * @param max exclusive, or {@code null} above the last boundary
+     */
+    public record PriceRange(BigDecimal min, BigDecimal max, long count) {
+    }
+
+    /**
+     * @param boundaries ascending bucket boundaries
+     * @param histograms per category, the number of products in each of the
+     *                   {@code boundaries.size() + 1} buckets
+     */
+    public static ProductFacets of(List<BigDecimal> boundaries, Map<String, long[]> histograms) {
+        long[] overall = new long[boundaries.size() + 1];
+        List<CategoryFacet> categories = new ArrayList<>(histograms.size());
+        for (Map.Entry<String, long[]> entry : new TreeMap<>(histograms).entrySet()) {
+            long count = 0;
+            for (int bucket = 0; bucket < overall.length; bucket++) {
+                overall[bucket] += entry.getValue()[bucket];
+                count += entry.getValue()[bucket];
+            }
+            categories.add(new CategoryFacet(entry.getKey(), count, priceRanges(boundaries, entry.getValue())));
+        }
+        long total = categories.stream().mapToLong(CategoryFacet::count).sum();
+        return new ProductFacets(total, priceRanges(boundaries, overall), categories);
+    }
+
+    private static List<PriceRange> priceRanges(List<BigDecimal> boundaries, long[] counts) {
+        List<PriceRange> ranges = new ArrayList<>(counts.length);
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            ranges.add(new PriceRange(bucket > 0 ? boundaries.get(bucket - 1) : null,
+                    bucket < boundaries.size() ? boundaries.get(bucket) : null, counts[bucket]));
+        }
+        return ranges;
+    }
+}
@@ -0,0 +1,32 @@
+package com.shopscale.product.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Progress and outcome of a bulk product import
+ *
+ * @param errors per-row errors, capped at {@code product.import.max-reported-errors}
+ */
+public record ProductImportStatus(
+        String importId,
+        State state,
+        long rowsRead,
+        long inserted,
+        long failed,
+        LocalDateTime startedAt,
+        LocalDateTime finishedAt,
+        String message,
+        List<RowError> errors
+) {
+
+    public enum State {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    /**
+     * @param line 1-based line number in the uploaded file
+     */
+    public record RowError(long line, String message) {
+    }
+}
@@ -18,6 +18,7 @@ public class ProductResponse {
     private boolean inStock;
     private Map<String, Object> attributes;
     private LocalDateTime createdAt;
+    private Long version;
 
     // Constructors
     public ProductResponse() {
@@ -109,4 +110,12 @@ public class ProductResponse {
     public void setCreatedAt(LocalDateTime createdAt) {
         this.createdAt = createdAt;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,7 @@
+package com.shopscale.product.dto;
+
+/**
+ * Type-ahead suggestion
+ */
+public record ProductSuggestion(String productId, String name, String category) {
+}
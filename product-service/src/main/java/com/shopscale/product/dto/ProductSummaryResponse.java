@@ -0,0 +1,16 @@
+package com.shopscale.product.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Product as shown in lists, without description and attributes
+ */
+public record ProductSummaryResponse(
+        String productId,
+        String name,
+        BigDecimal price,
+        String category,
+        Integer stockQuantity,
+        boolean inStock
+) {
+}
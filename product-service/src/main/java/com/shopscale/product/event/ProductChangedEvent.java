@@ -0,0 +1,18 @@
+package com.shopscale.product.event;
+
+import com.shopscale.product.domain.Product;
+
+import java.util.List;
+
+/**
+ * Published in-process by ProductService after products are written, and by
+ * ProductChangeStreamWatcher for every write seen on the change stream
+ *
+ * @param products state of the products after the write
+ */
+public record ProductChangedEvent(List<Product> products) {
+
+    public ProductChangedEvent(Product product) {
+        this(List.of(product));
+    }
+}
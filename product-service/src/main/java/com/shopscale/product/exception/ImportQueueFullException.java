@@ -0,0 +1,11 @@
+package com.shopscale.product.exception;
+
+/**
+ * Exception thrown when a bulk import cannot be queued because too many are already waiting
+ */
+public class ImportQueueFullException extends RuntimeException {
+
+    public ImportQueueFullException(String message) {
+        super(message);
+    }
+}
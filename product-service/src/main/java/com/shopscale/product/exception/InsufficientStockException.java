@@ -0,0 +1,11 @@
+package com.shopscale.product.exception;
+
+/**
+ * Exception thrown when a stock decrement would take a product below zero
+ */
+public class InsufficientStockException extends RuntimeException {
+
+    public InsufficientStockException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,117 @@
+package com.shopscale.product.listener;
+
+import com.shopscale.product.domain.StockLevel;
+import com.shopscale.product.event.InventoryUpdatedEvent;
+import com.shopscale.product.service.InventorySyncService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Consumes {@code inventory-updated} one poll at a time. Events are coalesced per product,
+ * keeping the newest quantity, and the batch is written in a single bulk update. Events
+ * are keyed by product ID, so a product's events arrive in order within one partition;
+ * the stored event timestamp still guards against redelivered or older events.
+ */
+@Component
+public class InventoryEventListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryEventListener.class);
+
+    private final InventorySyncService inventorySyncService;
+    private final Counter received;
+    private final Counter coalesced;
+    private final Counter applied;
+    private final Counter stale;
+    private final Counter invalid;
+    private final Timer eventAge;
+
+    public InventoryEventListener(InventorySyncService inventorySyncService, MeterRegistry meterRegistry) {
+        this.inventorySyncService = inventorySyncService;
+        this.received = eventCounter(meterRegistry, "received");
+        this.coalesced = eventCounter(meterRegistry, "coalesced");
+        this.applied = eventCounter(meterRegistry, "applied");
+        this.stale = eventCounter(meterRegistry, "stale");
+        this.invalid = eventCounter(meterRegistry, "invalid");
+        this.eventAge = Timer.builder("product.inventory.event.age")
+                .description("Time from an inventory change to its event being consumed")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    @KafkaListener(
+        topics = "${product.inventory-sync.topic:inventory-updated}",
+        containerFactory = "inventoryBatchListenerContainerFactory",
+        autoStartup = "${product.inventory-sync.enabled:true}"
+    )
+    public void handleInventoryUpdates(List<ConsumerRecord<String, InventoryUpdatedEvent>> records) {
+        received.increment(records.size());
+        LocalDateTime now = LocalDateTime.now();
+        for (ConsumerRecord<String, InventoryUpdatedEvent> record : records) {
+            InventoryUpdatedEvent event = record.value();
+            if (event != null && event.getTimestamp() != null) {
+                eventAge.record(Duration.between(event.getTimestamp(), now).abs());
+            }
+        }
+
+        Collection<StockLevel> levels = coalesce(records);
+        int rejected = (int) records.stream().filter(record -> toStockLevel(record.value()) == null).count();
+        invalid.increment(rejected);
+        coalesced.increment(records.size() - rejected - levels.size());
+        if (levels.isEmpty()) {
+            return;
+        }
+
+        long changed = inventorySyncService.applyStockLevels(levels);
+        applied.increment(changed);
+        stale.increment(levels.size() - changed);
+        logger.info("Applied {} inventory updates from {} events ({} stale)", changed, records.size(),
+                levels.size() - changed);
+    }
+
+    /**
+     * The newest stock level per product. Of events with the same timestamp the one
+     * consumed last wins. Events that failed to deserialize or lack a field are skipped.
+     */
+    static Collection<StockLevel> coalesce(List<ConsumerRecord<String, InventoryUpdatedEvent>> records) {
+        Map<String, StockLevel> latest = new LinkedHashMap<>();
+        for (ConsumerRecord<String, InventoryUpdatedEvent> record : records) {
+            StockLevel level = toStockLevel(record.value());
+            if (level == null) {
+                logger.warn("Skipping invalid inventory event at {}-{}@{}: {}", record.topic(), record.partition(),
+                        record.offset(), record.value());
+                continue;
+            }
+            latest.merge(level.productId(), level,
+                    (current, next) -> next.timestamp().isBefore(current.timestamp()) ? current : next);
+        }
+        return latest.values();
+    }
+
+    private static StockLevel toStockLevel(InventoryUpdatedEvent event) {
+        if (event == null || event.getProductId() == null || event.getNewQuantity() == null
+                || event.getNewQuantity() < 0 || event.getTimestamp() == null) {
+            return null;
+        }
+        return new StockLevel(event.getProductId(), event.getNewQuantity(), event.getTimestamp());
+    }
+
+    private static Counter eventCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("product.inventory.events")
+                .description("Inventory events consumed, by outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -1,8 +1,10 @@
 package com.shopscale.product.mapper;
 
 import com.shopscale.product.domain.Product;
+import com.shopscale.product.domain.ProductSummary;
 import com.shopscale.product.dto.CreateProductRequest;
 import com.shopscale.product.dto.ProductResponse;
+import com.shopscale.product.dto.ProductSummaryResponse;
 import org.springframework.stereotype.Component;
 
 /**
@@ -19,7 +21,7 @@ public class ProductMapper {
             return null;
         }
 
-        return new ProductResponse(
+        ProductResponse response = new ProductResponse(
                 product.getProductId(),
                 product.getName(),
                 product.getDescription(),
@@ -30,6 +32,26 @@ public class ProductMapper {
                 product.getAttributes(),
                 product.getCreatedAt()
         );
+        response.setVersion(product.getVersion());
+        return response;
+    }
+
+    /**
+     * Convert ProductSummary projection to its list DTO
+     */
+    public ProductSummaryResponse toSummaryResponse(ProductSummary summary) {
+        if (summary == null) {
+            return null;
+        }
+
+        return new ProductSummaryResponse(
+                summary.productId(),
+                summary.name(),
+                summary.price(),
+                summary.category(),
+                summary.stockQuantity(),
+                summary.inStock()
+        );
     }
 
     /**
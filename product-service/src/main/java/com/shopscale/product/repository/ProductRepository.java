@@ -1,19 +1,23 @@
 package com.shopscale.product.repository;
 
 import com.shopscale.product.domain.Product;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.repository.Meta;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * MongoDB repository for Product documents
  */
 @Repository
-public interface ProductRepository extends MongoRepository<Product, String> {
+public interface ProductRepository extends MongoRepository<Product, String>, ProductRepositoryCustom {
 
     /**
      * Find products by category
@@ -46,11 +50,22 @@ public interface ProductRepository extends MongoRepository<Product, String> {
      */
     List<Product> findByActiveTrue();
 
+    /**
+     * Stream active products from a server-side cursor; the stream must be closed
+     */
+    @Meta(cursorBatchSize = 500)
+    Stream<Product> streamByActiveTrue(Sort sort);
+
     /**
      * Find product by ID if active
      */
     Optional<Product> findByProductIdAndActiveTrue(String productId);
 
+    /**
+     * Find the active products among the given IDs in a single {@code $in} query
+     */
+    List<Product> findByProductIdInAndActiveTrue(Collection<String> productIds);
+
     /**
      * Count products by category
      */
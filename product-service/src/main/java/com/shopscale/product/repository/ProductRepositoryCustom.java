@@ -0,0 +1,106 @@
+package com.shopscale.product.repository;
+
+import com.shopscale.product.domain.Product;
+import com.shopscale.product.domain.ProductCursor;
+import com.shopscale.product.domain.ProductQuery;
+import com.shopscale.product.domain.ProductSummary;
+import com.shopscale.product.domain.StockLevel;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Hand-written queries that cannot be expressed as derived repository methods
+ */
+public interface ProductRepositoryCustom {
+
+    /**
+     * Summaries of active products matching the query, read with a field projection;
+     * searches are ordered by relevance
+     */
+    List<ProductSummary> findSummariesByQuery(ProductQuery query, Pageable pageable);
+
+    /**
+     * Summaries of active products matching the query's filters in (createdAt, productId)
+     * order, starting after the cursor
+     *
+     * @param after position to continue from, or {@code null} for the first page
+     */
+    List<ProductSummary> findSummaryPage(ProductQuery query, ProductCursor after, int size);
+
+    /**
+     * Current version of each active product in the given set, read with a field projection
+     *
+     * @return version by product ID; unknown and inactive products are left out
+     */
+    Map<String, Long> findVersions(Collection<String> productIds);
+
+    /**
+     * Count active products per category and price bucket in one aggregation
+     *
+     * @param boundaries ascending bucket boundaries; bucket {@code i} holds prices from
+     *                   boundary {@code i - 1} inclusive to boundary {@code i} exclusive
+     * @return per category, the count in each of the {@code boundaries.size() + 1} buckets
+     */
+    Map<String, long[]> aggregatePriceHistograms(List<BigDecimal> boundaries);
+
+    /**
+     * Set the stock of every product whose last applied inventory event is older than the
+     * given level, in one unordered bulk write. Older or repeated levels are ignored.
+     *
+     * @return number of products changed
+     */
+    long applyStockLevels(Collection<StockLevel> levels);
+
+    /**
+     * Set the stock of an active product in place
+     *
+     * @param expectedVersion only update if the document is still at this version; {@code null} to skip the check
+     * @return the product after the update, or empty if no active product matched
+     */
+    Optional<Product> updateStock(String productId, int quantity, Long expectedVersion);
+
+    /**
+     * Add {@code delta} to the stock of an active product with {@code $inc}; concurrent
+     * adjustments never conflict
+     *
+     * @return the product after the update, or empty if no active product matched or a
+     * decrement would take the stock below zero
+     */
+    Optional<Product> adjustStock(String productId, int delta);
+
+    /**
+     * Set the price of an active product in place
+     *
+     * @param expectedVersion only update if the document is still at this version; {@code null} to skip the check
+     * @return the product after the update, or empty if no active product matched
+     */
+    Optional<Product> updatePrice(String productId, BigDecimal price, Long expectedVersion);
+
+    /**
+     * Mark a product inactive in place
+     *
+     * @return the product after the update, or empty if there is no such product
+     */
+    Optional<Product> deactivate(String productId);
+
+    /**
+     * Convert prices still stored as strings, from before the DECIMAL128 mapping, with {@code $toDecimal}.
+     * Only string prices match, so running it again changes nothing.
+     *
+     * @return number of products converted
+     */
+    long convertStringPrices();
+
+    /**
+     * Derive {@code nameTokens} for products saved before the field existed, in bulk batches.
+     * Only products without the field match, so running it again changes nothing.
+     *
+     * @return number of products updated
+     */
+    long backfillNameTokens();
+}
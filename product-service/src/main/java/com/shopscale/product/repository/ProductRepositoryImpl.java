@@ -0,0 +1,282 @@
+package com.shopscale.product.repository;
+
+import com.shopscale.product.domain.Product;
+import com.shopscale.product.domain.ProductCursor;
+import com.shopscale.product.domain.ProductQuery;
+import com.shopscale.product.domain.ProductSummary;
+import com.shopscale.product.domain.StockLevel;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ConvertOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.schema.JsonSchemaObject;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * MongoTemplate-backed implementation of {@link ProductRepositoryCustom}
+ */
+public class ProductRepositoryImpl implements ProductRepositoryCustom {
+
+    // Backed by the active_createdAt_id index
+    private static final Sort KEYSET_SORT = Sort.by("createdAt", "productId");
+
+    private static final String PRODUCTS_COLLECTION = "products";
+    private static final int BACKFILL_BATCH_SIZE = 1000;
+
+    private final MongoTemplate mongoTemplate;
+
+    public ProductRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<ProductSummary> findSummariesByQuery(ProductQuery query, Pageable pageable) {
+        return findSummaries(summariesQuery(query, pageable));
+    }
+
+    @Override
+    public List<ProductSummary> findSummaryPage(ProductQuery query, ProductCursor after, int size) {
+        return findSummaries(summaryPageQuery(query, after, size));
+    }
+
+    @Override
+    public Map<String, Long> findVersions(Collection<String> productIds) {
+        Query query = new Query(Criteria.where("productId").in(productIds).and("active").is(true));
+        query.fields().include("version");
+        Map<String, Long> versions = new HashMap<>();
+        for (Product product : mongoTemplate.find(query, Product.class)) {
+            versions.put(product.getProductId(), product.getVersion());
+        }
+        return versions;
+    }
+
+    private List<ProductSummary> findSummaries(Query query) {
+        return mongoTemplate.query(Product.class)
+                .as(ProductSummary.class)
+                .matching(query)
+                .all();
+    }
+
+    @Override
+    public Map<String, long[]> aggregatePriceHistograms(List<BigDecimal> boundaries) {
+        // The bucket is the number of boundaries at or below the price
+        List<Decimal128> bounds = boundaries.stream().map(Decimal128::new).toList();
+        Document bucket = new Document("$size", new Document("$filter", new Document("input", bounds)
+                .append("cond", new Document("$lte", List.of("$$this", "$price")))));
+        AggregationOperation group = context -> new Document("$group", new Document("_id",
+                new Document("category", "$category").append("bucket", bucket))
+                .append("count", new Document("$sum", 1)));
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("active").is(true)),
+                group);
+
+        Map<String, long[]> histograms = new HashMap<>();
+        for (Document result : mongoTemplate.aggregate(aggregation, Product.class, Document.class)) {
+            Document id = result.get("_id", Document.class);
+            String category = id.getString("category");
+            if (category == null) {
+                continue;
+            }
+            histograms.computeIfAbsent(category, key -> new long[boundaries.size() + 1])
+                    [id.getInteger("bucket")] += ((Number) result.get("count")).longValue();
+        }
+        return histograms;
+    }
+
+    @Override
+    public long applyStockLevels(Collection<StockLevel> levels) {
+        if (levels.isEmpty()) {
+            return 0;
+        }
+        BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        LocalDateTime now = LocalDateTime.now();
+        for (StockLevel level : levels) {
+            Criteria newer = new Criteria().orOperator(
+                    Criteria.where("inventoryUpdatedAt").lt(level.timestamp()),
+                    Criteria.where("inventoryUpdatedAt").exists(false));
+            Update update = new Update()
+                    .set("stockQuantity", level.quantity())
+                    .set("inventoryUpdatedAt", level.timestamp())
+                    .set("updatedAt", now)
+                    .inc("version", 1);
+            operations.updateOne(new Query(Criteria.where("productId").is(level.productId()).andOperator(newer)), update);
+        }
+        return operations.execute().getModifiedCount();
+    }
+
+    @Override
+    public Optional<Product> updateStock(String productId, int quantity, Long expectedVersion) {
+        return modify(activeProduct(productId, expectedVersion), new Update().set("stockQuantity", quantity));
+    }
+
+    @Override
+    public Optional<Product> adjustStock(String productId, int delta) {
+        Criteria criteria = activeProduct(productId, null);
+        if (delta < 0) {
+            // Checked in the same atomic operation, so concurrent decrements cannot oversell
+            criteria = criteria.and("stockQuantity").gte(-delta);
+        }
+        return modify(criteria, new Update().inc("stockQuantity", delta));
+    }
+
+    @Override
+    public Optional<Product> updatePrice(String productId, BigDecimal price, Long expectedVersion) {
+        return modify(activeProduct(productId, expectedVersion), new Update().set("price", price));
+    }
+
+    @Override
+    public Optional<Product> deactivate(String productId) {
+        // Matches inactive products too, so repeating a deactivation still succeeds
+        return modify(Criteria.where("productId").is(productId), new Update().set("active", false));
+    }
+
+    @Override
+    public long convertStringPrices() {
+        Query stringPrices = new Query(Criteria.where("price").type(JsonSchemaObject.Type.STRING));
+        AggregationUpdate toDecimal = AggregationUpdate.update()
+                .set("price").toValue(ConvertOperators.valueOf("price").convertToDecimal());
+        return mongoTemplate.updateMulti(stringPrices, toDecimal, Product.class).getModifiedCount();
+    }
+
+    @Override
+    public long backfillNameTokens() {
+        Query missing = new Query(Criteria.where("nameTokens").exists(false));
+        missing.fields().include("name");
+        long updated = 0;
+        List<Document> batch = new ArrayList<>(BACKFILL_BATCH_SIZE);
+        try (Stream<Document> documents = mongoTemplate.stream(missing, Document.class, PRODUCTS_COLLECTION)) {
+            Iterator<Document> iterator = documents.iterator();
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == BACKFILL_BATCH_SIZE || !iterator.hasNext()) {
+                    updated += setNameTokens(batch);
+                    batch.clear();
+                }
+            }
+        }
+        return updated;
+    }
+
+    private long setNameTokens(List<Document> products) {
+        BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PRODUCTS_COLLECTION);
+        for (Document product : products) {
+            // Left as is if a save set the tokens meanwhile
+            operations.updateOne(new Query(Criteria.where("_id").is(product.get("_id")).and("nameTokens").exists(false)),
+                    new Update().set("nameTokens", Product.tokenize(product.getString("name"))));
+        }
+        return operations.execute().getModifiedCount();
+    }
+
+    /**
+     * Apply the update in a single findAndModify round trip, touching only the given fields,
+     * and return the document as it is afterwards
+     */
+    private Optional<Product> modify(Criteria criteria, Update update) {
+        update.set("updatedAt", LocalDateTime.now()).inc("version", 1);
+        return Optional.ofNullable(mongoTemplate.findAndModify(new Query(criteria), update,
+                FindAndModifyOptions.options().returnNew(true), Product.class));
+    }
+
+    private static Criteria activeProduct(String productId, Long expectedVersion) {
+        Criteria criteria = Criteria.where("productId").is(productId).and("active").is(true);
+        if (expectedVersion != null) {
+            criteria = criteria.and("version").is(expectedVersion);
+        }
+        return criteria;
+    }
+
+    /**
+     * The query {@link #findSummariesByQuery} runs: the filters, the page and the summary projection
+     */
+    static Query summariesQuery(ProductQuery query, Pageable pageable) {
+        Query summaries = toQuery(query).with(pageable);
+        summaries.fields().include(ProductSummary.FIELDS);
+        return summaries;
+    }
+
+    /**
+     * Active products matching the query's filters in (createdAt, productId) order, starting
+     * after the cursor
+     */
+    static Query summaryPageQuery(ProductQuery query, ProductCursor after, int size) {
+        Criteria criteria = toCriteria(query);
+        if (after != null) {
+            criteria = new Criteria().andOperator(criteria, new Criteria().orOperator(
+                    Criteria.where("createdAt").gt(after.createdAt()),
+                    Criteria.where("createdAt").is(after.createdAt()).and("productId").gt(after.productId())));
+        }
+        Query page = new Query(criteria).with(PageRequest.of(0, size, KEYSET_SORT));
+        page.fields().include(ProductSummary.FIELDS);
+        return page;
+    }
+
+    /**
+     * Text searches use the {name, description} text index and are ranked by textScore;
+     * short single-word searches use an anchored prefix match on the indexed name words.
+     */
+    static Query toQuery(ProductQuery query) {
+        if (query.search() == null) {
+            return new Query(toCriteria(query));
+        }
+        if (query.prefixSearch() != null) {
+            return new Query(toCriteria(query)).with(Sort.by("name", "productId"));
+        }
+        return TextQuery.queryText(TextCriteria.forDefaultLanguage().matching(query.search()))
+                .sortByScore()
+                .addCriteria(toCriteria(query));
+    }
+
+    /**
+     * Combine the non-text filters into one criteria. Equality fields come first so the
+     * {category, active, price} and {active, price} indexes can serve the query.
+     */
+    static Criteria toCriteria(ProductQuery query) {
+        List<Criteria> filters = new ArrayList<>();
+        if (query.category() != null) {
+            filters.add(Criteria.where("category").is(query.category()));
+        }
+        filters.add(Criteria.where("active").is(true));
+        if (query.minPrice() != null || query.maxPrice() != null) {
+            Criteria price = Criteria.where("price");
+            if (query.minPrice() != null) {
+                price = price.gte(query.minPrice());
+            }
+            if (query.maxPrice() != null) {
+                price = price.lte(query.maxPrice());
+            }
+            filters.add(price);
+        }
+        if (query.inStockOnly()) {
+            filters.add(Criteria.where("stockQuantity").gt(0));
+        }
+        String prefix = query.prefixSearch();
+        if (prefix != null) {
+            // Tokens are letters and digits only, so the prefix needs no escaping and gets tight index bounds
+            filters.add(Criteria.where("nameTokens").regex("^" + prefix));
+        }
+        return new Criteria().andOperator(filters);
+    }
+}
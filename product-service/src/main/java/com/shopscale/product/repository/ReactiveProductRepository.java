@@ -0,0 +1,29 @@
+package com.shopscale.product.repository;
+
+import com.shopscale.product.domain.Product;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.repository.Meta;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking MongoDB repository for Product documents, used by the reactive read stack.
+ * Only created with the {@code reactive} profile, which enables reactive Mongo.
+ */
+@Repository
+public interface ReactiveProductRepository extends ReactiveMongoRepository<Product, String>,
+        ReactiveProductRepositoryCustom {
+
+    /**
+     * Find product by ID if active
+     */
+    Mono<Product> findByProductIdAndActiveTrue(String productId);
+
+    /**
+     * Active products from a server-side cursor, emitted as the client requests them
+     */
+    @Meta(cursorBatchSize = 500)
+    Flux<Product> findByActiveTrue(Sort sort);
+}
@@ -0,0 +1,27 @@
+package com.shopscale.product.repository;
+
+import com.shopscale.product.domain.ProductCursor;
+import com.shopscale.product.domain.ProductQuery;
+import com.shopscale.product.domain.ProductSummary;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Flux;
+
+/**
+ * Non-blocking counterparts of the {@link ProductRepositoryCustom} reads, built from the same queries
+ */
+public interface ReactiveProductRepositoryCustom {
+
+    /**
+     * Summaries of active products matching the query, read with a field projection;
+     * searches are ordered by relevance
+     */
+    Flux<ProductSummary> findSummariesByQuery(ProductQuery query, Pageable pageable);
+
+    /**
+     * Summaries of active products matching the query's filters in (createdAt, productId)
+     * order, starting after the cursor
+     *
+     * @param after position to continue from, or {@code null} for the first page
+     */
+    Flux<ProductSummary> findSummaryPage(ProductQuery query, ProductCursor after, int size);
+}
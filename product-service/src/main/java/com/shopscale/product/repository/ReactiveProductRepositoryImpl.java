@@ -0,0 +1,39 @@
+package com.shopscale.product.repository;
+
+import com.shopscale.product.domain.Product;
+import com.shopscale.product.domain.ProductCursor;
+import com.shopscale.product.domain.ProductQuery;
+import com.shopscale.product.domain.ProductSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+
+/**
+ * ReactiveMongoTemplate-backed implementation of {@link ReactiveProductRepositoryCustom}
+ */
+public class ReactiveProductRepositoryImpl implements ReactiveProductRepositoryCustom {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    public ReactiveProductRepositoryImpl(ReactiveMongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Flux<ProductSummary> findSummariesByQuery(ProductQuery query, Pageable pageable) {
+        return findSummaries(ProductRepositoryImpl.summariesQuery(query, pageable));
+    }
+
+    @Override
+    public Flux<ProductSummary> findSummaryPage(ProductQuery query, ProductCursor after, int size) {
+        return findSummaries(ProductRepositoryImpl.summaryPageQuery(query, after, size));
+    }
+
+    private Flux<ProductSummary> findSummaries(Query query) {
+        return mongoTemplate.query(Product.class)
+                .as(ProductSummary.class)
+                .matching(query)
+                .all();
+    }
+}
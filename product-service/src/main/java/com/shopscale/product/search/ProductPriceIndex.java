@@ -0,0 +1,464 @@
+package com.shopscale.product.search;
+
+import com.shopscale.product.domain.Product;
+import com.shopscale.product.event.ProductChangedEvent;
+import com.shopscale.product.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * In-process index of active products by price, so that price-range lists are answered
+ * without a Mongo range scan and without a cache key per distinct range.
+ *
+ * <p>Each category is a segment of parallel arrays sorted by price then product ID:
+ * prices in whole cents (rounded down) for the binary search, the exact prices for the
+ * cent at either end of a range, and the product IDs. A range within a category is
+ * therefore a contiguous slice and a page is an offset into it; a range across categories
+ * merges the categories' slices up to the end of the page. Segments are replaced rather
+ * than modified, so lookups never lock, and a change rewrites only its category's segment.
+ *
+ * <p>Like {@link ProductSuggestIndex}, the index is built from Mongo at startup, patched
+ * from {@link ProductChangedEvent}s, including those the change stream reports for
+ * other instances' writes, and rebuilt on a schedule as a safety net. It holds at most
+ * {@code product.price-index.max-entries} products; beyond that it stops answering until
+ * a rebuild fits again.
+ */
+@Component
+public class ProductPriceIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductPriceIndex.class);
+
+    private static final Comparator<Entry> PRICE_ORDER = Comparator.comparing(Entry::price)
+            .thenComparing(Entry::productId);
+
+    private final ProductRepository productRepository;
+    private final int maxEntries;
+
+    private final Object writeLock = new Object();
+    private volatile Snapshot snapshot = new Snapshot(new ConcurrentHashMap<>(), Map.of());
+    // False until the first rebuild, and whenever a product had to be left out
+    private volatile boolean complete;
+    // Changes seen while a rebuild streams from Mongo, replayed onto the new snapshot
+    private List<Product> pendingChanges;
+
+    public ProductPriceIndex(ProductRepository productRepository,
+                             @Value("${product.price-index.max-entries:500000}") int maxEntries) {
+        this.productRepository = productRepository;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * IDs of active products priced within the bounds, cheapest first
+     *
+     * @param category only products in this category, or {@code null} for all
+     * @param minPrice inclusive lower bound, or {@code null}
+     * @param maxPrice inclusive upper bound, or {@code null}
+     * @param offset   number of matching products to skip; offsets past the end give an empty page
+     * @return empty if the index cannot answer yet, so the caller should query Mongo
+     */
+    public Optional<List<String>> findIds(String category, BigDecimal minPrice, BigDecimal maxPrice,
+                                          long offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("offset and limit must not be negative");
+        }
+        if (!complete) {
+            return Optional.empty();
+        }
+        Snapshot current = snapshot;
+        if (category == null) {
+            return Optional.of(findAcrossCategories(current.byCategory.values(), minPrice, maxPrice, offset, limit));
+        }
+        Segment segment = current.byCategory.getOrDefault(category, Segment.EMPTY);
+        int start = segment.start(minPrice);
+        int end = segment.end(maxPrice);
+        int from = (int) Math.min(start + offset, end);
+        int to = (int) Math.min((long) from + limit, end);
+        return Optional.of(Arrays.asList(segment.productIds).subList(from, to));
+    }
+
+    /**
+     * Merge the categories' slices of the range cheapest first, stopping at the end of the page
+     */
+    private static List<String> findAcrossCategories(Collection<Segment> segments, BigDecimal minPrice,
+                                                     BigDecimal maxPrice, long offset, int limit) {
+        PriorityQueue<Cursor> cursors = new PriorityQueue<>(Math.max(1, segments.size()));
+        for (Segment segment : segments) {
+            Cursor cursor = new Cursor(segment, segment.start(minPrice), segment.end(maxPrice));
+            if (cursor.position < cursor.end) {
+                cursors.add(cursor);
+            }
+        }
+        List<String> ids = new ArrayList<>(Math.min(limit, 1024));
+        long skip = offset;
+        while (!cursors.isEmpty() && ids.size() < limit) {
+            Cursor cursor = cursors.poll();
+            if (skip > 0) {
+                skip--;
+            } else {
+                ids.add(cursor.segment.productIds[cursor.position]);
+            }
+            if (++cursor.position < cursor.end) {
+                cursors.add(cursor);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Number of products per category in each price bucket, two binary searches per bucket
+     *
+     * @param boundaries ascending bucket boundaries; bucket {@code i} holds prices from
+     *                   boundary {@code i - 1} inclusive to boundary {@code i} exclusive
+     * @return empty if the index cannot answer yet
+     */
+    public Optional<Map<String, long[]>> priceHistograms(List<BigDecimal> boundaries) {
+        if (!complete) {
+            return Optional.empty();
+        }
+        Map<String, long[]> histograms = new HashMap<>();
+        snapshot.byCategory.forEach((category, segment) -> {
+            long[] counts = new long[boundaries.size() + 1];
+            int start = 0;
+            for (int bucket = 0; bucket < boundaries.size(); bucket++) {
+                int end = segment.firstAtLeast(boundaries.get(bucket));
+                counts[bucket] = Math.max(0, end - start);
+                start = Math.max(start, end);
+            }
+            counts[boundaries.size()] = segment.size() - start;
+            histograms.put(category, counts);
+        });
+        return Optional.of(histograms);
+    }
+
+    /**
+     * Number of products currently indexed
+     */
+    public int size() {
+        return snapshot.entries.size();
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void onStartup() {
+        rebuild();
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        synchronized (writeLock) {
+            // Stock and text edits leave the index as it is
+            List<Product> moved = event.products().stream()
+                    .filter(product -> !Objects.equals(snapshot.entries.get(product.getProductId()), entryOf(product)))
+                    .toList();
+            snapshot = apply(snapshot, moved);
+            if (pendingChanges != null) {
+                pendingChanges.addAll(event.products());
+            }
+        }
+    }
+
+    /**
+     * Rebuild from Mongo without blocking lookups or writes
+     */
+    @Scheduled(initialDelayString = "${product.price-index.rebuild-interval:30m}",
+            fixedDelayString = "${product.price-index.rebuild-interval:30m}")
+    public void rebuild() {
+        synchronized (writeLock) {
+            pendingChanges = new ArrayList<>();
+        }
+        List<Entry> entries = new ArrayList<>();
+        long skipped;
+        try (Stream<Product> products = productRepository.streamByActiveTrue(Sort.unsorted())) {
+            skipped = products
+                    .map(Entry::of)
+                    .filter(entry -> {
+                        if (entry == null) {
+                            return false;
+                        }
+                        if (entries.size() >= maxEntries) {
+                            return true;
+                        }
+                        entries.add(entry);
+                        return false;
+                    })
+                    .count();
+        } catch (RuntimeException e) {
+            synchronized (writeLock) {
+                pendingChanges = null;
+            }
+            logger.warn("Price index rebuild failed, keeping {} entries: {}", size(), e.getMessage());
+            return;
+        }
+
+        Snapshot rebuilt = Snapshot.of(entries);
+        synchronized (writeLock) {
+            complete = skipped == 0;
+            rebuilt = apply(rebuilt, pendingChanges);
+            pendingChanges = null;
+            snapshot = rebuilt;
+        }
+        logger.info("Price index rebuilt with {} products in {} categories",
+                rebuilt.entries.size(), rebuilt.byCategory.size());
+        if (skipped > 0) {
+            logger.warn("Price index is full ({} entries); {} products were not indexed, price ranges are "
+                    + "served from the database until it fits", maxEntries, skipped);
+        }
+    }
+
+    /**
+     * A snapshot holding the products' current state. Only the categories the products
+     * leave or join are rewritten, in one merge each however many products changed. Called
+     * under writeLock or on an unpublished snapshot, so the
+     * entry map, which lookups never read, can be updated in place.
+     */
+    private Snapshot apply(Snapshot target, Collection<Product> products) {
+        if (products.isEmpty()) {
+            return target;
+        }
+        Map<String, Entry> entries = target.entries;
+        Set<String> changedIds = new HashSet<>();
+        Set<String> changedCategories = new HashSet<>();
+        Map<String, Entry> latest = new HashMap<>();
+        for (Product product : products) {
+            Entry previous = entries.remove(product.getProductId());
+            if (previous != null) {
+                changedCategories.add(previous.category());
+            }
+            latest.remove(product.getProductId());
+            changedIds.add(product.getProductId());
+
+            Entry entry = entryOf(product);
+            if (entry == null) {
+                continue;
+            }
+            if (entries.size() + latest.size() >= maxEntries) {
+                if (complete) {
+                    logger.warn("Price index is full ({} entries), price ranges are served from the database "
+                            + "until the next rebuild", maxEntries);
+                }
+                complete = false;
+                continue;
+            }
+            latest.put(entry.productId(), entry);
+            changedCategories.add(entry.category());
+        }
+        entries.putAll(latest);
+
+        List<Entry> added = latest.values().stream().sorted(PRICE_ORDER).toList();
+        Map<String, Segment> byCategory = new HashMap<>(target.byCategory);
+        for (String category : changedCategories) {
+            Segment segment = byCategory.getOrDefault(category, Segment.EMPTY).merge(changedIds,
+                    added.stream().filter(entry -> category.equals(entry.category())).toList());
+            if (segment.size() == 0) {
+                byCategory.remove(category);
+            } else {
+                byCategory.put(category, segment);
+            }
+        }
+        return new Snapshot(entries, byCategory);
+    }
+
+    private static Entry entryOf(Product product) {
+        return product.isActive() ? Entry.of(product) : null;
+    }
+
+    /**
+     * Whole cents, rounded down, clamped to the range of a long
+     */
+    static long toCents(BigDecimal price) {
+        BigDecimal cents = price.movePointRight(2).setScale(0, RoundingMode.FLOOR);
+        if (cents.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) > 0) {
+            return Long.MAX_VALUE;
+        }
+        return cents.compareTo(BigDecimal.valueOf(Long.MIN_VALUE)) < 0 ? Long.MIN_VALUE : cents.longValue();
+    }
+
+    private record Snapshot(Map<String, Entry> entries, Map<String, Segment> byCategory) {
+
+        static Snapshot of(List<Entry> entries) {
+            List<Entry> sorted = entries.stream().sorted(PRICE_ORDER).toList();
+            Map<String, Segment> byCategory = sorted.stream()
+                    .collect(Collectors.groupingBy(Entry::category, Collectors.collectingAndThen(
+                            Collectors.toList(), Segment::of)));
+            Map<String, Entry> byId = new ConcurrentHashMap<>(sorted.size());
+            sorted.forEach(entry -> byId.put(entry.productId(), entry));
+            return new Snapshot(byId, byCategory);
+        }
+    }
+
+    /**
+     * Immutable, sorted by {@link #PRICE_ORDER}
+     */
+    private record Segment(long[] cents, BigDecimal[] prices, String[] productIds) {
+
+        static final Segment EMPTY = new Segment(new long[0], new BigDecimal[0], new String[0]);
+
+        static Segment of(List<Entry> sorted) {
+            long[] cents = new long[sorted.size()];
+            BigDecimal[] prices = new BigDecimal[sorted.size()];
+            String[] productIds = new String[sorted.size()];
+            for (int i = 0; i < sorted.size(); i++) {
+                Entry entry = sorted.get(i);
+                cents[i] = entry.cents();
+                prices[i] = entry.price();
+                productIds[i] = entry.productId();
+            }
+            return new Segment(cents, prices, productIds);
+        }
+
+        int size() {
+            return cents.length;
+        }
+
+        /**
+         * Index of the first product at or above the bound, or 0 without one
+         */
+        int start(BigDecimal minPrice) {
+            return minPrice == null ? 0 : firstAtLeast(minPrice);
+        }
+
+        /**
+         * Index after the last product at or below the bound, or the size without one
+         */
+        int end(BigDecimal maxPrice) {
+            return maxPrice == null ? size() : endAtMost(maxPrice);
+        }
+
+        /**
+         * Index of the first product priced at or above the bound
+         */
+        int firstAtLeast(BigDecimal bound) {
+            long boundCents = toCents(bound);
+            int i = firstAbove(boundCents - 1);
+            // Within the bound's own cent, only products with a sub-cent price can fall short
+            while (i < size() && cents[i] == boundCents && prices[i].compareTo(bound) < 0) {
+                i++;
+            }
+            return i;
+        }
+
+        /**
+         * Index after the last product priced at or below the bound
+         */
+        int endAtMost(BigDecimal bound) {
+            long boundCents = toCents(bound);
+            int i = boundCents == Long.MAX_VALUE ? size() : firstAbove(boundCents);
+            while (i > 0 && cents[i - 1] == boundCents && prices[i - 1].compareTo(bound) > 0) {
+                i--;
+            }
+            return i;
+        }
+
+        /**
+         * Index of the first product whose whole-cent price exceeds the given one
+         */
+        private int firstAbove(long value) {
+            int low = 0;
+            int high = size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (cents[mid] <= value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * A new segment without the removed products and with the added ones in place
+         *
+         * @param added sorted by {@link #PRICE_ORDER}
+         */
+        Segment merge(Set<String> removed, List<Entry> added) {
+            int capacity = size() + added.size();
+            long[] mergedCents = new long[capacity];
+            BigDecimal[] mergedPrices = new BigDecimal[capacity];
+            String[] mergedIds = new String[capacity];
+            int count = 0;
+            int next = 0;
+            for (int i = 0; i <= size(); i++) {
+                // Insert the added entries that sort before the existing one at i
+                while (next < added.size() && (i == size() || compare(added.get(next), i) < 0)) {
+                    Entry entry = added.get(next++);
+                    mergedCents[count] = entry.cents();
+                    mergedPrices[count] = entry.price();
+                    mergedIds[count++] = entry.productId();
+                }
+                if (i < size() && !removed.contains(productIds[i])) {
+                    mergedCents[count] = cents[i];
+                    mergedPrices[count] = prices[i];
+                    mergedIds[count++] = productIds[i];
+                }
+            }
+            return new Segment(Arrays.copyOf(mergedCents, count), Arrays.copyOf(mergedPrices, count),
+                    Arrays.copyOf(mergedIds, count));
+        }
+
+        private int compare(Entry entry, int index) {
+            int byPrice = entry.price().compareTo(prices[index]);
+            return byPrice != 0 ? byPrice : entry.productId().compareTo(productIds[index]);
+        }
+    }
+
+    /**
+     * Position within one category's slice of a range, ordered by the product it points at
+     */
+    private static final class Cursor implements Comparable<Cursor> {
+
+        private final Segment segment;
+        private final int end;
+        private int position;
+
+        Cursor(Segment segment, int position, int end) {
+            this.segment = segment;
+            this.position = position;
+            this.end = end;
+        }
+
+        @Override
+        public int compareTo(Cursor other) {
+            int byPrice = segment.prices[position].compareTo(other.segment.prices[other.position]);
+            return byPrice != 0 ? byPrice
+                    : segment.productIds[position].compareTo(other.segment.productIds[other.position]);
+        }
+    }
+
+    private record Entry(String productId, String category, BigDecimal price, long cents) {
+
+        /**
+         * @return {@code null} for products that cannot be placed by price
+         */
+        static Entry of(Product product) {
+            if (product.getProductId() == null || product.getPrice() == null || product.getCategory() == null) {
+                return null;
+            }
+            return new Entry(product.getProductId(), product.getCategory(), product.getPrice(),
+                    toCents(product.getPrice()));
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.shopscale.product.search;
+
+import com.shopscale.product.domain.Product;
+import com.shopscale.product.dto.ProductSuggestion;
+import com.shopscale.product.event.ProductChangedEvent;
+import com.shopscale.product.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+/**
+ * In-process inverted index from name and category words to active products, used for
+ * type-ahead so that keystrokes never reach Mongo or create Redis keys.
+ *
+ * <p>Words are kept in a sorted map, so a prefix lookup is a range scan. The index is
+ * built from Mongo at startup and patched from {@link ProductChangedEvent}s, which the
+ * change stream also publishes for writes made by other instances; a scheduled rebuild
+ * is the safety net for changes missed while the stream was down. Memory is bounded by
+ * {@code product.suggest.max-entries} products and by truncating long words.
+ */
+@Component
+public class ProductSuggestIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSuggestIndex.class);
+
+    public static final int MAX_LIMIT = 20;
+
+    private static final int MAX_TOKEN_LENGTH = 32;
+
+    // Upper bound on postings inspected per lookup, which keeps very short prefixes fast
+    private static final int MAX_CANDIDATES = 2_000;
+
+    private final ProductRepository productRepository;
+    private final int maxEntries;
+
+    private final Object writeLock = new Object();
+    private volatile Snapshot snapshot = new Snapshot();
+    // Changes seen while a rebuild streams from Mongo, replayed onto the new snapshot
+    private List<Product> pendingChanges;
+
+    public ProductSuggestIndex(ProductRepository productRepository,
+                               @Value("${product.suggest.max-entries:500000}") int maxEntries) {
+        this.productRepository = productRepository;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Products whose name or category words start with every word of the text, best first
+     */
+    public List<ProductSuggestion> suggest(String text, int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        List<String> words = normalize(Product.tokenize(text));
+        if (words.isEmpty()) {
+            return List.of();
+        }
+
+        Snapshot current = snapshot;
+        // The longest word is usually the most selective one
+        String seed = words.stream().max(Comparator.comparingInt(String::length)).orElseThrow();
+        List<Scored> matches = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        int inspected = 0;
+        for (Set<String> productIds : prefixRange(current.postings, seed).values()) {
+            for (String productId : productIds) {
+                Entry entry = current.entries.get(productId);
+                if (entry != null && seen.add(productId)) {
+                    int score = entry.score(words);
+                    if (score > 0) {
+                        matches.add(new Scored(entry, score));
+                    }
+                }
+                if (++inspected >= MAX_CANDIDATES) {
+                    break;
+                }
+            }
+            if (inspected >= MAX_CANDIDATES) {
+                break;
+            }
+        }
+
+        return matches.stream()
+                .sorted(Comparator.comparingInt(Scored::score).reversed()
+                        .thenComparingInt(scored -> scored.entry().name().length())
+                        .thenComparing(scored -> scored.entry().name()))
+                .limit(limit)
+                .map(scored -> scored.entry().toSuggestion())
+                .toList();
+    }
+
+    /**
+     * Number of products currently indexed
+     */
+    public int size() {
+        return snapshot.entries.size();
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void onStartup() {
+        rebuild();
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        synchronized (writeLock) {
+            for (Product product : event.products()) {
+                if (!apply(snapshot, product)) {
+                    logger.warn("Suggest index is full ({} entries), not indexing product {}",
+                            maxEntries, product.getProductId());
+                }
+                if (pendingChanges != null) {
+                    pendingChanges.add(product);
+                }
+            }
+        }
+    }
+
+    /**
+     * Rebuild from Mongo without blocking lookups or writes
+     */
+    @Scheduled(initialDelayString = "${product.suggest.rebuild-interval:30m}",
+            fixedDelayString = "${product.suggest.rebuild-interval:30m}")
+    public void rebuild() {
+        synchronized (writeLock) {
+            pendingChanges = new ArrayList<>();
+        }
+        Snapshot rebuilt = new Snapshot();
+        long skipped;
+        try (Stream<Product> products = productRepository.streamByActiveTrue(Sort.unsorted())) {
+            skipped = products.filter(product -> !apply(rebuilt, product)).count();
+        } catch (RuntimeException e) {
+            synchronized (writeLock) {
+                pendingChanges = null;
+            }
+            logger.warn("Suggest index rebuild failed, keeping {} entries: {}", size(), e.getMessage());
+            return;
+        }
+
+        synchronized (writeLock) {
+            pendingChanges.forEach(product -> apply(rebuilt, product));
+            pendingChanges = null;
+            snapshot = rebuilt;
+        }
+        logger.info("Suggest index rebuilt with {} products and {} words",
+                rebuilt.entries.size(), rebuilt.postings.size());
+        if (skipped > 0) {
+            logger.warn("Suggest index is full ({} entries); {} products were not indexed", maxEntries, skipped);
+        }
+    }
+
+    /**
+     * Index the product's current state (or drop it if inactive)
+     *
+     * @return false if the index is full and the product was left out
+     */
+    private boolean apply(Snapshot target, Product product) {
+        Entry previous = target.entries.remove(product.getProductId());
+        if (previous != null) {
+            previous.words().forEach(word -> removePosting(target, word, previous.productId()));
+        }
+        if (!product.isActive()) {
+            return true;
+        }
+        if (target.entries.size() >= maxEntries) {
+            return false;
+        }
+
+        Entry entry = Entry.of(product);
+        target.entries.put(entry.productId(), entry);
+        entry.words().forEach(word ->
+                target.postings.computeIfAbsent(word, key -> ConcurrentHashMap.newKeySet()).add(entry.productId()));
+        return true;
+    }
+
+    // Only called under writeLock or on an unpublished snapshot, so there is a single writer
+    private static void removePosting(Snapshot target, String word, String productId) {
+        target.postings.computeIfPresent(word, (key, productIds) -> {
+            productIds.remove(productId);
+            return productIds.isEmpty() ? null : productIds;
+        });
+    }
+
+    private static NavigableMap<String, Set<String>> prefixRange(ConcurrentSkipListMap<String, Set<String>> postings,
+                                                                 String prefix) {
+        return postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    private static List<String> normalize(List<String> words) {
+        return words.stream()
+                .map(word -> word.length() > MAX_TOKEN_LENGTH ? word.substring(0, MAX_TOKEN_LENGTH) : word)
+                .distinct()
+                .toList();
+    }
+
+    private static final class Snapshot {
+        private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+        private final ConcurrentSkipListMap<String, Set<String>> postings = new ConcurrentSkipListMap<>();
+    }
+
+    private record Scored(Entry entry, int score) {
+    }
+
+    private record Entry(String productId, String name, String category,
+                         List<String> nameWords, List<String> categoryWords) {
+
+        static Entry of(Product product) {
+            return new Entry(product.getProductId(), product.getName(), product.getCategory(),
+                    normalize(Product.tokenize(product.getName())),
+                    normalize(Product.tokenize(product.getCategory())));
+        }
+
+        Set<String> words() {
+            Set<String> words = new LinkedHashSet<>(nameWords);
+            words.addAll(categoryWords);
+            return words;
+        }
+
+        /**
+         * 0 unless every query word prefixes some name or category word. Exact name words
+         * beat name prefixes, which beat category matches; a match on the first name word
+         * earns a bonus.
+         */
+        int score(List<String> queryWords) {
+            int total = 0;
+            for (String queryWord : queryWords) {
+                int best = 0;
+                for (int i = 0; i < nameWords.size(); i++) {
+                    String word = nameWords.get(i);
+                    if (word.startsWith(queryWord)) {
+                        int points = (word.equals(queryWord) ? 4 : 3) + (i == 0 ? 1 : 0);
+                        best = Math.max(best, points);
+                    }
+                }
+                if (best == 0 && categoryWords.stream().anyMatch(word -> word.startsWith(queryWord))) {
+                    best = 1;
+                }
+                if (best == 0) {
+                    return 0;
+                }
+                total += best;
+            }
+            return total;
+        }
+
+        ProductSuggestion toSuggestion() {
+            return new ProductSuggestion(productId, name, category);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.shopscale.product.service;
+
+import com.shopscale.product.cache.ProductCacheRefresher;
+import com.shopscale.product.domain.Product;
+import com.shopscale.product.domain.StockLevel;
+import com.shopscale.product.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Keeps product stock in line with the inventory service
+ */
+@Service
+public class InventorySyncService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventorySyncService.class);
+
+    private final ProductRepository productRepository;
+    private final ProductCacheRefresher cacheRefresher;
+
+    public InventorySyncService(ProductRepository productRepository, ProductCacheRefresher cacheRefresher) {
+        this.productRepository = productRepository;
+        this.cacheRefresher = cacheRefresher;
+    }
+
+    /**
+     * Apply the latest stock level of each product in one bulk write, then patch the caches
+     * of the products whose stock changed
+     *
+     * @param levels at most one level per product
+     * @return number of products changed; levels older than the stored one are ignored
+     */
+    public long applyStockLevels(Collection<StockLevel> levels) {
+        long changed = productRepository.applyStockLevels(levels);
+        logger.debug("Applied {} of {} stock levels", changed, levels.size());
+        if (changed > 0) {
+            List<String> productIds = levels.stream().map(StockLevel::productId).toList();
+            List<Product> products = productRepository.findByProductIdInAndActiveTrue(productIds);
+            cacheRefresher.refreshStock(products);
+        }
+        return changed;
+    }
+}
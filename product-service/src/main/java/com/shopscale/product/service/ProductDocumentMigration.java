@@ -0,0 +1,61 @@
+package com.shopscale.product.service;
+
+import com.shopscale.product.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Brings product documents written by older versions up to date at startup, before the
+ * in-process indexes are built from them:
+ * <ul>
+ *     <li>prices stored as strings, before the DECIMAL128 mapping, are converted to Decimal128;
+ *     string prices compare lexically and fall out of range queries and the price index</li>
+ *     <li>{@code nameTokens} is derived for products saved before it existed, without which
+ *     short searches miss them</li>
+ * </ul>
+ * Each step only matches documents it has not migrated yet, so once done it is a no-op.
+ */
+@Component
+public class ProductDocumentMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductDocumentMigration.class);
+
+    private final ProductRepository productRepository;
+    private final boolean enabled;
+
+    public ProductDocumentMigration(ProductRepository productRepository,
+                                    @Value("${product.migration.enabled:true}") boolean enabled) {
+        this.productRepository = productRepository;
+        this.enabled = enabled;
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationStartedEvent.class)
+    public void onStartup() {
+        if (!enabled) {
+            return;
+        }
+        migrate("string prices converted to Decimal128", productRepository::convertStringPrices);
+        migrate("products given name tokens", productRepository::backfillNameTokens);
+    }
+
+    private void migrate(String description, LongSupplier step) {
+        try {
+            long migrated = step.getAsLong();
+            if (migrated > 0) {
+                logger.info("Migration: {} {}", migrated, description);
+            }
+        } catch (RuntimeException e) {
+            // Another instance may finish the job; the next start retries it
+            logger.warn("Migration failed ({}): {}", description, e.getMessage());
+        }
+    }
+}
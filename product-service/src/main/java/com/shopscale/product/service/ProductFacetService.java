@@ -0,0 +1,101 @@
+package com.shopscale.product.service;
+
+import com.shopscale.product.dto.ProductFacets;
+import com.shopscale.product.repository.ProductRepository;
+import com.shopscale.product.search.ProductPriceIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Category and price facets of the active catalogue.
+ *
+ * <p>Counts are read from {@link ProductPriceIndex}, which product writes already keep
+ * current, so a facet request costs a few binary searches per category. Until the index
+ * is built they come from a Mongo aggregation, which also runs on a schedule to check the
+ * index and rebuild it if the two disagree.
+ */
+@Service
+public class ProductFacetService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductFacetService.class);
+
+    private final ProductRepository productRepository;
+    private final ProductPriceIndex priceIndex;
+    private final List<BigDecimal> priceBoundaries;
+
+    public ProductFacetService(ProductRepository productRepository, ProductPriceIndex priceIndex,
+                               @Value("${product.facets.price-boundaries:10,25,50,100,250,500,1000}")
+                               List<BigDecimal> priceBoundaries) {
+        for (int i = 1; i < priceBoundaries.size(); i++) {
+            if (priceBoundaries.get(i - 1).compareTo(priceBoundaries.get(i)) >= 0) {
+                throw new IllegalArgumentException("product.facets.price-boundaries must be ascending: "
+                        + priceBoundaries);
+            }
+        }
+        this.productRepository = productRepository;
+        this.priceIndex = priceIndex;
+        this.priceBoundaries = List.copyOf(priceBoundaries);
+    }
+
+    /**
+     * Product counts per category and price range
+     */
+    public ProductFacets getFacets() {
+        Optional<Map<String, long[]>> indexed = priceIndex.priceHistograms(priceBoundaries);
+        if (indexed.isPresent()) {
+            return ProductFacets.of(priceBoundaries, indexed.get());
+        }
+        logger.info("Price index not ready, aggregating facets in the database");
+        return ProductFacets.of(priceBoundaries, productRepository.aggregatePriceHistograms(priceBoundaries));
+    }
+
+    /**
+     * Recount in Mongo and rebuild the index if its counts have drifted
+     *
+     * @return whether the index agreed with the database (or could not be checked yet)
+     */
+    @Scheduled(initialDelayString = "${product.facets.check-interval:1h}",
+            fixedDelayString = "${product.facets.check-interval:1h}")
+    public boolean checkConsistency() {
+        Map<String, long[]> counted;
+        try {
+            counted = productRepository.aggregatePriceHistograms(priceBoundaries);
+        } catch (RuntimeException e) {
+            logger.warn("Facet consistency check failed: {}", e.getMessage());
+            return true;
+        }
+        Optional<Map<String, long[]>> indexed = priceIndex.priceHistograms(priceBoundaries);
+        if (indexed.isEmpty()) {
+            return true;
+        }
+
+        Set<String> drifted = new TreeSet<>();
+        Set<String> categories = new TreeSet<>(counted.keySet());
+        categories.addAll(indexed.get().keySet());
+        long[] empty = new long[priceBoundaries.size() + 1];
+        for (String category : categories) {
+            if (!Arrays.equals(counted.getOrDefault(category, empty), indexed.get().getOrDefault(category, empty))) {
+                drifted.add(category);
+            }
+        }
+        if (drifted.isEmpty()) {
+            logger.debug("Facet counts match the database for {} categories", categories.size());
+            return true;
+        }
+        // Writes landing between the two counts can also cause this; a rebuild is harmless either way
+        logger.warn("Facet counts differ from the database for categories {}, rebuilding the price index", drifted);
+        priceIndex.rebuild();
+        return false;
+    }
+}
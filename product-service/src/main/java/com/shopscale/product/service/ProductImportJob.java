@@ -0,0 +1,75 @@
+package com.shopscale.product.service;
+
+import com.shopscale.product.dto.ProductImportStatus;
+import com.shopscale.product.dto.ProductImportStatus.RowError;
+import com.shopscale.product.dto.ProductImportStatus.State;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mutable progress of one import, written by the import thread and read by status requests
+ */
+class ProductImportJob {
+
+    private final String importId;
+    private final int maxReportedErrors;
+
+    private State state = State.QUEUED;
+    private long rowsRead;
+    private long inserted;
+    private long failed;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String message;
+    private final List<RowError> errors = new ArrayList<>();
+
+    ProductImportJob(String importId, int maxReportedErrors) {
+        this.importId = importId;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    String importId() {
+        return importId;
+    }
+
+    synchronized void started() {
+        state = State.RUNNING;
+        startedAt = LocalDateTime.now();
+    }
+
+    synchronized void rowRead() {
+        rowsRead++;
+    }
+
+    synchronized void rowFailed(long line, String error) {
+        failed++;
+        if (errors.size() < maxReportedErrors) {
+            errors.add(new RowError(line, error));
+        }
+    }
+
+    synchronized void inserted(long count) {
+        inserted += count;
+    }
+
+    synchronized void completed() {
+        state = State.COMPLETED;
+        finishedAt = LocalDateTime.now();
+        if (failed > errors.size()) {
+            message = "Only the first " + errors.size() + " of " + failed + " row errors are listed";
+        }
+    }
+
+    synchronized void failed(String reason) {
+        state = State.FAILED;
+        finishedAt = LocalDateTime.now();
+        message = reason;
+    }
+
+    synchronized ProductImportStatus status() {
+        return new ProductImportStatus(importId, state, rowsRead, inserted, failed, startedAt, finishedAt,
+                message, List.copyOf(errors));
+    }
+}
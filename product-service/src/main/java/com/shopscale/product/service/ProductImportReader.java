@@ -0,0 +1,173 @@
+package com.shopscale.product.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopscale.product.dto.CreateProductRequest;
+import org.springframework.http.MediaType;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads import rows one line at a time from NDJSON or CSV, so uploads of any size are
+ * parsed in constant memory.
+ *
+ * <p>CSV needs a header row naming the {@link CreateProductRequest} fields it provides
+ * ({@code name, description, price, category, stockQuantity}); other columns are ignored.
+ * Quoted fields may contain commas and {@code ""} escapes but not line breaks.
+ */
+class ProductImportReader implements Closeable {
+
+    enum Format {
+        NDJSON, CSV;
+
+        static Format of(MediaType contentType) {
+            if (contentType != null && contentType.isCompatibleWith(MediaType.parseMediaType("application/x-ndjson"))) {
+                return NDJSON;
+            }
+            if (contentType != null && contentType.isCompatibleWith(MediaType.parseMediaType("text/csv"))) {
+                return CSV;
+            }
+            throw new IllegalArgumentException("Unsupported import format: " + contentType);
+        }
+    }
+
+    /**
+     * A parsed row, or the reason it could not be parsed
+     */
+    record Row(long line, CreateProductRequest request, String error) {
+    }
+
+    private static final List<String> CSV_FIELDS = List.of("name", "description", "price", "category", "stockquantity");
+
+    private final BufferedReader reader;
+    private final Format format;
+    private final ObjectMapper objectMapper;
+
+    private long line;
+    // Position of each known field in a CSV row, -1 when absent
+    private int[] csvColumns;
+
+    ProductImportReader(Reader reader, Format format, ObjectMapper objectMapper) {
+        this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        this.format = format;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @return the next non-blank row, or {@code null} at the end of the input
+     */
+    Row next() throws IOException {
+        String text;
+        do {
+            text = reader.readLine();
+            if (text == null) {
+                return null;
+            }
+            line++;
+        } while (text.isBlank());
+
+        if (format == Format.NDJSON) {
+            return parseJson(text);
+        }
+        if (csvColumns == null) {
+            readHeader(text);
+            return next();
+        }
+        return parseCsv(text);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private Row parseJson(String text) {
+        try {
+            return new Row(line, objectMapper.readValue(text, CreateProductRequest.class), null);
+        } catch (JsonProcessingException e) {
+            return new Row(line, null, "Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private void readHeader(String text) {
+        List<String> header = splitCsv(text);
+        csvColumns = new int[CSV_FIELDS.size()];
+        for (int field = 0; field < CSV_FIELDS.size(); field++) {
+            csvColumns[field] = -1;
+            for (int column = 0; column < header.size(); column++) {
+                if (header.get(column).strip().toLowerCase(Locale.ROOT).equals(CSV_FIELDS.get(field))) {
+                    csvColumns[field] = column;
+                }
+            }
+        }
+        if (csvColumns[CSV_FIELDS.indexOf("name")] < 0) {
+            throw new IllegalArgumentException("CSV header must include a name column, got: " + text);
+        }
+    }
+
+    private Row parseCsv(String text) {
+        List<String> values = splitCsv(text);
+        CreateProductRequest request = new CreateProductRequest();
+        request.setName(csvValue(values, 0));
+        request.setDescription(csvValue(values, 1));
+        request.setCategory(csvValue(values, 3));
+
+        String price = csvValue(values, 2);
+        String stockQuantity = csvValue(values, 4);
+        try {
+            request.setPrice(price != null ? new BigDecimal(price) : null);
+        } catch (NumberFormatException e) {
+            return new Row(line, null, "price: not a number: " + price);
+        }
+        try {
+            request.setStockQuantity(stockQuantity != null ? Integer.valueOf(stockQuantity) : null);
+        } catch (NumberFormatException e) {
+            return new Row(line, null, "stockQuantity: not a whole number: " + stockQuantity);
+        }
+        return new Row(line, request, null);
+    }
+
+    private String csvValue(List<String> values, int field) {
+        int column = csvColumns[field];
+        if (column < 0 || column >= values.size()) {
+            return null;
+        }
+        String value = values.get(column).strip();
+        return value.isEmpty() ? null : value;
+    }
+
+    static List<String> splitCsv(String text) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+}
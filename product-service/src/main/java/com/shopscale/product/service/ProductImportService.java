@@ -0,0 +1,305 @@
+package com.shopscale.product.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopscale.product.cache.ProductCacheEvictor;
+import com.shopscale.product.cache.ProductCacheEvictor.InsertionTracker;
+import com.shopscale.product.domain.Product;
+import com.shopscale.product.dto.CreateProductRequest;
+import com.shopscale.product.dto.ProductImportStatus;
+import com.shopscale.product.event.ProductChangedEvent;
+import com.shopscale.product.exception.ImportQueueFullException;
+import com.shopscale.product.mapper.ProductMapper;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk product import from NDJSON or CSV.
+ *
+ * <p>The upload is spooled to a temporary file and imported in the background. Each row is
+ * validated against the {@link CreateProductRequest} constraints and valid rows are written
+ * in unordered Mongo bulk inserts, so one bad row never fails its batch. Affected cache
+ * entries are evicted once, when the import ends. Progress and per-row errors are
+ * available from {@link #getStatus(String)} while the import runs.
+ *
+ * <p>Imports run on the instance that received the upload, at most {@code max-concurrent}
+ * at a time with up to {@code max-queued} waiting; further uploads are rejected. The status
+ * is kept in Redis after every batch, so any instance can answer a poll.
+ */
+@Service
+public class ProductImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductImportService.class);
+
+    // Log progress every this many batches
+    private static final int PROGRESS_LOG_INTERVAL = 10;
+
+    static final String STATUS_KEY_PREFIX = "product-import:status:";
+
+    private final MongoTemplate mongoTemplate;
+    private final ProductMapper productMapper;
+    private final Validator validator;
+    private final ProductCacheEvictor cacheEvictor;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final StringRedisTemplate redisTemplate;
+    private final int batchSize;
+    private final int maxReportedErrors;
+    private final Duration statusRetention;
+
+    private final ThreadPoolExecutor executor;
+
+    public ProductImportService(MongoTemplate mongoTemplate, ProductMapper productMapper, Validator validator,
+                                ProductCacheEvictor cacheEvictor, ApplicationEventPublisher eventPublisher,
+                                ObjectMapper objectMapper, StringRedisTemplate redisTemplate,
+                                @Value("${product.import.batch-size:1000}") int batchSize,
+                                @Value("${product.import.max-concurrent:2}") int maxConcurrent,
+                                @Value("${product.import.max-queued:10}") int maxQueued,
+                                @Value("${product.import.max-reported-errors:1000}") int maxReportedErrors,
+                                @Value("${product.import.status-retention:24h}") Duration statusRetention) {
+        this.mongoTemplate = mongoTemplate;
+        this.productMapper = productMapper;
+        this.validator = validator;
+        this.cacheEvictor = cacheEvictor;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.redisTemplate = redisTemplate;
+        this.batchSize = batchSize;
+        this.maxReportedErrors = maxReportedErrors;
+        this.statusRetention = statusRetention;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxQueued), runnable -> {
+                    Thread thread = new Thread(runnable, "product-import-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Spool the upload and queue it for import
+     *
+     * @return the initial status, whose {@code importId} can be polled
+     * @throws ImportQueueFullException if {@code max-queued} imports are already waiting
+     */
+    public ProductImportStatus startImport(MediaType contentType, InputStream body) throws IOException {
+        ProductImportReader.Format format = ProductImportReader.Format.of(contentType);
+        Charset charset = contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+        // Checked again on submit; this only saves spooling an upload that would be turned away
+        if (executor.getQueue().remainingCapacity() == 0) {
+            throw new ImportQueueFullException("Too many imports queued, try again later");
+        }
+
+        Path spool = Files.createTempFile("product-import-", "." + format.name().toLowerCase());
+        try {
+            Files.copy(body, spool, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(spool);
+            throw e;
+        }
+
+        ProductImportJob job = new ProductImportJob(UUID.randomUUID().toString(), maxReportedErrors);
+        long size = Files.size(spool);
+        try {
+            executor.execute(() -> {
+                try (Reader reader = Files.newBufferedReader(spool, charset)) {
+                    runImport(job, reader, format);
+                } catch (IOException e) {
+                    job.failed("Could not read upload: " + e.getMessage());
+                    saveStatus(job);
+                } finally {
+                    deleteSpool(spool);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            deleteSpool(spool);
+            throw new ImportQueueFullException("Too many imports queued, try again later");
+        }
+        // The import may already have started and saved a newer status
+        saveStatus(job, true);
+        logger.info("Queued product import {} ({}, {} bytes)", job.importId(), format, size);
+        return job.status();
+    }
+
+    /**
+     * Status of a running or recently finished import, whichever instance runs it
+     */
+    public Optional<ProductImportStatus> getStatus(String importId) {
+        String json = redisTemplate.opsForValue().get(STATUS_KEY_PREFIX + importId);
+        if (json == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(objectMapper.readValue(json, ProductImportStatus.class));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable status of import " + importId, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Import every row of the reader, then evict affected cache entries once
+     */
+    void runImport(ProductImportJob job, Reader input, ProductImportReader.Format format) {
+        job.started();
+        saveStatus(job);
+        logger.info("Starting product import {}", job.importId());
+
+        InsertionTracker insertions = cacheEvictor.trackInsertions();
+        List<PendingRow> batch = new ArrayList<>(batchSize);
+        int batches = 0;
+        try (ProductImportReader reader = new ProductImportReader(input, format, objectMapper)) {
+            ProductImportReader.Row row;
+            while ((row = reader.next()) != null) {
+                job.rowRead();
+                String error = row.error() != null ? row.error() : validate(row.request());
+                if (error != null) {
+                    job.rowFailed(row.line(), error);
+                    continue;
+                }
+
+                Product product = productMapper.toEntity(row.request());
+                product.setProductId(UUID.randomUUID().toString());
+                // Bulk inserts skip the version initialization that save() performs
+                product.setVersion(0L);
+                batch.add(new PendingRow(row.line(), product));
+                if (batch.size() >= batchSize) {
+                    writeBatch(job, batch, insertions);
+                    batch.clear();
+                    saveStatus(job);
+                    if (++batches % PROGRESS_LOG_INTERVAL == 0) {
+                        logProgress(job);
+                    }
+                }
+            }
+            writeBatch(job, batch, insertions);
+            job.completed();
+        } catch (Exception e) {
+            logger.error("Product import {} failed", job.importId(), e);
+            job.failed(e.getMessage());
+        } finally {
+            // Rows written before a failure are visible too, so always evict
+            cacheEvictor.evict(insertions);
+        }
+        saveStatus(job);
+        logProgress(job);
+    }
+
+    private void saveStatus(ProductImportJob job) {
+        saveStatus(job, false);
+    }
+
+    /**
+     * Publish the job's progress for status polls; a failed write only delays what they see
+     */
+    private void saveStatus(ProductImportJob job, boolean ifAbsent) {
+        String key = STATUS_KEY_PREFIX + job.importId();
+        try {
+            String json = objectMapper.writeValueAsString(job.status());
+            if (ifAbsent) {
+                redisTemplate.opsForValue().setIfAbsent(key, json, statusRetention);
+            } else {
+                redisTemplate.opsForValue().set(key, json, statusRetention);
+            }
+        } catch (JsonProcessingException | RuntimeException e) {
+            logger.warn("Could not save status of product import {}: {}", job.importId(), e.getMessage());
+        }
+    }
+
+    private void deleteSpool(Path spool) {
+        try {
+            Files.deleteIfExists(spool);
+        } catch (IOException e) {
+            logger.warn("Could not delete import spool file {}: {}", spool, e.getMessage());
+        }
+    }
+
+    private String validate(CreateProductRequest request) {
+        Set<ConstraintViolation<CreateProductRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private void writeBatch(ProductImportJob job, List<PendingRow> batch, InsertionTracker insertions) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        operations.insert(batch.stream().map(PendingRow::product).toList());
+
+        Set<Integer> failedIndexes = new HashSet<>();
+        try {
+            operations.execute();
+        } catch (BulkOperationException e) {
+            // Unordered: every other document of the batch was still written
+            e.getErrors().forEach(error -> {
+                failedIndexes.add(error.getIndex());
+                job.rowFailed(batch.get(error.getIndex()).line(), error.getMessage());
+            });
+        }
+
+        List<Product> inserted = new ArrayList<>(batch.size() - failedIndexes.size());
+        for (int i = 0; i < batch.size(); i++) {
+            if (!failedIndexes.contains(i)) {
+                inserted.add(batch.get(i).product());
+            }
+        }
+        job.inserted(inserted.size());
+        inserted.forEach(insertions::add);
+        if (!inserted.isEmpty()) {
+            eventPublisher.publishEvent(new ProductChangedEvent(inserted));
+        }
+    }
+
+    private void logProgress(ProductImportJob job) {
+        ProductImportStatus status = job.status();
+        logger.info("Product import {} {}: {} rows read, {} inserted, {} failed", status.importId(),
+                status.state(), status.rowsRead(), status.inserted(), status.failed());
+    }
+
+    private record PendingRow(long line, Product product) {
+    }
+}
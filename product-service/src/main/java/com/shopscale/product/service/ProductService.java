@@ -1,41 +1,87 @@
 package com.shopscale.product.service;
 
+import com.shopscale.product.cache.ProductCacheEvictor;
+import com.shopscale.product.cache.TwoTierCache;
 import com.shopscale.product.domain.Product;
+import com.shopscale.product.domain.ProductCursor;
+import com.shopscale.product.domain.ProductList;
+import com.shopscale.product.domain.ProductPage;
+import com.shopscale.product.domain.ProductQuery;
+import com.shopscale.product.domain.ProductSummary;
 import com.shopscale.product.dto.CreateProductRequest;
+import com.shopscale.product.event.ProductChangedEvent;
+import com.shopscale.product.exception.InsufficientStockException;
 import com.shopscale.product.exception.ProductNotFoundException;
 import com.shopscale.product.mapper.ProductMapper;
 import com.shopscale.product.repository.ProductRepository;
+import com.shopscale.product.search.ProductPriceIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
- * Service for managing products with Redis caching
+ * Service for managing products with Redis caching.
+ *
+ * <p>Single products are cached whole in {@code products}; lists and pages hold
+ * {@link ProductSummary} projections and are cached in {@code product-summaries}.
  */
 @Service
 public class ProductService {
 
     private static final Logger logger = LoggerFactory.getLogger(ProductService.class);
     private static final String PRODUCT_CACHE = "products";
+    private static final String SUMMARY_CACHE = "product-summaries";
+
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 500;
+    public static final int MAX_BATCH_SIZE = 100;
+
+    // Keyset order for paging and streaming; backed by the active_createdAt_id index
+    private static final Sort KEYSET_SORT = Sort.by("createdAt", "productId");
+
+    // Order of the price index; backed by the active_price and category_active_price indexes
+    private static final Sort PRICE_SORT = Sort.by("price", "productId");
 
     private final ProductRepository productRepository;
     private final ProductMapper productMapper;
+    private final ProductCacheEvictor cacheEvictor;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheManager cacheManager;
+    private final ProductPriceIndex priceIndex;
 
-    public ProductService(ProductRepository productRepository, ProductMapper productMapper) {
+    public ProductService(ProductRepository productRepository, ProductMapper productMapper,
+                          ProductCacheEvictor cacheEvictor, ApplicationEventPublisher eventPublisher,
+                          CacheManager cacheManager, ProductPriceIndex priceIndex) {
         this.productRepository = productRepository;
         this.productMapper = productMapper;
+        this.cacheEvictor = cacheEvictor;
+        this.eventPublisher = eventPublisher;
+        this.cacheManager = cacheManager;
+        this.priceIndex = priceIndex;
     }
 
     /**
-     * Create a new product
+     * Create a new product and evict the cached lists it now belongs to
      */
-    @CacheEvict(value = PRODUCT_CACHE, allEntries = true)
     public Product createProduct(CreateProductRequest request) {
         logger.info("Creating new product: {}", request.getName());
 
@@ -43,6 +89,7 @@ public class ProductService {
         product.setProductId(UUID.randomUUID().toString());
 
         Product savedProduct = productRepository.save(product);
+        afterWrite(savedProduct);
         logger.info("Product created successfully: {}", savedProduct.getProductId());
 
         return savedProduct;
@@ -51,7 +98,7 @@ public class ProductService {
     /**
      * Get product by ID with caching
      */
-    @Cacheable(value = PRODUCT_CACHE, key = "#productId", unless = "#result == null")
+    @Cacheable(value = PRODUCT_CACHE, key = "#productId", sync = true)
     public Product getProduct(String productId) {
         logger.info("Fetching product: {}", productId);
 
@@ -60,95 +107,255 @@ public class ProductService {
     }
 
     /**
-     * Get all active products with caching
+     * Get several active products at once, sharing cache entries with {@link #getProduct(String)}.
+     * Cache misses are read from Redis in one round trip, the rest from Mongo in one query, and
+     * those are written back together. Unknown and inactive IDs are left out; the result
+     * follows the order of the requested IDs.
      */
-    @Cacheable(value = PRODUCT_CACHE, key = "'all'")
-    public List<Product> getAllProducts() {
-        logger.info("Fetching all active products");
-        return productRepository.findByActiveTrue();
+    public List<Product> getProducts(Collection<String> productIds) {
+        List<String> ids = productIds.stream().filter(Objects::nonNull).distinct().toList();
+        if (ids.isEmpty() || ids.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("between 1 and " + MAX_BATCH_SIZE + " product IDs are required");
+        }
+        logger.info("Fetching {} products", ids.size());
+        return loadProducts(ids);
     }
 
     /**
-     * Get products by category with caching
+     * Get one keyset page of active product summaries with caching
+     *
+     * @param after cursor returned with the previous page, or {@code null} for the first page
      */
-    @Cacheable(value = PRODUCT_CACHE, key = "'category:' + #category")
-    public List<Product> getProductsByCategory(String category) {
-        logger.info("Fetching products for category: {}", category);
-        return productRepository.findByCategoryAndActiveTrue(category);
+    @Cacheable(value = SUMMARY_CACHE, key = "'page:' + #limit + ':' + (#after ?: '')", sync = true)
+    public ProductPage getProductPage(String after, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        logger.info("Fetching product page after: {}, limit: {}", after, limit);
+
+        // Fetch one extra row to learn whether another page follows
+        ProductCursor cursor = after != null ? ProductCursor.decode(after) : null;
+        return ProductPage.of(productRepository.findSummaryPage(ProductQuery.ALL, cursor, limit + 1), limit);
     }
 
     /**
-     * Search products by name with caching
+     * Hand every active product to the consumer in keyset order, reading from a Mongo
+     * cursor so memory stays constant regardless of catalogue size
      */
-    @Cacheable(value = PRODUCT_CACHE, key = "'search:' + #name")
-    public List<Product> searchProducts(String name) {
-        logger.info("Searching products with name: {}", name);
-        return productRepository.findByNameContainingIgnoreCaseAndActiveTrue(name);
+    public void streamActiveProducts(Consumer<Product> consumer) {
+        logger.info("Streaming all active products");
+        try (Stream<Product> products = productRepository.streamByActiveTrue(KEYSET_SORT)) {
+            products.forEach(consumer);
+        }
     }
 
     /**
-     * Get products by price range with caching
+     * Find summaries of active products matching the filters, one keyset page at a time with
+     * caching. Searches and plain price ranges have their own ordering; see
+     * {@link #searchProducts} and {@link #getProductsByPriceRange}.
+     *
+     * @param after cursor returned with the previous page, or {@code null} for the first page
      */
-    @Cacheable(value = PRODUCT_CACHE, key = "'price:' + #minPrice + '-' + #maxPrice")
-    public List<Product> getProductsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
-        logger.info("Fetching products in price range: {} - {}", minPrice, maxPrice);
-        return productRepository.findByPriceBetweenAndActiveTrue(minPrice, maxPrice);
+    @Cacheable(value = SUMMARY_CACHE, key = "#query.pageCacheKey(#after, #limit)", sync = true)
+    public ProductPage findProducts(ProductQuery query, String after, int limit) {
+        if (query.search() != null || query.isPriceRange()) {
+            throw new IllegalArgumentException("searches and price ranges are paged by page number");
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        logger.info("Fetching products for query: {}, after: {}, limit: {}", query, after, limit);
+
+        ProductCursor cursor = after != null ? ProductCursor.decode(after) : null;
+        return ProductPage.of(productRepository.findSummaryPage(query, cursor, limit + 1), limit);
     }
 
     /**
-     * Get in-stock products with caching
+     * Search active products, ranked by relevance, one page at a time with caching.
+     * Other filters set on the query are applied as well.
      */
-    @Cacheable(value = PRODUCT_CACHE, key = "'instock'")
-    public List<Product> getInStockProducts() {
-        logger.info("Fetching in-stock products");
-        return productRepository.findInStockProducts();
+    @Cacheable(value = SUMMARY_CACHE, key = "#query.cacheKey() + '&page=' + #page + '&size=' + #size", sync = true)
+    public ProductList searchProducts(ProductQuery query, int page, int size) {
+        if (query.search() == null) {
+            throw new IllegalArgumentException("search must not be empty");
+        }
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("page must be >= 0 and size between 1 and " + MAX_PAGE_SIZE);
+        }
+        logger.info("Searching products for query: {}, page: {}, size: {}", query, page, size);
+        return ProductList.of(productRepository.findSummariesByQuery(query, PageRequest.of(page, size)));
     }
 
     /**
-     * Update product stock and evict cache
+     * Get one page of summaries of products in a price range, cheapest first. Ranges are
+     * answered from the in-memory price index and the products from their per-product cache
+     * entries, so no range needs its own cache entry; until the index is built they are
+     * read from Mongo. Products the index has not caught up with are left out of the page.
+     *
+     * @param query price bounds and optionally a category; other filters are not supported
+     */
+    public List<ProductSummary> getProductsByPriceRange(ProductQuery query, int page, int size) {
+        if (!query.isPriceRange()) {
+            throw new IllegalArgumentException("a price range without search or stock filters is required");
+        }
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("page must be >= 0 and size between 1 and " + MAX_PAGE_SIZE);
+        }
+        logger.info("Fetching products for price range query: {}, page: {}, size: {}", query, page, size);
+
+        // As a long: page * size overflows int for large pages
+        Optional<List<String>> ids = priceIndex.findIds(query.category(), query.minPrice(), query.maxPrice(),
+                (long) page * size, size);
+        if (ids.isEmpty()) {
+            return productRepository.findSummariesByQuery(query, PageRequest.of(page, size, PRICE_SORT));
+        }
+        if (ids.get().isEmpty()) {
+            return List.of();
+        }
+        return loadProducts(ids.get()).stream()
+                .filter(query::matches)
+                .map(ProductSummary::of)
+                .toList();
+    }
+
+    /**
+     * Set product stock in place and evict affected cache entries
      */
-    @CacheEvict(value = PRODUCT_CACHE, allEntries = true)
     public Product updateStock(String productId, Integer quantity) {
-        logger.info("Updating stock for product: {} to quantity: {}", productId, quantity);
+        return updateStock(productId, quantity, null);
+    }
 
-        Product product = getProduct(productId);
-        product.updateStock(quantity);
+    /**
+     * Set product stock in place, optionally only if the product is still at the expected
+     * version, and evict affected cache entries
+     */
+    public Product updateStock(String productId, Integer quantity, Long expectedVersion) {
+        if (quantity == null || quantity < 0) {
+            throw new IllegalArgumentException("quantity must be zero or positive");
+        }
+        logger.info("Updating stock for product: {} to quantity: {}", productId, quantity);
 
-        Product updatedProduct = productRepository.save(product);
+        Product updatedProduct = productRepository.updateStock(productId, quantity, expectedVersion)
+                .orElseThrow(() -> updateFailed(productId, expectedVersion));
+        afterWrite(updatedProduct);
         logger.info("Stock updated successfully for product: {}", productId);
 
         return updatedProduct;
     }
 
     /**
-     * Update product price and evict cache
+     * Add a (possibly negative) delta to product stock atomically and evict affected cache
+     * entries. Concurrent adjustments all apply; a decrement never takes stock below zero.
+     */
+    public Product adjustStock(String productId, int delta) {
+        logger.info("Adjusting stock for product: {} by: {}", productId, delta);
+
+        Product updatedProduct = productRepository.adjustStock(productId, delta)
+                .orElseThrow(() -> {
+                    if (productRepository.findByProductIdAndActiveTrue(productId).isPresent()) {
+                        return new InsufficientStockException("Insufficient stock for product: " + productId);
+                    }
+                    return new ProductNotFoundException("Product not found: " + productId);
+                });
+        afterWrite(updatedProduct);
+        logger.info("Stock adjusted successfully for product: {} to: {}", productId, updatedProduct.getStockQuantity());
+
+        return updatedProduct;
+    }
+
+    /**
+     * Set product price in place and evict affected cache entries
      */
-    @CacheEvict(value = PRODUCT_CACHE, allEntries = true)
     public Product updatePrice(String productId, BigDecimal newPrice) {
-        logger.info("Updating price for product: {} to: {}", productId, newPrice);
+        return updatePrice(productId, newPrice, null);
+    }
 
-        Product product = getProduct(productId);
-        product.updatePrice(newPrice);
+    /**
+     * Set product price in place, optionally only if the product is still at the expected
+     * version, and evict affected cache entries
+     */
+    public Product updatePrice(String productId, BigDecimal newPrice, Long expectedVersion) {
+        if (newPrice == null || newPrice.signum() <= 0) {
+            throw new IllegalArgumentException("price must be positive");
+        }
+        logger.info("Updating price for product: {} to: {}", productId, newPrice);
 
-        Product updatedProduct = productRepository.save(product);
+        Product updatedProduct = productRepository.updatePrice(productId, newPrice, expectedVersion)
+                .orElseThrow(() -> updateFailed(productId, expectedVersion));
+        afterWrite(updatedProduct);
         logger.info("Price updated successfully for product: {}", productId);
 
         return updatedProduct;
     }
 
     /**
-     * Deactivate product and evict cache
+     * Deactivate product and evict affected cache entries
      */
-    @CacheEvict(value = PRODUCT_CACHE, allEntries = true)
     public void deactivateProduct(String productId) {
         logger.info("Deactivating product: {}", productId);
 
-        Product product = productRepository.findById(productId)
+        Product product = productRepository.deactivate(productId)
                 .orElseThrow(() -> new ProductNotFoundException("Product not found: " + productId));
-
-        product.deactivate();
-        productRepository.save(product);
+        afterWrite(product);
 
         logger.info("Product deactivated successfully: {}", productId);
     }
+
+    /**
+     * Active products by ID, sharing cache entries with {@link #getProduct(String)}. Cache
+     * misses are read from Redis in one round trip, the rest from Mongo in one query, and
+     * those are written back together. The result follows the order of the IDs.
+     */
+    private List<Product> loadProducts(List<String> ids) {
+        Cache cache = cacheManager.getCache(PRODUCT_CACHE);
+        TwoTierCache productCache = cache instanceof TwoTierCache twoTierCache ? twoTierCache : null;
+
+        Map<String, Product> found = new LinkedHashMap<>();
+        if (productCache != null) {
+            productCache.getAll(ids).forEach((key, value) -> {
+                if (value instanceof Product product) {
+                    found.put((String) key, product);
+                }
+            });
+        }
+
+        List<String> misses = new ArrayList<>();
+        for (String id : ids) {
+            if (!found.containsKey(id)) {
+                misses.add(id);
+            }
+        }
+        if (!misses.isEmpty()) {
+            long start = System.nanoTime();
+            Map<String, Product> loaded = new LinkedHashMap<>();
+            productRepository.findByProductIdInAndActiveTrue(misses)
+                    .forEach(product -> loaded.put(product.getProductId(), product));
+            found.putAll(loaded);
+            if (productCache != null) {
+                productCache.putAll(loaded, Math.max(1, (System.nanoTime() - start) / 1_000_000));
+            }
+            logger.debug("Loaded {} of {} cache misses from the database", loaded.size(), misses.size());
+        }
+
+        return ids.stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private void afterWrite(Product product) {
+        cacheEvictor.evict(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(product));
+    }
+
+    /**
+     * Tell a version conflict apart from a missing product after a conditional update matched nothing
+     */
+    private RuntimeException updateFailed(String productId, Long expectedVersion) {
+        if (expectedVersion != null && productRepository.findByProductIdAndActiveTrue(productId).isPresent()) {
+            return new OptimisticLockingFailureException(
+                    "Product " + productId + " was modified concurrently (expected version " + expectedVersion + ")");
+        }
+        return new ProductNotFoundException("Product not found: " + productId);
+    }
 }
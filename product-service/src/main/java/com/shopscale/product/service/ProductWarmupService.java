@@ -0,0 +1,240 @@
+package com.shopscale.product.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shopscale.product.cache.HotProductTracker;
+import com.shopscale.product.domain.Product;
+import com.shopscale.product.mapper.ProductMapper;
+import com.shopscale.product.repository.ProductRepository;
+import com.shopscale.product.search.ProductPriceIndex;
+import com.shopscale.product.search.ProductSuggestIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.shopscale.product.cache.ProductCacheEvictor.PRODUCT_CACHE;
+
+/**
+ * Warms a starting instance before it reports healthy, so the first requests after a deploy
+ * neither miss the cache nor run interpreted code.
+ *
+ * <p>The in-process indexes are already built when this runs. Warm-up then loads the
+ * hottest products tracked by {@link HotProductTracker} into the cache and calls the main
+ * read paths a few times. Until it ends, or its timeout passes, the health indicator reports
+ * {@code OUT_OF_SERVICE}, which keeps the instance out of Eureka. Optionally the hottest
+ * products are written to a local snapshot at shutdown; on the next start the entries whose
+ * version still matches Mongo are restored without reading the full documents.
+ */
+@Service
+public class ProductWarmupService implements ApplicationRunner, HealthIndicator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductWarmupService.class);
+
+    private final ProductService productService;
+    private final ProductRepository productRepository;
+    private final ProductSuggestIndex suggestIndex;
+    private final ProductPriceIndex priceIndex;
+    private final ProductMapper productMapper;
+    private final HotProductTracker hotProductTracker;
+    private final CacheManager cacheManager;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int hotProducts;
+    private final int jitIterations;
+    private final Duration timeout;
+    private final Path snapshotFile;
+    private final Duration snapshotMaxAge;
+
+    private volatile boolean warm;
+
+    public ProductWarmupService(ProductService productService, ProductRepository productRepository,
+                                ProductSuggestIndex suggestIndex, ProductPriceIndex priceIndex,
+                                ProductMapper productMapper, HotProductTracker hotProductTracker,
+                                CacheManager cacheManager, ObjectMapper objectMapper,
+                                @Value("${product.warmup.enabled:true}") boolean enabled,
+                                @Value("${product.warmup.hot-products:1000}") int hotProducts,
+                                @Value("${product.warmup.jit-iterations:200}") int jitIterations,
+                                @Value("${product.warmup.timeout:60s}") Duration timeout,
+                                @Value("${product.warmup.snapshot.file:}") String snapshotFile,
+                                @Value("${product.warmup.snapshot.max-age:1h}") Duration snapshotMaxAge) {
+        this.productService = productService;
+        this.productRepository = productRepository;
+        this.suggestIndex = suggestIndex;
+        this.priceIndex = priceIndex;
+        this.productMapper = productMapper;
+        this.hotProductTracker = hotProductTracker;
+        this.cacheManager = cacheManager;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.hotProducts = hotProducts;
+        this.jitIterations = jitIterations;
+        this.timeout = timeout;
+        this.snapshotFile = snapshotFile.isBlank() ? null : Path.of(snapshotFile);
+        this.snapshotMaxAge = snapshotMaxAge;
+        this.warm = !enabled;
+    }
+
+    @Override
+    public Health health() {
+        return warm ? Health.up().build() : Health.outOfService().withDetail("warmup", "in progress").build();
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (enabled) {
+            warmUp();
+        }
+    }
+
+    /**
+     * Fill the cache with the hottest products and exercise the read paths, within the timeout.
+     * Failures are logged and never keep the instance out of service.
+     */
+    void warmUp() {
+        long startedAt = System.nanoTime();
+        long deadline = startedAt + timeout.toNanos();
+        try {
+            List<Product> products = loadHotProducts(deadline);
+            exerciseReadPaths(products, deadline);
+            logger.info("Warm-up finished in {} ms with {} products cached",
+                    Duration.ofNanos(System.nanoTime() - startedAt).toMillis(), products.size());
+        } catch (RuntimeException e) {
+            logger.warn("Warm-up stopped early: {}", e.getMessage());
+        } finally {
+            warm = true;
+        }
+    }
+
+    /**
+     * Write the hottest cached products to the snapshot file, if one is configured
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void onShutdown() {
+        if (snapshotFile == null) {
+            return;
+        }
+        try {
+            Cache cache = cacheManager.getCache(PRODUCT_CACHE);
+            List<Product> products = new ArrayList<>();
+            for (String productId : hotProductTracker.topIds(hotProducts)) {
+                Product product = cache != null ? cache.get(productId, Product.class) : null;
+                if (product != null) {
+                    products.add(product);
+                }
+            }
+            // Write to a sibling file first so a crash never leaves a truncated snapshot
+            Path temp = Files.createTempFile(snapshotFile.toAbsolutePath().getParent(), "product-snapshot-", ".tmp");
+            objectMapper.writeValue(temp.toFile(), new Snapshot(Instant.now(), products));
+            Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Wrote {} products to warm-up snapshot {}", products.size(), snapshotFile);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not write warm-up snapshot {}: {}", snapshotFile, e.getMessage());
+        }
+    }
+
+    private List<Product> loadHotProducts(long deadline) {
+        List<Product> products = new ArrayList<>(restoreSnapshot());
+        Set<String> pending = new LinkedHashSet<>();
+        try {
+            pending.addAll(hotProductTracker.topIds(hotProducts));
+        } catch (RuntimeException e) {
+            logger.warn("Could not read hot product ranking: {}", e.getMessage());
+        }
+        products.forEach(product -> pending.remove(product.getProductId()));
+
+        List<String> ids = List.copyOf(pending);
+        for (int from = 0; from < ids.size() && System.nanoTime() < deadline; from += ProductService.MAX_BATCH_SIZE) {
+            List<String> chunk = ids.subList(from, Math.min(from + ProductService.MAX_BATCH_SIZE, ids.size()));
+            products.addAll(productService.getProducts(chunk));
+        }
+        return products;
+    }
+
+    /**
+     * Put snapshot entries whose version still matches Mongo into the product cache
+     */
+    private List<Product> restoreSnapshot() {
+        if (snapshotFile == null || !Files.isRegularFile(snapshotFile)) {
+            return List.of();
+        }
+        try {
+            // Derived getters such as inStock are written but have no setter
+            Snapshot snapshot = objectMapper.readerFor(Snapshot.class)
+                    .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                    .readValue(snapshotFile.toFile());
+            if (snapshot.writtenAt() == null || snapshot.products() == null
+                    || snapshot.writtenAt().isBefore(Instant.now().minus(snapshotMaxAge))) {
+                logger.info("Ignoring warm-up snapshot {} older than {}", snapshotFile, snapshotMaxAge);
+                return List.of();
+            }
+            Map<String, Long> versions = productRepository.findVersions(
+                    snapshot.products().stream().map(Product::getProductId).toList());
+            Cache cache = cacheManager.getCache(PRODUCT_CACHE);
+            List<Product> restored = new ArrayList<>();
+            for (Product product : snapshot.products()) {
+                Long version = versions.get(product.getProductId());
+                if (cache != null && version != null && version.equals(product.getVersion())) {
+                    cache.put(product.getProductId(), product);
+                    restored.add(product);
+                }
+            }
+            logger.info("Restored {} of {} products from warm-up snapshot", restored.size(),
+                    snapshot.products().size());
+            return restored;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not read warm-up snapshot {}: {}", snapshotFile, e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Call the main read paths repeatedly so the JIT compiles them before real traffic arrives
+     */
+    private void exerciseReadPaths(List<Product> products, long deadline) {
+        if (products.isEmpty()) {
+            return;
+        }
+        for (int i = 0; i < jitIterations && System.nanoTime() < deadline; i++) {
+            Product sample = products.get(i % products.size());
+            productService.getProduct(sample.getProductId());
+            if (sample.getName() != null && !sample.getName().isBlank()) {
+                suggestIndex.suggest(sample.getName().substring(0, Math.min(3, sample.getName().length())),
+                        ProductSuggestIndex.MAX_LIMIT);
+            }
+            priceIndex.findIds(sample.getCategory(), null, sample.getPrice(), 0, ProductService.DEFAULT_PAGE_SIZE);
+            try {
+                objectMapper.writeValueAsBytes(productMapper.toResponse(sample));
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not serialize product " + sample.getProductId(), e);
+            }
+        }
+        productService.getProductPage(null, ProductService.DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Contents of the snapshot file
+     */
+    record Snapshot(Instant writtenAt, List<Product> products) {
+    }
+}
@@ -0,0 +1,144 @@
+package com.shopscale.product.service;
+
+import com.shopscale.product.cache.ReactiveCacheAside;
+import com.shopscale.product.domain.Product;
+import com.shopscale.product.domain.ProductCursor;
+import com.shopscale.product.domain.ProductList;
+import com.shopscale.product.domain.ProductPage;
+import com.shopscale.product.domain.ProductQuery;
+import com.shopscale.product.domain.ProductSummary;
+import com.shopscale.product.exception.ProductNotFoundException;
+import com.shopscale.product.repository.ReactiveProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static com.shopscale.product.cache.ProductCacheEvictor.PRODUCT_CACHE;
+import static com.shopscale.product.cache.ProductCacheEvictor.SUMMARY_CACHE;
+import static com.shopscale.product.service.ProductService.MAX_PAGE_SIZE;
+
+/**
+ * Non-blocking product reads for the {@code reactive} profile. Cache keys match the
+ * {@code @Cacheable} keys of {@link ProductService}, so both stacks share entries and
+ * every write made through the blocking service evicts them as usual.
+ *
+ * <p>Price-range lists come from the in-memory price index plus per-product cache entries;
+ * they are delegated to {@link ProductService} on the bounded elastic scheduler.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveProductService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveProductService.class);
+
+    private static final Sort KEYSET_SORT = Sort.by("createdAt", "productId");
+
+    private final ReactiveProductRepository productRepository;
+    private final ReactiveCacheAside cacheAside;
+    private final ProductService productService;
+
+    public ReactiveProductService(ReactiveProductRepository productRepository, ReactiveCacheAside cacheAside,
+                                  ProductService productService) {
+        this.productRepository = productRepository;
+        this.cacheAside = cacheAside;
+        this.productService = productService;
+    }
+
+    /**
+     * Get product by ID with caching
+     */
+    public Mono<Product> getProduct(String productId) {
+        return cacheAside.get(PRODUCT_CACHE, productId, Product.class, () -> {
+            logger.info("Fetching product: {}", productId);
+            return productRepository.findByProductIdAndActiveTrue(productId)
+                    .switchIfEmpty(Mono.error(() -> new ProductNotFoundException("Product not found: " + productId)));
+        });
+    }
+
+    /**
+     * Get one keyset page of active product summaries with caching
+     *
+     * @param after cursor returned with the previous page, or {@code null} for the first page
+     */
+    public Mono<ProductPage> getProductPage(String after, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return Mono.error(new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE));
+        }
+        String key = "page:" + limit + ":" + (after != null ? after : "");
+        return cacheAside.get(SUMMARY_CACHE, key, ProductPage.class, () -> {
+            logger.info("Fetching product page after: {}, limit: {}", after, limit);
+            // Fetch one extra row to learn whether another page follows
+            ProductCursor cursor = after != null ? ProductCursor.decode(after) : null;
+            return productRepository.findSummaryPage(ProductQuery.ALL, cursor, limit + 1)
+                    .collectList()
+                    .map(summaries -> ProductPage.of(summaries, limit));
+        });
+    }
+
+    /**
+     * Find summaries of active products matching the filters, one keyset page at a time with caching
+     *
+     * @param after cursor returned with the previous page, or {@code null} for the first page
+     */
+    public Mono<ProductPage> findProducts(ProductQuery query, String after, int limit) {
+        if (query.search() != null || query.isPriceRange()) {
+            return Mono.error(new IllegalArgumentException("searches and price ranges are paged by page number"));
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return Mono.error(new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE));
+        }
+        return cacheAside.get(SUMMARY_CACHE, query.pageCacheKey(after, limit), ProductPage.class, () -> {
+            logger.info("Fetching products for query: {}, after: {}, limit: {}", query, after, limit);
+            ProductCursor cursor = after != null ? ProductCursor.decode(after) : null;
+            return productRepository.findSummaryPage(query, cursor, limit + 1)
+                    .collectList()
+                    .map(summaries -> ProductPage.of(summaries, limit));
+        });
+    }
+
+    /**
+     * Search active products, ranked by relevance, one page at a time with caching
+     */
+    public Mono<ProductList> searchProducts(ProductQuery query, int page, int size) {
+        if (query.search() == null) {
+            return Mono.error(new IllegalArgumentException("search must not be empty"));
+        }
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            return Mono.error(new IllegalArgumentException(
+                    "page must be >= 0 and size between 1 and " + MAX_PAGE_SIZE));
+        }
+        return summaries(query.cacheKey() + "&page=" + page + "&size=" + size, () -> {
+            logger.info("Searching products for query: {}, page: {}, size: {}", query, page, size);
+            return productRepository.findSummariesByQuery(query, PageRequest.of(page, size));
+        });
+    }
+
+    /**
+     * Active products in a price range, cheapest first, via {@link ProductService}
+     */
+    public Mono<List<ProductSummary>> getProductsByPriceRange(ProductQuery query, int page, int size) {
+        return Mono.fromCallable(() -> productService.getProductsByPriceRange(query, page, size))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Every active product in keyset order, read from a Mongo cursor as the client consumes them
+     */
+    public Flux<Product> streamActiveProducts() {
+        logger.info("Streaming all active products");
+        return productRepository.findByActiveTrue(KEYSET_SORT);
+    }
+
+    private Mono<ProductList> summaries(String key, Supplier<Flux<ProductSummary>> query) {
+        return cacheAside.get(SUMMARY_CACHE, key, ProductList.class, () -> query.get().collectList().map(ProductList::of));
+    }
+}
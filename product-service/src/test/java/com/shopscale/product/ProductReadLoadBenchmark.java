@@ -0,0 +1,133 @@
+package com.shopscale.product;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop load test comparing the blocking and the {@code reactive} read stacks.
+ * Not run by surefire; start one instance of each stack on the same data, then run
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.shopscale.product.ProductReadLoadBenchmark
+ * -Dexec.args="http://localhost:8082 http://localhost:8092"}.
+ *
+ * <p>For a fair comparison give both instances the same cores and heap, e.g. start each
+ * with {@code taskset -c 0-1 java -XX:ActiveProcessorCount=2 -Xmx512m -jar ...}
+ * (adding {@code --spring.profiles.active=reactive --server.port=8092} for the second),
+ * and run this driver on other cores. Tune with {@code -Dload.concurrency},
+ * {@code -Dload.duration} (seconds), {@code -Dload.warmup} (seconds) and {@code -Dload.ids}.
+ */
+public class ProductReadLoadBenchmark {
+
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 256);
+    private static final Duration DURATION = Duration.ofSeconds(Integer.getInteger("load.duration", 60));
+    private static final Duration WARMUP = Duration.ofSeconds(Integer.getInteger("load.warmup", 15));
+    private static final int PRODUCT_IDS = Integer.getInteger("load.ids", 1000);
+
+    public static void main(String[] args) throws Exception {
+        List<String> baseUrls = args.length > 0 ? Arrays.asList(args) : List.of("http://localhost:8082");
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+
+        for (String baseUrl : baseUrls) {
+            run(client, baseUrl, WARMUP);
+            Result result = run(client, baseUrl, DURATION);
+            System.out.printf("%s: %,.0f req/s, p50 %.2f ms, p99 %.2f ms, p99.9 %.2f ms, %d errors%n",
+                    baseUrl, result.throughput(), result.percentile(0.50), result.percentile(0.99),
+                    result.percentile(0.999), result.errors());
+        }
+    }
+
+    /**
+     * Keep {@link #CONCURRENCY} requests in flight against the product-by-id and first-page
+     * endpoints, nine to one, for the given duration
+     */
+    private static Result run(HttpClient client, String baseUrl, Duration duration) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        AtomicLong errors = new AtomicLong();
+        List<Future<long[]>> workers = new ArrayList<>(CONCURRENCY);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < CONCURRENCY; i++) {
+                workers.add(executor.submit(() -> {
+                    LatencyRecorder latencies = new LatencyRecorder();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < deadline) {
+                        String path = random.nextInt(10) == 0
+                                ? "/api/products?limit=20"
+                                : "/api/products/prod_%03d".formatted(random.nextInt(PRODUCT_IDS));
+                        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                                .timeout(Duration.ofSeconds(10))
+                                .GET()
+                                .build();
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 500) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        latencies.add(System.nanoTime() - start);
+                    }
+                    return latencies.toArray();
+                }));
+            }
+        }
+
+        LatencyRecorder all = new LatencyRecorder();
+        for (Future<long[]> worker : workers) {
+            for (long latency : worker.get()) {
+                all.add(latency);
+            }
+        }
+        long[] sorted = all.toArray();
+        Arrays.sort(sorted);
+        return new Result(sorted, duration, errors.get());
+    }
+
+    private record Result(long[] sortedNanos, Duration duration, long errors) {
+
+        double throughput() {
+            return sortedNanos.length / (duration.toMillis() / 1000.0);
+        }
+
+        double percentile(double p) {
+            if (sortedNanos.length == 0) {
+                return Double.NaN;
+            }
+            int index = (int) Math.min(sortedNanos.length - 1, Math.ceil(p * sortedNanos.length) - 1);
+            return sortedNanos[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+
+    private static final class LatencyRecorder {
+
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.shopscale.product.cache;
+
+import com.shopscale.product.cache.HotKeyTracker.KeyCount;
+import com.shopscale.product.cache.HotKeyTracker.Report;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+class HotKeyTrackerTest {
+
+    // Sizes are the length of the value's string form
+    private static final RedisSerializer<Object> SIZE_SERIALIZER = new RedisSerializer<>() {
+        @Override
+        public byte[] serialize(Object value) {
+            return String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public Object deserialize(byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+
+    private MeterRegistry meterRegistry;
+    private HotKeyTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        tracker = new HotKeyTracker(List.of("products"), 1.0, 3, 1024, 4, 2, SIZE_SERIALIZER, meterRegistry);
+    }
+
+    @Test
+    void report_ShouldRankKeysByHitsSizeAndChurn() {
+        // Given
+        hit("prod_001", 50);
+        hit("prod_002", 20);
+        hit("prod_003", 5);
+        hit("prod_004", 30);
+        tracker.onPut("products", "prod_001", "small");
+        tracker.onPut("products", "prod_002", "a much larger value");
+        tracker.onEvict("products", "prod_003");
+        tracker.onEvict("products", "prod_003");
+        tracker.onEvict("products", "prod_001");
+
+        // When
+        Report report = tracker.report("products");
+
+        // Then - prod_003 was displaced from the top 3 by prod_004
+        assertThat(report.hits()).containsExactly(
+                new KeyCount("prod_001", 50), new KeyCount("prod_004", 30), new KeyCount("prod_002", 20));
+        assertThat(report.topHitShare()).isCloseTo(100.0 / 105, offset(0.001));
+        // Evicting prod_001 dropped it from the largest entries
+        assertThat(report.bytes()).containsExactly(new KeyCount("prod_002", 19));
+        assertThat(report.churn()).containsExactly(new KeyCount("prod_003", 2), new KeyCount("prod_001", 1));
+        assertThat(tracker.report("summaries")).isNull();
+    }
+
+    @Test
+    void decay_ShouldHalveCountsButKeepSizes() {
+        // Given
+        hit("prod_001", 10);
+        tracker.onPut("products", "prod_001", "laptop");
+
+        // When
+        tracker.decay();
+        hit("prod_001", 1);
+
+        // Then
+        Report report = tracker.report("products");
+        assertThat(report.hits()).containsExactly(new KeyCount("prod_001", 6));
+        assertThat(report.bytes()).containsExactly(new KeyCount("prod_001", 6));
+    }
+
+    @Test
+    void gauges_ShouldReportTopValuesByRank() {
+        // Given
+        hit("prod_001", 8);
+        hit("prod_002", 3);
+
+        // Then
+        assertThat(gauge("cache.keys.top.hits", "1")).isEqualTo(8.0);
+        assertThat(gauge("cache.keys.top.hits", "2")).isEqualTo(3.0);
+        assertThat(gauge("cache.keys.top.churn", "1")).isZero();
+        assertThat(meterRegistry.find("cache.keys.top.hits").tag("rank", "3").gauge()).isNull();
+    }
+
+    @Test
+    void sketch_ShouldNeverUndercount() {
+        // Given
+        CountMinSketch sketch = new CountMinSketch(16, 4);
+        for (int i = 0; i < 1000; i++) {
+            sketch.add("key_" + (i % 100), 1);
+        }
+
+        // Then - each key was added 10 times; collisions may only add to that
+        for (int i = 0; i < 100; i++) {
+            assertThat(sketch.estimate("key_" + i)).isGreaterThanOrEqualTo(10);
+        }
+    }
+
+    private void hit(String key, int times) {
+        for (int i = 0; i < times; i++) {
+            tracker.onHit("products", key);
+        }
+    }
+
+    private double gauge(String name, String rank) {
+        return meterRegistry.get(name).tag("cache", "products").tag("rank", rank).gauge().value();
+    }
+}
@@ -0,0 +1,131 @@
+package com.shopscale.product.cache;
+
+import com.shopscale.product.domain.Product;
+import com.shopscale.product.domain.ProductSummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisKeyCommands;
+import org.springframework.data.redis.connection.RedisZSetCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.doubleThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductCacheDependencyIndexTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private RedisConnection connection;
+
+    @Mock
+    private RedisZSetCommands zSetCommands;
+
+    @Mock
+    private RedisKeyCommands keyCommands;
+
+    private ProductCacheDependencyIndex dependencyIndex;
+    private ProductSummary laptop;
+
+    @BeforeEach
+    void setUp() {
+        dependencyIndex = new ProductCacheDependencyIndex(redisTemplate, "product-summaries", Duration.ofHours(1));
+        Product product = new Product("Test Laptop", "High-performance laptop", new BigDecimal("1299.99"),
+                "electronics", 50);
+        product.setProductId("prod_001");
+        laptop = ProductSummary.of(product);
+    }
+
+    @Test
+    void recordListEntry_ShouldScoreMembersByEntryExpiryAndTrimExpiredOnes() {
+        // Given
+        runPipelinedCallbacks();
+        long before = System.currentTimeMillis();
+
+        // When
+        dependencyIndex.recordListEntry("query:category=electronics", List.of(laptop));
+
+        // Then
+        long expiresAfter = before + Duration.ofHours(1).toMillis();
+        for (String key : List.of("product-cache:dependents:prod_001", "product-cache:registry:query:")) {
+            verify(zSetCommands).zAdd(eq(bytes(key)), doubleThat(score -> score >= expiresAfter),
+                    eq(bytes("query:category=electronics")));
+            verify(zSetCommands).zRemRangeByScore(eq(bytes(key)), eq(Double.NEGATIVE_INFINITY),
+                    doubleThat(now -> now >= before));
+            verify(keyCommands).expire(bytes(key), Duration.ofMinutes(65).toSeconds());
+        }
+    }
+
+    @Test
+    void recordListEntry_ShouldOnlyRegisterCatalogueWideLists() {
+        // Given
+        runPipelinedCallbacks();
+
+        // When
+        dependencyIndex.recordListEntry("query:inStock=true", List.of(laptop));
+
+        // Then
+        verify(zSetCommands).zAdd(eq(bytes("product-cache:registry:query:")), anyDouble(),
+                eq(bytes("query:inStock=true")));
+        verify(zSetCommands, never()).zAdd(eq(bytes("product-cache:dependents:prod_001")), anyDouble(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getDependentKeys_ShouldSkipExpiredMembers() {
+        // Given
+        ZSetOperations<String, String> zSetOperations = mock(ZSetOperations.class);
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        long before = System.currentTimeMillis();
+        when(zSetOperations.rangeByScore(eq("product-cache:dependents:prod_001"), doubleThat(min -> min >= before),
+                eq(Double.POSITIVE_INFINITY))).thenReturn(Set.of("query:category=electronics"));
+
+        // When
+        Set<String> keys = dependencyIndex.getDependentKeys("prod_001");
+
+        // Then
+        assertThat(keys).containsExactly("query:category=electronics");
+    }
+
+    @Test
+    void spansCatalogue_ShouldMatchQueriesFilteredAtMostByStock() {
+        // Then
+        assertThat(ProductCacheDependencyIndex.spansCatalogue("query:")).isTrue();
+        assertThat(ProductCacheDependencyIndex.spansCatalogue("query:inStock=true")).isTrue();
+        assertThat(ProductCacheDependencyIndex.spansCatalogue("query:category=electronics&inStock=true")).isFalse();
+        assertThat(ProductCacheDependencyIndex.spansCatalogue("query:search=lap&page=0&size=20")).isFalse();
+        assertThat(ProductCacheDependencyIndex.spansCatalogue("page:20:")).isFalse();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void runPipelinedCallbacks() {
+        when(connection.zSetCommands()).thenReturn(zSetCommands);
+        when(connection.keyCommands()).thenReturn(keyCommands);
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            invocation.getArgument(0, RedisCallback.class).doInRedis(connection);
+            return List.of();
+        });
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,227 @@
+package com.shopscale.product.cache;
+
+import com.shopscale.product.domain.Product;
+import com.shopscale.product.domain.ProductQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductCacheEvictorTest {
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private ProductCacheDependencyIndex dependencyIndex;
+
+    @Mock
+    private Cache cache;
+
+    @Mock
+    private Cache productCache;
+
+    private ProductCacheEvictor evictor;
+    private Product testProduct;
+
+    @BeforeEach
+    void setUp() {
+        evictor = new ProductCacheEvictor(cacheManager, dependencyIndex);
+
+        testProduct = new Product(
+                "Test Laptop",
+                "High-performance laptop",
+                new BigDecimal("1299.99"),
+                "electronics",
+                50
+        );
+        testProduct.setProductId("prod_001");
+    }
+
+    @Test
+    void affectedKeys_ShouldIncludeDependentListsAndQualifyingLists() {
+        // Given
+        when(dependencyIndex.getDependentKeys("prod_001")).thenReturn(Set.of("price:1000-1200"));
+        when(dependencyIndex.getRegisteredKeys(anyString())).thenReturn(Set.of());
+        when(dependencyIndex.getRegisteredKeys("price:"))
+                .thenReturn(Set.of("price:1000-1200", "price:1200-1500", "price:10-20"));
+        when(dependencyIndex.getRegisteredKeys("query:"))
+                .thenReturn(Set.of("query:search=lap", "query:search=phone"));
+
+        // When
+        Set<String> keys = evictor.affectedKeys(List.of(testProduct));
+
+        // Then - untouched lists such as other categories and non-matching ranges survive
+        assertThat(keys).containsExactlyInAnyOrder(
+                "price:1000-1200", "price:1200-1500", "query:search=lap");
+    }
+
+    @Test
+    void affectedKeys_ShouldOnlyUseReverseIndexForInactiveProduct() {
+        // Given
+        testProduct.deactivate();
+        when(dependencyIndex.getDependentKeys("prod_001")).thenReturn(Set.of("category:electronics"));
+
+        // When
+        Set<String> keys = evictor.affectedKeys(List.of(testProduct));
+
+        // Then
+        assertThat(keys).containsExactly("category:electronics");
+    }
+
+    @Test
+    void affectedKeys_ShouldSkipInStockQueriesWhenOutOfStock() {
+        // Given
+        testProduct.updateStock(0);
+        when(dependencyIndex.getRegisteredKeys(anyString())).thenReturn(Set.of());
+        when(dependencyIndex.getRegisteredKeys("query:"))
+                .thenReturn(Set.of("query:category=electronics", "query:category=electronics&inStock=true"));
+
+        // When
+        Set<String> keys = evictor.affectedKeys(List.of(testProduct));
+
+        // Then
+        assertThat(keys).containsExactly("query:category=electronics");
+    }
+
+    @Test
+    void evict_ShouldEvictProductAndAffectedListsAndCleanUpIndex() {
+        // Given
+        when(cacheManager.getCache("products")).thenReturn(productCache);
+        when(cacheManager.getCache("product-summaries")).thenReturn(cache);
+        when(dependencyIndex.getRegisteredKeys(anyString())).thenReturn(Set.of());
+        when(dependencyIndex.getRegisteredKeys("query:")).thenReturn(Set.of("query:category=electronics"));
+
+        // When
+        evictor.evict(testProduct);
+
+        // Then - the product entry and the summary lists live in separate caches
+        verify(productCache).evict("prod_001");
+        verify(cache).evict("query:category=electronics");
+        verify(cache, never()).evict("prod_001");
+        verify(cache, never()).clear();
+        verify(dependencyIndex).removeDependencies(List.of("prod_001"));
+    }
+
+    @Test
+    void evict_ShouldClearSummaryCacheWhenIndexUnavailable() {
+        // Given
+        when(cacheManager.getCache("products")).thenReturn(productCache);
+        when(cacheManager.getCache("product-summaries")).thenReturn(cache);
+        when(dependencyIndex.getRegisteredKeys(anyString())).thenThrow(new IllegalStateException("redis down"));
+
+        // When
+        evictor.evict(testProduct);
+
+        // Then
+        verify(cache).clear();
+        verify(cache, never()).evict(any());
+        verify(productCache).evict("prod_001");
+        verify(productCache, never()).clear();
+    }
+
+    @Test
+    void priceKeyContains_ShouldParseRangeBoundsInclusively() {
+        assertThat(ProductCacheEvictor.priceKeyContains("price:100.00-200.00", new BigDecimal("200.00"))).isTrue();
+        assertThat(ProductCacheEvictor.priceKeyContains("price:100.00-200.00", new BigDecimal("99.99"))).isFalse();
+        assertThat(ProductCacheEvictor.priceKeyContains("price:1E-7-5", new BigDecimal("1"))).isTrue();
+    }
+
+    @Test
+    void affectedKeys_ShouldIncludeRegisteredQueriesTheProductMatches() {
+        // Given
+        String matching = new ProductQuery("electronics", "LAPTOPS", new BigDecimal("1000"), null, true).cacheKey();
+        String otherCategory = new ProductQuery("books", null, null, null, false).cacheKey();
+        String tooCheap = new ProductQuery(null, null, null, new BigDecimal("1000.00"), false).cacheKey();
+        when(dependencyIndex.getRegisteredKeys(anyString())).thenReturn(Set.of());
+        when(dependencyIndex.getRegisteredKeys("query:")).thenReturn(Set.of(matching, otherCategory, tooCheap));
+
+        // When
+        Set<String> keys = evictor.affectedKeys(List.of(testProduct));
+
+        // Then
+        assertThat(keys).contains(matching).doesNotContain(otherCategory, tooCheap);
+    }
+
+    @Test
+    void queryKeyMatches_ShouldRoundTripNormalizedKeys() {
+        // Given - equivalent queries normalize to the same key
+        String key = new ProductQuery("home & garden", "Lamp", new BigDecimal("10.50"), new BigDecimal("20"), false)
+                .cacheKey();
+
+        // Then
+        assertThat(key).isEqualTo(
+                new ProductQuery("home & garden", "lamp", new BigDecimal("10.5"), new BigDecimal("20.00"), false)
+                        .cacheKey());
+        assertThat(ProductQuery.fromCacheKey(key))
+                .isEqualTo(new ProductQuery("home & garden", "lamp", new BigDecimal("10.5"), new BigDecimal("20"), false));
+        assertThat(ProductCacheEvictor.queryKeyMatches("query:garbage", testProduct)).isTrue();
+    }
+
+    @Test
+    void queryMatches_ShouldUsePrefixForShortSearchesAndStemPrefixOtherwise() {
+        // Short single word: prefix of any name word
+        assertThat(new ProductQuery(null, "lap", null, null, false).matches(testProduct)).isTrue();
+        assertThat(new ProductQuery(null, "top", null, null, false).matches(testProduct)).isFalse();
+
+        // Longer searches behave like the stemmed text index on name and description
+        assertThat(new ProductQuery(null, "laptops", null, null, false).matches(testProduct)).isTrue();
+        assertThat(new ProductQuery(null, "performance", null, null, false).matches(testProduct)).isTrue();
+        assertThat(new ProductQuery(null, "phone case", null, null, false).matches(testProduct)).isFalse();
+    }
+
+    @Test
+    void evictInsertions_ShouldEvictMatchedListsAndListsCachedDuringInsertOnce() {
+        // Given - registries as they were when the import started
+        when(cacheManager.getCache(ProductCacheEvictor.SUMMARY_CACHE)).thenReturn(cache);
+        when(dependencyIndex.getRegisteredKeys(anyString())).thenReturn(Set.of());
+        when(dependencyIndex.getRegisteredKeys("price:")).thenReturn(Set.of("price:1000-1500", "price:10-20"));
+        when(dependencyIndex.getRegisteredKeys("query:")).thenReturn(Set.of("query:search=lap"));
+        ProductCacheEvictor.InsertionTracker insertions = evictor.trackInsertions();
+        insertions.add(testProduct);
+
+        // ...and as they are when it ends
+        when(dependencyIndex.getRegisteredKeys("page:")).thenReturn(Set.of("page:100:"));
+        when(dependencyIndex.getRegisteredKeys("price:"))
+                .thenReturn(Set.of("price:1000-1500", "price:10-20", "price:1-5"));
+
+        // When
+        evictor.evict(insertions);
+
+        // Then
+        for (String key : List.of("price:1000-1500",
+                "query:search=lap", "page:100:", "price:1-5")) {
+            verify(cache).evict(key);
+        }
+        verify(cache, never()).evict("price:10-20");
+        verify(cache, never()).clear();
+        verify(dependencyIndex, never()).getDependentKeys(anyString());
+    }
+
+    @Test
+    void evictInsertions_ShouldClearCacheWhenRegistriesWereUnavailable() {
+        // Given
+        when(cacheManager.getCache(ProductCacheEvictor.SUMMARY_CACHE)).thenReturn(cache);
+        when(dependencyIndex.getRegisteredKeys(anyString())).thenThrow(new RuntimeException("Redis down"));
+        ProductCacheEvictor.InsertionTracker insertions = evictor.trackInsertions();
+        insertions.add(testProduct);
+
+        // When
+        evictor.evict(insertions);
+
+        // Then
+        verify(cache).clear();
+    }
+}
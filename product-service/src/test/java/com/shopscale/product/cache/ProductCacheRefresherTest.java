@@ -0,0 +1,212 @@
+package com.shopscale.product.cache;
+
+import com.shopscale.product.domain.Product;
+import com.shopscale.product.domain.ProductCursor;
+import com.shopscale.product.domain.ProductList;
+import com.shopscale.product.domain.ProductPage;
+import com.shopscale.product.domain.ProductSummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductCacheRefresherTest {
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private ProductCacheDependencyIndex dependencyIndex;
+
+    private final ConcurrentMapCache productCache = new ConcurrentMapCache("products", false);
+    private final ConcurrentMapCache summaryCache = new ConcurrentMapCache("product-summaries", false);
+
+    private ProductCacheRefresher refresher;
+    private Product laptop;
+    private Product phone;
+
+    @BeforeEach
+    void setUp() {
+        refresher = new ProductCacheRefresher(cacheManager, new ProductCacheEvictor(cacheManager, dependencyIndex),
+                dependencyIndex);
+        lenient().when(cacheManager.getCache(ProductCacheEvictor.PRODUCT_CACHE)).thenReturn(productCache);
+        lenient().when(cacheManager.getCache(ProductCacheEvictor.SUMMARY_CACHE)).thenReturn(summaryCache);
+        lenient().when(dependencyIndex.getRegisteredKeys(anyString())).thenReturn(Set.of());
+
+        laptop = new Product("Test Laptop", "High-performance laptop", new BigDecimal("1299.99"), "electronics", 50);
+        laptop.setProductId("prod_001");
+        phone = new Product("Phone", "Smartphone", new BigDecimal("699.00"), "electronics", 10);
+        phone.setProductId("prod_002");
+    }
+
+    @Test
+    void refresh_ShouldPatchCachedListsInPlaceAndEvictTheRest() {
+        // Given - the laptop moves from electronics to computers and sells out
+        productCache.put("prod_001", laptop);
+        summaryCache.put("query:category=electronics", ProductList.of(List.of(ProductSummary.of(laptop), ProductSummary.of(phone))));
+        summaryCache.put("query:inStock=true", ProductList.of(List.of(ProductSummary.of(laptop), ProductSummary.of(phone))));
+        summaryCache.put("query:category=computers", ProductList.of(List.of()));
+        summaryCache.put("query:search=lap", ProductList.of(List.of(ProductSummary.of(laptop))));
+        summaryCache.put("price:1000-1500", List.of(ProductSummary.of(laptop)));
+        when(dependencyIndex.getDependentKeys("prod_001")).thenReturn(Set.of("query:category=electronics",
+                "query:inStock=true", "query:search=lap", "price:1000-1500"));
+        when(dependencyIndex.getRegisteredKeys("query:")).thenReturn(Set.of("query:category=electronics",
+                "query:inStock=true", "query:category=computers", "query:search=lap"));
+        laptop.setCategory("computers");
+        laptop.updateStock(0);
+
+        // When
+        refresher.refresh(laptop);
+
+        // Then
+        assertThat(productCache.get("prod_001")).isNull();
+        assertThat(summaries("query:category=electronics")).extracting(ProductSummary::productId)
+                .containsExactly("prod_002");
+        assertThat(summaries("query:inStock=true")).extracting(ProductSummary::productId).containsExactly("prod_002");
+        assertThat(summaries("query:category=computers")).containsExactly(ProductSummary.of(laptop));
+        assertThat(summaryCache.get("query:search=lap")).isNull();
+        assertThat(summaryCache.get("price:1000-1500")).isNull();
+        verify(dependencyIndex).removeDependencies(List.of("prod_001"));
+        verify(dependencyIndex).unregisterKeys(argThat(keys -> keys.contains("price:1000-1500")
+                && keys.contains("query:search=lap") && !keys.contains("query:category=electronics")));
+    }
+
+    @Test
+    void refresh_ShouldPatchKeysetPagesOnlyWithinTheirRange() {
+        // Given - the laptop moves into computers, between the first page's two products
+        Product desk = computer("prod_010", laptop.getCreatedAt().minusSeconds(1));
+        Product monitor = computer("prod_011", laptop.getCreatedAt().plusSeconds(1));
+        Product mouse = computer("prod_012", laptop.getCreatedAt().plusSeconds(2));
+        phone.setCreatedAt(laptop.getCreatedAt().plusSeconds(3));
+        String after = ProductCursor.of(monitor).encode();
+        String firstPage = "query:category=computers&after=&limit=2";
+        String secondPage = "query:category=computers&after=" + after + "&limit=2";
+        String electronicsPage = "query:category=electronics&after=&limit=2";
+        summaryCache.put(firstPage, new ProductPage(List.of(ProductSummary.of(desk), ProductSummary.of(monitor)), after));
+        summaryCache.put(secondPage, new ProductPage(List.of(ProductSummary.of(mouse)), null));
+        summaryCache.put(electronicsPage, new ProductPage(List.of(ProductSummary.of(laptop), ProductSummary.of(phone)),
+                ProductCursor.of(phone).encode()));
+        when(dependencyIndex.getDependentKeys("prod_001")).thenReturn(Set.of(electronicsPage));
+        when(dependencyIndex.getRegisteredKeys("query:")).thenReturn(Set.of(firstPage, secondPage, electronicsPage));
+        laptop.setCategory("computers");
+
+        // When
+        refresher.refresh(laptop);
+
+        // Then - the monitor is pushed onto the next read, the later page is untouched and
+        // the electronics page, which would come up short, is evicted
+        ProductPage first = (ProductPage) summaryCache.get(firstPage).get();
+        assertThat(first.items()).extracting(ProductSummary::productId).containsExactly("prod_010", "prod_001");
+        assertThat(ProductCursor.decode(first.nextCursor())).isEqualTo(ProductCursor.of(laptop));
+        assertThat(((ProductPage) summaryCache.get(secondPage).get()).items())
+                .extracting(ProductSummary::productId).containsExactly("prod_012");
+        assertThat(summaryCache.get(electronicsPage)).isNull();
+    }
+
+    @Test
+    void refresh_ShouldReplaceUpdatedMemberKeepingListOrder() {
+        // Given
+        summaryCache.put("query:category=electronics", ProductList.of(List.of(ProductSummary.of(laptop), ProductSummary.of(phone))));
+        when(dependencyIndex.getDependentKeys("prod_001")).thenReturn(Set.of("query:category=electronics"));
+        laptop.updatePrice(new BigDecimal("999.99"));
+
+        // When
+        refresher.refresh(laptop);
+
+        // Then
+        assertThat(summaries("query:category=electronics")).extracting(ProductSummary::productId)
+                .containsExactly("prod_001", "prod_002");
+        assertThat(summaries("query:category=electronics").get(0).price()).isEqualByComparingTo("999.99");
+    }
+
+    @Test
+    void refreshStock_ShouldMoveProductsInAndOutOfInStockListsAndReplaceElsewhere() {
+        // Given - the laptop sells out, the phone is restocked
+        Product restocked = new Product("Phone", "Smartphone", new BigDecimal("699.00"), "electronics", 0);
+        restocked.setProductId("prod_002");
+        summaryCache.put("query:category=electronics", ProductList.of(List.of(ProductSummary.of(laptop), ProductSummary.of(restocked))));
+        summaryCache.put("price:1000-1500", List.of(ProductSummary.of(laptop)));
+        summaryCache.put("query:category=electronics&inStock=true", ProductList.of(List.of(ProductSummary.of(laptop))));
+        summaryCache.put("query:category=computers&inStock=true", ProductList.of(List.of()));
+        summaryCache.put("query:search=phone&inStock=true", ProductList.of(List.of()));
+        when(dependencyIndex.getDependentKeys("prod_001")).thenReturn(Set.of("query:category=electronics",
+                "price:1000-1500", "query:category=electronics&inStock=true"));
+        when(dependencyIndex.getDependentKeys("prod_002")).thenReturn(Set.of("query:category=electronics"));
+        when(dependencyIndex.getRegisteredKeys("query:")).thenReturn(Set.of("query:category=electronics",
+                "query:category=electronics&inStock=true", "query:category=computers&inStock=true",
+                "query:search=phone&inStock=true"));
+        laptop.updateStock(0);
+        restocked.updateStock(25);
+
+        // When
+        refresher.refreshStock(List.of(laptop, restocked));
+
+        // Then
+        assertThat(summaries("query:category=electronics")).extracting(ProductSummary::stockQuantity)
+                .containsExactly(0, 25);
+        assertThat(summaries("price:1000-1500")).containsExactly(ProductSummary.of(laptop));
+        assertThat(summaries("query:category=electronics&inStock=true")).containsExactly(ProductSummary.of(restocked));
+        assertThat(summaries("query:category=computers&inStock=true")).isEmpty();
+        assertThat(summaryCache.get("query:search=phone&inStock=true")).isNull();
+        verify(dependencyIndex).unregisterKeys(Set.of("query:search=phone&inStock=true"));
+        verify(dependencyIndex, times(1)).getRegisteredKeys("query:");
+        verify(dependencyIndex, never()).removeDependencies(anyList());
+    }
+
+    @Test
+    void removed_ShouldDropProductFromListsThatContainedIt() {
+        // Given
+        summaryCache.put("query:category=electronics", ProductList.of(List.of(ProductSummary.of(laptop), ProductSummary.of(phone))));
+        summaryCache.put("query:search=lap", ProductList.of(List.of(ProductSummary.of(laptop))));
+        when(dependencyIndex.getDependentKeys("prod_001"))
+                .thenReturn(Set.of("query:category=electronics", "query:search=lap"));
+
+        // When
+        refresher.removed("prod_001");
+
+        // Then
+        assertThat(summaries("query:category=electronics")).extracting(ProductSummary::productId)
+                .containsExactly("prod_002");
+        assertThat(summaryCache.get("query:search=lap")).isNull();
+    }
+
+    @Test
+    void refresh_ShouldClearListsWhenIndexUnavailable() {
+        // Given
+        summaryCache.put("query:category=electronics", ProductList.of(List.of(ProductSummary.of(phone))));
+        when(dependencyIndex.getDependentKeys("prod_001")).thenThrow(new IllegalStateException("redis down"));
+
+        // When
+        refresher.refresh(laptop);
+
+        // Then
+        assertThat(summaryCache.get("query:category=electronics")).isNull();
+    }
+
+    private static Product computer(String productId, LocalDateTime createdAt) {
+        Product product = new Product("Computer " + productId, "Desktop", new BigDecimal("899.00"), "computers", 5);
+        product.setProductId(productId);
+        product.setCreatedAt(createdAt);
+        return product;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ProductSummary> summaries(String key) {
+        Object value = summaryCache.get(key).get();
+        return value instanceof ProductList list ? list.items() : (List<ProductSummary>) value;
+    }
+}
@@ -0,0 +1,77 @@
+package com.shopscale.product.cache;
+
+import com.shopscale.product.domain.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode/decode cost and payload size of the product cache serializers.
+ * Not run by surefire; start it with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.shopscale.product.cache.ProductCacheSerializerBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductCacheSerializerBenchmark {
+
+    @Param({"json", "smile", "smile-lz4"})
+    private String format;
+
+    @Param({"1", "100", "2000"})
+    private int products;
+
+    private RedisSerializer<Object> serializer;
+    private Object value;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        serializer = switch (format) {
+            case "json" -> ProductCacheSerializer.jsonSerializer();
+            case "smile" -> new ProductCacheSerializer(-1, "com.shopscale.product");
+            default -> new ProductCacheSerializer(1024, "com.shopscale.product");
+        };
+        List<Product> catalogue = ProductCacheSerializerTest.catalogue(products);
+        value = products == 1 ? catalogue.get(0) : catalogue;
+        encoded = serializer.serialize(value);
+        // Bytes on the wire are fixed per trial, so report them once next to the timings
+        System.out.printf("%n[%s, %d products] %d bytes%n", format, products, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return serializer.serialize(value);
+    }
+
+    @Benchmark
+    public Object decode() {
+        return serializer.deserialize(encoded);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ProductCacheSerializerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,139 @@
+package com.shopscale.product.cache;
+
+import com.shopscale.product.domain.Product;
+import com.shopscale.product.domain.ProductPage;
+import com.shopscale.product.domain.ProductSummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProductCacheSerializerTest {
+
+    private ProductCacheSerializer serializer;
+    private Product testProduct;
+
+    @BeforeEach
+    void setUp() {
+        serializer = new ProductCacheSerializer(1024, "com.shopscale.product");
+
+        testProduct = new Product(
+                "Test Laptop",
+                "High-performance laptop",
+                new BigDecimal("1299.99"),
+                "electronics",
+                50
+        );
+        testProduct.setProductId("prod_001");
+        testProduct.setAttributes(Map.of("brand", "Acme", "ramGb", 16));
+    }
+
+    @Test
+    void roundTrip_ShouldPreserveSingleProduct() {
+        // When
+        Product result = (Product) serializer.deserialize(serializer.serialize(testProduct));
+
+        // Then
+        assertThat(result.getProductId()).isEqualTo("prod_001");
+        assertThat(result.getPrice()).isEqualByComparingTo("1299.99");
+        assertThat(result.getCreatedAt()).isEqualTo(testProduct.getCreatedAt());
+        assertThat(result.getAttributes()).containsEntry("brand", "Acme").containsEntry("ramGb", 16);
+        assertThat(result.isActive()).isTrue();
+    }
+
+    @Test
+    void roundTrip_ShouldCompressLargeListsAndPreserveElements() {
+        // Given
+        List<Product> products = catalogue(500);
+
+        // When
+        byte[] bytes = serializer.serialize(products);
+        @SuppressWarnings("unchecked")
+        List<Product> result = (List<Product>) serializer.deserialize(bytes);
+
+        // Then - LZ4 flag set and much smaller than the JSON encoding
+        assertThat(bytes[1]).isEqualTo((byte) 1);
+        assertThat(bytes.length).isLessThan(ProductCacheSerializer.jsonSerializer().serialize(products).length / 3);
+        assertThat(result).hasSize(500);
+        assertThat(result.get(499).getProductId()).isEqualTo("prod_499");
+        assertThat(result.get(499).getPrice()).isEqualByComparingTo("499.99");
+    }
+
+    @Test
+    void roundTrip_ShouldPreserveSummaryPage() {
+        // Given
+        ProductPage page = new ProductPage(List.of(ProductSummary.of(testProduct)), "cursor");
+
+        // When
+        Object result = serializer.deserialize(serializer.serialize(page));
+
+        // Then
+        assertThat(result).isEqualTo(page);
+    }
+
+    @Test
+    void roundTrip_ShouldHandleEmptyListAndNull() {
+        assertThat(serializer.deserialize(serializer.serialize(new ArrayList<>()))).isEqualTo(List.of());
+        assertThat(serializer.serialize(null)).isEmpty();
+        assertThat(serializer.deserialize(new byte[0])).isNull();
+    }
+
+    @Test
+    void deserialize_ShouldReadEntriesWrittenByJsonSerializer() {
+        // Given
+        byte[] legacy = ProductCacheSerializer.jsonSerializer().serialize(testProduct);
+
+        // When
+        Product result = (Product) serializer.deserialize(legacy);
+
+        // Then
+        assertThat(result.getProductId()).isEqualTo("prod_001");
+        assertThat(result.getCreatedAt()).isEqualTo(testProduct.getCreatedAt());
+    }
+
+    @Test
+    void roundTrip_ShouldPreserveJdkValueTypes() {
+        // Given
+        List<String> ids = List.of("prod_001", "prod_002");
+
+        // Then
+        assertThat(serializer.deserialize(serializer.serialize(ids))).isEqualTo(ids);
+        assertThat(serializer.deserialize(serializer.serialize(42L))).isEqualTo(42L);
+        assertThat(serializer.deserialize(serializer.serialize(new BigDecimal("1299.99")))).isEqualTo(new BigDecimal("1299.99"));
+    }
+
+    @Test
+    void serialize_ShouldRejectTypesThatCouldNotBeReadBack() {
+        // When / Then
+        assertThatThrownBy(() -> serializer.serialize(new java.util.Date(0))).isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> serializer.serialize(List.of(new java.util.Date(0)))).isInstanceOf(SerializationException.class);
+    }
+
+    @Test
+    void deserialize_ShouldRejectTypesOutsideAllowedPackage() {
+        // Given
+        byte[] bytes = new ProductCacheSerializer(1024, "java.util").serialize(new java.util.Date(0));
+
+        // When / Then
+        assertThatThrownBy(() -> serializer.deserialize(bytes)).isInstanceOf(SerializationException.class);
+    }
+
+    static List<Product> catalogue(int size) {
+        List<Product> products = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Product product = new Product("Product " + i, "Description of product " + i,
+                    new BigDecimal(i + ".99"), "electronics", i % 20);
+            product.setProductId("prod_" + i);
+            product.setAttributes(Map.of("brand", "Acme", "color", i % 2 == 0 ? "black" : "silver"));
+            products.add(product);
+        }
+        return products;
+    }
+}
@@ -0,0 +1,181 @@
+package com.shopscale.product.cache;
+
+import com.mongodb.MongoWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.WriteError;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.mongodb.client.model.changestream.UpdateDescription;
+import com.shopscale.product.domain.Product;
+import com.shopscale.product.event.ProductChangedEvent;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonInt64;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductChangeStreamWatcherTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private MongoConverter converter;
+
+    @Mock
+    private ProductCacheRefresher cacheRefresher;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ChangeStreamDocument<Document> event;
+
+    private ProductChangeStreamWatcher watcher;
+
+    @BeforeEach
+    void setUp() {
+        watcher = new ProductChangeStreamWatcher(mongoTemplate, cacheRefresher, eventPublisher, true,
+                Duration.ofSeconds(1), Duration.ofMillis(10), Duration.ofSeconds(15));
+    }
+
+    @Test
+    void handle_ShouldRefreshCachesFromLookedUpDocument() {
+        // Given
+        Document fullDocument = new Document("_id", "prod_001").append("name", "Test Laptop");
+        Product product = new Product("Test Laptop", "High-performance laptop", new BigDecimal("1299.99"),
+                "electronics", 50);
+        when(event.getOperationType()).thenReturn(OperationType.UPDATE);
+        when(event.getFullDocument()).thenReturn(fullDocument);
+        when(mongoTemplate.getConverter()).thenReturn(converter);
+        when(converter.read(Product.class, fullDocument)).thenReturn(product);
+
+        // When
+        boolean open = watcher.handle(event, true);
+
+        // Then
+        assertThat(open).isTrue();
+        verify(cacheRefresher).refresh(product);
+        verify(eventPublisher).publishEvent(new ProductChangedEvent(product));
+    }
+
+    @Test
+    void handle_ShouldOnlyPublishChangeWhenNotRefreshingCaches() {
+        // Given - another instance holds the lease
+        Document fullDocument = new Document("_id", "prod_001").append("name", "Test Laptop");
+        Product product = new Product("Test Laptop", "High-performance laptop", new BigDecimal("1299.99"),
+                "electronics", 50);
+        when(event.getOperationType()).thenReturn(OperationType.UPDATE);
+        when(event.getFullDocument()).thenReturn(fullDocument);
+        when(mongoTemplate.getConverter()).thenReturn(converter);
+        when(converter.read(Product.class, fullDocument)).thenReturn(product);
+
+        // When
+        watcher.handle(event, false);
+
+        // Then
+        verify(eventPublisher).publishEvent(new ProductChangedEvent(product));
+        verifyNoInteractions(cacheRefresher);
+    }
+
+    @Test
+    void handle_ShouldRefreshOnlyStockWhenUpdateTouchedStockFields() {
+        // Given
+        Document fullDocument = new Document("_id", "prod_001").append("stockQuantity", 0);
+        Product product = new Product("Test Laptop", "High-performance laptop", new BigDecimal("1299.99"),
+                "electronics", 0);
+        BsonDocument updatedFields = new BsonDocument("stockQuantity", new BsonInt32(0))
+                .append("version", new BsonInt64(4));
+        when(event.getOperationType()).thenReturn(OperationType.UPDATE);
+        when(event.getUpdateDescription()).thenReturn(new UpdateDescription(List.of(), updatedFields));
+        when(event.getFullDocument()).thenReturn(fullDocument);
+        when(mongoTemplate.getConverter()).thenReturn(converter);
+        when(converter.read(Product.class, fullDocument)).thenReturn(product);
+
+        // When
+        watcher.handle(event, true);
+
+        // Then
+        verify(cacheRefresher).refreshStock(List.of(product));
+        verify(cacheRefresher, never()).refresh(any());
+    }
+
+    @Test
+    void handle_ShouldRemoveDeletedOrVanishedProducts() {
+        // Given - an update whose document was deleted before the lookup
+        when(event.getOperationType()).thenReturn(OperationType.UPDATE, OperationType.DELETE);
+        when(event.getDocumentKey()).thenReturn(new BsonDocument("_id", new BsonString("prod_001")));
+
+        // When
+        watcher.handle(event, true);
+        watcher.handle(event, true);
+
+        // Then
+        verify(cacheRefresher, times(2)).removed("prod_001");
+        verify(cacheRefresher, never()).refresh(any());
+        verify(eventPublisher, times(2)).publishEvent(argThat((Object published) ->
+                published instanceof ProductChangedEvent changed
+                        && changed.products().get(0).getProductId().equals("prod_001")
+                        && !changed.products().get(0).isActive()));
+    }
+
+    @Test
+    void handle_ShouldClearCachesAndEndStreamOnInvalidate() {
+        // Given
+        when(event.getOperationType()).thenReturn(OperationType.INVALIDATE);
+
+        // When
+        boolean open = watcher.handle(event, true);
+
+        // Then
+        assertThat(open).isFalse();
+        verify(cacheRefresher).clearAll();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void tryAcquireLease_ShouldFailWhileAnotherInstanceHoldsIt() {
+        // Given - the upsert collides with the token document another instance owns
+        MongoCollection<Document> tokens = mock(MongoCollection.class);
+        when(mongoTemplate.getCollection(ProductChangeStreamWatcher.TOKEN_COLLECTION)).thenReturn(tokens);
+        when(tokens.updateOne(any(Bson.class), any(Bson.class), any(UpdateOptions.class)))
+                .thenThrow(new MongoWriteException(new WriteError(11000, "duplicate key", new BsonDocument()),
+                        new ServerAddress(), Set.of()));
+
+        // Then
+        assertThat(watcher.tryAcquireLease()).isFalse();
+    }
+
+    @Test
+    void productIdOf_ShouldAcceptObjectIdsFromScripts() {
+        // Given
+        ObjectId id = new ObjectId();
+        when(event.getDocumentKey()).thenReturn(new BsonDocument("_id", new BsonObjectId(id)));
+
+        // Then
+        assertThat(ProductChangeStreamWatcher.productIdOf(event)).isEqualTo(id.toHexString());
+    }
+}
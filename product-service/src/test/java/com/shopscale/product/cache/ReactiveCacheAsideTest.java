@@ -0,0 +1,174 @@
+package com.shopscale.product.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveCacheAsideTest {
+
+    private static final RedisCacheConfiguration CONFIGURATION = RedisCacheConfiguration.defaultCacheConfig()
+            .entryTtl(Duration.ofMinutes(10))
+            .serializeValuesWith(SerializationPair.fromSerializer(RedisSerializer.string()));
+
+    private static final ByteBuffer RAW_KEY = utf8("products::prod_001");
+
+    @Mock
+    private TwoTierCacheManager cacheManager;
+
+    @Mock
+    private ReactiveRedisTemplate<ByteBuffer, ByteBuffer> redisTemplate;
+
+    @Mock
+    private ReactiveValueOperations<ByteBuffer, ByteBuffer> valueOperations;
+
+    private MeterRegistry meterRegistry;
+    private TwoTierCache cache;
+    private ReactiveCacheAside cacheAside;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new TwoTierCache("products", new ConcurrentMapCache("products", false), 100, Duration.ofMinutes(5),
+                null, List.of(),
+                new SingleFlightLoader("products", null, Duration.ofMillis(5), meterRegistry),
+                new EarlyRefreshPolicy(0), null, meterRegistry);
+        lenient().when(cacheManager.getTwoTierCache("products")).thenReturn(cache);
+        lenient().when(cacheManager.getRemoteConfiguration("products")).thenReturn(CONFIGURATION);
+        lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        cacheAside = new ReactiveCacheAside(cacheManager, redisTemplate);
+    }
+
+    @Test
+    void get_ShouldServeRedisHitAndPromoteItIntoLocalTier() {
+        // Given
+        when(valueOperations.get(RAW_KEY)).thenReturn(Mono.just(utf8("laptop")));
+
+        // When
+        StepVerifier.create(cacheAside.get("products", "prod_001", String.class, () -> Mono.just("loaded")))
+                .expectNext("laptop")
+                .verifyComplete();
+
+        // Then - the second read is served by L1 without another Redis round trip
+        StepVerifier.create(cacheAside.get("products", "prod_001", String.class, () -> Mono.just("loaded")))
+                .expectNext("laptop")
+                .verifyComplete();
+        verify(valueOperations).get(RAW_KEY);
+        assertThat(counter("l1", "hit")).isEqualTo(1.0);
+        assertThat(counter("l2", "hit")).isEqualTo(1.0);
+    }
+
+    @Test
+    void get_ShouldLoadOnMissAndWriteBothTiersWithTtl() {
+        // Given
+        when(valueOperations.get(RAW_KEY)).thenReturn(Mono.empty());
+        when(valueOperations.set(eq(RAW_KEY), any(ByteBuffer.class), eq(Duration.ofMinutes(10))))
+                .thenReturn(Mono.just(true));
+
+        // When
+        StepVerifier.create(cacheAside.get("products", "prod_001", String.class, () -> Mono.just("loaded")))
+                .expectNext("loaded")
+                .verifyComplete();
+
+        // Then
+        verify(valueOperations).set(RAW_KEY, utf8("loaded"), Duration.ofMinutes(10));
+        assertThat(cache.getLocal("prod_001").get()).isEqualTo("loaded");
+        assertThat(counter("l2", "miss")).isEqualTo(1.0);
+    }
+
+    @Test
+    void get_ShouldTreatRedisFailureAsMiss() {
+        // Given
+        when(valueOperations.get(RAW_KEY)).thenReturn(Mono.error(new IllegalStateException("connection refused")));
+        when(valueOperations.set(eq(RAW_KEY), any(ByteBuffer.class), any(Duration.class)))
+                .thenReturn(Mono.error(new IllegalStateException("connection refused")));
+
+        // When / Then - the loader still answers and L1 still caches it
+        StepVerifier.create(cacheAside.get("products", "prod_001", String.class, () -> Mono.just("loaded")))
+                .expectNext("loaded")
+                .verifyComplete();
+        assertThat(cache.getLocal("prod_001").get()).isEqualTo("loaded");
+    }
+
+    @Test
+    void get_ShouldNotCacheEmptyOrFailedLoads() {
+        // Given
+        when(valueOperations.get(RAW_KEY)).thenReturn(Mono.empty());
+
+        // When / Then
+        StepVerifier.create(cacheAside.get("products", "prod_001", String.class, Mono::empty))
+                .verifyComplete();
+        StepVerifier.create(cacheAside.get("products", "prod_001", String.class,
+                        () -> Mono.error(new IllegalStateException("boom"))))
+                .verifyError(IllegalStateException.class);
+        verify(valueOperations, never()).set(any(), any(), any(Duration.class));
+        assertThat(cache.getLocal("prod_001")).isNull();
+    }
+
+    @Test
+    void get_ShouldCoalesceConcurrentLoadsOfOneKey() {
+        // Given - Redis answers only once both reads have subscribed
+        when(valueOperations.get(RAW_KEY)).thenReturn(Mono.delay(Duration.ofMillis(50)).then(Mono.empty()));
+        when(valueOperations.set(eq(RAW_KEY), any(ByteBuffer.class), any(Duration.class)))
+                .thenReturn(Mono.just(true));
+        AtomicInteger loads = new AtomicInteger();
+
+        // When
+        Mono<String> first = cacheAside.get("products", "prod_001", String.class,
+                () -> Mono.fromCallable(() -> "loaded-" + loads.incrementAndGet()));
+        Mono<String> second = cacheAside.get("products", "prod_001", String.class,
+                () -> Mono.fromCallable(() -> "loaded-" + loads.incrementAndGet()));
+
+        // Then
+        StepVerifier.create(Mono.zip(first, second))
+                .assertNext(both -> assertThat(both.getT2()).isEqualTo(both.getT1()))
+                .verifyComplete();
+        assertThat(loads).hasValue(1);
+        verify(valueOperations).get(RAW_KEY);
+    }
+
+    @Test
+    void get_ShouldLoadDirectlyForCachesItDoesNotManage() {
+        // When / Then
+        StepVerifier.create(cacheAside.get("orders", "ord_001", String.class, () -> Mono.just("loaded")))
+                .expectNext("loaded")
+                .verifyComplete();
+        verify(redisTemplate, never()).opsForValue();
+    }
+
+    private double counter(String tier, String result) {
+        return meterRegistry.get("cache.tier.requests")
+                .tag("cache", "products").tag("tier", tier).tag("result", result)
+                .counter().count();
+    }
+
+    private static ByteBuffer utf8(String value) {
+        return ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,210 @@
+package com.shopscale.product.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SingleFlightLoaderTest {
+
+    @Mock
+    private RedisLoadLock loadLock;
+
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void load_ShouldRunOneLoadForConcurrentMissesOnSameKey() throws Exception {
+        // Given
+        SingleFlightLoader loader = new SingleFlightLoader("products", null, Duration.ofMillis(5), meterRegistry);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            // When
+            List<Future<Object>> results = new ArrayList<>();
+            results.add(executor.submit(() -> loader.load("prod_001", () -> null, () -> {
+                loads.incrementAndGet();
+                loaderStarted.countDown();
+                releaseLoader.await();
+                return "laptop";
+            })));
+            loaderStarted.await(5, TimeUnit.SECONDS);
+            for (int i = 0; i < 7; i++) {
+                results.add(executor.submit(() -> loader.load("prod_001", () -> null, () -> {
+                    loads.incrementAndGet();
+                    return "duplicate";
+                })));
+            }
+            // Give the followers time to join the in-flight load before it completes
+            while (meterRegistry.get("cache.loads").tag("result", "coalesced").counter().count() < 7) {
+                Thread.sleep(1);
+            }
+            releaseLoader.countDown();
+
+            // Then
+            for (Future<Object> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("laptop");
+            }
+            assertThat(loads.get()).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void load_ShouldPropagateLoaderFailureToWaiters() throws Exception {
+        // Given
+        SingleFlightLoader loader = new SingleFlightLoader("products", null, Duration.ofMillis(5), meterRegistry);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<Object> leader = executor.submit(() -> loader.load("prod_001", () -> null, () -> {
+                releaseLoader.await();
+                throw new IllegalStateException("mongo down");
+            }));
+            while (!loader.isLoading("prod_001")) {
+                Thread.sleep(1);
+            }
+
+            // When
+            AtomicReference<Throwable> waiterError = new AtomicReference<>();
+            Thread waiter = new Thread(() -> {
+                try {
+                    loader.load("prod_001", () -> null, () -> "unused");
+                } catch (Throwable t) {
+                    waiterError.set(t);
+                }
+            });
+            waiter.start();
+            while (meterRegistry.get("cache.loads").tag("result", "coalesced").counter().count() < 1) {
+                Thread.sleep(1);
+            }
+            releaseLoader.countDown();
+            waiter.join(5000);
+
+            // Then
+            assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+            assertThat(waiterError.get()).isInstanceOf(IllegalStateException.class).hasMessage("mongo down");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void load_ShouldUseValueFilledByLockHolderInsteadOfLoading() {
+        // Given - another instance holds the lock and fills Redis while we wait
+        when(loadLock.tryAcquire("products", "prod_001")).thenReturn(null);
+        when(loadLock.getLockTtl()).thenReturn(Duration.ofSeconds(1));
+        when(loadLock.isHeld("products", "prod_001")).thenReturn(true);
+        SingleFlightLoader loader = new SingleFlightLoader("products", loadLock, Duration.ofMillis(1), meterRegistry);
+        AtomicInteger lookups = new AtomicInteger();
+
+        // When
+        Object value = loader.load("prod_001",
+                () -> lookups.incrementAndGet() < 3 ? null : new SimpleValueWrapper("from-redis"),
+                () -> {
+                    throw new AssertionError("should not load");
+                });
+
+        // Then
+        assertThat(value).isEqualTo("from-redis");
+        verify(loadLock, never()).release(anyString(), any(), anyString());
+    }
+
+    @Test
+    void load_ShouldStopWaitingWhenLockIsReleasedWithoutValue() {
+        // Given - the lock holder finds nothing (or fails) and releases the lock on the second poll
+        when(loadLock.tryAcquire("products", "prod_404")).thenReturn(null);
+        when(loadLock.getLockTtl()).thenReturn(Duration.ofSeconds(30));
+        when(loadLock.isHeld("products", "prod_404")).thenReturn(true, false);
+        SingleFlightLoader loader = new SingleFlightLoader("products", loadLock, Duration.ofMillis(1), meterRegistry);
+        long start = System.nanoTime();
+
+        // When & Then
+        assertThatThrownBy(() -> loader.load("prod_404", () -> null, () -> {
+            throw new IllegalArgumentException("not found");
+        })).isInstanceOf(IllegalArgumentException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+        verify(loadLock, times(2)).isHeld("products", "prod_404");
+    }
+
+    @Test
+    void refresh_ShouldSkipWhenAnotherInstanceHoldsTheLock() {
+        // Given
+        when(loadLock.tryAcquire("products", "prod_001")).thenReturn(null);
+        SingleFlightLoader loader = new SingleFlightLoader("products", loadLock, Duration.ofMillis(1), meterRegistry);
+
+        // When
+        boolean refreshed = loader.refresh("prod_001", () -> {
+            throw new AssertionError("should not load");
+        });
+
+        // Then
+        assertThat(refreshed).isFalse();
+        assertThat(loader.isLoading("prod_001")).isFalse();
+    }
+
+    @Test
+    void load_ShouldNotJoinARefreshThatSkipsWithoutValue() throws Exception {
+        // Given - a refresh is still asking for the lock, which another instance holds
+        CountDownLatch refreshAsking = new CountDownLatch(1);
+        CountDownLatch lockAnswered = new CountDownLatch(1);
+        AtomicInteger lockRequests = new AtomicInteger();
+        when(loadLock.tryAcquire("products", "prod_001")).thenAnswer(invocation -> {
+            if (lockRequests.incrementAndGet() > 1) {
+                return "token";
+            }
+            refreshAsking.countDown();
+            lockAnswered.await(5, TimeUnit.SECONDS);
+            return null;
+        });
+        SingleFlightLoader loader = new SingleFlightLoader("products", loadLock, Duration.ofMillis(1), meterRegistry);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            Future<Boolean> refreshed = executor.submit(() -> loader.refresh("prod_001", () -> "refreshed"));
+            refreshAsking.await(5, TimeUnit.SECONDS);
+
+            // When - the entry is evicted meanwhile and a miss loads it
+            Future<Object> loaded = executor.submit(() -> loader.load("prod_001", () -> null, () -> "laptop"));
+
+            // Then - the miss loads for itself instead of sharing the refresh's empty result
+            assertThat(loaded.get(5, TimeUnit.SECONDS)).isEqualTo("laptop");
+            lockAnswered.countDown();
+            assertThat(refreshed.get(5, TimeUnit.SECONDS)).isFalse();
+            assertThat(meterRegistry.get("cache.loads").tag("result", "coalesced").counter().count()).isZero();
+        } finally {
+            lockAnswered.countDown();
+            executor.shutdownNow();
+        }
+    }
+}
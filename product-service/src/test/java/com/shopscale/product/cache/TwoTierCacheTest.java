@@ -0,0 +1,249 @@
+package com.shopscale.product.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TwoTierCacheTest {
+
+    @Mock
+    private CacheInvalidationPublisher invalidationPublisher;
+
+    private ConcurrentMapCache remoteCache;
+    private MeterRegistry meterRegistry;
+    private TwoTierCache cache;
+
+    @BeforeEach
+    void setUp() {
+        remoteCache = new ConcurrentMapCache("products", false);
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new TwoTierCache("products", remoteCache, 100, Duration.ofMinutes(5),
+                invalidationPublisher, List.of(),
+                new SingleFlightLoader("products", null, Duration.ofMillis(5), meterRegistry),
+                new EarlyRefreshPolicy(0), null, meterRegistry);
+    }
+
+    @Test
+    void get_ShouldPromoteRemoteHitIntoLocalTier() {
+        // Given
+        remoteCache.put("prod_001", "laptop");
+
+        // When
+        assertThat(cache.get("prod_001").get()).isEqualTo("laptop");
+        remoteCache.evict("prod_001");
+
+        // Then - second read is served by L1 even though L2 no longer has it
+        assertThat(cache.get("prod_001").get()).isEqualTo("laptop");
+        assertThat(counter("l1", "hit")).isEqualTo(1.0);
+        assertThat(counter("l2", "hit")).isEqualTo(1.0);
+    }
+
+    @Test
+    void get_ShouldReturnNullAndCountMissesWhenAbsentFromBothTiers() {
+        // When
+        assertThat(cache.get("missing")).isNull();
+
+        // Then
+        assertThat(counter("l1", "miss")).isEqualTo(1.0);
+        assertThat(counter("l2", "miss")).isEqualTo(1.0);
+    }
+
+    @Test
+    void getWithLoader_ShouldLoadOnceAndPopulateBothTiers() {
+        // When
+        String first = cache.get("prod_001", () -> "loaded");
+        String second = cache.get("prod_001", () -> "reloaded");
+
+        // Then
+        assertThat(first).isEqualTo("loaded");
+        assertThat(second).isEqualTo("loaded");
+        assertThat(remoteCache.get("prod_001").get()).isEqualTo("loaded");
+    }
+
+    @Test
+    void putIfAbsent_ShouldNeverWriteNullToEitherTier() {
+        // Given
+        cache.put("prod_002", "phone");
+
+        // When
+        Cache.ValueWrapper absent = cache.putIfAbsent("prod_001", null);
+        Cache.ValueWrapper present = cache.putIfAbsent("prod_002", null);
+
+        // Then
+        assertThat(absent).isNull();
+        assertThat(remoteCache.get("prod_001")).isNull();
+        assertThat(present.get()).isEqualTo("phone");
+        assertThat(remoteCache.get("prod_002").get()).isEqualTo("phone");
+    }
+
+    @Test
+    void evict_ShouldClearBothTiersAndBroadcast() {
+        // Given
+        cache.put("prod_001", "laptop");
+
+        // When
+        cache.evict("prod_001");
+
+        // Then
+        assertThat(remoteCache.get("prod_001")).isNull();
+        assertThat(cache.get("prod_001")).isNull();
+        verify(invalidationPublisher).publishEvict("products", "prod_001");
+    }
+
+    @Test
+    void invalidateLocal_ShouldOnlyDropLocalCopy() {
+        // Given
+        cache.put("prod_001", "laptop");
+
+        // When
+        cache.invalidateLocal("prod_001");
+
+        // Then - L2 still serves the entry and nothing is rebroadcast
+        assertThat(remoteCache.get("prod_001").get()).isEqualTo("laptop");
+        assertThat(cache.get("prod_001").get()).isEqualTo("laptop");
+        verify(invalidationPublisher, never()).publishEvict("products", "prod_001");
+    }
+
+    @Test
+    void clear_ShouldEmptyBothTiersAndBroadcast() {
+        // Given
+        cache.put("prod_001", "laptop");
+        cache.put("all", "everything");
+
+        // When
+        cache.clear();
+
+        // Then
+        assertThat(cache.get("prod_001")).isNull();
+        assertThat(cache.get("all")).isNull();
+        verify(invalidationPublisher).publishClear("products");
+    }
+
+    @Test
+    void getWithLoader_ShouldRefreshEntryAheadOfExpiryWhenPolicyFires() {
+        // Given - a policy that always decides the entry is about to expire
+        EarlyRefreshPolicy alwaysRefresh = new EarlyRefreshPolicy(1.0, Clock.systemUTC(), () -> 0.0);
+        TwoTierCache refreshingCache = new TwoTierCache("products", remoteCache, 100, Duration.ofMinutes(5),
+                invalidationPublisher, List.of(),
+                new SingleFlightLoader("products", null, Duration.ofMillis(5), meterRegistry),
+                alwaysRefresh, null, meterRegistry);
+        refreshingCache.get("prod_001", () -> "v1");
+
+        // When - the hit still returns the cached value but recomputes it for later readers
+        String served = refreshingCache.get("prod_001", () -> "v2");
+
+        // Then
+        assertThat(served).isEqualTo("v1");
+        assertThat(remoteCache.get("prod_001").get()).isEqualTo("v2");
+        assertThat(refreshingCache.get("prod_001").get()).isEqualTo("v2");
+        assertThat(meterRegistry.get("cache.early.refreshes").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void getAll_ShouldReadLocalMissesFromRemoteInOneBulkCall() {
+        // Given
+        RedisBulkCacheOperations bulkOperations = mock(RedisBulkCacheOperations.class);
+        TwoTierCache bulkCache = new TwoTierCache("products", remoteCache, 100, Duration.ofMinutes(5),
+                invalidationPublisher, List.of(),
+                new SingleFlightLoader("products", null, Duration.ofMillis(5), meterRegistry),
+                new EarlyRefreshPolicy(0), bulkOperations, meterRegistry);
+        bulkCache.put("prod_001", "laptop");
+        when(bulkOperations.multiGet(List.of("prod_002", "prod_003"))).thenReturn(Arrays.asList("chair", null));
+
+        // When
+        Map<Object, Object> found = bulkCache.getAll(List.of("prod_001", "prod_002", "prod_003"));
+
+        // Then - remote hits are promoted, so a second read stays local
+        assertThat(found).containsExactly(entry("prod_001", "laptop"), entry("prod_002", "chair"));
+        assertThat(bulkCache.getAll(List.of("prod_002"))).containsExactly(entry("prod_002", "chair"));
+        verify(bulkOperations, times(1)).multiGet(anyList());
+        assertThat(counter("l2", "hit")).isEqualTo(1.0);
+        assertThat(counter("l2", "miss")).isEqualTo(1.0);
+    }
+
+    @Test
+    void getAll_ShouldTreatRemoteFailureAsMisses() {
+        // Given
+        RedisBulkCacheOperations bulkOperations = mock(RedisBulkCacheOperations.class);
+        TwoTierCache bulkCache = new TwoTierCache("products", remoteCache, 100, Duration.ofMinutes(5),
+                invalidationPublisher, List.of(),
+                new SingleFlightLoader("products", null, Duration.ofMillis(5), meterRegistry),
+                new EarlyRefreshPolicy(0), bulkOperations, meterRegistry);
+        when(bulkOperations.multiGet(anyList())).thenThrow(new RuntimeException("Redis down"));
+
+        // When & Then
+        assertThat(bulkCache.getAll(List.of("prod_001"))).isEmpty();
+    }
+
+    @Test
+    void putAll_ShouldWriteBothTiersAndNotifyListeners() {
+        // Given
+        CacheEntryListener listener = mock(CacheEntryListener.class);
+        TwoTierCache listeningCache = new TwoTierCache("products", remoteCache, 100, Duration.ofMinutes(5),
+                invalidationPublisher, List.of(listener),
+                new SingleFlightLoader("products", null, Duration.ofMillis(5), meterRegistry),
+                new EarlyRefreshPolicy(0), null, meterRegistry);
+
+        // When
+        listeningCache.putAll(Map.of("prod_001", "laptop", "prod_002", "chair"), 5);
+
+        // Then
+        assertThat(remoteCache.get("prod_001").get()).isEqualTo("laptop");
+        assertThat(listeningCache.getAll(List.of("prod_001", "prod_002")))
+                .containsOnly(entry("prod_001", "laptop"), entry("prod_002", "chair"));
+        verify(listener).onPut("products", "prod_001", "laptop");
+        verify(listener).onPut("products", "prod_002", "chair");
+    }
+
+    @Test
+    void getAndEvict_ShouldNotifyListenersOfHitsInEitherTierAndOfEvictions() {
+        // Given
+        CacheEntryListener listener = mock(CacheEntryListener.class);
+        TwoTierCache listeningCache = new TwoTierCache("products", remoteCache, 100, Duration.ofMinutes(5),
+                invalidationPublisher, List.of(listener),
+                new SingleFlightLoader("products", null, Duration.ofMillis(5), meterRegistry),
+                new EarlyRefreshPolicy(0), null, meterRegistry);
+        remoteCache.put("prod_001", "laptop");
+
+        // When - an L2 hit, an L1 hit and a miss
+        listeningCache.get("prod_001");
+        listeningCache.get("prod_001");
+        listeningCache.get("missing");
+        listeningCache.evict("prod_001");
+
+        // Then
+        verify(listener, times(2)).onHit("products", "prod_001");
+        verify(listener, never()).onHit("products", "missing");
+        verify(listener).onEvict("products", "prod_001");
+    }
+
+    private double counter(String tier, String result) {
+        return meterRegistry.get("cache.tier.requests")
+                .tag("tier", tier)
+                .tag("result", result)
+                .counter()
+                .count();
+    }
+}
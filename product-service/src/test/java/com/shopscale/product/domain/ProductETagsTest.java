@@ -0,0 +1,81 @@
+package com.shopscale.product.domain;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductETagsTest {
+
+    private Product testProduct;
+
+    @BeforeEach
+    void setUp() {
+        testProduct = new Product(
+                "Test Laptop",
+                "High-performance laptop",
+                new BigDecimal("1299.99"),
+                "electronics",
+                50
+        );
+        testProduct.setProductId("prod_001");
+        testProduct.setVersion(3L);
+    }
+
+    @Test
+    void ofProduct_ShouldChangeWithEveryWrite() {
+        // Given
+        String before = ProductETags.of(testProduct);
+
+        // When
+        testProduct.setUpdatedAt(testProduct.getUpdatedAt().plusSeconds(1));
+        testProduct.setVersion(4L);
+
+        // Then
+        assertThat(before).startsWith("prod_001-3-");
+        assertThat(ProductETags.of(testProduct)).isNotEqualTo(before).startsWith("prod_001-4-");
+    }
+
+    @Test
+    void ofList_ShouldDependOnMembersTheirUpdatesAndOrder() {
+        // Given
+        Product other = new Product("Phone", "Smartphone", new BigDecimal("699.00"), "electronics", 10);
+        other.setProductId("prod_002");
+        ProductSummary laptop = ProductSummary.of(testProduct);
+        ProductSummary phone = ProductSummary.of(other);
+
+        // When
+        String tag = ProductETags.of(List.of(laptop, phone));
+
+        // Then
+        assertThat(tag).hasSize(32).isEqualTo(ProductETags.of(List.of(laptop, phone)));
+        assertThat(ProductETags.of(List.of(phone, laptop))).isNotEqualTo(tag);
+        assertThat(ProductETags.of(List.of(laptop))).isNotEqualTo(tag);
+
+        testProduct.setUpdatedAt(testProduct.getUpdatedAt().plusSeconds(1));
+        assertThat(ProductETags.of(List.of(ProductSummary.of(testProduct), phone))).isNotEqualTo(tag);
+    }
+
+    @Test
+    void productPage_ShouldComputeTagOnceAndKeepCachedOne() {
+        // Given
+        List<ProductSummary> items = List.of(ProductSummary.of(testProduct));
+
+        // Then
+        assertThat(new ProductPage(items, null).etag()).isEqualTo(ProductETags.of(items));
+        assertThat(new ProductPage(items, null, "cached").etag()).isEqualTo("cached");
+    }
+
+    @Test
+    void productList_ShouldComputeTagOnceAndKeepCachedOne() {
+        // Given
+        List<ProductSummary> items = List.of(ProductSummary.of(testProduct));
+
+        // Then
+        assertThat(ProductList.of(items).etag()).isEqualTo(ProductETags.of(items));
+        assertThat(new ProductList(items, "cached").etag()).isEqualTo("cached");
+    }
+}
@@ -0,0 +1,93 @@
+package com.shopscale.product.listener;
+
+import com.shopscale.product.domain.StockLevel;
+import com.shopscale.product.event.InventoryUpdatedEvent;
+import com.shopscale.product.service.InventorySyncService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InventoryEventListenerTest {
+
+    @Mock
+    private InventorySyncService inventorySyncService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private InventoryEventListener listener;
+    private final LocalDateTime now = LocalDateTime.now();
+    private long offset;
+
+    @BeforeEach
+    void setUp() {
+        listener = new InventoryEventListener(inventorySyncService, meterRegistry);
+    }
+
+    @Test
+    void handleInventoryUpdates_ShouldApplyLatestQuantityPerProductInOneCall() {
+        // Given - the laptop's events arrive out of timestamp order, the phone's share one
+        List<ConsumerRecord<String, InventoryUpdatedEvent>> records = List.of(
+                record("prod_001", 10, now.minusSeconds(3)),
+                record("prod_001", 7, now.minusSeconds(1)),
+                record("prod_001", 9, now.minusSeconds(2)),
+                record("prod_002", 4, now.minusSeconds(2)),
+                record("prod_002", 3, now.minusSeconds(2)));
+        when(inventorySyncService.applyStockLevels(anyCollection())).thenReturn(1L);
+
+        // When
+        listener.handleInventoryUpdates(records);
+
+        // Then
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<StockLevel>> levels = ArgumentCaptor.forClass(Collection.class);
+        verify(inventorySyncService).applyStockLevels(levels.capture());
+        assertThat(levels.getValue()).containsExactly(
+                new StockLevel("prod_001", 7, now.minusSeconds(1)),
+                new StockLevel("prod_002", 3, now.minusSeconds(2)));
+        assertThat(count("received")).isEqualTo(5);
+        assertThat(count("coalesced")).isEqualTo(3);
+        assertThat(count("applied")).isEqualTo(1);
+        assertThat(count("stale")).isEqualTo(1);
+        assertThat(meterRegistry.get("product.inventory.event.age").timer().count()).isEqualTo(5);
+    }
+
+    @Test
+    void handleInventoryUpdates_ShouldSkipUndeserializableAndIncompleteEvents() {
+        // Given
+        List<ConsumerRecord<String, InventoryUpdatedEvent>> records = new ArrayList<>();
+        records.add(new ConsumerRecord<>("inventory-updated", 0, offset++, "prod_001", null));
+        records.add(record("prod_002", null, now));
+        records.add(record("prod_003", -1, now));
+
+        // When
+        listener.handleInventoryUpdates(records);
+
+        // Then
+        verifyNoInteractions(inventorySyncService);
+        assertThat(count("invalid")).isEqualTo(3);
+    }
+
+    private ConsumerRecord<String, InventoryUpdatedEvent> record(String productId, Integer quantity,
+                                                                  LocalDateTime timestamp) {
+        return new ConsumerRecord<>("inventory-updated", 0, offset++, productId,
+                new InventoryUpdatedEvent(productId, null, quantity, timestamp));
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("product.inventory.events").tag("result", result).counter().count();
+    }
+}
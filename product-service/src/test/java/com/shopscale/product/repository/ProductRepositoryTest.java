@@ -1,15 +1,29 @@
 package com.shopscale.product.repository;
 
 import com.shopscale.product.domain.Product;
+import com.shopscale.product.domain.ProductCursor;
+import com.shopscale.product.domain.ProductQuery;
+import com.shopscale.product.domain.ProductSummary;
+import com.shopscale.product.domain.StockLevel;
+import org.bson.Document;
+import org.bson.types.Decimal128;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -20,6 +34,9 @@ class ProductRepositoryTest {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
     private Product testProduct;
 
     @BeforeEach
@@ -104,6 +121,89 @@ class ProductRepositoryTest {
         assertThat(products.get(0).isActive()).isTrue();
     }
 
+    @Test
+    void findSummariesByQuery_ShouldApplyEveryFilterTogether() {
+        // Given
+        Product cheapLaptop = new Product("Budget Laptop", "Entry level", new BigDecimal("499.99"), "electronics", 20);
+        cheapLaptop.setProductId("prod_002");
+        Product soldOut = new Product("Gaming Laptop", "Sold out", new BigDecimal("1999.99"), "electronics", 0);
+        soldOut.setProductId("prod_003");
+        Product book = new Product("Laptop Repair Guide", "Book", new BigDecimal("1500.00"), "books", 5);
+        book.setProductId("prod_004");
+        productRepository.saveAll(List.of(cheapLaptop, soldOut, book));
+
+        // When
+        List<ProductSummary> summaries = productRepository.findSummariesByQuery(
+                new ProductQuery("electronics", "laptop", new BigDecimal("1000"), null, true), Pageable.unpaged());
+
+        // Then
+        assertThat(summaries).extracting(ProductSummary::productId).containsExactly("prod_001");
+    }
+
+    @Test
+    void findSummariesByQuery_ShouldReadOnlySummaryFields() {
+        // When
+        List<ProductSummary> summaries = productRepository.findSummariesByQuery(
+                new ProductQuery("electronics", null, null, null, true), Pageable.unpaged());
+
+        // Then
+        assertThat(summaries).singleElement().satisfies(summary -> {
+            assertThat(summary.productId()).isEqualTo("prod_001");
+            assertThat(summary.name()).isEqualTo("Test Laptop");
+            assertThat(summary.price()).isEqualByComparingTo("1299.99");
+            assertThat(summary.inStock()).isTrue();
+            assertThat(summary.createdAt()).isNotNull();
+        });
+    }
+
+    @Test
+    void findSummaryPage_ShouldContinueFromCursorIncludingTiesOnCreatedAt() {
+        // Given
+        Product tied = new Product("Tied Laptop", "Same timestamp", new BigDecimal("999.99"), "electronics", 5);
+        tied.setProductId("prod_002");
+        tied.setCreatedAt(testProduct.getCreatedAt());
+        Product inactive = new Product("Old Laptop", "Retired", new BigDecimal("99.99"), "electronics", 5);
+        inactive.setProductId("prod_003");
+        inactive.setCreatedAt(testProduct.getCreatedAt().plusSeconds(1));
+        inactive.deactivate();
+        Product newer = new Product("Newer Laptop", "Later", new BigDecimal("899.99"), "electronics", 5);
+        newer.setProductId("prod_004");
+        newer.setCreatedAt(testProduct.getCreatedAt().plusSeconds(2));
+        productRepository.saveAll(List.of(tied, inactive, newer));
+
+        // When
+        List<ProductSummary> first = productRepository.findSummaryPage(ProductQuery.ALL, null, 1);
+        List<ProductSummary> rest = productRepository.findSummaryPage(ProductQuery.ALL, ProductCursor.of(first.get(0)), 10);
+
+        // Then
+        assertThat(first).extracting(ProductSummary::productId).containsExactly("prod_001");
+        assertThat(rest).extracting(ProductSummary::productId).containsExactly("prod_002", "prod_004");
+    }
+
+    @Test
+    void findSummaryPage_ShouldApplyFiltersAlongsideCursor() {
+        // Given
+        Product later = new Product("Gaming Laptop", "Fast", new BigDecimal("1999.99"), "electronics", 0);
+        later.setProductId("prod_002");
+        later.setCreatedAt(testProduct.getCreatedAt().plusSeconds(1));
+        Product chair = new Product("Office Chair", "Ergonomic", new BigDecimal("199.99"), "furniture", 5);
+        chair.setProductId("prod_003");
+        chair.setCreatedAt(testProduct.getCreatedAt().plusSeconds(2));
+        productRepository.saveAll(List.of(later, chair));
+        ProductQuery electronics = new ProductQuery("electronics", null, null, null, false);
+
+        // When
+        List<ProductSummary> first = productRepository.findSummaryPage(electronics, null, 1);
+        List<ProductSummary> rest = productRepository.findSummaryPage(electronics, ProductCursor.of(first.get(0)), 10);
+        List<ProductSummary> inStock = productRepository.findSummaryPage(
+                new ProductQuery("electronics", null, null, null, true), null, 10);
+
+        // Then
+        assertThat(first).extracting(ProductSummary::productId).containsExactly("prod_001");
+        assertThat(rest).extracting(ProductSummary::productId).containsExactly("prod_002");
+        assertThat(inStock).extracting(ProductSummary::productId).containsExactly("prod_001");
+    }
+
     @Test
     void findByProductIdAndActiveTrue_ShouldReturnProductIfActive() {
         // When
@@ -127,6 +227,24 @@ class ProductRepositoryTest {
         assertThat(productOpt).isEmpty();
     }
 
+    @Test
+    void findByProductIdInAndActiveTrue_ShouldReturnOnlyActiveRequestedProducts() {
+        // Given
+        Product chair = new Product("Office Chair", "Ergonomic chair", new BigDecimal("199.99"), "furniture", 5);
+        chair.setProductId("prod_002");
+        Product retired = new Product("Old Mouse", "Retired model", new BigDecimal("9.99"), "electronics", 0);
+        retired.setProductId("prod_003");
+        retired.setActive(false);
+        productRepository.saveAll(List.of(chair, retired));
+
+        // When
+        List<Product> products = productRepository.findByProductIdInAndActiveTrue(
+                List.of("prod_001", "prod_002", "prod_003", "unknown"));
+
+        // Then
+        assertThat(products).extracting(Product::getProductId).containsExactlyInAnyOrder("prod_001", "prod_002");
+    }
+
     @Test
     void countByCategoryAndActiveTrue_ShouldReturnCorrectCount() {
         // Given
@@ -155,4 +273,159 @@ class ProductRepositoryTest {
         assertThat(saved.getName()).isEqualTo("New Product");
         assertThat(saved.getCreatedAt()).isNotNull();
     }
+
+    @Test
+    void updatePrice_ShouldSetOnlyPriceAndBumpVersion() {
+        // Given
+        long version = productRepository.findById("prod_001").orElseThrow().getVersion();
+
+        // When
+        Optional<Product> updated = productRepository.updatePrice("prod_001", new BigDecimal("1199.99"), version);
+        Optional<Product> stale = productRepository.updatePrice("prod_001", new BigDecimal("999.99"), version);
+
+        // Then - the second writer read the same version and loses
+        assertThat(updated).isPresent();
+        assertThat(updated.get().getPrice()).isEqualByComparingTo("1199.99");
+        assertThat(updated.get().getVersion()).isEqualTo(version + 1);
+        assertThat(updated.get().getName()).isEqualTo("Test Laptop");
+        assertThat(stale).isEmpty();
+    }
+
+    @Test
+    void adjustStock_ShouldApplyConcurrentDecrementsWithoutOverselling() throws Exception {
+        // Given
+        productRepository.updateStock("prod_001", 10, null);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Optional<Product>>> results = new ArrayList<>();
+
+        // When - 20 buyers race for 10 units
+        for (int i = 0; i < 20; i++) {
+            results.add(executor.submit(() -> productRepository.adjustStock("prod_001", -1)));
+        }
+        long succeeded = 0;
+        for (Future<Optional<Product>> result : results) {
+            succeeded += result.get().isPresent() ? 1 : 0;
+        }
+        executor.shutdown();
+
+        // Then
+        assertThat(succeeded).isEqualTo(10);
+        assertThat(productRepository.findById("prod_001").orElseThrow().getStockQuantity()).isZero();
+    }
+
+    @Test
+    void aggregatePriceHistograms_ShouldCountActiveProductsPerCategoryAndBucket() {
+        // Given
+        Product chair = new Product("Office Chair", "Ergonomic chair", new BigDecimal("199.99"), "furniture", 5);
+        chair.setProductId("prod_002");
+        Product mouse = new Product("Mouse", "Wireless", new BigDecimal("100.00"), "electronics", 0);
+        mouse.setProductId("prod_003");
+        Product retired = new Product("Old Mouse", "Retired model", new BigDecimal("9.99"), "electronics", 0);
+        retired.setProductId("prod_004");
+        retired.setActive(false);
+        productRepository.saveAll(List.of(chair, mouse, retired));
+
+        // When
+        Map<String, long[]> histograms = productRepository.aggregatePriceHistograms(
+                List.of(new BigDecimal("100"), new BigDecimal("1000")));
+
+        // Then
+        assertThat(histograms).containsOnlyKeys("electronics", "furniture");
+        assertThat(histograms.get("electronics")).containsExactly(0, 1, 1);
+        assertThat(histograms.get("furniture")).containsExactly(0, 1, 0);
+    }
+
+    @Test
+    void convertStringPrices_ShouldStoreDecimal128AndBeRepeatable() {
+        // Given - a price written before the DECIMAL128 mapping
+        mongoTemplate.getCollection("products").updateOne(new Document("_id", "prod_001"),
+                new Document("$set", new Document("price", "1299.99")));
+
+        // When
+        long converted = productRepository.convertStringPrices();
+        long repeated = productRepository.convertStringPrices();
+
+        // Then
+        assertThat(converted).isEqualTo(1);
+        assertThat(repeated).isZero();
+        Document stored = mongoTemplate.getCollection("products").find(new Document("_id", "prod_001")).first();
+        assertThat(stored.get("price")).isEqualTo(Decimal128.parse("1299.99"));
+        assertThat(productRepository.findByPriceBetweenAndActiveTrue(new BigDecimal("1000"), new BigDecimal("1500")))
+                .extracting(Product::getProductId).containsExactly("prod_001");
+    }
+
+    @Test
+    void backfillNameTokens_ShouldMakeOlderProductsFindableByShortSearches() {
+        // Given - a product saved before nameTokens existed
+        mongoTemplate.getCollection("products").updateOne(new Document("_id", "prod_001"),
+                new Document("$unset", new Document("nameTokens", "")));
+        ProductQuery query = new ProductQuery(null, "lap", null, null, false);
+        assertThat(productRepository.findSummariesByQuery(query, Pageable.unpaged())).isEmpty();
+
+        // When
+        long updated = productRepository.backfillNameTokens();
+        long repeated = productRepository.backfillNameTokens();
+
+        // Then
+        assertThat(updated).isEqualTo(1);
+        assertThat(repeated).isZero();
+        assertThat(productRepository.findSummariesByQuery(query, Pageable.unpaged()))
+                .extracting(ProductSummary::productId).containsExactly("prod_001");
+    }
+
+    @Test
+    void applyStockLevels_ShouldKeepOnlyTheNewestLevelPerProduct() {
+        // Given
+        Product chair = new Product("Office Chair", "Ergonomic chair", new BigDecimal("199.99"), "furniture", 5);
+        chair.setProductId("prod_002");
+        productRepository.save(chair);
+        LocalDateTime t1 = LocalDateTime.of(2024, 5, 1, 12, 0);
+        productRepository.applyStockLevels(List.of(new StockLevel("prod_001", 7, t1.plusMinutes(5))));
+        long version = productRepository.findById("prod_001").orElseThrow().getVersion();
+
+        // When - an older level for the laptop arrives late, alongside a first level for the chair
+        long changed = productRepository.applyStockLevels(List.of(
+                new StockLevel("prod_001", 3, t1),
+                new StockLevel("prod_002", 0, t1),
+                new StockLevel("unknown", 4, t1)));
+        long repeated = productRepository.applyStockLevels(List.of(new StockLevel("prod_002", 0, t1)));
+
+        // Then
+        assertThat(changed).isEqualTo(1);
+        assertThat(repeated).isZero();
+        Product laptop = productRepository.findById("prod_001").orElseThrow();
+        assertThat(laptop.getStockQuantity()).isEqualTo(7);
+        assertThat(laptop.getVersion()).isEqualTo(version);
+        Product updatedChair = productRepository.findById("prod_002").orElseThrow();
+        assertThat(updatedChair.getStockQuantity()).isZero();
+        assertThat(updatedChair.getInventoryUpdatedAt()).isEqualTo(t1);
+    }
+
+    @Test
+    void findVersions_ShouldReturnVersionsOfActiveProductsOnly() {
+        // Given
+        Product chair = new Product("Office Chair", "Ergonomic chair", new BigDecimal("199.99"), "furniture", 5);
+        chair.setProductId("prod_002");
+        chair.setActive(false);
+        productRepository.save(chair);
+        long version = productRepository.findById("prod_001").orElseThrow().getVersion();
+
+        // When
+        Map<String, Long> versions = productRepository.findVersions(List.of("prod_001", "prod_002", "unknown"));
+
+        // Then
+        assertThat(versions).containsExactly(Map.entry("prod_001", version));
+    }
+
+    @Test
+    void deactivate_ShouldMarkProductInactiveInPlace() {
+        // When
+        Optional<Product> deactivated = productRepository.deactivate("prod_001");
+
+        // Then
+        assertThat(deactivated).isPresent();
+        assertThat(deactivated.get().isActive()).isFalse();
+        assertThat(productRepository.findByProductIdAndActiveTrue("prod_001")).isEmpty();
+        assertThat(productRepository.adjustStock("prod_001", 1)).isEmpty();
+    }
 }
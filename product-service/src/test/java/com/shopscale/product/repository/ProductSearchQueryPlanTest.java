@@ -0,0 +1,148 @@
+package com.shopscale.product.repository;
+
+import com.mongodb.ExplainVerbosity;
+import com.shopscale.product.domain.Product;
+import com.shopscale.product.domain.ProductQuery;
+import com.shopscale.product.domain.ProductSummary;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares query plans of the old regex search with the text-index and prefix paths
+ */
+@DataMongoTest
+@ActiveProfiles("test")
+class ProductSearchQueryPlanTest {
+
+    private static final int CATALOGUE_SIZE = 200;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoMappingContext mappingContext;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAll();
+
+        IndexOperations indexOps = mongoTemplate.indexOps(Product.class);
+        new MongoPersistentEntityIndexResolver(mappingContext).resolveIndexFor(Product.class)
+                .forEach(indexOps::ensureIndex);
+
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < CATALOGUE_SIZE; i++) {
+            String name = i % 40 == 0 ? "Gaming Laptop " + i : "Desk Chair " + i;
+            Product product = new Product(name, "Catalogue item " + i, new BigDecimal("99.99"), "misc", 10);
+            product.setProductId("prod_" + i);
+            products.add(product);
+        }
+        productRepository.saveAll(products);
+    }
+
+    @Test
+    void regexSearch_ShouldExamineEveryDocument() {
+        // Given - the query findByNameContainingIgnoreCaseAndActiveTrue used to run
+        Document regexFilter = new Document("name", new Document("$regex", "laptop").append("$options", "i"))
+                .append("active", true);
+
+        // When
+        Document explain = explain(new BasicQuery(regexFilter));
+
+        // Then - whether it scans the collection or the whole name index, nothing is skipped
+        Document stats = explain.get("executionStats", Document.class);
+        long examined = Math.max(stats.get("totalDocsExamined", Number.class).longValue(),
+                stats.get("totalKeysExamined", Number.class).longValue());
+        assertThat(examined).isGreaterThanOrEqualTo(CATALOGUE_SIZE);
+    }
+
+    @Test
+    void textSearch_ShouldUseTextIndexAndExamineOnlyMatches() {
+        // Given
+        ProductQuery query = new ProductQuery(null, "laptops", null, null, false);
+        PageRequest page = PageRequest.of(0, 20);
+
+        // When
+        Document explain = explain(ProductRepositoryImpl.summariesQuery(query, page));
+        List<ProductSummary> results = productRepository.findSummariesByQuery(query, page);
+
+        // Then
+        assertThat(stages(explain)).contains("TEXT_MATCH").doesNotContain("COLLSCAN");
+        Document stats = explain.get("executionStats", Document.class);
+        assertThat(stats.get("totalDocsExamined", Number.class).longValue()).isEqualTo(CATALOGUE_SIZE / 40);
+        assertThat(results).hasSize(CATALOGUE_SIZE / 40)
+                .allSatisfy(summary -> assertThat(summary.name()).startsWith("Gaming Laptop"));
+    }
+
+    @Test
+    void shortSearch_ShouldUseBoundedPrefixScanOnNameTokens() {
+        // Given
+        ProductQuery query = new ProductQuery(null, "Lap", null, null, false);
+        PageRequest page = PageRequest.of(0, 20);
+
+        // When
+        Document explain = explain(ProductRepositoryImpl.summariesQuery(query, page));
+        List<ProductSummary> results = productRepository.findSummariesByQuery(query, page);
+
+        // Then
+        assertThat(stages(explain)).contains("IXSCAN").doesNotContain("COLLSCAN");
+        Document stats = explain.get("executionStats", Document.class);
+        assertThat(stats.get("totalKeysExamined", Number.class).longValue()).isLessThan(CATALOGUE_SIZE / 10);
+        assertThat(results).hasSize(CATALOGUE_SIZE / 40);
+    }
+
+    /**
+     * Explain the query as the repository sends it: mapped filter, projection, sort and limit
+     */
+    private Document explain(Query query) {
+        QueryMapper mapper = new QueryMapper(mongoTemplate.getConverter());
+        MongoPersistentEntity<?> entity = mappingContext.getRequiredPersistentEntity(Product.class);
+        return mongoTemplate.getCollection("products")
+                .find(mapper.getMappedObject(query.getQueryObject(), entity))
+                .projection(mapper.getMappedFields(query.getFieldsObject(), entity))
+                .sort(mapper.getMappedSort(query.getSortObject(), entity))
+                .limit(query.getLimit())
+                .explain(ExplainVerbosity.EXECUTION_STATS);
+    }
+
+    private static Set<String> stages(Document explain) {
+        Set<String> stages = new TreeSet<>();
+        collectStages(explain.get("queryPlanner", Document.class).get("winningPlan"), stages);
+        return stages;
+    }
+
+    private static void collectStages(Object node, Set<String> stages) {
+        if (node instanceof Document document) {
+            if (document.containsKey("stage")) {
+                stages.add(document.getString("stage"));
+            }
+            document.values().forEach(value -> collectStages(value, stages));
+        } else if (node instanceof List<?> list) {
+            list.forEach(value -> collectStages(value, stages));
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.shopscale.product.search;
+
+import com.shopscale.product.domain.Product;
+import com.shopscale.product.event.ProductChangedEvent;
+import com.shopscale.product.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductPriceIndexTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Test
+    void findIds_ShouldReturnInclusiveRangeCheapestFirstWithinCategory() {
+        // Given
+        ProductPriceIndex index = indexOf(
+                product("prod_1", "1299.99", "electronics"),
+                product("prod_2", "19.99", "electronics"),
+                product("prod_3", "199.99", "furniture"),
+                product("prod_4", "199.99", "electronics"),
+                product("prod_5", "1000.00", "electronics"));
+
+        // When
+        List<String> all = index.findIds(null, new BigDecimal("19.99"), new BigDecimal("1000"), 0, 10).orElseThrow();
+        List<String> electronics = index.findIds("electronics", new BigDecimal("100"), null, 0, 10).orElseThrow();
+
+        // Then - equal prices are ordered by product ID
+        assertThat(all).containsExactly("prod_2", "prod_3", "prod_4", "prod_5");
+        assertThat(electronics).containsExactly("prod_4", "prod_5", "prod_1");
+        assertThat(index.findIds("toys", null, new BigDecimal("100"), 0, 10)).contains(List.of());
+    }
+
+    @Test
+    void findIds_ShouldCompareSubCentPricesExactlyAtTheBounds() {
+        // Given
+        ProductPriceIndex index = indexOf(
+                product("prod_1", "10.001", "electronics"),
+                product("prod_2", "10.00", "electronics"),
+                product("prod_3", "10.009", "electronics"),
+                product("prod_4", "10.01", "electronics"));
+
+        // When
+        List<String> result = index.findIds(null, new BigDecimal("10.001"), new BigDecimal("10.005"), 0, 10)
+                .orElseThrow();
+
+        // Then
+        assertThat(result).containsExactly("prod_1");
+    }
+
+    @Test
+    void findIds_ShouldPageByOffset() {
+        // Given
+        ProductPriceIndex index = indexOf(
+                product("prod_1", "1.00", "a"),
+                product("prod_2", "2.00", "a"),
+                product("prod_3", "3.00", "b"),
+                product("prod_4", "4.00", "a"),
+                product("prod_5", "5.00", "b"));
+
+        // When
+        List<String> second = index.findIds(null, new BigDecimal("2"), null, 2, 2).orElseThrow();
+        List<String> beyond = index.findIds(null, new BigDecimal("2"), null, 10, 2).orElseThrow();
+        List<String> farBeyond = index.findIds("a", null, null, (long) Integer.MAX_VALUE * 500, 500).orElseThrow();
+
+        // Then
+        assertThat(second).containsExactly("prod_4", "prod_5");
+        assertThat(beyond).isEmpty();
+        assertThat(farBeyond).isEmpty();
+    }
+
+    @Test
+    void onProductChanged_ShouldMoveRepricedAndRecategorizedProductsAndDropDeactivatedOnes() {
+        // Given
+        Product laptop = product("prod_1", "1299.99", "electronics");
+        Product mouse = product("prod_2", "19.99", "electronics");
+        Product chair = product("prod_3", "199.99", "furniture");
+        ProductPriceIndex index = indexOf(laptop, mouse, chair);
+
+        // When
+        laptop.updatePrice(new BigDecimal("9.99"));
+        mouse.setCategory("accessories");
+        chair.deactivate();
+        index.onProductChanged(new ProductChangedEvent(List.of(laptop, mouse, chair,
+                product("prod_4", "49.99", "furniture"))));
+
+        // Then
+        assertThat(index.findIds(null, null, null, 0, 10).orElseThrow())
+                .containsExactly("prod_1", "prod_2", "prod_4");
+        assertThat(index.findIds("electronics", null, null, 0, 10).orElseThrow()).containsExactly("prod_1");
+        assertThat(index.findIds("accessories", null, null, 0, 10).orElseThrow()).containsExactly("prod_2");
+        assertThat(index.findIds("furniture", null, null, 0, 10).orElseThrow()).containsExactly("prod_4");
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    void onProductChanged_ShouldIgnoreChangesThatKeepPriceCategoryAndState() {
+        // Given
+        Product laptop = product("prod_1", "1299.99", "electronics");
+        ProductPriceIndex index = indexOf(laptop, product("prod_2", "19.99", "furniture"));
+
+        // When - a stock update and a rename
+        Product restocked = product("prod_1", "1299.99", "electronics");
+        restocked.updateStock(0);
+        restocked.setName("Laptop Pro");
+        index.onProductChanged(new ProductChangedEvent(restocked));
+
+        // Then
+        assertThat(index.findIds(null, null, null, 0, 10).orElseThrow()).containsExactly("prod_2", "prod_1");
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    @Test
+    void priceHistograms_ShouldCountEachCategoryPerBucketWithInclusiveLowerBounds() {
+        // Given
+        ProductPriceIndex index = indexOf(
+                product("prod_1", "9.99", "electronics"),
+                product("prod_2", "10.00", "electronics"),
+                product("prod_3", "99.99", "electronics"),
+                product("prod_4", "100.00", "electronics"),
+                product("prod_5", "45.00", "furniture"));
+
+        // When
+        Map<String, long[]> histograms = index.priceHistograms(
+                List.of(new BigDecimal("10"), new BigDecimal("100"))).orElseThrow();
+
+        // Then
+        assertThat(histograms).containsOnlyKeys("electronics", "furniture");
+        assertThat(histograms.get("electronics")).containsExactly(1, 2, 1);
+        assertThat(histograms.get("furniture")).containsExactly(0, 1, 0);
+    }
+
+    @Test
+    void findIds_ShouldDeclineUntilBuiltAndWhenFull() {
+        // Given
+        ProductPriceIndex unbuilt = new ProductPriceIndex(productRepository, 100);
+        when(productRepository.streamByActiveTrue(any(Sort.class))).thenReturn(Stream.of(
+                product("prod_1", "1.00", "a"),
+                product("prod_2", "2.00", "a"),
+                product("prod_3", "3.00", "a")));
+        ProductPriceIndex full = new ProductPriceIndex(productRepository, 2);
+
+        // When
+        full.rebuild();
+
+        // Then - a partial index would silently leave products out of ranges
+        assertThat(unbuilt.findIds(null, null, null, 0, 10)).isEmpty();
+        assertThat(full.findIds(null, null, null, 0, 10)).isEmpty();
+        assertThat(full.size()).isEqualTo(2);
+    }
+
+    @Test
+    void rebuild_ShouldKeepCurrentEntriesWhenRepositoryFails() {
+        // Given
+        ProductPriceIndex index = indexOf(product("prod_1", "1.00", "a"));
+        when(productRepository.streamByActiveTrue(any(Sort.class))).thenThrow(new RuntimeException("Mongo down"));
+
+        // When
+        index.rebuild();
+
+        // Then
+        assertThat(index.findIds(null, null, null, 0, 10).orElseThrow()).containsExactly("prod_1");
+    }
+
+    private ProductPriceIndex indexOf(Product... products) {
+        when(productRepository.streamByActiveTrue(any(Sort.class))).thenReturn(Stream.of(products));
+        ProductPriceIndex index = new ProductPriceIndex(productRepository, 100);
+        index.rebuild();
+        return index;
+    }
+
+    private static Product product(String productId, String price, String category) {
+        Product product = new Product("Product " + productId, "Description", new BigDecimal(price), category, 10);
+        product.setProductId(productId);
+        return product;
+    }
+}
@@ -0,0 +1,155 @@
+package com.shopscale.product.search;
+
+import com.shopscale.product.domain.Product;
+import com.shopscale.product.dto.ProductSuggestion;
+import com.shopscale.product.event.ProductChangedEvent;
+import com.shopscale.product.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductSuggestIndexTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Test
+    void suggest_ShouldMatchWordPrefixesInNameAndCategory() {
+        // Given
+        ProductSuggestIndex index = indexOf(
+                product("prod_1", "Gaming Laptop", "electronics"),
+                product("prod_2", "Office Chair", "furniture"),
+                product("prod_3", "Laptop Stand", "accessories"));
+
+        // When
+        List<ProductSuggestion> byName = index.suggest("lap", 10);
+        List<ProductSuggestion> byCategory = index.suggest("furn", 10);
+
+        // Then
+        assertThat(byName).extracting(ProductSuggestion::productId).containsExactlyInAnyOrder("prod_1", "prod_3");
+        assertThat(byCategory).extracting(ProductSuggestion::productId).containsExactly("prod_2");
+        assertThat(index.suggest("xyz", 10)).isEmpty();
+    }
+
+    @Test
+    void suggest_ShouldRankLeadingAndExactNameMatchesFirst() {
+        // Given
+        ProductSuggestIndex index = indexOf(
+                product("prod_1", "Gaming Laptop", "electronics"),
+                product("prod_2", "Laptop Stand", "accessories"),
+                product("prod_3", "Laptops Sleeve", "accessories"),
+                product("prod_4", "Desk Lamp", "laptop accessories"));
+
+        // When
+        List<ProductSuggestion> result = index.suggest("Laptop", 10);
+
+        // Then
+        assertThat(result).extracting(ProductSuggestion::productId)
+                .containsExactly("prod_2", "prod_1", "prod_3", "prod_4");
+    }
+
+    @Test
+    void suggest_ShouldRequireEveryWordAndRespectLimit() {
+        // Given
+        ProductSuggestIndex index = indexOf(
+                product("prod_1", "Gaming Laptop", "electronics"),
+                product("prod_2", "Gaming Mouse", "electronics"),
+                product("prod_3", "Gaming Headset", "electronics"));
+
+        // When
+        List<ProductSuggestion> twoWords = index.suggest("gam lap", 10);
+        List<ProductSuggestion> limited = index.suggest("gaming", 2);
+
+        // Then
+        assertThat(twoWords).extracting(ProductSuggestion::productId).containsExactly("prod_1");
+        assertThat(limited).hasSize(2);
+    }
+
+    @Test
+    void onProductChanged_ShouldReindexRenamedAndDropDeactivatedProducts() {
+        // Given
+        Product laptop = product("prod_1", "Gaming Laptop", "electronics");
+        Product chair = product("prod_2", "Office Chair", "furniture");
+        ProductSuggestIndex index = indexOf(laptop, chair);
+
+        // When
+        laptop.setName("Ultrabook");
+        chair.deactivate();
+        index.onProductChanged(new ProductChangedEvent(List.of(laptop, chair)));
+
+        // Then
+        assertThat(index.suggest("lap", 10)).isEmpty();
+        assertThat(index.suggest("ultra", 10)).extracting(ProductSuggestion::name).containsExactly("Ultrabook");
+        assertThat(index.suggest("chair", 10)).isEmpty();
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void rebuild_ShouldStopIndexingAtMaxEntries() {
+        // Given
+        when(productRepository.streamByActiveTrue(any(Sort.class))).thenReturn(Stream.of(
+                product("prod_1", "Desk Lamp", "lighting"),
+                product("prod_2", "Desk Chair", "furniture"),
+                product("prod_3", "Desk Fan", "appliances")));
+        ProductSuggestIndex index = new ProductSuggestIndex(productRepository, 2);
+
+        // When
+        index.rebuild();
+        index.onProductChanged(new ProductChangedEvent(product("prod_4", "Desk Mat", "accessories")));
+
+        // Then
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.suggest("desk", 10)).hasSize(2);
+    }
+
+    @Test
+    void rebuild_ShouldKeepCurrentEntriesWhenRepositoryFails() {
+        // Given
+        ProductSuggestIndex index = indexOf(product("prod_1", "Gaming Laptop", "electronics"));
+        when(productRepository.streamByActiveTrue(any(Sort.class))).thenThrow(new RuntimeException("Mongo down"));
+
+        // When
+        index.rebuild();
+
+        // Then
+        assertThat(index.suggest("gaming", 10)).hasSize(1);
+    }
+
+    @Test
+    void suggest_ShouldRejectOutOfRangeLimit() {
+        // Given
+        ProductSuggestIndex index = new ProductSuggestIndex(productRepository, 100);
+
+        // When & Then
+        assertThatThrownBy(() -> index.suggest("lap", 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> index.suggest("lap", ProductSuggestIndex.MAX_LIMIT + 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(index.suggest("  ", 10)).isEmpty();
+    }
+
+    private ProductSuggestIndex indexOf(Product... products) {
+        when(productRepository.streamByActiveTrue(any(Sort.class))).thenReturn(Stream.of(products));
+        ProductSuggestIndex index = new ProductSuggestIndex(productRepository, 100);
+        index.rebuild();
+        return index;
+    }
+
+    private static Product product(String productId, String name, String category) {
+        Product product = new Product(name, "Description of " + name, new BigDecimal("49.99"), category, 10);
+        product.setProductId(productId);
+        return product;
+    }
+}
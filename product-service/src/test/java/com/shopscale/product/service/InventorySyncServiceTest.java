@@ -0,0 +1,70 @@
+package com.shopscale.product.service;
+
+import com.shopscale.product.cache.ProductCacheRefresher;
+import com.shopscale.product.domain.Product;
+import com.shopscale.product.domain.StockLevel;
+import com.shopscale.product.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InventorySyncServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ProductCacheRefresher cacheRefresher;
+
+    private InventorySyncService inventorySyncService;
+    private List<StockLevel> levels;
+
+    @BeforeEach
+    void setUp() {
+        inventorySyncService = new InventorySyncService(productRepository, cacheRefresher);
+        LocalDateTime timestamp = LocalDateTime.now();
+        levels = List.of(new StockLevel("prod_001", 0, timestamp), new StockLevel("prod_002", 8, timestamp));
+    }
+
+    @Test
+    void applyStockLevels_ShouldRefreshCachesOfReloadedProducts() {
+        // Given
+        Product laptop = new Product("Test Laptop", "High-performance laptop", new BigDecimal("1299.99"),
+                "electronics", 0);
+        laptop.setProductId("prod_001");
+        when(productRepository.applyStockLevels(levels)).thenReturn(1L);
+        when(productRepository.findByProductIdInAndActiveTrue(List.of("prod_001", "prod_002")))
+                .thenReturn(List.of(laptop));
+
+        // When
+        long changed = inventorySyncService.applyStockLevels(levels);
+
+        // Then
+        assertThat(changed).isEqualTo(1);
+        verify(cacheRefresher).refreshStock(List.of(laptop));
+    }
+
+    @Test
+    void applyStockLevels_ShouldLeaveCachesAloneWhenEveryLevelIsStale() {
+        // Given
+        when(productRepository.applyStockLevels(levels)).thenReturn(0L);
+
+        // When
+        long changed = inventorySyncService.applyStockLevels(levels);
+
+        // Then
+        assertThat(changed).isZero();
+        verify(productRepository, never()).findByProductIdInAndActiveTrue(anyList());
+        verifyNoInteractions(cacheRefresher);
+    }
+}
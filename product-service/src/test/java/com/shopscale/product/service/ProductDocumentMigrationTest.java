@@ -0,0 +1,40 @@
+package com.shopscale.product.service;
+
+import com.shopscale.product.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductDocumentMigrationTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Test
+    void onStartup_ShouldRunEveryStepEvenIfOneFails() {
+        // Given
+        when(productRepository.convertStringPrices()).thenThrow(new IllegalStateException("mongo down"));
+
+        // When / Then - startup continues; the next start retries
+        assertThatCode(() -> new ProductDocumentMigration(productRepository, true).onStartup())
+                .doesNotThrowAnyException();
+        verify(productRepository).convertStringPrices();
+        verify(productRepository).backfillNameTokens();
+    }
+
+    @Test
+    void onStartup_ShouldDoNothingWhenDisabled() {
+        // When
+        new ProductDocumentMigration(productRepository, false).onStartup();
+
+        // Then
+        verifyNoInteractions(productRepository);
+    }
+}
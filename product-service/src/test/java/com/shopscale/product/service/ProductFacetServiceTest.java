@@ -0,0 +1,104 @@
+package com.shopscale.product.service;
+
+import com.shopscale.product.dto.ProductFacets;
+import com.shopscale.product.dto.ProductFacets.CategoryFacet;
+import com.shopscale.product.dto.ProductFacets.PriceRange;
+import com.shopscale.product.repository.ProductRepository;
+import com.shopscale.product.search.ProductPriceIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductFacetServiceTest {
+
+    private static final List<BigDecimal> BOUNDARIES = List.of(new BigDecimal("10"), new BigDecimal("100"));
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ProductPriceIndex priceIndex;
+
+    private ProductFacetService facetService;
+
+    @BeforeEach
+    void setUp() {
+        facetService = new ProductFacetService(productRepository, priceIndex, BOUNDARIES);
+    }
+
+    @Test
+    void getFacets_ShouldCountFromIndexWithoutQueryingDatabase() {
+        // Given
+        when(priceIndex.priceHistograms(BOUNDARIES)).thenReturn(Optional.of(Map.of(
+                "furniture", new long[]{0, 1, 2},
+                "electronics", new long[]{4, 0, 1})));
+
+        // When
+        ProductFacets facets = facetService.getFacets();
+
+        // Then
+        assertThat(facets.total()).isEqualTo(8);
+        assertThat(facets.categories()).extracting(CategoryFacet::category, CategoryFacet::count)
+                .containsExactly(tuple("electronics", 5L), tuple("furniture", 3L));
+        assertThat(facets.priceRanges()).containsExactly(
+                new PriceRange(null, new BigDecimal("10"), 4),
+                new PriceRange(new BigDecimal("10"), new BigDecimal("100"), 1),
+                new PriceRange(new BigDecimal("100"), null, 3));
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void getFacets_ShouldAggregateInDatabaseUntilIndexIsBuilt() {
+        // Given
+        when(priceIndex.priceHistograms(BOUNDARIES)).thenReturn(Optional.empty());
+        when(productRepository.aggregatePriceHistograms(BOUNDARIES))
+                .thenReturn(Map.of("electronics", new long[]{0, 2, 0}));
+
+        // When
+        ProductFacets facets = facetService.getFacets();
+
+        // Then
+        assertThat(facets.total()).isEqualTo(2);
+        assertThat(facets.categories().get(0).priceRanges()).extracting(PriceRange::count).containsExactly(0L, 2L, 0L);
+    }
+
+    @Test
+    void checkConsistency_ShouldRebuildIndexOnlyWhenCountsDrift() {
+        // Given
+        when(productRepository.aggregatePriceHistograms(BOUNDARIES))
+                .thenReturn(Map.of("electronics", new long[]{0, 2, 0}))
+                .thenReturn(Map.of("electronics", new long[]{0, 2, 0}, "toys", new long[]{1, 0, 0}));
+        when(priceIndex.priceHistograms(BOUNDARIES))
+                .thenReturn(Optional.of(Map.of("electronics", new long[]{0, 2, 0})));
+
+        // When
+        boolean first = facetService.checkConsistency();
+        boolean second = facetService.checkConsistency();
+
+        // Then
+        assertThat(first).isTrue();
+        assertThat(second).isFalse();
+        verify(priceIndex, times(1)).rebuild();
+    }
+
+    @Test
+    void constructor_ShouldRejectUnorderedBoundaries() {
+        // When & Then
+        assertThatThrownBy(() -> new ProductFacetService(productRepository, priceIndex,
+                List.of(new BigDecimal("100"), new BigDecimal("10"))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
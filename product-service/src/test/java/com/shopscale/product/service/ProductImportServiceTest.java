@@ -0,0 +1,260 @@
+package com.shopscale.product.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.shopscale.product.cache.ProductCacheEvictor;
+import com.shopscale.product.cache.ProductCacheEvictor.InsertionTracker;
+import com.shopscale.product.domain.Product;
+import com.shopscale.product.dto.ProductImportStatus;
+import com.shopscale.product.dto.ProductImportStatus.RowError;
+import com.shopscale.product.event.ProductChangedEvent;
+import com.shopscale.product.exception.ImportQueueFullException;
+import com.shopscale.product.mapper.ProductMapper;
+import jakarta.validation.Validation;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductImportServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    @Mock
+    private ProductCacheEvictor cacheEvictor;
+
+    @Mock
+    private InsertionTracker insertions;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> redisValues;
+
+    private ProductImportService importService;
+    private final List<List<Product>> writtenBatches = new ArrayList<>();
+    // Stands in for Redis, which every instance reads statuses from
+    private final Map<String, String> savedStatuses = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        importService = new ProductImportService(mongoTemplate, new ProductMapper(),
+                Validation.buildDefaultValidatorFactory().getValidator(), cacheEvictor, eventPublisher,
+                JsonMapper.builder().findAndAddModules().build(), redisTemplate, 2, 1, 1, 100, Duration.ofHours(1));
+        lenient().when(redisTemplate.opsForValue()).thenReturn(redisValues);
+        lenient().doAnswer(invocation -> savedStatuses.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(redisValues).set(anyString(), anyString(), any(Duration.class));
+        lenient().when(redisValues.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenAnswer(invocation ->
+                savedStatuses.putIfAbsent(invocation.getArgument(0), invocation.getArgument(1)) == null);
+        lenient().when(redisValues.get(anyString()))
+                .thenAnswer(invocation -> savedStatuses.get(invocation.<String>getArgument(0)));
+        lenient().when(cacheEvictor.trackInsertions()).thenReturn(insertions);
+        lenient().when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class))
+                .thenReturn(bulkOperations);
+        lenient().when(bulkOperations.insert(anyList())).thenAnswer(invocation -> {
+            writtenBatches.add(List.copyOf(invocation.getArgument(0)));
+            return bulkOperations;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        importService.shutdown();
+    }
+
+    @Test
+    void runImport_ShouldWriteValidNdjsonRowsInBatchesAndReportBadOnes() {
+        // Given
+        String ndjson = """
+                {"name":"Laptop","price":999.99,"category":"electronics","stockQuantity":5}
+                {"name":"Mouse","price":19.99,"category":"electronics","stockQuantity":50}
+
+                {"name":"Chair","price":-1,"category":"furniture","stockQuantity":3}
+                {not json
+                {"name":"Desk","price":249.00,"category":"furniture","stockQuantity":0}
+                """;
+        ProductImportJob job = new ProductImportJob("import_1", 100);
+
+        // When
+        importService.runImport(job, new StringReader(ndjson), ProductImportReader.Format.NDJSON);
+
+        // Then
+        ProductImportStatus status = job.status();
+        assertThat(status.state()).isEqualTo(ProductImportStatus.State.COMPLETED);
+        assertThat(status.rowsRead()).isEqualTo(5);
+        assertThat(status.inserted()).isEqualTo(3);
+        assertThat(status.failed()).isEqualTo(2);
+        assertThat(status.errors()).extracting(RowError::line).containsExactly(4L, 5L);
+        assertThat(status.errors().get(0).message()).isEqualTo("price: Price must be positive");
+
+        assertThat(writtenBatches).hasSize(2);
+        assertThat(writtenBatches.get(0)).extracting(Product::getName).containsExactly("Laptop", "Mouse");
+        assertThat(writtenBatches.get(1)).extracting(Product::getName).containsExactly("Desk");
+        assertThat(writtenBatches.get(0)).allSatisfy(product -> assertThat(product.getProductId()).isNotBlank());
+        verify(insertions, times(3)).add(any(Product.class));
+        verify(eventPublisher, times(2)).publishEvent(any(ProductChangedEvent.class));
+        verify(cacheEvictor, times(1)).evict(insertions);
+    }
+
+    @Test
+    void runImport_ShouldParseCsvWithHeaderAndQuotedFields() {
+        // Given
+        String csv = """
+                name,price,category,stockQuantity,supplierSku
+                "Desk, oak","249.00",furniture,4,SKU-1
+                "The ""Pro"" Lamp",39.5,lighting,12,SKU-2
+                Stool,cheap,furniture,1,SKU-3
+                """;
+        ProductImportJob job = new ProductImportJob("import_2", 100);
+
+        // When
+        importService.runImport(job, new StringReader(csv), ProductImportReader.Format.CSV);
+
+        // Then
+        ProductImportStatus status = job.status();
+        assertThat(status.inserted()).isEqualTo(2);
+        assertThat(status.errors()).containsExactly(new RowError(4, "price: not a number: cheap"));
+        assertThat(writtenBatches.get(0)).extracting(Product::getName)
+                .containsExactly("Desk, oak", "The \"Pro\" Lamp");
+        assertThat(writtenBatches.get(0).get(1).getPrice()).isEqualByComparingTo("39.5");
+    }
+
+    @Test
+    void runImport_ShouldReportRowsRejectedByMongoAndKeepTheRestOfTheBatch() {
+        // Given
+        BulkWriteError duplicate = new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), 0);
+        MongoBulkWriteException cause = new MongoBulkWriteException(
+                BulkWriteResult.acknowledged(1, 0, 0, 0, List.of(), List.of()), List.of(duplicate), null,
+                new ServerAddress(), Set.of());
+        when(bulkOperations.execute()).thenThrow(new BulkOperationException("Bulk write failed", cause));
+        String ndjson = """
+                {"name":"Laptop","price":999.99,"category":"electronics","stockQuantity":5}
+                {"name":"Mouse","price":19.99,"category":"electronics","stockQuantity":50}
+                """;
+        ProductImportJob job = new ProductImportJob("import_3", 100);
+
+        // When
+        importService.runImport(job, new StringReader(ndjson), ProductImportReader.Format.NDJSON);
+
+        // Then
+        ProductImportStatus status = job.status();
+        assertThat(status.inserted()).isEqualTo(1);
+        assertThat(status.errors()).containsExactly(new RowError(1, "E11000 duplicate key"));
+        ArgumentCaptor<ProductChangedEvent> event = ArgumentCaptor.forClass(ProductChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().products()).extracting(Product::getName).containsExactly("Mouse");
+    }
+
+    @Test
+    void runImport_ShouldFailJobButStillEvictWhenCsvHeaderIsUnusable() {
+        // Given
+        ProductImportJob job = new ProductImportJob("import_4", 100);
+
+        // When
+        importService.runImport(job, new StringReader("sku,cost\nA,1\n"), ProductImportReader.Format.CSV);
+
+        // Then
+        assertThat(job.status().state()).isEqualTo(ProductImportStatus.State.FAILED);
+        assertThat(job.status().message()).contains("name column");
+        verify(cacheEvictor).evict(insertions);
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void startImport_ShouldRunInBackgroundAndExposeStatus() throws Exception {
+        // Given
+        byte[] body = "{\"name\":\"Laptop\",\"price\":999.99,\"category\":\"electronics\",\"stockQuantity\":5}\n"
+                .getBytes(StandardCharsets.UTF_8);
+
+        // When
+        ProductImportStatus queued = importService.startImport(
+                MediaType.parseMediaType("application/x-ndjson"), new ByteArrayInputStream(body));
+
+        // Then
+        ProductImportStatus status = queued;
+        for (int i = 0; i < 200 && status.finishedAt() == null; i++) {
+            Thread.sleep(10);
+            status = importService.getStatus(queued.importId()).orElseThrow();
+        }
+        assertThat(status.state()).isEqualTo(ProductImportStatus.State.COMPLETED);
+        assertThat(status.inserted()).isEqualTo(1);
+        assertThat(importService.getStatus("unknown")).isEmpty();
+    }
+
+    @Test
+    void startImport_ShouldRejectUploadsOnceTheQueueIsFull() throws Exception {
+        // Given - one import running and one waiting fill the single slot and queue
+        CountDownLatch release = new CountDownLatch(1);
+        when(cacheEvictor.trackInsertions()).thenAnswer(invocation -> {
+            release.await();
+            return insertions;
+        });
+        MediaType ndjson = MediaType.parseMediaType("application/x-ndjson");
+        importService.startImport(ndjson, new ByteArrayInputStream(new byte[0]));
+        String waiting = importService.startImport(ndjson, new ByteArrayInputStream(new byte[0])).importId();
+
+        // When & Then
+        assertThatThrownBy(() -> importService.startImport(ndjson, new ByteArrayInputStream(new byte[0])))
+                .isInstanceOf(ImportQueueFullException.class);
+        assertThat(savedStatuses).hasSize(2);
+
+        // Both accepted imports still run
+        release.countDown();
+        ProductImportStatus status = importService.getStatus(waiting).orElseThrow();
+        for (int i = 0; i < 200 && status.finishedAt() == null; i++) {
+            Thread.sleep(10);
+            status = importService.getStatus(waiting).orElseThrow();
+        }
+        assertThat(status.state()).isEqualTo(ProductImportStatus.State.COMPLETED);
+    }
+
+    @Test
+    void startImport_ShouldRejectUnsupportedContentType() {
+        // When & Then
+        assertThatThrownBy(() -> importService.startImport(MediaType.APPLICATION_XML,
+                new ByteArrayInputStream(new byte[0])))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
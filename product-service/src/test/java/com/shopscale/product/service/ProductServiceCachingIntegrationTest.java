@@ -1,6 +1,9 @@
 package com.shopscale.product.service;
 
+import com.shopscale.product.cache.TwoTierCache;
 import com.shopscale.product.domain.Product;
+import com.shopscale.product.domain.ProductQuery;
+import com.shopscale.product.domain.ProductSummary;
 import com.shopscale.product.dto.CreateProductRequest;
 import com.shopscale.product.repository.ProductRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -100,53 +103,56 @@ class ProductServiceCachingIntegrationTest {
     }
 
     @Test
-    void getAllProducts_ShouldCacheResult() {
-        // First call
-        List<Product> products1 = productService.getAllProducts();
-        assertThat(products1).hasSize(1);
+    void getProducts_ShouldShareEntriesWithSingleProductCache() {
+        // First call - loads from database and writes entries back in bulk
+        List<Product> products1 = productService.getProducts(List.of(testProduct.getProductId(), "unknown"));
+        assertThat(products1).extracting(Product::getProductId).containsExactly(testProduct.getProductId());
 
-        // Verify cache
+        // Verify the entry is readable through the regular cache API
         var cache = cacheManager.getCache("products");
         assertThat(cache).isNotNull();
-        var cachedValue = cache.get("all");
+        ((TwoTierCache) cache).invalidateLocalAll();
+        var cachedValue = cache.get(testProduct.getProductId());
         assertThat(cachedValue).isNotNull();
 
-        // Second call - should use cache
-        List<Product> products2 = productService.getAllProducts();
+        // Second call - served from cache
+        List<Product> products2 = productService.getProducts(List.of(testProduct.getProductId()));
         assertThat(products2).hasSize(1);
     }
 
     @Test
-    void getProductsByCategory_ShouldCacheResult() {
+    void findProducts_ShouldCacheResult() {
         // First call
-        List<Product> products1 = productService.getProductsByCategory("electronics");
+        ProductQuery query = new ProductQuery("electronics", null, null, null, false);
+        List<ProductSummary> products1 = productService.findProducts(query, null, 20).items();
         assertThat(products1).hasSize(1);
 
         // Verify cache
-        var cache = cacheManager.getCache("products");
+        var cache = cacheManager.getCache("product-summaries");
         assertThat(cache).isNotNull();
-        var cachedValue = cache.get("category:electronics");
+        var cachedValue = cache.get("query:category=electronics&after=&limit=20");
         assertThat(cachedValue).isNotNull();
 
         // Second call - should use cache
-        List<Product> products2 = productService.getProductsByCategory("electronics");
+        List<ProductSummary> products2 = productService.findProducts(query, null, 20).items();
         assertThat(products2).hasSize(1);
     }
 
     @Test
     void searchProducts_ShouldCacheResult() {
         // First call
-        List<Product> products1 = productService.searchProducts("laptop");
+        ProductQuery query = new ProductQuery(null, "laptop", null, null, false);
+        List<ProductSummary> products1 = productService.searchProducts(query, 0, 20).items();
         assertThat(products1).hasSize(1);
 
         // Verify cache
-        var cache = cacheManager.getCache("products");
+        var cache = cacheManager.getCache("product-summaries");
         assertThat(cache).isNotNull();
-        var cachedValue = cache.get("search:laptop");
+        var cachedValue = cache.get("query:search=laptop&page=0&size=20");
         assertThat(cachedValue).isNotNull();
 
         // Second call - should use cache
-        List<Product> products2 = productService.searchProducts("laptop");
+        List<ProductSummary> products2 = productService.searchProducts(query, 0, 20).items();
         assertThat(products2).hasSize(1);
     }
 
@@ -182,11 +188,11 @@ class ProductServiceCachingIntegrationTest {
 
     @Test
     void createProduct_ShouldEvictCache() {
-        // Cache all products
-        productService.getAllProducts();
-        var cache = cacheManager.getCache("products");
+        // Cache the in-stock products
+        productService.findProducts(new ProductQuery(null, null, null, null, true), null, 20);
+        var cache = cacheManager.getCache("product-summaries");
         assertThat(cache).isNotNull();
-        assertThat(cache.get("all")).isNotNull();
+        assertThat(cache.get("query:inStock=true&after=&limit=20")).isNotNull();
 
         // Create new product - should evict cache
         CreateProductRequest newRequest = new CreateProductRequest(
@@ -199,7 +205,7 @@ class ProductServiceCachingIntegrationTest {
         productService.createProduct(newRequest);
 
         // Cache should be cleared
-        assertThat(cache.get("all")).isNull();
+        assertThat(cache.get("query:inStock=true&after=&limit=20")).isNull();
     }
 
     @Test
@@ -1,25 +1,47 @@
 package com.shopscale.product.service;
 
+import com.shopscale.product.cache.ProductCacheEvictor;
+import com.shopscale.product.cache.TwoTierCache;
 import com.shopscale.product.domain.Product;
+import com.shopscale.product.domain.ProductCursor;
+import com.shopscale.product.domain.ProductPage;
+import com.shopscale.product.domain.ProductETags;
+import com.shopscale.product.domain.ProductList;
+import com.shopscale.product.domain.ProductQuery;
+import com.shopscale.product.domain.ProductSummary;
 import com.shopscale.product.dto.CreateProductRequest;
+import com.shopscale.product.event.ProductChangedEvent;
+import com.shopscale.product.exception.InsufficientStockException;
 import com.shopscale.product.exception.ProductNotFoundException;
 import com.shopscale.product.mapper.ProductMapper;
 import com.shopscale.product.repository.ProductRepository;
+import com.shopscale.product.search.ProductPriceIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,6 +53,18 @@ class ProductServiceTest {
     @Mock
     private ProductMapper productMapper;
 
+    @Mock
+    private ProductCacheEvictor cacheEvictor;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private ProductPriceIndex priceIndex;
+
     @InjectMocks
     private ProductService productService;
 
@@ -70,6 +104,8 @@ class ProductServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.getName()).isEqualTo("Test Laptop");
         verify(productRepository).save(any(Product.class));
+        verify(cacheEvictor).evict(testProduct);
+        verify(eventPublisher).publishEvent(new ProductChangedEvent(testProduct));
     }
 
     @Test
@@ -100,134 +136,392 @@ class ProductServiceTest {
     }
 
     @Test
-    void getAllProducts_ShouldReturnAllActiveProducts() {
+    void findProducts_ShouldReturnProductsInCategory() {
         // Given
-        List<Product> products = List.of(testProduct);
-        when(productRepository.findByActiveTrue()).thenReturn(products);
+        ProductQuery query = new ProductQuery("electronics", null, null, null, false);
+        when(productRepository.findSummaryPage(query, null, 21))
+                .thenReturn(List.of(ProductSummary.of(testProduct)));
 
         // When
-        List<Product> result = productService.getAllProducts();
+        ProductPage page = productService.findProducts(query, null, 20);
 
         // Then
-        assertThat(result).hasSize(1);
-        verify(productRepository).findByActiveTrue();
+        assertThat(page.items()).hasSize(1);
+        assertThat(page.items().get(0).category()).isEqualTo("electronics");
+        assertThat(page.isLast()).isTrue();
+        verify(productRepository).findSummaryPage(query, null, 21);
     }
 
     @Test
-    void getProductsByCategory_ShouldReturnProductsInCategory() {
+    void searchProducts_ShouldReturnMatchingProducts() {
         // Given
-        List<Product> products = List.of(testProduct);
-        when(productRepository.findByCategoryAndActiveTrue("electronics"))
-                .thenReturn(products);
+        ProductQuery query = new ProductQuery(null, "laptop", null, null, false);
+        when(productRepository.findSummariesByQuery(query, PageRequest.of(1, 20)))
+                .thenReturn(List.of(ProductSummary.of(testProduct)));
 
         // When
-        List<Product> result = productService.getProductsByCategory("electronics");
+        ProductList result = productService.searchProducts(query, 1, 20);
 
-        // Then
-        assertThat(result).hasSize(1);
-        assertThat(result.get(0).getCategory()).isEqualTo("electronics");
-        verify(productRepository).findByCategoryAndActiveTrue("electronics");
+        // Then - the ETag is computed once, with the cached list
+        assertThat(result.items()).hasSize(1);
+        assertThat(result.etag()).isEqualTo(ProductETags.of(List.of(ProductSummary.of(testProduct))));
+        verify(productRepository).findSummariesByQuery(query, PageRequest.of(1, 20));
     }
 
     @Test
-    void searchProducts_ShouldReturnMatchingProducts() {
+    void searchProducts_ShouldRejectMissingSearchOrBadPaging() {
+        assertThatThrownBy(() -> productService.searchProducts(new ProductQuery("electronics", null, null, null, false), 0, 20))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> productService.searchProducts(new ProductQuery(null, "laptop", null, null, false), -1, 20))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void getProductsByPriceRange_ShouldPageThroughIndexAndReadProductsFromCache() {
         // Given
-        List<Product> products = List.of(testProduct);
-        when(productRepository.findByNameContainingIgnoreCaseAndActiveTrue("laptop"))
-                .thenReturn(products);
+        Product chair = new Product("Office Chair", "Ergonomic chair", new BigDecimal("199.99"), "furniture", 5);
+        chair.setProductId("prod_002");
+        TwoTierCache productCache = mock(TwoTierCache.class);
+        when(cacheManager.getCache("products")).thenReturn(productCache);
+        Map<Object, Object> cached = new LinkedHashMap<>();
+        cached.put("prod_001", testProduct);
+        when(productCache.getAll(List.of("prod_002", "prod_001"))).thenReturn(cached);
+        when(productRepository.findByProductIdInAndActiveTrue(List.of("prod_002"))).thenReturn(List.of(chair));
+        when(priceIndex.findIds(null, new BigDecimal("100"), new BigDecimal("1500"), 20, 20))
+                .thenReturn(Optional.of(List.of("prod_002", "prod_001")));
 
         // When
-        List<Product> result = productService.searchProducts("laptop");
+        List<ProductSummary> result = productService.getProductsByPriceRange(
+                new ProductQuery(null, null, new BigDecimal("100"), new BigDecimal("1500"), false), 1, 20);
+
+        // Then - index order is kept and no range query reaches Mongo
+        assertThat(result).containsExactly(ProductSummary.of(chair), ProductSummary.of(testProduct));
+        verify(productRepository, never()).findSummariesByQuery(any(), any());
+    }
+
+    @Test
+    void getProductsByPriceRange_ShouldPassPageOffsetsBeyondIntRange() {
+        // Given - page * size overflows int
+        int page = Integer.MAX_VALUE;
+        when(priceIndex.findIds(null, new BigDecimal("100"), null, (long) page * 500, 500))
+                .thenReturn(Optional.of(List.of()));
+
+        // When
+        List<ProductSummary> result = productService.getProductsByPriceRange(
+                new ProductQuery(null, null, new BigDecimal("100"), null, false), page, 500);
 
         // Then
-        assertThat(result).hasSize(1);
-        verify(productRepository).findByNameContainingIgnoreCaseAndActiveTrue("laptop");
+        assertThat(result).isEmpty();
+    }
+
+    @Test
+    void getProductsByPriceRange_ShouldLeaveOutProductsRepricedSinceIndexed() {
+        // Given - the index still lists the chair at its old price
+        Product chair = new Product("Office Chair", "Ergonomic chair", new BigDecimal("89.99"), "furniture", 5);
+        chair.setProductId("prod_002");
+        when(cacheManager.getCache("products")).thenReturn(null);
+        when(productRepository.findByProductIdInAndActiveTrue(List.of("prod_002", "prod_001")))
+                .thenReturn(List.of(chair, testProduct));
+        when(priceIndex.findIds(null, new BigDecimal("100"), null, 0, 20))
+                .thenReturn(Optional.of(List.of("prod_002", "prod_001")));
+
+        // When
+        List<ProductSummary> result = productService.getProductsByPriceRange(
+                new ProductQuery(null, null, new BigDecimal("100"), null, false), 0, 20);
+
+        // Then
+        assertThat(result).containsExactly(ProductSummary.of(testProduct));
     }
 
     @Test
-    void getProductsByPriceRange_ShouldReturnProductsInRange() {
+    void getProductsByPriceRange_ShouldQueryDatabaseInPriceOrderUntilIndexIsBuilt() {
         // Given
-        BigDecimal minPrice = new BigDecimal("1000.00");
-        BigDecimal maxPrice = new BigDecimal("1500.00");
-        List<Product> products = List.of(testProduct);
-        when(productRepository.findByPriceBetweenAndActiveTrue(minPrice, maxPrice))
-                .thenReturn(products);
+        ProductQuery query = new ProductQuery("electronics", null, new BigDecimal("1000.00"), null, false);
+        when(priceIndex.findIds("electronics", new BigDecimal("1000.00"), null, 0, 50)).thenReturn(Optional.empty());
+        when(productRepository.findSummariesByQuery(query, PageRequest.of(0, 50, Sort.by("price", "productId"))))
+                .thenReturn(List.of(ProductSummary.of(testProduct)));
 
         // When
-        List<Product> result = productService.getProductsByPriceRange(minPrice, maxPrice);
+        List<ProductSummary> result = productService.getProductsByPriceRange(query, 0, 50);
 
         // Then
         assertThat(result).hasSize(1);
-        verify(productRepository).findByPriceBetweenAndActiveTrue(minPrice, maxPrice);
+        verifyNoInteractions(cacheManager);
     }
 
     @Test
-    void getInStockProducts_ShouldReturnOnlyInStockProducts() {
+    void getProductsByPriceRange_ShouldRejectOtherFilters() {
+        // When & Then
+        assertThatThrownBy(() -> productService.getProductsByPriceRange(
+                new ProductQuery(null, null, new BigDecimal("10"), null, true), 0, 20))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> productService.getProductsByPriceRange(
+                new ProductQuery("electronics", null, null, null, false), 0, 20))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(priceIndex);
+    }
+
+    @Test
+    void findProducts_ShouldReturnOnlyInStockProducts() {
         // Given
-        List<Product> products = List.of(testProduct);
-        when(productRepository.findInStockProducts()).thenReturn(products);
+        ProductQuery query = new ProductQuery(null, null, null, null, true);
+        when(productRepository.findSummaryPage(query, null, 21))
+                .thenReturn(List.of(ProductSummary.of(testProduct)));
 
         // When
-        List<Product> result = productService.getInStockProducts();
+        List<ProductSummary> result = productService.findProducts(query, null, 20).items();
 
         // Then
         assertThat(result).hasSize(1);
-        assertThat(result.get(0).getStockQuantity()).isGreaterThan(0);
-        verify(productRepository).findInStockProducts();
+        assertThat(result.get(0).inStock()).isTrue();
+        verify(productRepository).findSummaryPage(query, null, 21);
     }
 
     @Test
     void updateStock_ShouldUpdateStockQuantity() {
         // Given
-        when(productRepository.findByProductIdAndActiveTrue("prod_001"))
-                .thenReturn(Optional.of(testProduct));
-        when(productRepository.save(any(Product.class))).thenReturn(testProduct);
+        testProduct.updateStock(100);
+        when(productRepository.updateStock("prod_001", 100, null)).thenReturn(Optional.of(testProduct));
 
         // When
         Product result = productService.updateStock("prod_001", 100);
 
-        // Then
+        // Then - a single in-place update, no read or full-document save
         assertThat(result.getStockQuantity()).isEqualTo(100);
-        verify(productRepository).save(testProduct);
+        verify(productRepository, never()).save(any(Product.class));
+        verify(productRepository, never()).findByProductIdAndActiveTrue(anyString());
+        verify(cacheEvictor).evict(testProduct);
+        verify(eventPublisher).publishEvent(new ProductChangedEvent(testProduct));
+    }
+
+    @Test
+    void updateStock_ShouldReportVersionConflictWhenProductChangedConcurrently() {
+        // Given
+        when(productRepository.updateStock("prod_001", 100, 3L)).thenReturn(Optional.empty());
+        when(productRepository.findByProductIdAndActiveTrue("prod_001")).thenReturn(Optional.of(testProduct));
+
+        // When & Then
+        assertThatThrownBy(() -> productService.updateStock("prod_001", 100, 3L))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        verifyNoInteractions(cacheEvictor);
+    }
+
+    @Test
+    void updateStock_ShouldRejectNegativeQuantity() {
+        // When & Then
+        assertThatThrownBy(() -> productService.updateStock("prod_001", -1))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void adjustStock_ShouldApplyDeltaAtomically() {
+        // Given
+        testProduct.updateStock(47);
+        when(productRepository.adjustStock("prod_001", -3)).thenReturn(Optional.of(testProduct));
+
+        // When
+        Product result = productService.adjustStock("prod_001", -3);
+
+        // Then
+        assertThat(result.getStockQuantity()).isEqualTo(47);
+        verify(cacheEvictor).evict(testProduct);
+        verify(eventPublisher).publishEvent(new ProductChangedEvent(testProduct));
+    }
+
+    @Test
+    void adjustStock_ShouldRejectDecrementBelowZero() {
+        // Given
+        when(productRepository.adjustStock("prod_001", -51)).thenReturn(Optional.empty());
+        when(productRepository.findByProductIdAndActiveTrue("prod_001")).thenReturn(Optional.of(testProduct));
+
+        // When & Then
+        assertThatThrownBy(() -> productService.adjustStock("prod_001", -51))
+                .isInstanceOf(InsufficientStockException.class);
+        verifyNoInteractions(cacheEvictor);
+    }
+
+    @Test
+    void adjustStock_ShouldThrowExceptionWhenNotExists() {
+        // Given
+        when(productRepository.adjustStock("nonexistent", 5)).thenReturn(Optional.empty());
+        when(productRepository.findByProductIdAndActiveTrue("nonexistent")).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThatThrownBy(() -> productService.adjustStock("nonexistent", 5))
+                .isInstanceOf(ProductNotFoundException.class);
     }
 
     @Test
     void updatePrice_ShouldUpdateProductPrice() {
         // Given
         BigDecimal newPrice = new BigDecimal("1499.99");
-        when(productRepository.findByProductIdAndActiveTrue("prod_001"))
-                .thenReturn(Optional.of(testProduct));
-        when(productRepository.save(any(Product.class))).thenReturn(testProduct);
+        testProduct.updatePrice(newPrice);
+        when(productRepository.updatePrice("prod_001", newPrice, null)).thenReturn(Optional.of(testProduct));
 
         // When
         Product result = productService.updatePrice("prod_001", newPrice);
 
         // Then
         assertThat(result.getPrice()).isEqualTo(newPrice);
-        verify(productRepository).save(testProduct);
+        verify(productRepository, never()).save(any(Product.class));
+        verify(cacheEvictor).evict(testProduct);
+        verify(eventPublisher).publishEvent(new ProductChangedEvent(testProduct));
+    }
+
+    @Test
+    void updatePrice_ShouldThrowExceptionWhenNotExists() {
+        // Given
+        BigDecimal newPrice = new BigDecimal("1499.99");
+        when(productRepository.updatePrice("nonexistent", newPrice, null)).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThatThrownBy(() -> productService.updatePrice("nonexistent", newPrice))
+                .isInstanceOf(ProductNotFoundException.class);
     }
 
     @Test
     void deactivateProduct_ShouldSetProductToInactive() {
         // Given
-        when(productRepository.findById("prod_001")).thenReturn(Optional.of(testProduct));
-        when(productRepository.save(any(Product.class))).thenReturn(testProduct);
+        testProduct.deactivate();
+        when(productRepository.deactivate("prod_001")).thenReturn(Optional.of(testProduct));
 
         // When
         productService.deactivateProduct("prod_001");
 
         // Then
-        assertThat(testProduct.isActive()).isFalse();
-        verify(productRepository).save(testProduct);
+        verify(productRepository).deactivate("prod_001");
+        verify(productRepository, never()).save(any(Product.class));
+        verify(cacheEvictor).evict(testProduct);
+        verify(eventPublisher).publishEvent(new ProductChangedEvent(testProduct));
     }
 
     @Test
     void deactivateProduct_ShouldThrowExceptionWhenNotExists() {
         // Given
-        when(productRepository.findById(anyString())).thenReturn(Optional.empty());
+        when(productRepository.deactivate(anyString())).thenReturn(Optional.empty());
 
         // When & Then
         assertThatThrownBy(() -> productService.deactivateProduct("nonexistent"))
                 .isInstanceOf(ProductNotFoundException.class);
     }
+
+    @Test
+    void getProductPage_ShouldReturnCursorWhenMoreProductsFollow() {
+        // Given
+        Product second = new Product("Phone", "Smartphone", new BigDecimal("699.00"), "electronics", 10);
+        second.setProductId("prod_002");
+        Product third = new Product("Tablet", "Tablet", new BigDecimal("499.00"), "electronics", 5);
+        third.setProductId("prod_003");
+        List<ProductSummary> summaries = Stream.of(testProduct, second, third).map(ProductSummary::of).toList();
+        when(productRepository.findSummaryPage(ProductQuery.ALL, null, 3)).thenReturn(summaries);
+
+        // When
+        ProductPage page = productService.getProductPage(null, 2);
+
+        // Then - the extra row is dropped and becomes the next page's start
+        assertThat(page.items()).containsExactly(summaries.get(0), summaries.get(1));
+        assertThat(ProductCursor.decode(page.nextCursor())).isEqualTo(ProductCursor.of(second));
+    }
+
+    @Test
+    void getProductPage_ShouldQueryAfterCursorAndMarkLastPage() {
+        // Given
+        ProductCursor cursor = ProductCursor.of(testProduct);
+        when(productRepository.findSummaryPage(ProductQuery.ALL, cursor, 3)).thenReturn(List.of());
+
+        // When
+        ProductPage page = productService.getProductPage(cursor.encode(), 2);
+
+        // Then
+        assertThat(page.items()).isEmpty();
+        assertThat(page.isLast()).isTrue();
+    }
+
+    @Test
+    void getProductPage_ShouldRejectInvalidLimitAndCursor() {
+        assertThatThrownBy(() -> productService.getProductPage(null, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> productService.getProductPage("not-a-cursor", 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void streamActiveProducts_ShouldPassEveryProductToConsumer() {
+        // Given
+        when(productRepository.streamByActiveTrue(any(Sort.class))).thenReturn(Stream.of(testProduct));
+        List<Product> seen = new ArrayList<>();
+
+        // When
+        productService.streamActiveProducts(seen::add);
+
+        // Then
+        assertThat(seen).containsExactly(testProduct);
+    }
+
+    @Test
+    void findProducts_ShouldDelegateCombinedFiltersToRepository() {
+        // Given
+        ProductQuery query = new ProductQuery("electronics", null, new BigDecimal("1000"), null, true);
+        ProductCursor cursor = ProductCursor.of(testProduct);
+        when(productRepository.findSummaryPage(query, cursor, 11))
+                .thenReturn(List.of(ProductSummary.of(testProduct)));
+
+        // When
+        List<ProductSummary> result = productService.findProducts(query, cursor.encode(), 10).items();
+
+        // Then
+        assertThat(result).extracting(ProductSummary::productId).containsExactly("prod_001");
+        assertThat(query.pageCacheKey(cursor.encode(), 10)).isEqualTo(
+                "query:category=electronics&minPrice=1000&inStock=true&after=" + cursor.encode() + "&limit=10");
+        assertThat(ProductQuery.ALL.pageCacheKey(null, 10)).isEqualTo("query:after=&limit=10");
+    }
+
+    @Test
+    void findProducts_ShouldRejectSearchesAndInvalidLimits() {
+        ProductQuery search = new ProductQuery("electronics", "laptop", null, null, false);
+        assertThatThrownBy(() -> productService.findProducts(search, null, 20))
+                .isInstanceOf(IllegalArgumentException.class);
+        ProductQuery category = new ProductQuery("electronics", null, null, null, false);
+        assertThatThrownBy(() -> productService.findProducts(category, null, ProductService.MAX_PAGE_SIZE + 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void getProducts_ShouldServeCacheHitsAndLoadMissesInOneQuery() {
+        // Given
+        Product chair = new Product("Office Chair", "Ergonomic chair", new BigDecimal("199.99"), "furniture", 5);
+        chair.setProductId("prod_002");
+        TwoTierCache productCache = mock(TwoTierCache.class);
+        when(cacheManager.getCache("products")).thenReturn(productCache);
+        Map<Object, Object> cached = new LinkedHashMap<>();
+        cached.put("prod_001", testProduct);
+        when(productCache.getAll(List.of("prod_002", "prod_001", "unknown"))).thenReturn(cached);
+        when(productRepository.findByProductIdInAndActiveTrue(List.of("prod_002", "unknown")))
+                .thenReturn(List.of(chair));
+
+        // When
+        List<Product> result = productService.getProducts(List.of("prod_002", "prod_001", "unknown", "prod_002"));
+
+        // Then - request order is kept, duplicates and unknown IDs are dropped
+        assertThat(result).containsExactly(chair, testProduct);
+        verify(productCache).putAll(eq(Map.of("prod_002", chair)), anyLong());
+    }
+
+    @Test
+    void getProducts_ShouldRejectEmptyOrOversizedBatch() {
+        // When & Then
+        assertThatThrownBy(() -> productService.getProducts(List.of()))
+                .isInstanceOf(IllegalArgumentException.class);
+        List<String> tooMany = new ArrayList<>();
+        for (int i = 0; i <= ProductService.MAX_BATCH_SIZE; i++) {
+            tooMany.add("prod_" + i);
+        }
+        assertThatThrownBy(() -> productService.getProducts(tooMany))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(productRepository);
+    }
 }
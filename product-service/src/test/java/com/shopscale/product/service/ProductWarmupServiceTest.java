@@ -0,0 +1,175 @@
+package com.shopscale.product.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.shopscale.product.cache.HotProductTracker;
+import com.shopscale.product.domain.Product;
+import com.shopscale.product.mapper.ProductMapper;
+import com.shopscale.product.repository.ProductRepository;
+import com.shopscale.product.search.ProductPriceIndex;
+import com.shopscale.product.search.ProductSuggestIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.RedisConnectionFailureException;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static com.shopscale.product.cache.ProductCacheEvictor.PRODUCT_CACHE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductWarmupServiceTest {
+
+    @Mock
+    private ProductService productService;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ProductSuggestIndex suggestIndex;
+
+    @Mock
+    private ProductPriceIndex priceIndex;
+
+    @Mock
+    private HotProductTracker hotProductTracker;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private Cache productCache;
+
+    @TempDir
+    Path tempDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(cacheManager.getCache(PRODUCT_CACHE)).thenReturn(productCache);
+    }
+
+    @Test
+    void warmUp_ShouldLoadHotProductsInBatchesAndReportUpWhenDone() {
+        // Given
+        List<String> hotIds = IntStream.range(0, 150).mapToObj(i -> "prod_" + i).toList();
+        when(hotProductTracker.topIds(1000)).thenReturn(hotIds);
+        when(productService.getProducts(anyList())).thenAnswer(invocation -> invocation.<List<String>>getArgument(0)
+                .stream().map(ProductWarmupServiceTest::product).toList());
+        ProductWarmupService warmupService = warmupService(true, null);
+        assertThat(warmupService.health().getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+
+        // When
+        warmupService.warmUp();
+
+        // Then
+        verify(productService).getProducts(hotIds.subList(0, 100));
+        verify(productService).getProducts(hotIds.subList(100, 150));
+        verify(productService, times(5)).getProduct(anyString());
+        verify(suggestIndex, times(5)).suggest("Pro", ProductSuggestIndex.MAX_LIMIT);
+        verify(productService).getProductPage(null, ProductService.DEFAULT_PAGE_SIZE);
+        assertThat(warmupService.health().getStatus()).isEqualTo(Status.UP);
+    }
+
+    @Test
+    void warmUp_ShouldReportUpEvenWhenRedisIsUnavailable() {
+        // Given
+        when(hotProductTracker.topIds(anyInt())).thenThrow(new RedisConnectionFailureException("down"));
+        ProductWarmupService warmupService = warmupService(true, null);
+
+        // When
+        warmupService.warmUp();
+
+        // Then
+        verifyNoInteractions(productService);
+        assertThat(warmupService.health().getStatus()).isEqualTo(Status.UP);
+    }
+
+    @Test
+    void health_ShouldBeUpWhenWarmupIsDisabled() {
+        // When
+        ProductWarmupService warmupService = warmupService(false, null);
+
+        // Then
+        assertThat(warmupService.health().getStatus()).isEqualTo(Status.UP);
+    }
+
+    @Test
+    void snapshot_ShouldRestoreOnlyProductsWhoseVersionIsUnchanged() {
+        // Given - two hot products are cached at shutdown
+        Path snapshotFile = tempDir.resolve("products.json");
+        Product laptop = product("prod_001");
+        Product chair = product("prod_002");
+        when(hotProductTracker.topIds(1000)).thenReturn(List.of("prod_001", "prod_002", "prod_003"));
+        when(productCache.get("prod_001", Product.class)).thenReturn(laptop);
+        when(productCache.get("prod_002", Product.class)).thenReturn(chair);
+        warmupService(true, snapshotFile).onShutdown();
+        assertThat(Files.exists(snapshotFile)).isTrue();
+
+        // The chair changed while the instance was down
+        when(productRepository.findVersions(List.of("prod_001", "prod_002")))
+                .thenReturn(Map.of("prod_001", 3L, "prod_002", 4L));
+        when(productService.getProducts(any())).thenReturn(List.of(product("prod_002"), product("prod_003")));
+        ProductWarmupService warmupService = warmupService(true, snapshotFile);
+
+        // When
+        warmupService.warmUp();
+
+        // Then
+        verify(productCache).put(eq("prod_001"), any(Product.class));
+        verify(productCache, never()).put(eq("prod_002"), any());
+        verify(productService).getProducts(List.of("prod_002", "prod_003"));
+    }
+
+    @Test
+    void snapshot_ShouldBeIgnoredWhenOlderThanMaxAge() throws Exception {
+        // Given
+        Path snapshotFile = tempDir.resolve("products.json");
+        objectMapper.writeValue(snapshotFile.toFile(), new ProductWarmupService.Snapshot(
+                Instant.now().minus(Duration.ofDays(1)), List.of(product("prod_001"))));
+        when(hotProductTracker.topIds(1000)).thenReturn(List.of());
+
+        // When
+        warmupService(true, snapshotFile).warmUp();
+
+        // Then
+        verifyNoInteractions(productRepository);
+        verify(productCache, never()).put(any(), any());
+    }
+
+    private ProductWarmupService warmupService(boolean enabled, Path snapshotFile) {
+        return new ProductWarmupService(productService, productRepository, suggestIndex, priceIndex,
+                new ProductMapper(), hotProductTracker, cacheManager, objectMapper, enabled, 1000, 5,
+                Duration.ofSeconds(30), snapshotFile != null ? snapshotFile.toString() : "", Duration.ofHours(1));
+    }
+
+    private static Product product(String productId) {
+        Product product = new Product("Product " + productId, "Description", new BigDecimal("19.99"),
+                "electronics", 10);
+        product.setProductId(productId);
+        product.setVersion(3L);
+        return product;
+    }
+}
@@ -11,6 +11,10 @@ db.products.createIndex({ "category": 1 });
 db.products.createIndex({ "name": "text", "description": "text" });
 db.products.createIndex({ "price": 1 });
 db.products.createIndex({ "createdAt": 1 });
+db.products.createIndex({ "active": 1, "createdAt": 1, "_id": 1 }, { name: "active_createdAt_id" });
+db.products.createIndex({ "category": 1, "active": 1, "price": 1 }, { name: "category_active_price" });
+db.products.createIndex({ "active": 1, "price": 1 }, { name: "active_price" });
+db.products.createIndex({ "nameTokens": 1 });
 
 // Insert sample data
 db.products.insertMany([
@@ -100,4 +104,13 @@ db.categories.insertMany([
     }
 ]);
 
+// Derive the lower-cased name words used for short prefix searches (also backfills older documents)
+db.products.find({ "nameTokens": { $exists: false } }).forEach(function (product) {
+    var tokens = product.name.toLowerCase().split(/[^\p{L}\p{N}]+/u).filter(function (token) { return token.length > 0; });
+    db.products.updateOne({ "_id": product._id }, { $set: { "nameTokens": tokens } });
+});
+
+// Optimistic-locking version; documents without one would be treated as new by save()
+db.products.updateMany({ "version": { $exists: false } }, { $set: { "version": NumberLong(0) } });
+
 print("MongoDB initialization completed successfully!");
\ No newline at end of file